@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+#
+# Copyright (C) 2023 Deepak Kumar Jangir
+#
+# Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+# the License. You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+# an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+# specific language governing permissions and limitations under the License.
+#
+# Measures the wall time of starting the CLI and exiting, i.e. the cost paid by every scripted invocation.
+#
+# Usage: scripts/measure-startup.sh [-n runs] [-w warmups] [-- command...]
+# Default command is 'java -jar target/nifi-cli.jar --version'. Examples:
+#   scripts/measure-startup.sh -- target/nifi-cli --version
+#   scripts/measure-startup.sh -- java -XX:SharedArchiveFile=target/quarkus-app/app-cds.jsa -jar target/quarkus-app/quarkus-run.jar --version
+
+set -euo pipefail
+
+runs=20
+warmups=3
+while [[ $# -gt 0 ]]; do
+  case "$1" in
+    -n) runs="$2"; shift 2 ;;
+    -w) warmups="$2"; shift 2 ;;
+    --) shift; break ;;
+    *) echo "Unknown argument: $1" >&2; exit 2 ;;
+  esac
+done
+if [[ $# -eq 0 ]]; then
+  set -- java -jar target/nifi-cli.jar --version
+fi
+
+for ((i = 0; i < warmups; i++)); do
+  "$@" > /dev/null 2>&1 || true
+done
+
+samples=()
+for ((i = 0; i < runs; i++)); do
+  start=$(date +%s%N)
+  "$@" > /dev/null 2>&1 || true
+  end=$(date +%s%N)
+  samples+=($(((end - start) / 1000000)))
+done
+
+printf '%s\n' "${samples[@]}" | sort -n | awk -v cmd="$*" '
+  { v[NR] = $1; sum += $1 }
+  END {
+    printf "command: %s\nruns: %d\nmin: %d ms\nmedian: %d ms\nmean: %.1f ms\np90: %d ms\nmax: %d ms\n", cmd, NR, v[1], v[int((NR + 1) / 2)], sum / NR, v[int(NR * 0.9 + 0.5)], v[NR]
+  }'
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.deepakdaneva.nifi.cli.configs.AppObjectMapperCustomizer;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbConfig;
+import org.apache.nifi.web.api.entity.ProcessGroupFlowEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Jackson and the JSON-B bindings deserializing the {@link ProcessGroupFlowEntity} from payloads of
+ * increasing size, see {@link SyntheticFlowPayloads}. Both the bindings read from a stream like the REST client does.
+ * Run it using {@code ./mvnw -Pdev,benchmark test-compile exec:exec -Djmh.args="FlowDeserialization -prof gc"} to
+ * report the allocations per payload along with the throughput.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FlowDeserializationBenchmark {
+
+    /**
+     * Size of the payload, see {@link SyntheticFlowPayloads#processGroupFlow(int)}
+     */
+    @Param({"10", "1000", "5000"})
+    int size;
+    /**
+     * Payload to deserialize
+     */
+    byte[] payload;
+    /**
+     * Jackson reader configured like the client
+     */
+    ObjectReader jackson;
+    /**
+     * JSON-B instance configured like the client was
+     */
+    Jsonb jsonb;
+
+    /**
+     * Generates the payload and configures the bindings, verifying both of them read the whole flow
+     */
+    @Setup
+    public void setup() {
+        payload = SyntheticFlowPayloads.processGroupFlow(size);
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        AppObjectMapperCustomizer customizer = new AppObjectMapperCustomizer();
+        customizer.customize(objectMapper);
+        jackson = objectMapper.readerFor(ProcessGroupFlowEntity.class);
+        jsonb = JsonbBuilder.create(new JsonbConfig().withDeserializers(new JsonbNiFiDateTimeDeserializer()));
+        verify(jackson());
+        verify(jsonb());
+    }
+
+    /**
+     * Closes the JSON-B instance
+     *
+     * @throws Exception if closing fails
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    /**
+     * Deserializes the payload using Jackson
+     *
+     * @return deserialized flow
+     */
+    @Benchmark
+    public ProcessGroupFlowEntity jackson() {
+        try {
+            return jackson.readValue(new ByteArrayInputStream(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Deserializes the payload using JSON-B
+     *
+     * @return deserialized flow
+     */
+    @Benchmark
+    public ProcessGroupFlowEntity jsonb() {
+        return jsonb.fromJson(new ByteArrayInputStream(payload), ProcessGroupFlowEntity.class);
+    }
+
+    /**
+     * Verifies the flow is fully deserialized
+     *
+     * @param entity deserialized flow
+     */
+    private void verify(ProcessGroupFlowEntity entity) {
+        if (entity.getProcessGroupFlow().getFlow().getProcessGroups().size() != size || entity.getProcessGroupFlow().getFlow().getProcessors().size() != size * 2 || entity.getProcessGroupFlow().getFlow().getConnections().size() != size || entity.getProcessGroupFlow().getLastRefreshed() == null) {
+            throw new IllegalStateException("Payload of size " + size + " is not fully deserialized.");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.models.FlowDefinitionNode;
+import io.github.deepakdaneva.nifi.cli.utils.FlowDefinitionDiff;
+import io.github.deepakdaneva.nifi.cli.utils.FlowDefinitionReader;
+import io.github.deepakdaneva.nifi.cli.utils.FlowHashes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@code diff} command comparing two versions of the same flow differing in one processor: reading both
+ * flow definitions into Merkle trees, comparing them and reading the contents of the differing process group only,
+ * see {@link SyntheticFlowPayloads#flowDefinition(int, int, int)}. Run it using
+ * {@code ./mvnw -Pdev,benchmark test-compile exec:exec -Djmh.args="FlowDiff"}.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FlowDiffBenchmark {
+
+    /**
+     * Processors of every process group, the connections are one less
+     */
+    static final int PROCESSORS_PER_GROUP = 50;
+    /**
+     * Number of the processors and connections of the flow
+     */
+    @Param({"10000", "100000"})
+    int components;
+    /**
+     * Definitions of the flow before and after the change
+     */
+    byte[][] definitions;
+    /**
+     * Fields left out of the comparison
+     */
+    Set<String> ignored;
+    /**
+     * Reader of the definitions
+     */
+    FlowDefinitionReader reader;
+
+    /**
+     * Generates the definitions and compares them once, verifying the change is the only difference found
+     *
+     * @throws Exception if a definition is not readable
+     */
+    @Setup
+    public void setup() throws Exception {
+        int groups = components / (PROCESSORS_PER_GROUP * 2 - 1);
+        definitions = new byte[][] {SyntheticFlowPayloads.flowDefinition(groups, PROCESSORS_PER_GROUP, -1), SyntheticFlowPayloads.flowDefinition(groups, PROCESSORS_PER_GROUP, groups / 2)};
+        ignored = new HashSet<>(FlowHashes.IDENTITY_FIELDS);
+        ignored.addAll(FlowHashes.LAYOUT_FIELDS);
+        reader = new FlowDefinitionReader(new ObjectMapper());
+        List<String> changes = diff();
+        if (changes.size() != 1) {
+            throw new IllegalStateException("Expected one difference, found: " + changes);
+        }
+    }
+
+    /**
+     * Compares the definitions the way the command compares two process groups which are not the same bytes
+     *
+     * @return differences found
+     * @throws Exception if a definition is not readable
+     */
+    @Benchmark
+    public List<String> diff() throws Exception {
+        FlowDefinitionNode left = reader.readFlowDefinition(new ByteArrayInputStream(definitions[0]), ignored);
+        FlowDefinitionNode right = reader.readFlowDefinition(new ByteArrayInputStream(definitions[1]), ignored);
+        FlowDefinitionDiff diff = new FlowDefinitionDiff(ignored);
+        diff.compare(left, right, "/Top", change -> {
+        });
+        reader.readFlowDefinitionContents(new ByteArrayInputStream(definitions[0]), left, diff.getLeftPending());
+        reader.readFlowDefinitionContents(new ByteArrayInputStream(definitions[1]), right, diff.getRightPending());
+        List<String> changes = new ArrayList<>();
+        new FlowDefinitionDiff(ignored).compare(left, right, "/Top", changes::add);
+        return changes;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
+import jakarta.json.bind.serializer.DeserializationContext;
+import jakarta.json.bind.serializer.JsonbDeserializer;
+import jakarta.json.stream.JsonParser;
+
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * JSON-B counterpart of {@link NiFiDateTimeDeserializer}, so both the bindings parse the dates the same way
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class JsonbNiFiDateTimeDeserializer implements JsonbDeserializer<Date> {
+
+    /**
+     * Deserialize JSON into object
+     *
+     * @param parser parser
+     * @param deserializationContext deserialization context
+     * @param type type
+     * @return deserialized date
+     */
+    @Override
+    public Date deserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) {
+        String value = parser.getString();
+        Date date = NiFiDateTimeDeserializer.parse(value);
+        if (date == null) {
+            throw new RuntimeException(new ParseException("Unable to parse value " + value, 0));
+        }
+        return date;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import io.github.deepakdaneva.nifi.cli.utils.LayeredLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LayeredLayout} laying out the components of a process group of {@code align --components}: chains of
+ * processors branching into each other, a few connections looping back and a few components without any connection,
+ * like labels. Run it using {@code ./mvnw -Pdev,benchmark test-compile exec:exec -Djmh.args="LayeredLayout"}.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LayeredLayoutBenchmark {
+
+    /**
+     * Components of every chain
+     */
+    static final int CHAIN_LENGTH = 10;
+    /**
+     * Ratio of the components without any connection
+     */
+    static final double ISOLATED_RATIO = 0.05;
+    /**
+     * Ratio of the chains connected back to a previous chain, closing a cycle
+     */
+    static final double LOOP_RATIO = 0.05;
+    /**
+     * Number of the components of the process group
+     */
+    @Param({"100", "1000", "10000"})
+    int components;
+    /**
+     * Widths of the components
+     */
+    double[] widths;
+    /**
+     * Heights of the components
+     */
+    double[] heights;
+    /**
+     * Sources of the connections
+     */
+    int[] sources;
+    /**
+     * Targets of the connections
+     */
+    int[] targets;
+    /**
+     * Layout of the align command
+     */
+    LayeredLayout layout;
+
+    /**
+     * Generates the components and their connections from a fixed seed
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        widths = new double[components];
+        heights = new double[components];
+        List<int[]> connections = new ArrayList<>();
+        int isolated = (int) (components * ISOLATED_RATIO);
+        for (int i = 0; i < components; i++) {
+            boolean label = i >= components - isolated;
+            widths[i] = label ? 150 : 352;
+            heights[i] = label ? 150 : 128;
+            int chain = i / CHAIN_LENGTH;
+            if (label) {
+                continue;
+            }
+            if (i % CHAIN_LENGTH != 0) {
+                connections.add(new int[] {i - 1, i});
+            } else if (chain > 0) {
+                // every chain continues one of the previous chains, some of them loop back to it
+                int from = random.nextInt(i);
+                connections.add(random.nextDouble() < LOOP_RATIO ? new int[] {i, from} : new int[] {from, i});
+            }
+        }
+        sources = connections.stream().mapToInt(connection -> connection[0]).toArray();
+        targets = connections.stream().mapToInt(connection -> connection[1]).toArray();
+        layout = new LayeredLayout(50, 100);
+    }
+
+    /**
+     * Lays out the components
+     *
+     * @return positions of the components
+     */
+    @Benchmark
+    public double[][] layout() {
+        return layout.layout(widths, heights, sources, targets);
+    }
+}
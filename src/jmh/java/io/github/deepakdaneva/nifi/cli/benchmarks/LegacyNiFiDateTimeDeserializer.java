@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import org.apache.nifi.web.api.dto.util.ParseDefaultingDateTimeFormatter;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Previous implementation of {@link io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer},
+ * kept as the baseline of the benchmark. It tries the formats one after another using the exceptions to move to the
+ * next one, and shares {@link SimpleDateFormat} instances so it is not safe to be used concurrently.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class LegacyNiFiDateTimeDeserializer {
+
+    /**
+     * {@code z}
+     */
+    private static final String DEFAULT_ZONE_FORMAT = "z";
+    /**
+     * {@code HH:mm:ss z}
+     */
+    private static final String DEFAULT_TIME_FORMAT = "HH:mm:ss z";
+    /**
+     * {@code MM/dd/yyyy HH:mm:ss z}
+     */
+    private static final String DEFAULT_DATE_TIME_FORMAT = "MM/dd/yyyy HH:mm:ss z";
+    /**
+     * {@code MM/dd/yyyy HH:mm:ss.SSS z}
+     */
+    private static final String DEFAULT_TIMESTAMP_FORMAT = "MM/dd/yyyy HH:mm:ss.SSS z";
+    /**
+     * Default date time format
+     */
+    private static final SimpleDateFormat DATETIME_SIMPLE_DATE_FORMAT = new SimpleDateFormat(DEFAULT_DATE_TIME_FORMAT, Locale.US);
+    /**
+     * Default timestamp format
+     */
+    private static final SimpleDateFormat TIMESTAMP_SIMPLE_DATE_FORMAT = new SimpleDateFormat(DEFAULT_TIMESTAMP_FORMAT, Locale.US);
+    /**
+     * Zone id
+     */
+    private static final ZoneId ZONE_ID = TimeZone.getDefault().toZoneId();
+
+    static {
+        DATETIME_SIMPLE_DATE_FORMAT.setTimeZone(TimeZone.getDefault());
+        TIMESTAMP_SIMPLE_DATE_FORMAT.setTimeZone(TimeZone.getDefault());
+    }
+
+    /**
+     * Time Formatter
+     */
+    private final ParseDefaultingDateTimeFormatter TIME_FORMATTER = new ParseDefaultingDateTimeFormatter(timestamp -> String.format("%s%s%s", timestamp.getYear(), timestamp.getMonthValue(), timestamp.getDayOfMonth()), timestamp -> new DateTimeFormatterBuilder().appendPattern(DEFAULT_TIME_FORMAT).parseDefaulting(ChronoField.YEAR, timestamp.getYear()).parseDefaulting(ChronoField.MONTH_OF_YEAR, timestamp.getMonthValue()).parseDefaulting(ChronoField.DAY_OF_MONTH, timestamp.getDayOfMonth()).parseDefaulting(ChronoField.MILLI_OF_SECOND, 0).toFormatter(Locale.US));
+
+    /**
+     * Parses the value the way the previous implementation did
+     *
+     * @param value to parse
+     * @return parsed date
+     */
+    public Date deserialize(String value) {
+        try {
+            return timeDeserialize(value);
+        } catch (Exception e1) {
+            try {
+                return dateTimeDeserialize(value);
+            } catch (Exception e2) {
+                try {
+                    return timestampDeserialize(value);
+                } catch (Exception e3) {
+                    try {
+                        return zoneDeserialize(value);
+                    } catch (Exception ignored) {
+
+                    }
+                }
+            }
+        }
+        throw new RuntimeException(new ParseException("Unable to parse value " + value, 0));
+    }
+
+    /**
+     * Deserialize time
+     *
+     * @param value to parse
+     * @return deserialized date
+     */
+    private Date timeDeserialize(String value) {
+        final DateTimeFormatter dtf = TIME_FORMATTER.get();
+        final LocalDateTime parsedDateTime = LocalDateTime.parse(value, dtf);
+        final LocalDateTime now = LocalDateTime.now();
+        return Date.from(parsedDateTime.toInstant(ZONE_ID.getRules().getOffset(now)));
+    }
+
+    /**
+     * Deserialize date time
+     *
+     * @param value to parse
+     * @return deserialized date
+     * @throws ParseException parse exception
+     */
+    private Date dateTimeDeserialize(String value) throws ParseException {
+        return DATETIME_SIMPLE_DATE_FORMAT.parse(value);
+    }
+
+    /**
+     * Deserialize timestamp
+     *
+     * @param value to parse
+     * @return deserialized date
+     * @throws ParseException parse exception
+     */
+    private Date timestampDeserialize(String value) throws ParseException {
+        return TIMESTAMP_SIMPLE_DATE_FORMAT.parse(value);
+    }
+
+    /**
+     * Deserialize zone
+     *
+     * @param value to parse
+     * @return deserialized date
+     */
+    private Date zoneDeserialize(String value) {
+        final LocalDateTime now = LocalDateTime.now();
+        final DateTimeFormatter dtf = new DateTimeFormatterBuilder().appendPattern(DEFAULT_ZONE_FORMAT).parseDefaulting(ChronoField.YEAR, now.getYear()).parseDefaulting(ChronoField.MONTH_OF_YEAR, now.getMonthValue()).parseDefaulting(ChronoField.DAY_OF_MONTH, now.getDayOfMonth()).parseDefaulting(ChronoField.HOUR_OF_DAY, now.getHour()).parseDefaulting(ChronoField.MINUTE_OF_HOUR, now.getMinute()).parseDefaulting(ChronoField.SECOND_OF_MINUTE, now.getSecond()).parseDefaulting(ChronoField.MILLI_OF_SECOND, 0).toFormatter(Locale.US);
+        final LocalDateTime parsedDateTime = LocalDateTime.parse(value, dtf);
+        return Date.from(parsedDateTime.toInstant(ZONE_ID.getRules().getOffset(now)));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link NiFiDateTimeDeserializer} with {@link LegacyNiFiDateTimeDeserializer} for every format used by the
+ * NiFi. Run it using {@code ./mvnw -Pdev,benchmark test-compile exec:exec}, the allocations per operation are reported
+ * by adding {@code -Djmh.args="-prof gc"}.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NiFiDateTimeDeserializerBenchmark {
+
+    /**
+     * Value to parse, one per format
+     */
+    @Param({"14:03:22 UTC", "10/16/2023 14:03:22 UTC", "10/16/2023 14:03:22.123 UTC", "UTC"})
+    String value;
+    /**
+     * Baseline implementation
+     */
+    LegacyNiFiDateTimeDeserializer legacy;
+
+    /**
+     * Creates the baseline implementation and verifies both the implementations agree on the value
+     */
+    @Setup
+    public void setup() {
+        legacy = new LegacyNiFiDateTimeDeserializer();
+        Date expected = legacy.deserialize(value);
+        Date actual = NiFiDateTimeDeserializer.parse(value);
+        // the time and zone formats depend on the current time, allow them to differ by a second
+        if (actual == null || Math.abs(expected.getTime() - actual.getTime()) > 1000) {
+            throw new IllegalStateException("Implementations disagree on " + value + ": " + expected + " != " + actual);
+        }
+    }
+
+    /**
+     * Parses the value using the baseline implementation
+     *
+     * @return parsed date
+     */
+    @Benchmark
+    public Date legacy() {
+        return legacy.deserialize(value);
+    }
+
+    /**
+     * Parses the value using the current implementation
+     *
+     * @return parsed date
+     */
+    @Benchmark
+    public Date current() {
+        return NiFiDateTimeDeserializer.parse(value);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.utils.StatusSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a poll of the {@code status} command once all the components are known: reading the recursive process group
+ * status into the series and finding the top connections, alternating between two payloads of the same flow so the
+ * deltas are not zero, see {@link SyntheticFlowPayloads#processGroupStatus(int, int, long)}. Run it using
+ * {@code ./mvnw -Pdev,benchmark test-compile exec:exec -Djmh.args="StatusPoll -prof gc"} to check the allocations per
+ * poll stay flat with the number of connections.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StatusPollBenchmark {
+
+    /**
+     * Connections of every process group
+     */
+    static final int CONNECTIONS_PER_GROUP = 100;
+    /**
+     * Number of the connections of the flow
+     */
+    @Param({"5000", "50000"})
+    int connections;
+    /**
+     * Two polls of the same flow
+     */
+    byte[][] payloads;
+    /**
+     * Reader of the status
+     */
+    FlowProjectionReader reader;
+    /**
+     * Series of the process groups
+     */
+    StatusSeries groupSeries;
+    /**
+     * Series of the connections
+     */
+    StatusSeries connectionSeries;
+    /**
+     * Indexes of the top connections
+     */
+    int[] top;
+    /**
+     * Number of polls made
+     */
+    int poll;
+
+    /**
+     * Generates the payloads and reads both of them once, so the ids are known before the measurement, verifying all
+     * the connections are read
+     *
+     * @throws Exception if a payload is not readable
+     */
+    @Setup
+    public void setup() throws Exception {
+        int groups = connections / CONNECTIONS_PER_GROUP;
+        payloads = new byte[][] {SyntheticFlowPayloads.processGroupStatus(groups, CONNECTIONS_PER_GROUP, 1), SyntheticFlowPayloads.processGroupStatus(groups, CONNECTIONS_PER_GROUP, 2)};
+        reader = new FlowProjectionReader(new ObjectMapper());
+        groupSeries = new StatusSeries();
+        connectionSeries = new StatusSeries();
+        top = new int[20];
+        poll();
+        poll();
+        if (connectionSeries.getPresent() != connections || groupSeries.getPresent() != groups + 1) {
+            throw new IllegalStateException("Status of " + connections + " connections is not fully read.");
+        }
+    }
+
+    /**
+     * Reads the next payload and finds the connections growing the most
+     *
+     * @return number of the top connections found
+     * @throws Exception if the payload is not readable
+     */
+    @Benchmark
+    public int poll() throws Exception {
+        reader.readStatusCounters(new ByteArrayInputStream(payloads[poll++ & 1]), groupSeries, connectionSeries);
+        return connectionSeries.top(index -> connectionSeries.delta(index, StatusSeries.FLOWFILES_QUEUED), top);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates the {@code GET /flow/process-groups/{id}} responses in the shape recorded from the NiFi. Every unit of the
+ * size adds a process group with its status, two processors with their configuration and a connection between them,
+ * about 10 KB of json, so {@code 5000} units are about 50 MB. Payloads are reproducible for the same size.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public final class SyntheticFlowPayloads {
+
+    /**
+     * Parent process group of every generated component
+     */
+    static final String PARENT_GROUP_ID = "8c1c3bd4-018b-1000-5a71-1ba3e7f1b8f3";
+
+    /**
+     * Utility class
+     */
+    private SyntheticFlowPayloads() {
+    }
+
+    /**
+     * Generates the process group flow
+     *
+     * @param size number of units of the flow
+     * @return json of the process group flow entity
+     */
+    public static byte[] processGroupFlow(int size) {
+        Random random = new Random(size);
+        StringBuilder json = new StringBuilder(size * 10000);
+        json.append("{\"permissions\":{\"canRead\":true,\"canWrite\":true},\"processGroupFlow\":{\"id\":\"").append(PARENT_GROUP_ID).append("\",\"uri\":\"https://nifi:8443/nifi-api/flow/process-groups/").append(PARENT_GROUP_ID).append("\",\"breadcrumb\":{\"id\":\"").append(PARENT_GROUP_ID).append("\",\"permissions\":{\"canRead\":true,\"canWrite\":true},\"breadcrumb\":{\"id\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"NiFi Flow\"}},\"flow\":{\"processGroups\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            processGroup(json, random, i);
+        }
+        json.append("],\"remoteProcessGroups\":[],\"processors\":[");
+        String[] processorIds = new String[size * 2];
+        for (int i = 0; i < processorIds.length; i++) {
+            processorIds[i] = id(random);
+            if (i > 0) {
+                json.append(',');
+            }
+            processor(json, random, processorIds[i], i);
+        }
+        json.append("],\"inputPorts\":[],\"outputPorts\":[],\"connections\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            connection(json, random, processorIds[i * 2], processorIds[i * 2 + 1]);
+        }
+        json.append("],\"labels\":[],\"funnels\":[]},\"lastRefreshed\":\"14:03:22 UTC\"}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates the recursive process group status, the root holding the process groups and each process group
+     * holding the connections. The counters are drawn from the provided seed, so the payloads of two seeds are two
+     * polls of the same flow.
+     *
+     * @param groups number of the child process groups
+     * @param connectionsPerGroup number of the connections of every process group
+     * @param seed of the counters
+     * @return json of the process group status entity
+     */
+    public static byte[] processGroupStatus(int groups, int connectionsPerGroup, long seed) {
+        Random ids = new Random(groups * 31L + connectionsPerGroup);
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(groups * connectionsPerGroup * 700 + 1000);
+        json.append("{\"processGroupStatus\":{\"id\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"NiFi Flow\",\"statsLastRefreshed\":\"14:03:22 UTC\",\"aggregateSnapshot\":{\"id\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"NiFi Flow\",\"connectionStatusSnapshots\":[],\"processorStatusSnapshots\":[],\"processGroupStatusSnapshots\":[");
+        for (int i = 0; i < groups; i++) {
+            String groupId = id(ids);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(groupId).append("\",\"processGroupStatusSnapshot\":{\"id\":\"").append(groupId).append("\",\"name\":\"Process Group ").append(i).append("\",\"connectionStatusSnapshots\":[");
+            for (int j = 0; j < connectionsPerGroup; j++) {
+                String id = id(ids);
+                int queued = random.nextInt(10000);
+                if (j > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":\"").append(id).append("\",\"groupId\":\"").append(groupId).append("\",\"connectionStatusSnapshot\":{\"id\":\"").append(id).append("\",\"groupId\":\"").append(groupId).append("\",\"name\":\"success\",\"sourceId\":\"").append(id(ids)).append("\",\"sourceName\":\"UpdateAttribute ").append(j).append("\",\"destinationId\":\"").append(id(ids)).append("\",\"destinationName\":\"UpdateAttribute ").append(j + 1).append("\",\"flowFilesIn\":").append(random.nextInt(100000)).append(",\"bytesIn\":").append(random.nextInt(1 << 30)).append(",\"input\":\"0 (0 bytes)\",\"flowFilesOut\":").append(random.nextInt(100000)).append(",\"bytesOut\":").append(random.nextInt(1 << 30)).append(",\"output\":\"0 (0 bytes)\",\"flowFilesQueued\":").append(queued).append(",\"bytesQueued\":").append(queued * 1024L).append(",\"queued\":\"0 (0 bytes)\",\"queuedSize\":\"0 bytes\",\"queuedCount\":\"0\",\"percentUseCount\":").append(queued / 100).append(",\"percentUseBytes\":0,\"flowFileAvailability\":\"ACTIVE_QUEUE_EMPTY\"}}");
+            }
+            json.append("],\"processorStatusSnapshots\":[],\"processGroupStatusSnapshots\":[],\"flowFilesIn\":").append(random.nextInt(100000)).append(",\"bytesIn\":0,\"input\":\"0 (0 bytes)\",\"flowFilesQueued\":").append(random.nextInt(100000)).append(",\"bytesQueued\":0,\"queued\":\"0 (0 bytes)\",\"flowFilesOut\":").append(random.nextInt(100000)).append(",\"bytesOut\":0,\"output\":\"0 (0 bytes)\",\"activeThreadCount\":").append(random.nextInt(8)).append(",\"terminatedThreadCount\":0,\"processingNanos\":0}}");
+        }
+        json.append("],\"flowFilesIn\":0,\"bytesIn\":0,\"flowFilesQueued\":0,\"bytesQueued\":0,\"flowFilesOut\":0,\"bytesOut\":0,\"activeThreadCount\":0}}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates the flow definition of {@code GET /process-groups/{id}/download}, the top process group holding the
+     * process groups and each process group holding a chain of processors connected one after the other. The
+     * identifiers are the same for the same shape, so the definitions of two changes are two versions of the same flow.
+     *
+     * @param groups number of the child process groups
+     * @param processorsPerGroup number of the processors of every process group
+     * @param changedGroup index of the process group whose first processor is configured differently, {@code -1} for
+     *            none
+     * @return json of the flow definition
+     */
+    public static byte[] flowDefinition(int groups, int processorsPerGroup, int changedGroup) {
+        Random ids = new Random(groups * 31L + processorsPerGroup);
+        StringBuilder json = new StringBuilder(groups * processorsPerGroup * 1500 + 1000);
+        json.append("{\"flowContents\":{\"identifier\":\"").append(id(ids)).append("\",\"name\":\"Top\",\"comments\":\"\",\"position\":{\"x\":0.0,\"y\":0.0},\"processGroups\":[");
+        for (int i = 0; i < groups; i++) {
+            String groupId = id(ids);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"identifier\":\"").append(groupId).append("\",\"name\":\"Process Group ").append(i).append("\",\"comments\":\"\",\"position\":{\"x\":").append(i * 400).append(".0,\"y\":0.0},\"processGroups\":[],\"remoteProcessGroups\":[],\"processors\":[");
+            String[] processorIds = new String[processorsPerGroup];
+            for (int j = 0; j < processorsPerGroup; j++) {
+                processorIds[j] = id(ids);
+                if (j > 0) {
+                    json.append(',');
+                }
+                String schedulingPeriod = i == changedGroup && j == 0 ? "5 sec" : "0 sec";
+                json.append("{\"identifier\":\"").append(processorIds[j]).append("\",\"name\":\"UpdateAttribute ").append(j).append("\",\"comments\":\"\",\"position\":{\"x\":0.0,\"y\":").append(j * 200).append(".0},\"type\":\"org.apache.nifi.processors.attributes.UpdateAttribute\",\"bundle\":{\"group\":\"org.apache.nifi\",\"artifact\":\"nifi-update-attribute-nar\",\"version\":\"1.23.2\"},\"properties\":{\"Store State\":\"Do not store state\",\"canonical-value-lookup-cache-size\":\"100\",\"attribute.").append(j).append("\":\"${now():toNumber()}\"},\"propertyDescriptors\":{},\"style\":{},\"schedulingPeriod\":\"").append(schedulingPeriod).append("\",\"schedulingStrategy\":\"TIMER_DRIVEN\",\"executionNode\":\"ALL\",\"penaltyDuration\":\"30 sec\",\"yieldDuration\":\"1 sec\",\"bulletinLevel\":\"WARN\",\"runDurationMillis\":0,\"concurrentlySchedulableTaskCount\":1,\"autoTerminatedRelationships\":[],\"scheduledState\":\"ENABLED\",\"retryCount\":10,\"retriedRelationships\":[],\"backoffMechanism\":\"PENALIZE_FLOWFILE\",\"maxBackoffPeriod\":\"10 mins\",\"componentType\":\"PROCESSOR\",\"groupIdentifier\":\"").append(groupId).append("\"}");
+            }
+            json.append("],\"inputPorts\":[],\"outputPorts\":[],\"connections\":[");
+            for (int j = 1; j < processorsPerGroup; j++) {
+                if (j > 1) {
+                    json.append(',');
+                }
+                json.append("{\"identifier\":\"").append(id(ids)).append("\",\"name\":\"\",\"source\":{\"id\":\"").append(processorIds[j - 1]).append("\",\"type\":\"PROCESSOR\",\"groupId\":\"").append(groupId).append("\",\"name\":\"UpdateAttribute ").append(j - 1).append("\",\"comments\":\"\"},\"destination\":{\"id\":\"").append(processorIds[j]).append("\",\"type\":\"PROCESSOR\",\"groupId\":\"").append(groupId).append("\",\"name\":\"UpdateAttribute ").append(j).append("\",\"comments\":\"\"},\"labelIndex\":1,\"zIndex\":0,\"selectedRelationships\":[\"success\"],\"backPressureObjectThreshold\":10000,\"backPressureDataSizeThreshold\":\"1 GB\",\"flowFileExpiration\":\"0 sec\",\"prioritizers\":[],\"bends\":[],\"loadBalanceStrategy\":\"DO_NOT_LOAD_BALANCE\",\"partitioningAttribute\":\"\",\"loadBalanceCompression\":\"DO_NOT_COMPRESS\",\"componentType\":\"CONNECTION\",\"groupIdentifier\":\"").append(groupId).append("\"}");
+            }
+            json.append("],\"labels\":[],\"funnels\":[],\"controllerServices\":[],\"variables\":{},\"flowFileConcurrency\":\"UNBOUNDED\",\"flowFileOutboundPolicy\":\"STREAM_WHEN_AVAILABLE\",\"defaultFlowFileExpiration\":\"0 sec\",\"defaultBackPressureObjectThreshold\":10000,\"defaultBackPressureDataSizeThreshold\":\"1 GB\",\"componentType\":\"PROCESS_GROUP\"}");
+        }
+        json.append("],\"remoteProcessGroups\":[],\"processors\":[],\"inputPorts\":[],\"outputPorts\":[],\"connections\":[],\"labels\":[],\"funnels\":[],\"controllerServices\":[],\"variables\":{},\"componentType\":\"PROCESS_GROUP\"},\"externalControllerServices\":{},\"parameterContexts\":{},\"flowEncodingVersion\":\"1.0\",\"parameterProviders\":{},\"latest\":false}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a process group entity
+     *
+     * @param json to append to
+     * @param random source of the values
+     * @param index of the process group
+     */
+    private static void processGroup(StringBuilder json, Random random, int index) {
+        String id = id(random);
+        String name = "Process Group " + index;
+        double x = random.nextInt(20000) + random.nextInt(10) / 10.0;
+        double y = random.nextInt(20000) + random.nextInt(10) / 10.0;
+        json.append("{\"revision\":{\"version\":").append(random.nextInt(50)).append("},\"id\":\"").append(id).append("\",\"uri\":\"https://nifi:8443/nifi-api/process-groups/").append(id).append("\",\"position\":{\"x\":").append(x).append(",\"y\":").append(y).append("},\"permissions\":{\"canRead\":true,\"canWrite\":true},\"bulletins\":[],\"component\":{\"id\":\"").append(id).append("\",\"parentGroupId\":\"").append(PARENT_GROUP_ID).append("\",\"position\":{\"x\":").append(x).append(",\"y\":").append(y).append("},\"name\":\"").append(name).append("\",\"comments\":\"\",\"variables\":{},\"flowfileConcurrency\":\"UNBOUNDED\",\"flowfileOutboundPolicy\":\"STREAM_WHEN_AVAILABLE\",\"defaultFlowFileExpiration\":\"0 sec\",\"defaultBackPressureObjectThreshold\":10000,\"defaultBackPressureDataSizeThreshold\":\"1 GB\",\"runningCount\":").append(random.nextInt(10)).append(",\"stoppedCount\":").append(random.nextInt(10)).append(",\"invalidCount\":0,\"disabledCount\":0,\"activeRemotePortCount\":0,\"inactiveRemotePortCount\":0,\"upToDateCount\":0,\"locallyModifiedCount\":0,\"staleCount\":0,\"locallyModifiedAndStaleCount\":0,\"syncFailureCount\":0,\"localInputPortCount\":0,\"localOutputPortCount\":0,\"publicInputPortCount\":0,\"publicOutputPortCount\":0,\"inputPortCount\":0,\"outputPortCount\":0},\"status\":{\"id\":\"").append(id).append("\",\"name\":\"").append(name).append("\",\"statsLastRefreshed\":\"14:03:22 UTC\",\"aggregateSnapshot\":{\"id\":\"").append(id).append("\",\"name\":\"").append(name).append("\",\"statelessActiveThreadCount\":0,\"flowFilesIn\":").append(random.nextInt(1000)).append(",\"bytesIn\":").append(random.nextInt(1 << 20)).append(",\"input\":\"0 (0 bytes)\",\"flowFilesQueued\":").append(random.nextInt(1000)).append(",\"bytesQueued\":").append(random.nextInt(1 << 20)).append(",\"queued\":\"0 (0 bytes)\",\"queuedCount\":\"0\",\"queuedSize\":\"0 bytes\",\"bytesRead\":0,\"read\":\"0 bytes\",\"bytesWritten\":0,\"written\":\"0 bytes\",\"flowFilesOut\":0,\"bytesOut\":0,\"output\":\"0 (0 bytes)\",\"flowFilesTransferred\":0,\"bytesTransferred\":0,\"transferred\":\"0 (0 bytes)\",\"bytesReceived\":0,\"flowFilesReceived\":0,\"received\":\"0 (0 bytes)\",\"bytesSent\":0,\"flowFilesSent\":0,\"sent\":\"0 (0 bytes)\",\"activeThreadCount\":0,\"terminatedThreadCount\":0,\"processingNanos\":0}},\"runningCount\":0,\"stoppedCount\":0,\"invalidCount\":0,\"disabledCount\":0,\"activeRemotePortCount\":0,\"inactiveRemotePortCount\":0,\"upToDateCount\":0,\"locallyModifiedCount\":0,\"staleCount\":0,\"locallyModifiedAndStaleCount\":0,\"syncFailureCount\":0,\"localInputPortCount\":0,\"localOutputPortCount\":0,\"publicInputPortCount\":0,\"publicOutputPortCount\":0,\"inputPortCount\":0,\"outputPortCount\":0}");
+    }
+
+    /**
+     * Appends a processor entity
+     *
+     * @param json to append to
+     * @param random source of the values
+     * @param id of the processor
+     * @param index of the processor
+     */
+    private static void processor(StringBuilder json, Random random, String id, int index) {
+        double x = random.nextInt(20000);
+        double y = random.nextInt(20000);
+        json.append("{\"revision\":{\"version\":").append(random.nextInt(50)).append("},\"id\":\"").append(id).append("\",\"uri\":\"https://nifi:8443/nifi-api/processors/").append(id).append("\",\"position\":{\"x\":").append(x).append(",\"y\":").append(y).append("},\"permissions\":{\"canRead\":true,\"canWrite\":true},\"bulletins\":[],\"component\":{\"id\":\"").append(id).append("\",\"parentGroupId\":\"").append(PARENT_GROUP_ID).append("\",\"position\":{\"x\":").append(x).append(",\"y\":").append(y).append("},\"name\":\"UpdateAttribute ").append(index).append("\",\"type\":\"org.apache.nifi.processors.attributes.UpdateAttribute\",\"bundle\":{\"group\":\"org.apache.nifi\",\"artifact\":\"nifi-update-attribute-nar\",\"version\":\"1.23.2\"},\"state\":\"STOPPED\",\"style\":{},\"relationships\":[{\"name\":\"success\",\"description\":\"All successful FlowFiles are routed to this relationship\",\"autoTerminate\":false,\"retry\":false}],\"supportsParallelProcessing\":true,\"supportsEventDriven\":true,\"supportsBatching\":true,\"supportsSensitiveDynamicProperties\":true,\"persistsState\":true,\"restricted\":false,\"deprecated\":false,\"executionNodeRestricted\":false,\"multipleVersionsAvailable\":false,\"inputRequirement\":\"INPUT_REQUIRED\",\"config\":{\"properties\":{\"Delete Attributes Expression\":null,\"Store State\":\"Do not store state\",\"Stateful Variables Initial Value\":null,\"canonical-value-lookup-cache-size\":\"100\",\"attribute.").append(index).append("\":\"${now():toNumber()}\"},\"schedulingPeriod\":\"0 sec\",\"schedulingStrategy\":\"TIMER_DRIVEN\",\"executionNode\":\"ALL\",\"penaltyDuration\":\"30 sec\",\"yieldDuration\":\"1 sec\",\"bulletinLevel\":\"WARN\",\"runDurationMillis\":0,\"concurrentlySchedulableTaskCount\":1,\"comments\":\"\",\"lossTolerant\":false,\"defaultConcurrentTasks\":{\"TIMER_DRIVEN\":\"1\",\"EVENT_DRIVEN\":\"0\",\"CRON_DRIVEN\":\"1\"},\"defaultSchedulingPeriod\":{\"TIMER_DRIVEN\":\"0 sec\",\"CRON_DRIVEN\":\"* * * * * ?\"},\"retryCount\":10,\"retriedRelationships\":[],\"backoffMechanism\":\"PENALIZE_FLOWFILE\",\"maxBackoffPeriod\":\"10 mins\"},\"validationStatus\":\"VALID\",\"extensionMissing\":false},\"inputRequirement\":\"INPUT_REQUIRED\",\"status\":{\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"id\":\"").append(id).append("\",\"name\":\"UpdateAttribute ").append(index).append("\",\"runStatus\":\"Stopped\",\"statsLastRefreshed\":\"14:03:22 UTC\",\"aggregateSnapshot\":{\"id\":\"").append(id).append("\",\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"UpdateAttribute ").append(index).append("\",\"type\":\"UpdateAttribute\",\"runStatus\":\"Stopped\",\"executionNode\":\"ALL\",\"bytesRead\":0,\"bytesWritten\":0,\"read\":\"0 bytes\",\"written\":\"0 bytes\",\"flowFilesIn\":").append(random.nextInt(1000)).append(",\"bytesIn\":0,\"input\":\"0 (0 bytes)\",\"flowFilesOut\":0,\"bytesOut\":0,\"output\":\"0 (0 bytes)\",\"taskCount\":0,\"tasksDurationNanos\":0,\"tasks\":\"0\",\"tasksDuration\":\"00:00:00.000\",\"activeThreadCount\":0,\"terminatedThreadCount\":0}},\"operatePermissions\":{\"canRead\":true,\"canWrite\":true}}");
+    }
+
+    /**
+     * Appends a connection entity
+     *
+     * @param json to append to
+     * @param random source of the values
+     * @param sourceId id of the source processor
+     * @param destinationId id of the destination processor
+     */
+    private static void connection(StringBuilder json, Random random, String sourceId, String destinationId) {
+        String id = id(random);
+        json.append("{\"revision\":{\"version\":").append(random.nextInt(50)).append("},\"id\":\"").append(id).append("\",\"uri\":\"https://nifi:8443/nifi-api/connections/").append(id).append("\",\"permissions\":{\"canRead\":true,\"canWrite\":true},\"component\":{\"id\":\"").append(id).append("\",\"parentGroupId\":\"").append(PARENT_GROUP_ID).append("\",\"source\":{\"id\":\"").append(sourceId).append("\",\"type\":\"PROCESSOR\",\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"UpdateAttribute\",\"running\":false,\"comments\":\"\"},\"destination\":{\"id\":\"").append(destinationId).append("\",\"type\":\"PROCESSOR\",\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"UpdateAttribute\",\"running\":false,\"comments\":\"\"},\"name\":\"\",\"labelIndex\":1,\"zIndex\":0,\"selectedRelationships\":[\"success\"],\"availableRelationships\":[\"success\"],\"backPressureObjectThreshold\":10000,\"backPressureDataSizeThreshold\":\"1 GB\",\"flowFileExpiration\":\"0 sec\",\"prioritizers\":[],\"bends\":[],\"loadBalanceStrategy\":\"DO_NOT_LOAD_BALANCE\",\"loadBalancePartitionAttribute\":\"\",\"loadBalanceCompression\":\"DO_NOT_COMPRESS\",\"loadBalanceStatus\":\"LOAD_BALANCE_NOT_CONFIGURED\"},\"status\":{\"id\":\"").append(id).append("\",\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"success\",\"statsLastRefreshed\":\"14:03:22 UTC\",\"sourceId\":\"").append(sourceId).append("\",\"sourceName\":\"UpdateAttribute\",\"destinationId\":\"").append(destinationId).append("\",\"destinationName\":\"UpdateAttribute\",\"aggregateSnapshot\":{\"id\":\"").append(id).append("\",\"groupId\":\"").append(PARENT_GROUP_ID).append("\",\"name\":\"success\",\"sourceName\":\"UpdateAttribute\",\"destinationName\":\"UpdateAttribute\",\"flowFilesIn\":0,\"bytesIn\":0,\"input\":\"0 (0 bytes)\",\"flowFilesOut\":0,\"bytesOut\":0,\"output\":\"0 (0 bytes)\",\"flowFilesQueued\":").append(random.nextInt(1000)).append(",\"bytesQueued\":0,\"queued\":\"0 (0 bytes)\",\"queuedSize\":\"0 bytes\",\"queuedCount\":\"0\",\"percentUseCount\":0,\"percentUseBytes\":0,\"flowFileAvailability\":\"ACTIVE_QUEUE_EMPTY\"}},\"bends\":[],\"labelIndex\":1,\"zIndex\":0,\"sourceId\":\"").append(sourceId).append("\",\"sourceGroupId\":\"").append(PARENT_GROUP_ID).append("\",\"sourceType\":\"PROCESSOR\",\"destinationId\":\"").append(destinationId).append("\",\"destinationGroupId\":\"").append(PARENT_GROUP_ID).append("\",\"destinationType\":\"PROCESSOR\"}");
+    }
+
+    /**
+     * Generates a reproducible id in the NiFi format
+     *
+     * @param random source of the id
+     * @return id
+     */
+    private static String id(Random random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}
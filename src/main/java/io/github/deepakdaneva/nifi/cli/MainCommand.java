@@ -12,25 +12,49 @@
  */
 package io.github.deepakdaneva.nifi.cli;
 
-import io.github.deepakdaneva.nifi.cli.configs.AppRestClientConfig;
+import io.github.deepakdaneva.nifi.cli.configs.CommandLineConfig;
 import io.github.deepakdaneva.nifi.cli.exceptions.NiFiResponseException;
 import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
-import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.utils.LineWriter;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.RequestMetrics;
+import io.github.deepakdaneva.nifi.cli.services.RequestTracer;
 import io.github.deepakdaneva.nifi.cli.subcmds.AlignProcessGroups;
+import io.github.deepakdaneva.nifi.cli.subcmds.Batch;
+import io.github.deepakdaneva.nifi.cli.subcmds.Daemon;
+import io.github.deepakdaneva.nifi.cli.subcmds.DaemonClient;
+import io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup;
+import io.github.deepakdaneva.nifi.cli.subcmds.FlowDiff;
+import io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues;
+import io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus;
+import io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport;
+import io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents;
 import io.quarkus.logging.Log;
 import io.quarkus.picocli.runtime.annotations.TopCommand;
 import io.quarkus.runtime.ShutdownEvent;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.MDC;
 import picocli.CommandLine;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.ParseResult;
 import picocli.CommandLine.Spec;
 
+import java.io.PrintWriter;
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Deepak Kumar Jangir
@@ -38,9 +62,15 @@ import java.net.URISyntaxException;
  * @since 1
  */
 @TopCommand
-@CommandLine.Command(name = "nifi-cli", version = "1.0.0", mixinStandardHelpOptions = true, subcommands = {AlignProcessGroups.class})
+@CommandLine.Command(name = "nifi-cli", version = "1.0.0", mixinStandardHelpOptions = true, subcommands = {AlignProcessGroups.class, Batch.class, Daemon.class, DaemonClient.class, FlowBackup.class, FlowDiff.class, ProvenanceExport.class, FlowFileQueues.class, ScheduleComponents.class, FlowStatus.class})
 public class MainCommand implements Runnable {
 
+    /**
+     * Key of the logging context holding the name of the cluster the command runs against, see
+     * {@code quarkus.log.console.format}
+     */
+    static final String CLUSTER_LOG_KEY = "cluster";
+
     /**
      * Command Spec
      */
@@ -48,51 +78,143 @@ public class MainCommand implements Runnable {
     CommandSpec spec;
 
     /**
-     * NiFi Base URL
+     * NiFi Base URLs
+     */
+    @CommandLine.Option(names = {Options.L, Options.LOCATION}, split = ",", paramLabel = "<location>", description = "NiFi base url. (i.e. https://somehost.com:8443) Repeat it or separate the urls by ',' to run the command against several clusters concurrently, or to compare their live flows using 'diff'. NOTE: Required by all the commands except 'client' unless '" + Options.INVENTORY + "' is provided.")
+    List<String> locations = new ArrayList<>();
+    /**
+     * File listing the NiFi clusters
      */
-    URI location;
+    @CommandLine.Option(names = {Options.INVENTORY}, paramLabel = "<file>", description = "File listing the NiFi clusters to run the command against concurrently, one per line as '<name> <url>' or '<url>'. Empty lines and lines starting with '#' are skipped.")
+    String inventory;
     /**
      * NiFi Username
      */
-    @CommandLine.Option(names = {Options.U, Options.USERNAME}, required = true, description = "Username of the user.")
+    @CommandLine.Option(names = {Options.U, Options.USERNAME}, description = "Username of the user. NOTE: Required by all the commands except 'client'.")
     String username;
     /**
      * NiFi Password
      */
-    @CommandLine.Option(names = {Options.P, Options.PASSWORD}, required = true, description = "Password of the user.")
+    @CommandLine.Option(names = {Options.P, Options.PASSWORD}, description = "Password of the user. NOTE: Required by all the commands except 'client'.")
     String password;
     /**
-     * NiFi Service
+     * Whether to cache the access token across invocations
+     */
+    @CommandLine.Option(names = {Options.TOKEN_CACHE}, description = "Cache the access token on disk (readable by the current user only) and reuse it until it expires, instead of authenticating and logging out on every invocation.")
+    boolean tokenCache;
+    /**
+     * Whether to cache the flows across invocations
+     */
+    @CommandLine.Option(names = {Options.FLOW_CACHE}, description = "Cache the process group flows on disk and fetch again only the ones whose revision changed since the previous invocation.")
+    boolean flowCache;
+    /**
+     * Destination of the summary of the request metrics
+     */
+    @CommandLine.Option(names = {Options.METRICS}, arity = "0..1", fallbackValue = RequestMetrics.STANDARD_OUTPUT, paramLabel = "<file>", description = "At the end of the run, print the json summary of the requests sent to the NiFi (latency percentiles, request, byte, error and in-flight counts per endpoint), or write it to the provided file.")
+    String metrics;
+    /**
+     * File to write the trace of the run to
+     */
+    @CommandLine.Option(names = {Options.TRACE}, paramLabel = "<file>", description = "Write the timeline of the run, with every request sent to the NiFi including the authentication and the logout, to the file as trace events which can be opened in the Chrome tracing or the Perfetto UI.")
+    String trace;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * Picocli factory to create the command lines run against each one of several clusters
+     */
+    @Inject
+    CommandLine.IFactory factory;
+    /**
+     * Request Metrics
+     */
+    @Inject
+    RequestMetrics requestMetrics;
+    /**
+     * Request Tracer
      */
     @Inject
-    @RestClient
-    NiFiService nifiService;
+    RequestTracer requestTracer;
+    /**
+     * Locations of the clusters by their names, resolved from the options once needed
+     */
+    Map<String, URI> targets;
 
     /**
-     * Generates the URI using the provided {@code location} string
-     * 
-     * @return Base NiFi REST APIs URI
+     * Provides the clusters to run the command against from the provided locations and inventory
+     *
+     * @return locations of the clusters by their names, in the order they are provided
+     * @throws ParameterException if a location is invalid, the inventory is unreadable or a name is repeated
      */
-    public URI getLocation() {
-        try {
-            return new URI(location.toString());
-        } catch (URISyntaxException e) {
-            return null;
+    public Map<String, URI> getTargets() {
+        if (targets != null) {
+            return targets;
+        }
+        Map<String, URI> resolved = new LinkedHashMap<>();
+        for (String location : locations) {
+            addTarget(resolved, null, location);
+        }
+        if (inventory != null) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(Paths.get(inventory), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new ParameterException(spec.commandLine(), "Unable to read the inventory (" + inventory + "): " + e.getMessage(), e);
+            }
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length > 2) {
+                    throw new ParameterException(spec.commandLine(), "Invalid inventory line (" + line + ") provided.");
+                }
+                addTarget(resolved, fields.length == 2 ? fields[0] : null, fields[fields.length - 1]);
+            }
         }
+        targets = resolved;
+        return targets;
     }
 
     /**
-     * Set the ${@link MainCommand#location} by using the provided location string by the user.
-     * 
+     * Whether the command runs against several clusters, each one by a command line of its own
+     *
+     * @return {@code true} if more than one cluster is provided and the command does not run against all of them at once
+     */
+    public boolean isFanOut() {
+        if (getTargets().size() <= 1) {
+            return false;
+        }
+        ParseResult subCmd = spec.commandLine().getParseResult().subcommand();
+        // the diff compares the live flows of the clusters with each other, so it runs once with all of them opened
+        return subCmd == null || !(subCmd.commandSpec().userObject() instanceof FlowDiff);
+    }
+
+    /**
+     * Adds the location of a cluster
+     *
+     * @param targets to add to
+     * @param name of the cluster, {@code null} to name it by the host and port of its location
      * @param value string location
-     * @throws Exception if location is not of a valid pattern
+     * @throws ParameterException if the location is not of a valid pattern or the name is repeated
      */
-    @CommandLine.Option(names = {Options.L, Options.LOCATION}, required = true, description = "NiFi base url. (i.e. https://somehost.com:8443)")
-    void setLocation(String value) throws Exception {
-        location = AppUtils.getURI(value, true);
-        if (location == null) {
+    private void addTarget(Map<String, URI> targets, String name, String value) {
+        URI location;
+        try {
+            location = AppUtils.getURI(value, true);
+        } catch (Exception e) {
+            location = null;
+        }
+        if (location == null || location.getHost() == null) {
             throw new ParameterException(spec.commandLine(), "Invalid NiFi URL (" + value + ") provided.");
         }
+        String key = name != null ? name : location.getAuthority();
+        if (targets.putIfAbsent(key, location) != null) {
+            throw new ParameterException(spec.commandLine(), "Duplicate NiFi cluster (" + key + ") provided.");
+        }
     }
 
     /**
@@ -102,42 +224,237 @@ public class MainCommand implements Runnable {
     public void run() {
         ParseResult subCmd = spec.commandLine().getParseResult().subcommand();
         if (subCmd != null) {
+            if (subCmd.commandSpec().userObject() instanceof DaemonClient) {
+                // the daemon holds the session, the client only forwards the command to it
+                return;
+            }
+            if (getTargets().isEmpty() || username == null || password == null) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "Missing required options: '" + Options.LOCATION + "', '" + Options.USERNAME + "', '" + Options.PASSWORD + "'");
+            }
+            if (isFanOut() && Batch.isSessionCommand(subCmd.commandSpec().userObject().getClass())) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "The '" + subCmd.commandSpec().name() + "' command can not be run against several clusters.");
+            }
+            if (metrics != null) {
+                requestMetrics.writeOnEnd(metrics, spec.commandLine().getOut());
+            }
+            if (trace != null) {
+                requestTracer.enable(trace, spec.name() + " " + subCmd.commandSpec().name());
+            }
+            getTargets().forEach(nifiClusters::add);
+            if (isFanOut()) {
+                fanOut(subCmd.commandSpec().name());
+                return;
+            }
+            RequestTracer.Span authSpan = requestTracer.begin("authenticate", RequestTracer.COMMAND_CATEGORY);
             try {
                 Log.info("Authenticating...");
-                AppRestClientConfig.accessToken = nifiService.getAccessToken(username, password);
+                for (NiFiCluster cluster : nifiClusters.getClusters()) {
+                    try {
+                        open(cluster);
+                    } catch (Exception e) {
+                        // fails the command instead of exiting so that the clusters already opened are closed on shutdown
+                        throw new IllegalStateException("Unable to authenticate with " + cluster.getName() + ": " + e.getMessage(), e);
+                    }
+                }
                 Log.info("Authenticated!");
-            } catch (Exception e) {
-                Log.error(e.getMessage());
-                System.exit(CommandLine.ExitCode.SOFTWARE);
+            } finally {
+                requestTracer.end(authSpan);
             }
         } else {
             throw new CommandLine.ParameterException(spec.commandLine(), "No Command provided to Execute!");
         }
     }
 
+    /**
+     * Opens the session with the cluster and its flow cache if requested
+     *
+     * @param cluster to open
+     */
+    private void open(NiFiCluster cluster) {
+        cluster.getNiFiSession().open(username, password, tokenCache);
+        if (flowCache) {
+            cluster.getFlowCache().open(cluster.getLocation());
+        }
+    }
+
+    /**
+     * Runs the command against all the clusters concurrently, each one by a command line of its own parsed from the
+     * same arguments and bound to the cluster. The output lines of a cluster are prefixed by its name and the result and
+     * duration of every cluster are logged once all are done.
+     *
+     * @param command name of the command
+     */
+    private void fanOut(String command) {
+        List<NiFiCluster> clusters = nifiClusters.getClusters();
+        String[] args = spec.commandLine().getParseResult().originalArgs().toArray(new String[0]);
+        long start = System.nanoTime();
+        List<ClusterRun> runs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(clusters.size());
+        try {
+            List<Future<ClusterRun>> futures = new ArrayList<>();
+            for (NiFiCluster cluster : clusters) {
+                futures.add(executor.submit(() -> runOn(cluster, args)));
+            }
+            for (Future<ClusterRun> future : futures) {
+                runs.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running '" + command + "' on the clusters.", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to run '" + command + "' on the clusters: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        runs.sort(Comparator.comparing(run -> run.cluster.getName()));
+        int failed = 0;
+        for (ClusterRun run : runs) {
+            if (run.exitCode != CommandLine.ExitCode.OK) {
+                failed++;
+                Log.error(run.cluster.getName() + " (" + run.cluster.getLocation() + ") failed with exit code " + run.exitCode + " in " + run.elapsedMillis + " ms.");
+            } else {
+                Log.info(run.cluster.getName() + " (" + run.cluster.getLocation() + ") succeeded in " + run.elapsedMillis + " ms.");
+            }
+        }
+        Log.info("Ran '" + command + "' on " + runs.size() + " clusters in " + (System.nanoTime() - start) / 1_000_000 + " ms, " + failed + " failed.");
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + runs.size() + " clusters failed.");
+        }
+    }
+
+    /**
+     * Runs the command against the cluster, with the log lines labelled by the name of the cluster
+     *
+     * @param cluster to run the command against
+     * @param args of the whole command line
+     * @return result of the run
+     */
+    private ClusterRun runOn(NiFiCluster cluster, String[] args) {
+        // labels the log lines of the cluster the way its output lines are, inherited by the threads the command starts
+        MDC.put(CLUSTER_LOG_KEY, cluster.getName() + "\t");
+        try {
+            return execute(cluster, args);
+        } finally {
+            MDC.remove(CLUSTER_LOG_KEY);
+        }
+    }
+
+    /**
+     * Authenticates with the cluster and executes the command line bound to it
+     *
+     * @param cluster to run the command against
+     * @param args of the whole command line
+     * @return result of the run
+     */
+    private ClusterRun execute(NiFiCluster cluster, String[] args) {
+        long start = System.nanoTime();
+        RequestTracer.Span clusterSpan = requestTracer.begin(cluster.getName(), RequestTracer.COMMAND_CATEGORY);
+        RequestTracer.Span authSpan = requestTracer.begin("authenticate", RequestTracer.COMMAND_CATEGORY);
+        try {
+            open(cluster);
+        } catch (Exception e) {
+            Log.error("Unable to authenticate with " + cluster.getName() + ": " + e.getMessage());
+            return new ClusterRun(cluster, CommandLine.ExitCode.SOFTWARE, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            requestTracer.end(authSpan);
+        }
+        PrintWriter out = prefixed(spec.commandLine().getOut(), cluster.getName());
+        PrintWriter err = prefixed(spec.commandLine().getErr(), cluster.getName());
+        // only the subcommand runs, the top command of the line is there to parse the same arguments
+        CommandLine commandLine = new CommandLine(MainCommand.class, factory).setExecutionStrategy(new CommandLine.RunLast()).setExecutionExceptionHandler(CommandLineConfig::handleExecutionException).setStopAtUnmatched(spec.commandLine().isStopAtUnmatched()).setUnmatchedArgumentsAllowed(spec.commandLine().isUnmatchedArgumentsAllowed()).setOut(out).setErr(err);
+        nifiClusters.bind(commandLine.getCommandSpec(), cluster);
+        try {
+            int exitCode = commandLine.execute(args);
+            return new ClusterRun(cluster, exitCode, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            nifiClusters.unbind(commandLine.getCommandSpec());
+            out.close();
+            err.close();
+            requestTracer.end(clusterSpan);
+        }
+    }
+
+    /**
+     * Creates the writer prefixing every line by the name of the cluster before writing it to the shared writer
+     *
+     * @param writer shared by the clusters
+     * @param name of the cluster
+     * @return writer of the cluster
+     */
+    private static PrintWriter prefixed(PrintWriter writer, String name) {
+        return new PrintWriter(new LineWriter(line -> {
+            synchronized (writer) {
+                writer.println(name + "\t" + line);
+            }
+        }), true);
+    }
+
     /**
      * This method will be invoked by Quarkus when application shuts down.
      *
      * @param se shutdown event to execute logic when application shuts down
      */
     public void onShutdown(@Observes ShutdownEvent se) {
+        RequestTracer.Span logoutSpan = requestTracer.begin("logout", RequestTracer.COMMAND_CATEGORY);
         try {
-            if (AppRestClientConfig.accessToken != null) {
+            for (NiFiCluster cluster : nifiClusters.getClusters()) {
+                cluster.getFlowCache().close();
                 try {
-                    nifiService.logout();
+                    cluster.getNiFiSession().close();
                 } catch (NiFiResponseException e) {
                     if (se.isStandardShutdown()) {
-                        Log.warn("Unable to logout: " + e.getMessage());
+                        Log.warn("Unable to logout of " + cluster.getName() + ": " + e.getMessage());
+                    }
+                } catch (Exception e) {
+                    if (se.isStandardShutdown()) {
+                        Log.warn("Unable to logout of " + cluster.getName() + ": " + e.getMessage());
+                        Log.debug(e.getMessage());
                     }
                 }
             }
-        } catch (Exception e) {
-            if (se.isStandardShutdown()) {
-                Log.warn("Unable to logout: " + e.getMessage());
-                Log.debug(e.getMessage());
-            }
         } finally {
-            AppRestClientConfig.accessToken = null;
+            requestTracer.end(logoutSpan);
+        }
+        try {
+            requestMetrics.write();
+        } catch (Exception e) {
+            Log.warn("Unable to write the request metrics: " + e.getMessage());
+        }
+        try {
+            requestTracer.write();
+        } catch (Exception e) {
+            Log.warn("Unable to write the trace: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Result of the command run against a cluster
+     */
+    static final class ClusterRun {
+        /**
+         * Cluster the command ran against
+         */
+        final NiFiCluster cluster;
+        /**
+         * Exit code of the command
+         */
+        final int exitCode;
+        /**
+         * Duration of the run including the authentication
+         */
+        final long elapsedMillis;
+
+        /**
+         * Create instance
+         *
+         * @param cluster the command ran against
+         * @param exitCode of the command
+         * @param elapsedMillis duration of the run including the authentication
+         */
+        ClusterRun(NiFiCluster cluster, int exitCode, long elapsedMillis) {
+            this.cluster = cluster;
+            this.exitCode = exitCode;
+            this.elapsedMillis = elapsedMillis;
         }
     }
 
@@ -153,6 +470,10 @@ public class MainCommand implements Runnable {
          * Base NiFi URL
          */
         public static final String LOCATION = "--location";
+        /**
+         * File listing the NiFi clusters
+         */
+        public static final String INVENTORY = "--inventory";
         /**
          * NiFi username
          */
@@ -169,5 +490,21 @@ public class MainCommand implements Runnable {
          * NiFi password
          */
         public static final String PASSWORD = "--password";
+        /**
+         * Cache the access token across invocations
+         */
+        public static final String TOKEN_CACHE = "--token-cache";
+        /**
+         * Cache the flows across invocations
+         */
+        public static final String FLOW_CACHE = "--flow-cache";
+        /**
+         * Summary of the request metrics
+         */
+        public static final String METRICS = "--metrics";
+        /**
+         * Trace of the run
+         */
+        public static final String TRACE = "--trace";
     }
 }
\ No newline at end of file
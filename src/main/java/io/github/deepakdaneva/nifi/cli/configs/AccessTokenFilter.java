@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.configs;
+
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the access token of a {@link io.github.deepakdaneva.nifi.cli.services.NiFiSession} as the bearer authorization
+ * of every request sent by the rest client of the session, except the ones requesting a new access token as the NiFi
+ * rejects them if they carry an expired one.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class AccessTokenFilter implements ClientRequestFilter {
+
+    /**
+     * Path of the endpoint providing the access tokens
+     */
+    static final String ACCESS_TOKEN_PATH = "/access/token";
+    /**
+     * Supplier of the access token in use, {@code null} if not authenticated
+     */
+    private final Supplier<String> accessToken;
+
+    /**
+     * Create instance sending the provided access token
+     *
+     * @param accessToken supplier of the access token in use, {@code null} if not authenticated
+     */
+    public AccessTokenFilter(Supplier<String> accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * Sets the authorization header of the request
+     *
+     * @param requestContext of the request
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        String token = accessToken.get();
+        if (token != null && !requestContext.getUri().getPath().endsWith(ACCESS_TOKEN_PATH)) {
+            requestContext.getHeaders().putSingle(NiFiService.AUTHORIZATION_HEADER_KEY, "Bearer " + token);
+        }
+    }
+}
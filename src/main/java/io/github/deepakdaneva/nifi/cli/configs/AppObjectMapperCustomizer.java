@@ -12,11 +12,13 @@
  */
 package io.github.deepakdaneva.nifi.cli.configs;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
-import io.quarkus.jsonb.JsonbConfigCustomizer;
-import jakarta.inject.Inject;
+import io.quarkus.jackson.ObjectMapperCustomizer;
 import jakarta.inject.Singleton;
-import jakarta.json.bind.JsonbConfig;
+
+import java.util.Date;
 
 /**
  * @author Deepak Kumar Jangir
@@ -24,21 +26,15 @@ import jakarta.json.bind.JsonbConfig;
  * @since 1
  */
 @Singleton
-public class AppJsonbConfigCustomizer implements JsonbConfigCustomizer {
-
-    /**
-     * NiFi specific date time deserializer
-     */
-    @Inject
-    NiFiDateTimeDeserializer niFiDateTimeDeserializer;
+public class AppObjectMapperCustomizer implements ObjectMapperCustomizer {
 
     /**
      * Customizes the behaviour of deserialization
      * 
-     * @param jsonbConfig to configure
+     * @param objectMapper to configure
      */
     @Override
-    public void customize(JsonbConfig jsonbConfig) {
-        jsonbConfig.withDeserializers(niFiDateTimeDeserializer);
+    public void customize(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new SimpleModule("nifi-cli").addDeserializer(Date.class, new NiFiDateTimeDeserializer()));
     }
 }
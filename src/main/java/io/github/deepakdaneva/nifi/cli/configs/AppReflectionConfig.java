@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.configs;
+
+import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
+import io.github.deepakdaneva.nifi.cli.models.BackupSnapshot;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.nifi.web.api.entity.DropRequestEntity;
+import org.apache.nifi.web.api.entity.ListingRequestEntity;
+import org.apache.nifi.web.api.entity.PortRunStatusEntity;
+import org.apache.nifi.web.api.entity.ProcessGroupEntity;
+import org.apache.nifi.web.api.entity.ProcessGroupFlowEntity;
+import org.apache.nifi.web.api.entity.ProcessGroupStatusEntity;
+import org.apache.nifi.web.api.entity.ProcessorRunStatusEntity;
+import org.apache.nifi.web.api.entity.ScheduleComponentsEntity;
+
+/**
+ * Registers the {@code nifi-client-dto} entities and the deserializers for reflection so they can be (de)serialized in
+ * the native image. The full hierarchy of every entity, i.e. the DTOs reachable through its fields, is registered too.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@RegisterForReflection(targets = {ProcessGroupEntity.class, ProcessGroupFlowEntity.class, ProcessGroupStatusEntity.class, ScheduleComponentsEntity.class, ProcessorRunStatusEntity.class, PortRunStatusEntity.class, ListingRequestEntity.class, DropRequestEntity.class, BackupSnapshot.class, BackupSnapshot.Group.class, NiFiDateTimeDeserializer.class}, registerFullHierarchy = true)
+public class AppReflectionConfig {
+}
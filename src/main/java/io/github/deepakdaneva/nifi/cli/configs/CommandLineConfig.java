@@ -12,7 +12,9 @@
  */
 package io.github.deepakdaneva.nifi.cli.configs;
 
+import io.github.deepakdaneva.nifi.cli.MainCommand;
 import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.quarkus.logging.Log;
 import io.quarkus.picocli.runtime.PicocliCommandLineFactory;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
@@ -41,6 +43,35 @@ public class CommandLineConfig {
      */
     @Produces
     CommandLine customCommandLine(PicocliCommandLineFactory factory) {
-        return factory.create().setExecutionStrategy(new CommandLine.RunAll()).setStopAtUnmatched(appConfig.cli().stopAtUnmatched()).setUnmatchedArgumentsAllowed(appConfig.cli().unmatchedArgumentsAllowed());
+        return factory.create().setExecutionStrategy(CommandLineConfig::execute).setExecutionExceptionHandler(CommandLineConfig::handleExecutionException).setStopAtUnmatched(appConfig.cli().stopAtUnmatched()).setUnmatchedArgumentsAllowed(appConfig.cli().unmatchedArgumentsAllowed());
+    }
+
+    /**
+     * Runs the top command and then the subcommands, or only the top command if it runs the subcommand against several
+     * clusters by itself
+     *
+     * @param parseResult of the command line
+     * @return exit code of the command line
+     */
+    static int execute(CommandLine.ParseResult parseResult) {
+        Object command = parseResult.commandSpec().userObject();
+        if (command instanceof MainCommand && ((MainCommand) command).isFanOut()) {
+            return new CommandLine.RunFirst().execute(parseResult);
+        }
+        return new CommandLine.RunAll().execute(parseResult);
+    }
+
+    /**
+     * Logs the failure of a command instead of printing the stack trace
+     * 
+     * @param e exception raised by the command
+     * @param commandLine of the failed command
+     * @param parseResult of the failed command
+     * @return exit code of the failed command
+     */
+    public static int handleExecutionException(Exception e, CommandLine commandLine, CommandLine.ParseResult parseResult) {
+        Log.error(e.getMessage());
+        Log.debug(e.getMessage(), e);
+        return commandLine.getCommandSpec().exitCodeOnExecutionException();
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.configs;
+
+import io.github.deepakdaneva.nifi.cli.services.RequestMetrics;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+
+/**
+ * Records the metrics of every request sent by the NiFi rest client into
+ * {@link io.github.deepakdaneva.nifi.cli.services.RequestMetrics}. The bytes of the bodies are counted as they are
+ * written and read, so a streamed response is counted as much as it is consumed.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class RequestMetricsFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+
+    /**
+     * Request property holding the method of the rest client being invoked
+     */
+    static final String INVOKED_METHOD_PROPERTY = "org.eclipse.microprofile.rest.client.invokedMethod";
+    /**
+     * Request property holding the metrics of the endpoint of the request
+     */
+    static final String ENDPOINT_PROPERTY = RequestMetricsFilter.class.getName() + ".endpoint";
+    /**
+     * Request property holding the time the request was sent
+     */
+    static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+    /**
+     * Metrics to record into
+     */
+    private final RequestMetrics requestMetrics;
+
+    /**
+     * Create instance recording into the provided metrics
+     *
+     * @param requestMetrics to record into
+     */
+    public RequestMetricsFilter(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    /**
+     * Records the request being sent
+     *
+     * @param requestContext of the request
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        RequestMetrics.Endpoint endpoint = requestMetrics.endpoint(getEndpointName(requestContext));
+        endpoint.requestSent();
+        requestContext.setProperty(ENDPOINT_PROPERTY, endpoint);
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    /**
+     * Records the response of the request and counts the bytes of the response body as it is read
+     *
+     * @param requestContext of the request
+     * @param responseContext of the response
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object endpoint = requestContext.getProperty(ENDPOINT_PROPERTY);
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (!(endpoint instanceof RequestMetrics.Endpoint) || !(start instanceof Long)) {
+            return;
+        }
+        RequestMetrics.Endpoint metrics = (RequestMetrics.Endpoint) endpoint;
+        metrics.responseReceived(System.nanoTime() - (Long) start, responseContext.getStatus());
+        if (responseContext.hasEntity()) {
+            responseContext.setEntityStream(new CountingInputStream(responseContext.getEntityStream(), metrics));
+        }
+    }
+
+    /**
+     * Counts the bytes of the request body as it is written
+     *
+     * @param context of the request body
+     * @throws IOException if the body can not be written
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object endpoint = context.getProperty(ENDPOINT_PROPERTY);
+        if (endpoint instanceof RequestMetrics.Endpoint) {
+            context.setOutputStream(new CountingOutputStream(context.getOutputStream(), (RequestMetrics.Endpoint) endpoint));
+        }
+        context.proceed();
+    }
+
+    /**
+     * Provides the name of the endpoint of the request, the name of the invoked method of the rest client or the
+     * method and the path of the request if it is not sent by the rest client
+     *
+     * @param requestContext of the request
+     * @return name of the endpoint
+     */
+    static String getEndpointName(ClientRequestContext requestContext) {
+        Object invokedMethod = requestContext.getProperty(INVOKED_METHOD_PROPERTY);
+        if (invokedMethod instanceof Method) {
+            return ((Method) invokedMethod).getName();
+        }
+        return requestContext.getMethod() + " " + requestContext.getUri().getPath();
+    }
+
+    /**
+     * Stream counting the bytes read from the response body
+     */
+    static final class CountingInputStream extends FilterInputStream {
+        /**
+         * Metrics to count the bytes into
+         */
+        private final RequestMetrics.Endpoint endpoint;
+
+        /**
+         * Create instance counting the bytes read from the provided stream
+         *
+         * @param in stream of the response body
+         * @param endpoint metrics to count the bytes into
+         */
+        CountingInputStream(InputStream in, RequestMetrics.Endpoint endpoint) {
+            super(in);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                endpoint.addResponseBytes(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                endpoint.addResponseBytes(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            endpoint.addResponseBytes(skipped);
+            return skipped;
+        }
+    }
+
+    /**
+     * Stream counting the bytes written to the request body
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+        /**
+         * Metrics to count the bytes into
+         */
+        private final RequestMetrics.Endpoint endpoint;
+
+        /**
+         * Create instance counting the bytes written to the provided stream
+         *
+         * @param out stream of the request body
+         * @param endpoint metrics to count the bytes into
+         */
+        CountingOutputStream(OutputStream out, RequestMetrics.Endpoint endpoint) {
+            super(out);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            endpoint.addRequestBytes(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            endpoint.addRequestBytes(len);
+        }
+    }
+}
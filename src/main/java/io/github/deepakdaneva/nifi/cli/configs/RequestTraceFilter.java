@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.configs;
+
+import io.github.deepakdaneva.nifi.cli.services.RequestTracer;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records an asynchronous span of {@link io.github.deepakdaneva.nifi.cli.services.RequestTracer} for every request sent
+ * by the NiFi rest client while the tracer is enabled, the requests overlap on the event loop threads. A request
+ * without a response, like on a connection failure, is left open and is written as unfinished.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class RequestTraceFilter implements ClientRequestFilter, ClientResponseFilter {
+
+    /**
+     * Request property holding the span of the request
+     */
+    static final String SPAN_PROPERTY = RequestTraceFilter.class.getName() + ".span";
+    /**
+     * Path of the process group endpoints capturing the process group id, the replace requests are not process groups
+     */
+    private static final Pattern PROCESS_GROUP_PATH = Pattern.compile("/process-groups/(?!replace-requests(?:/|$))([^/]+)");
+    /**
+     * Tracer to record into
+     */
+    private final RequestTracer requestTracer;
+
+    /**
+     * Create instance recording into the provided tracer
+     *
+     * @param requestTracer to record into
+     */
+    public RequestTraceFilter(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    /**
+     * Starts the span of the request
+     *
+     * @param requestContext of the request
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        RequestTracer.Span span = requestTracer.beginAsync(RequestMetricsFilter.getEndpointName(requestContext), RequestTracer.HTTP_CATEGORY);
+        if (span == null) {
+            return;
+        }
+        String path = requestContext.getUri().getPath();
+        span.arg("method", requestContext.getMethod()).arg("path", path);
+        Matcher matcher = PROCESS_GROUP_PATH.matcher(path);
+        if (matcher.find()) {
+            span.arg("processGroupId", matcher.group(1));
+        }
+        requestContext.setProperty(SPAN_PROPERTY, span);
+    }
+
+    /**
+     * Ends the span of the request
+     *
+     * @param requestContext of the request
+     * @param responseContext of the response
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object span = requestContext.getProperty(SPAN_PROPERTY);
+        if (span instanceof RequestTracer.Span) {
+            requestTracer.end(((RequestTracer.Span) span).arg("status", responseContext.getStatus()));
+        }
+    }
+}
@@ -12,154 +12,190 @@
  */
 package io.github.deepakdaneva.nifi.cli.configs.deserializers;
 
-import jakarta.inject.Singleton;
-import jakarta.json.bind.serializer.DeserializationContext;
-import jakarta.json.bind.serializer.JsonbDeserializer;
-import jakarta.json.stream.JsonParser;
-import org.apache.nifi.web.api.dto.util.ParseDefaultingDateTimeFormatter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
 
-import java.lang.reflect.Type;
-import java.text.ParseException;
+import java.io.IOException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Deserializes the dates formatted by the NiFi in one of the {@code HH:mm:ss z}, {@code MM/dd/yyyy HH:mm:ss z},
+ * {@code MM/dd/yyyy HH:mm:ss.SSS z} or {@code z} formats. The format is detected from the shape of the value in a single
+ * pass, the digits are read in place and the offsets of the zone names are resolved once and cached, so parsing a valid
+ * value neither throws nor builds formatters. The instance is stateless and safe to be used concurrently.
+ *
  * @author Deepak Kumar Jangir
  * @version 1
  * @since 1
  */
-@Singleton
-public class NiFiDateTimeDeserializer implements JsonbDeserializer<Date> {
+public class NiFiDateTimeDeserializer extends StdScalarDeserializer<Date> {
 
     /**
-     * {@code z}
-     */
-    private static final String DEFAULT_ZONE_FORMAT = "z";
-    /**
-     * {@code HH:mm:ss z}
-     */
-    private static final String DEFAULT_TIME_FORMAT = "HH:mm:ss z";
-    /**
-     * {@code MM/dd/yyyy HH:mm:ss z}
-     */
-    private static final String DEFAULT_DATE_TIME_FORMAT = "MM/dd/yyyy HH:mm:ss z";
-    /**
-     * {@code MM/dd/yyyy HH:mm:ss.SSS z}
-     */
-    private static final String DEFAULT_TIMESTAMP_FORMAT = "MM/dd/yyyy HH:mm:ss.SSS z";
-    /**
-     * Default date time format
+     * Zone id
      */
-    private static final SimpleDateFormat DATETIME_SIMPLE_DATE_FORMAT = new SimpleDateFormat(DEFAULT_DATE_TIME_FORMAT, Locale.US);
+    private static final ZoneId ZONE_ID = TimeZone.getDefault().toZoneId();
     /**
-     * Default timestamp format
+     * Maximum number of zone names cached, the NiFi uses only a few of them
      */
-    private static final SimpleDateFormat TIMESTAMP_SIMPLE_DATE_FORMAT = new SimpleDateFormat(DEFAULT_TIMESTAMP_FORMAT, Locale.US);
+    private static final int MAX_CACHED_ZONES = 64;
     /**
-     * Zone id
+     * Resolved zone offsets by their names
      */
-    private static final ZoneId ZONE_ID = TimeZone.getDefault().toZoneId();
-
-    static {
-        DATETIME_SIMPLE_DATE_FORMAT.setTimeZone(TimeZone.getDefault());
-        TIMESTAMP_SIMPLE_DATE_FORMAT.setTimeZone(TimeZone.getDefault());
-    }
+    private static final Map<String, ZoneOffset> ZONES = new ConcurrentHashMap<>();
 
     /**
-     * Time Formatter
+     * Create instance
      */
-    private final ParseDefaultingDateTimeFormatter TIME_FORMATTER = new ParseDefaultingDateTimeFormatter(timestamp -> String.format("%s%s%s", timestamp.getYear(), timestamp.getMonthValue(), timestamp.getDayOfMonth()), timestamp -> new DateTimeFormatterBuilder().appendPattern(DEFAULT_TIME_FORMAT).parseDefaulting(ChronoField.YEAR, timestamp.getYear()).parseDefaulting(ChronoField.MONTH_OF_YEAR, timestamp.getMonthValue()).parseDefaulting(ChronoField.DAY_OF_MONTH, timestamp.getDayOfMonth()).parseDefaulting(ChronoField.MILLI_OF_SECOND, 0).toFormatter(Locale.US));
+    public NiFiDateTimeDeserializer() {
+        super(Date.class);
+    }
 
     /**
      * Deserialize JSON into object
-     * 
+     *
      * @param parser parser
      * @param deserializationContext deserialization context
-     * @param type type
      * @return deserialized date
+     * @throws IOException if the value is not a date
      */
     @Override
-    public Date deserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) {
-        try {
-            return timeDeserialize(parser, deserializationContext, type);
-        } catch (Exception e1) {
-            try {
-                return dateTimeDeserialize(parser, deserializationContext, type);
-            } catch (Exception e2) {
-                try {
-                    return timestampDeserialize(parser, deserializationContext, type);
-                } catch (Exception e3) {
-                    try {
-                        return zoneDeserialize(parser, deserializationContext, type);
-                    } catch (Exception ignored) {
-
-                    }
-                }
-            }
+    public Date deserialize(JsonParser parser, DeserializationContext deserializationContext) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return new Date(parser.getLongValue());
         }
-        throw new RuntimeException(new ParseException("Unable to parse value " + parser.getString(), 0));
+        String value = parser.getValueAsString();
+        Date date = parse(value);
+        if (date == null) {
+            return (Date) deserializationContext.handleWeirdStringValue(Date.class, value, "not in any of the date formats used by the NiFi");
+        }
+        return date;
     }
 
     /**
-     * Deserialize time
-     * 
-     * @param parser parser
-     * @param deserializationContext deserialization context
-     * @param type type
-     * @return deserialized date
+     * Parses the date formatted by the NiFi without throwing if the value is not valid. Values in the {@code HH:mm:ss z}
+     * format are considered of today and values in the {@code z} format are considered as now, both in the default
+     * zone.
+     *
+     * @param value to parse
+     * @return parsed date, {@code null} if the value is not in any of the formats used by the NiFi
      */
-    private Date timeDeserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) {
-        final DateTimeFormatter dtf = TIME_FORMATTER.get();
-        final LocalDateTime parsedDateTime = LocalDateTime.parse(parser.getString(), dtf);
-        final LocalDateTime now = LocalDateTime.now();
-        return Date.from(parsedDateTime.toInstant(ZONE_ID.getRules().getOffset(now)));
+    public static Date parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        if (length > 20 && value.charAt(2) == '/' && value.charAt(5) == '/' && value.charAt(10) == ' ' && value.charAt(13) == ':' && value.charAt(16) == ':') {
+            // MM/dd/yyyy HH:mm:ss z or MM/dd/yyyy HH:mm:ss.SSS z
+            int millis = 0;
+            int zoneStart = 20;
+            if (value.charAt(19) == '.') {
+                int millisEnd = value.indexOf(' ', 20);
+                if (millisEnd < 21 || millisEnd > 23) {
+                    return null;
+                }
+                millis = digits(value, 20, millisEnd - 20);
+                zoneStart = millisEnd + 1;
+            } else if (value.charAt(19) != ' ') {
+                return null;
+            }
+            LocalDateTime dateTime = dateTime(digits(value, 6, 4), digits(value, 0, 2), digits(value, 3, 2), digits(value, 11, 2), digits(value, 14, 2), digits(value, 17, 2), millis);
+            ZoneOffset offset = zone(value.substring(zoneStart));
+            return dateTime == null || offset == null ? null : Date.from(dateTime.toInstant(offset));
+        }
+        if (length > 9 && value.charAt(2) == ':' && value.charAt(5) == ':' && value.charAt(8) == ' ') {
+            // HH:mm:ss z
+            LocalDate today = LocalDate.now(ZONE_ID);
+            LocalDateTime dateTime = dateTime(today.getYear(), today.getMonthValue(), today.getDayOfMonth(), digits(value, 0, 2), digits(value, 3, 2), digits(value, 6, 2), 0);
+            if (dateTime == null || zone(value.substring(9)) == null) {
+                return null;
+            }
+            return Date.from(dateTime.toInstant(ZONE_ID.getRules().getOffset(Instant.now())));
+        }
+        if (zone(value) != null) {
+            // z
+            return Date.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+        return null;
     }
 
     /**
-     * Deserialize date time
-     * 
-     * @param parser parser
-     * @param deserializationContext deserialization context
-     * @param type type
-     * @return deserialized date
-     * @throws ParseException parse exception
+     * Creates the date time if all the fields are in their ranges
+     *
+     * @param year year
+     * @param month month of the year
+     * @param day day of the month
+     * @param hour hour of the day
+     * @param minute minute of the hour
+     * @param second second of the minute
+     * @param millis milliseconds of the second
+     * @return date time, {@code null} if any of the fields is not in its range
      */
-    private Date dateTimeDeserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) throws ParseException {
-        return DATETIME_SIMPLE_DATE_FORMAT.parse(parser.getString());
+    private static LocalDateTime dateTime(int year, int month, int day, int hour, int minute, int second, int millis) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return null;
+        }
+        if (day > 28 && day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000);
     }
 
     /**
-     * Deserialize timestamp
-     * 
-     * @param parser parser
-     * @param deserializationContext deserialization context
-     * @param type type
-     * @return deserialized date
-     * @throws ParseException parse exception
+     * Reads the decimal digits in place
+     *
+     * @param value to read the digits from
+     * @param start index of the first digit
+     * @param count number of digits to read
+     * @return number represented by the digits, {@code -1} if any of the characters is not a digit
      */
-    private Date timestampDeserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) throws ParseException {
-        return TIMESTAMP_SIMPLE_DATE_FORMAT.parse(parser.getString());
+    private static int digits(String value, int start, int count) {
+        int number = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            number = number * 10 + digit;
+        }
+        return number;
     }
 
     /**
-     * Deserialize zone
-     * 
-     * @param parser parser
-     * @param deserializationContext deserialization context
-     * @param type type
-     * @return deserialized date
+     * Resolves the offset of the zone by its name. Like {@link java.text.SimpleDateFormat} a standard name, i.e.
+     * {@code EST}, always has the standard offset and a daylight name, i.e. {@code EDT}, always has the daylight offset.
+     *
+     * @param name of the zone, i.e. {@code UTC}
+     * @return offset of the zone, {@code null} if the name is not known
      */
-    private Date zoneDeserialize(JsonParser parser, DeserializationContext deserializationContext, Type type) {
-        final LocalDateTime now = LocalDateTime.now();
-        final DateTimeFormatter dtf = new DateTimeFormatterBuilder().appendPattern(DEFAULT_ZONE_FORMAT).parseDefaulting(ChronoField.YEAR, now.getYear()).parseDefaulting(ChronoField.MONTH_OF_YEAR, now.getMonthValue()).parseDefaulting(ChronoField.DAY_OF_MONTH, now.getDayOfMonth()).parseDefaulting(ChronoField.HOUR_OF_DAY, now.getHour()).parseDefaulting(ChronoField.MINUTE_OF_HOUR, now.getMinute()).parseDefaulting(ChronoField.SECOND_OF_MINUTE, now.getSecond()).parseDefaulting(ChronoField.MILLI_OF_SECOND, 0).toFormatter(Locale.US);
-        final LocalDateTime parsedDateTime = LocalDateTime.parse(parser.getString(), dtf);
-        return Date.from(parsedDateTime.toInstant(ZONE_ID.getRules().getOffset(now)));
+    private static ZoneOffset zone(String name) {
+        ZoneOffset offset = ZONES.get(name);
+        if (offset == null) {
+            // only the first time a name is seen, the format parses the name as the epoch in the zone
+            SimpleDateFormat format = new SimpleDateFormat("z", Locale.US);
+            ParsePosition position = new ParsePosition(0);
+            Date epoch = format.parse(name, position);
+            if (epoch == null || position.getIndex() != name.length()) {
+                return null;
+            }
+            offset = ZoneOffset.ofTotalSeconds((int) (-epoch.getTime() / 1000));
+            if (ZONES.size() < MAX_CACHED_ZONES) {
+                ZONES.put(name, offset);
+            }
+        }
+        return offset;
     }
 }
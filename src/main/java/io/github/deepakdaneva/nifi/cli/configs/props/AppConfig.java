@@ -30,6 +30,48 @@ public interface AppConfig {
      */
     Cli cli();
 
+    /**
+     * Request throttling related configurations
+     * 
+     * @return provided throttling related properties pojo instance
+     */
+    Throttle throttle();
+
+    /**
+     * Access token cache related configurations
+     * 
+     * @return provided access token cache related properties pojo instance
+     */
+    TokenCache tokenCache();
+
+    /**
+     * Flow cache related configurations
+     * 
+     * @return provided flow cache related properties pojo instance
+     */
+    FlowCache flowCache();
+
+    /**
+     * Daemon related configurations
+     * 
+     * @return provided daemon related properties pojo instance
+     */
+    Daemon daemon();
+
+    /**
+     * Align related configurations
+     * 
+     * @return provided align related properties pojo instance
+     */
+    Align align();
+
+    /**
+     * Backup related configurations
+     * 
+     * @return provided backup related properties pojo instance
+     */
+    Backup backup();
+
     /**
      * CLI relation configurations
      */
@@ -50,4 +92,139 @@ public interface AppConfig {
         @WithDefault("true")
         boolean unmatchedArgumentsAllowed();
     }
+
+    /**
+     * Request throttling related configurations
+     */
+    interface Throttle {
+        /**
+         * Property for the maximum rate of the requests sent to the NiFi
+         * 
+         * @return requests per second set for this property, default is {@code 100}
+         */
+        @WithDefault("100")
+        double requestsPerSecond();
+
+        /**
+         * Property for the number of requests which can be sent at once before the rate applies
+         * 
+         * @return burst set for this property, default is {@code 100}
+         */
+        @WithDefault("100")
+        int burst();
+
+        /**
+         * Property for the number of concurrent requests to start with, adapted based on the NiFi responses
+         * 
+         * @return initial concurrency set for this property, default is {@code 8}
+         */
+        @WithDefault("8")
+        int initialConcurrency();
+
+        /**
+         * Property for the maximum number of concurrent requests
+         * 
+         * @return maximum concurrency set for this property, default is {@code 64}
+         */
+        @WithDefault("64")
+        int maxConcurrency();
+
+        /**
+         * Property for the latency in milliseconds above which the NiFi is considered overloaded
+         * 
+         * @return latency threshold set for this property, default is {@code 2000}
+         */
+        @WithDefault("2000")
+        long latencyThresholdMillis();
+
+        /**
+         * Property for the maximum number of retries of a request rejected by an overloaded NiFi
+         * 
+         * @return maximum retries set for this property, default is {@code 5}
+         */
+        @WithDefault("5")
+        int maxRetries();
+    }
+
+    /**
+     * Access token cache related configurations
+     */
+    interface TokenCache {
+        /**
+         * Property for the directory to keep the cached access tokens in
+         * 
+         * @return directory set for this property, default is {@code ${user.home}/.nifi-cli/tokens}
+         */
+        @WithDefault("${user.home}/.nifi-cli/tokens")
+        String directory();
+
+        /**
+         * Property for the seconds before the expiry of an access token from which it is not reused anymore
+         * 
+         * @return expiry skew set for this property, default is {@code 60}
+         */
+        @WithDefault("60")
+        long expirySkewSeconds();
+    }
+
+    /**
+     * Flow cache related configurations
+     */
+    interface FlowCache {
+        /**
+         * Property for the directory to keep the cached flows in
+         * 
+         * @return directory set for this property, default is {@code ${user.home}/.nifi-cli/flows}
+         */
+        @WithDefault("${user.home}/.nifi-cli/flows")
+        String directory();
+
+        /**
+         * Property for the seconds after which a cached process group is fetched again even if its revision did not
+         * change, as moving the child process groups does not change the revision of the parent
+         * 
+         * @return maximum age set for this property, default is {@code 3600}
+         */
+        @WithDefault("3600")
+        long maxAgeSeconds();
+    }
+
+    /**
+     * Daemon related configurations
+     */
+    interface Daemon {
+        /**
+         * Property for the Unix domain socket the daemon listens on and the client connects to
+         * 
+         * @return socket path set for this property, default is {@code ${user.home}/.nifi-cli/daemon.sock}
+         */
+        @WithDefault("${user.home}/.nifi-cli/daemon.sock")
+        String socket();
+    }
+
+    /**
+     * Align related configurations
+     */
+    interface Align {
+        /**
+         * Property for the directory to keep the fingerprints of the child process groups aligned incrementally in
+         * 
+         * @return directory set for this property, default is {@code ${user.home}/.nifi-cli/align}
+         */
+        @WithDefault("${user.home}/.nifi-cli/align")
+        String directory();
+    }
+
+    /**
+     * Backup related configurations
+     */
+    interface Backup {
+        /**
+         * Property for the directory of the store the process group flow definitions are backed up into
+         * 
+         * @return directory set for this property, default is {@code ${user.home}/.nifi-cli/backup}
+         */
+        @WithDefault("${user.home}/.nifi-cli/backup")
+        String directory();
+    }
 }
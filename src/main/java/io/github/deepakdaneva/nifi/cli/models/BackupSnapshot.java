@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifest of a backup, the process groups backed up at once along with the objects of the store holding their flow
+ * definitions
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class BackupSnapshot {
+    /**
+     * Snapshot id, sorts in the order the snapshots are created
+     */
+    String id;
+    /**
+     * Location of the NiFi the process groups are backed up from
+     */
+    String location;
+    /**
+     * Id of the process group whose children are backed up
+     */
+    String rootGroupId;
+    /**
+     * Time the snapshot is created at, ISO-8601
+     */
+    String createdAt;
+    /**
+     * Backed up process groups
+     */
+    List<Group> groups = new ArrayList<>();
+
+    /**
+     * Process group of the snapshot
+     */
+    @Getter
+    @Setter
+    public static class Group {
+        /**
+         * Process group id
+         */
+        String id;
+        /**
+         * Process group name
+         */
+        String name;
+        /**
+         * Hash of the flow definition, the object of the store holding it
+         */
+        String object;
+        /**
+         * Size of the flow definition in bytes
+         */
+        long size;
+    }
+}
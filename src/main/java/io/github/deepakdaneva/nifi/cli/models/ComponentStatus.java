@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Projection of the status of a schedulable component, a processor or a port, as listed by the recursive process group
+ * status
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class ComponentStatus {
+    /**
+     * Run status of the running components
+     */
+    public static final String RUNNING = "Running";
+    /**
+     * Run status of the stopped components
+     */
+    public static final String STOPPED = "Stopped";
+    /**
+     * Run status of the components which can not run as their configuration is not valid
+     */
+    public static final String INVALID = "Invalid";
+    /**
+     * Run status of the disabled components
+     */
+    public static final String DISABLED = "Disabled";
+    /**
+     * Component id
+     */
+    final String id;
+    /**
+     * Component type
+     */
+    ComponentType type;
+    /**
+     * Component name
+     */
+    String name;
+    /**
+     * Id of the process group of the component
+     */
+    String groupId;
+    /**
+     * Run status, i.e. {@link ComponentStatus#RUNNING}
+     */
+    String runStatus;
+    /**
+     * Number of threads still executing the component
+     */
+    int activeThreadCount;
+
+    /**
+     * Create instance with the provided component id
+     *
+     * @param id of the component
+     */
+    public ComponentStatus(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Human readable form of the status
+     *
+     * @return status description
+     */
+    @Override
+    public String toString() {
+        return type.getResource() + " " + id + " (" + name + ") in " + groupId + ": " + runStatus + ", " + activeThreadCount + " active threads";
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.nifi.web.api.dto.PositionDTO;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+
+/**
+ * Projection of a component entity holding only the fields declared by the command reading it
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class ComponentSummary {
+    /**
+     * Component id
+     */
+    final String id;
+    /**
+     * Component type
+     */
+    ComponentType type = ComponentType.PROCESS_GROUP;
+    /**
+     * Component name, read only if {@link Field#NAME} is declared
+     */
+    String name;
+    /**
+     * Component revision, read only if {@link Field#REVISION} is declared
+     */
+    RevisionDTO revision;
+    /**
+     * Component position, read only if {@link Field#POSITION} is declared
+     */
+    PositionDTO position;
+
+    /**
+     * Create instance with the provided component id
+     *
+     * @param id of the component
+     */
+    public ComponentSummary(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Optional fields of the component which can be declared to be read, the id is always read
+     */
+    public enum Field {
+        /**
+         * Name of the component
+         */
+        NAME,
+        /**
+         * Revision of the component
+         */
+        REVISION,
+        /**
+         * Position of the component
+         */
+        POSITION,
+        /**
+         * Components other than process groups and labels along with the connections, read with the declared fields
+         * instead of being only counted, and the areas covered by the labels
+         */
+        COMPONENTS
+    }
+}
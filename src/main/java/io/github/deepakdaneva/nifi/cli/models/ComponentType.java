@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+
+/**
+ * Types of the components of a process group along with the REST resource they are updated through and the size they
+ * are drawn with on the flow canvas
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+public enum ComponentType {
+    /**
+     * Process group
+     */
+    PROCESS_GROUP("process-groups", 384, 176),
+    /**
+     * Remote process group
+     */
+    REMOTE_PROCESS_GROUP("remote-process-groups", 384, 176),
+    /**
+     * Processor
+     */
+    PROCESSOR("processors", 352, 128),
+    /**
+     * Input port
+     */
+    INPUT_PORT("input-ports", 240, 48),
+    /**
+     * Output port
+     */
+    OUTPUT_PORT("output-ports", 240, 48),
+    /**
+     * Funnel
+     */
+    FUNNEL("funnels", 48, 48),
+    /**
+     * Connection, it has no size as it is drawn between its source and destination
+     */
+    CONNECTION("connections", 0, 0);
+
+    /**
+     * REST resource of the components of this type, i.e. {@code processors} of {@code /processors/{id}}
+     */
+    final String resource;
+    /**
+     * Width on the flow canvas
+     */
+    final int width;
+    /**
+     * Height on the flow canvas
+     */
+    final int height;
+
+    /**
+     * Create instance
+     *
+     * @param resource REST resource of the components of this type
+     * @param width on the flow canvas
+     * @param height on the flow canvas
+     */
+    ComponentType(String resource, int width, int height) {
+        this.resource = resource;
+        this.width = width;
+        this.height = height;
+    }
+}
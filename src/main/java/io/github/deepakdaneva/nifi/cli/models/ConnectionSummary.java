@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+
+/**
+ * Projection of a connection entity holding only its endpoints and what is needed to straighten it
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class ConnectionSummary {
+    /**
+     * Connection id
+     */
+    final String id;
+    /**
+     * Connection revision
+     */
+    RevisionDTO revision;
+    /**
+     * Id of the source component
+     */
+    String sourceId;
+    /**
+     * Id of the process group of the source component, the child or remote process group for their ports
+     */
+    String sourceGroupId;
+    /**
+     * Id of the destination component
+     */
+    String destinationId;
+    /**
+     * Id of the process group of the destination component, the child or remote process group for their ports
+     */
+    String destinationGroupId;
+    /**
+     * Number of bend points of the connection
+     */
+    int bendCount;
+
+    /**
+     * Create instance with the provided connection id
+     *
+     * @param id of the connection
+     */
+    public ConnectionSummary(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Whether the source and the destination are the same component, such connections need their bends to be drawn
+     *
+     * @return {@code true} if the connection loops back to its source
+     */
+    public boolean isSelfLoop() {
+        return sourceId != null && sourceId.equals(destinationId);
+    }
+}
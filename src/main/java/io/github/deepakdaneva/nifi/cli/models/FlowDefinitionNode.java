@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process group of a flow definition as a node of a Merkle tree, the hash of a process group covers its own attributes,
+ * its components and the hashes of its child process groups, so two process groups with the same hash are the same
+ * including all their descendants. The attributes and the contents of the components are only read for the process
+ * groups found to differ, the others keep the hashes only.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class FlowDefinitionNode {
+    /**
+     * Versioned identifier of the process group
+     */
+    final String identifier;
+    /**
+     * Process group name
+     */
+    String name;
+    /**
+     * Hash of the process group including its descendants
+     */
+    byte[] hash;
+    /**
+     * Hash of the attributes of the process group other than its components and child process groups
+     */
+    byte[] attributesHash;
+    /**
+     * Attributes of the process group, {@code null} if not read
+     */
+    ObjectNode attributes;
+    /**
+     * Components of the process group other than the child process groups
+     */
+    List<Component> components = new ArrayList<>();
+    /**
+     * Child process groups
+     */
+    List<FlowDefinitionNode> children = new ArrayList<>();
+
+    /**
+     * Create instance with the provided versioned identifier
+     *
+     * @param identifier of the process group
+     */
+    public FlowDefinitionNode(String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Component of a process group in a flow definition
+     */
+    @Getter
+    @Setter
+    public static class Component {
+        /**
+         * Kind of the component as named in the flow definition, i.e. {@code processors}
+         */
+        final String kind;
+        /**
+         * Versioned identifier of the component
+         */
+        final String identifier;
+        /**
+         * Component name
+         */
+        String name;
+        /**
+         * Hash of the component
+         */
+        byte[] hash;
+        /**
+         * Content of the component, {@code null} if not read
+         */
+        JsonNode content;
+
+        /**
+         * Create instance
+         *
+         * @param kind of the component
+         * @param identifier of the component
+         */
+        public Component(String kind, String identifier) {
+            this.kind = kind;
+            this.identifier = identifier;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.nifi.web.api.dto.PositionDTO;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process group in a {@link io.github.deepakdaneva.nifi.cli.models.FlowSnapshot}
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class FlowNode {
+    /**
+     * Process group id
+     */
+    final String id;
+    /**
+     * Process group name
+     */
+    String name;
+    /**
+     * Revision of the process group, available once the parent has been loaded
+     */
+    RevisionDTO revision;
+    /**
+     * Position of the process group in the parent, available once the parent has been loaded
+     */
+    PositionDTO position;
+    /**
+     * Number of components other than process groups inside this process group
+     */
+    int componentCount;
+    /**
+     * Whether the revisions and positions of the child process groups are loaded
+     */
+    boolean childrenLoaded;
+    /**
+     * Child process groups
+     */
+    List<FlowNode> children = new ArrayList<>();
+    /**
+     * Whether the components other than process groups and the connections are loaded
+     */
+    boolean componentsLoaded;
+    /**
+     * Components other than process groups and labels, available once the process group has been loaded with them
+     */
+    List<ComponentSummary> components = new ArrayList<>();
+    /**
+     * Connections, available once the process group has been loaded with the components
+     */
+    List<ConnectionSummary> connections = new ArrayList<>();
+    /**
+     * Labels, available once the process group has been loaded with the components
+     */
+    List<LabelSummary> labels = new ArrayList<>();
+
+    /**
+     * Create instance with the provided process group id
+     *
+     * @param id of the process group
+     */
+    public FlowNode(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Whether this process group holds only process groups, i.e. its children can be laid out independently
+     *
+     * @return {@code true} if there are no components other than process groups
+     */
+    public boolean isIndependent() {
+        return componentCount == 0;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory snapshot of a process group hierarchy
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+public class FlowSnapshot {
+    /**
+     * Process group the snapshot was taken from
+     */
+    final FlowNode root;
+    /**
+     * All process groups of the snapshot by id
+     */
+    final Map<String, FlowNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Create instance with the provided root process group
+     *
+     * @param root process group of the snapshot
+     */
+    public FlowSnapshot(FlowNode root) {
+        this.root = root;
+        add(root);
+    }
+
+    /**
+     * Add the provided process group to the snapshot index
+     *
+     * @param node process group to add
+     */
+    public void add(FlowNode node) {
+        nodes.put(node.getId(), node);
+    }
+
+    /**
+     * Provides the process group by id
+     *
+     * @param id of the process group
+     * @return process group or {@code null} if it is not part of the snapshot
+     */
+    public FlowNode getNode(String id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Number of process groups in the snapshot
+     *
+     * @return process group count
+     */
+    public int size() {
+        return nodes.size();
+    }
+}
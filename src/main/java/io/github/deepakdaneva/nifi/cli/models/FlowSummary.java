@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projection of a process group flow holding the child process groups and the number of the other components, the
+ * other components and the connections are held as well only if read with
+ * {@link io.github.deepakdaneva.nifi.cli.models.ComponentSummary.Field#COMPONENTS}
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class FlowSummary {
+    /**
+     * Child process groups in the order listed by the NiFi
+     */
+    final List<ComponentSummary> processGroups = new ArrayList<>();
+    /**
+     * Components other than process groups and labels in the order listed by the NiFi
+     */
+    final List<ComponentSummary> components = new ArrayList<>();
+    /**
+     * Connections in the order listed by the NiFi
+     */
+    final List<ConnectionSummary> connections = new ArrayList<>();
+    /**
+     * Labels in the order listed by the NiFi, read along with the components
+     */
+    final List<LabelSummary> labels = new ArrayList<>();
+    /**
+     * Number of processors
+     */
+    int processorCount;
+    /**
+     * Number of connections
+     */
+    int connectionCount;
+    /**
+     * Number of input ports
+     */
+    int inputPortCount;
+    /**
+     * Number of output ports
+     */
+    int outputPortCount;
+    /**
+     * Number of remote process groups
+     */
+    int remoteProcessGroupCount;
+    /**
+     * Number of funnels
+     */
+    int funnelCount;
+    /**
+     * Number of labels
+     */
+    int labelCount;
+
+    /**
+     * Number of components other than process groups and labels, labels do not take part in the flow
+     *
+     * @return component count
+     */
+    public int getComponentCount() {
+        return processorCount + connectionCount + inputPortCount + outputPortCount + remoteProcessGroupCount + funnelCount;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.nifi.web.api.dto.PositionDTO;
+
+/**
+ * Projection of a label entity holding only the area it covers on the flow canvas
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class LabelSummary {
+    /**
+     * Label id
+     */
+    final String id;
+    /**
+     * Label position
+     */
+    PositionDTO position;
+    /**
+     * Width of the label, labels are resizable
+     */
+    double width;
+    /**
+     * Height of the label, labels are resizable
+     */
+    double height;
+
+    /**
+     * Create instance with the provided label id
+     *
+     * @param id of the label
+     */
+    public LabelSummary(String id) {
+        this.id = id;
+    }
+}
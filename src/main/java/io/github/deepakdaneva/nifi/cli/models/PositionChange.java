@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import org.apache.nifi.web.api.dto.ComponentDTO;
+import org.apache.nifi.web.api.dto.ConnectionDTO;
+import org.apache.nifi.web.api.dto.FunnelDTO;
+import org.apache.nifi.web.api.dto.PortDTO;
+import org.apache.nifi.web.api.dto.PositionDTO;
+import org.apache.nifi.web.api.dto.ProcessGroupDTO;
+import org.apache.nifi.web.api.dto.ProcessorDTO;
+import org.apache.nifi.web.api.dto.RemoteProcessGroupDTO;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+import org.apache.nifi.web.api.entity.ComponentEntity;
+import org.apache.nifi.web.api.entity.ConnectionEntity;
+import org.apache.nifi.web.api.entity.FunnelEntity;
+import org.apache.nifi.web.api.entity.PortEntity;
+import org.apache.nifi.web.api.entity.ProcessGroupEntity;
+import org.apache.nifi.web.api.entity.ProcessorEntity;
+import org.apache.nifi.web.api.entity.RemoteProcessGroupEntity;
+
+import java.util.ArrayList;
+
+/**
+ * Move of a component from its current position to the target position, or for a connection the removal of its bends
+ * so it is drawn straight between its moved source and destination
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+public class PositionChange {
+    /**
+     * Component id
+     */
+    final String id;
+    /**
+     * Component type
+     */
+    final ComponentType type;
+    /**
+     * Component name
+     */
+    final String name;
+    /**
+     * Revision of the component the change is based on
+     */
+    final RevisionDTO revision;
+    /**
+     * Current position, {@code null} if unknown
+     */
+    final PositionDTO current;
+    /**
+     * Target position, {@code null} for a connection
+     */
+    final PositionDTO target;
+
+    /**
+     * Create instance to move the provided process group to the target position
+     *
+     * @param node process group to move
+     * @param target position of the process group
+     */
+    public PositionChange(FlowNode node, PositionDTO target) {
+        this.id = node.getId();
+        this.type = ComponentType.PROCESS_GROUP;
+        this.name = node.getName();
+        this.revision = node.getRevision();
+        this.current = node.getPosition();
+        this.target = target;
+    }
+
+    /**
+     * Create instance to move the provided component to the target position
+     *
+     * @param component to move
+     * @param target position of the component
+     */
+    public PositionChange(ComponentSummary component, PositionDTO target) {
+        this.id = component.getId();
+        this.type = component.getType();
+        this.name = component.getName();
+        this.revision = component.getRevision();
+        this.current = component.getPosition();
+        this.target = target;
+    }
+
+    /**
+     * Create instance to remove the bends of the provided connection
+     *
+     * @param connection to straighten
+     */
+    public PositionChange(ConnectionSummary connection) {
+        this.id = connection.getId();
+        this.type = ComponentType.CONNECTION;
+        this.name = null;
+        this.revision = connection.getRevision();
+        this.current = null;
+        this.target = null;
+    }
+
+    /**
+     * Provides the component entity to update in the NiFi
+     *
+     * @return component entity with the revision and target position
+     */
+    public ComponentEntity toEntity() {
+        return toEntity(revision);
+    }
+
+    /**
+     * Provides the component entity to update in the NiFi using the provided revision, the entity of the component type
+     * as the NiFi rejects the others
+     *
+     * @param revision of the component to update
+     * @return component entity with the provided revision and target position
+     */
+    public ComponentEntity toEntity(RevisionDTO revision) {
+        ComponentEntity entity;
+        ComponentDTO dto;
+        switch (type) {
+            case PROCESSOR:
+                ProcessorDTO processorDto = new ProcessorDTO();
+                ProcessorEntity processorEntity = new ProcessorEntity();
+                processorEntity.setComponent(processorDto);
+                dto = processorDto;
+                entity = processorEntity;
+                break;
+            case INPUT_PORT:
+            case OUTPUT_PORT:
+                PortDTO portDto = new PortDTO();
+                PortEntity portEntity = new PortEntity();
+                portEntity.setComponent(portDto);
+                dto = portDto;
+                entity = portEntity;
+                break;
+            case FUNNEL:
+                FunnelDTO funnelDto = new FunnelDTO();
+                FunnelEntity funnelEntity = new FunnelEntity();
+                funnelEntity.setComponent(funnelDto);
+                dto = funnelDto;
+                entity = funnelEntity;
+                break;
+            case REMOTE_PROCESS_GROUP:
+                RemoteProcessGroupDTO rpgDto = new RemoteProcessGroupDTO();
+                RemoteProcessGroupEntity rpgEntity = new RemoteProcessGroupEntity();
+                rpgEntity.setComponent(rpgDto);
+                dto = rpgDto;
+                entity = rpgEntity;
+                break;
+            case CONNECTION:
+                ConnectionDTO connectionDto = new ConnectionDTO();
+                connectionDto.setBends(new ArrayList<>());
+                ConnectionEntity connectionEntity = new ConnectionEntity();
+                connectionEntity.setComponent(connectionDto);
+                dto = connectionDto;
+                entity = connectionEntity;
+                break;
+            default:
+                ProcessGroupDTO pgDto = new ProcessGroupDTO();
+                ProcessGroupEntity pgEntity = new ProcessGroupEntity();
+                pgEntity.setComponent(pgDto);
+                dto = pgDto;
+                entity = pgEntity;
+        }
+        entity.setRevision(revision);
+        dto.setId(id);
+        if (target != null) {
+            dto.setPosition(target);
+        }
+        return entity;
+    }
+
+    /**
+     * Human readable form of the change
+     *
+     * @return change description
+     */
+    @Override
+    public String toString() {
+        if (type == ComponentType.CONNECTION) {
+            return type.getResource() + " " + id + ": bends cleared";
+        }
+        return type.getResource() + " " + id + " (" + name + "): " + format(current) + " -> " + format(target);
+    }
+
+    /**
+     * Formats the position
+     *
+     * @param position to format
+     * @return formatted position
+     */
+    private static String format(PositionDTO position) {
+        return position != null ? "(" + position.getX() + ", " + position.getY() + ")" : "(?)";
+    }
+}
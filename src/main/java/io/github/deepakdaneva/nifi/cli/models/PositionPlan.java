@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import org.apache.nifi.web.api.dto.PositionDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan of the position changes, targets matching the current position are dropped as they would not change anything
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+public class PositionPlan {
+    /**
+     * Positions closer than this are considered same, NiFi keeps positions as doubles
+     */
+    static final double TOLERANCE = 0.5;
+    /**
+     * Changes which actually move a component or straighten a connection
+     */
+    final List<PositionChange> changes = new ArrayList<>();
+    /**
+     * Number of components already at their target position
+     */
+    int unchangedCount;
+
+    /**
+     * Plans the provided process group to be at the target position
+     *
+     * @param node process group
+     * @param target position of the process group
+     * @return {@code true} if the process group needs to be moved
+     */
+    public boolean add(FlowNode node, PositionDTO target) {
+        if (isSame(node.getPosition(), target)) {
+            unchangedCount++;
+            return false;
+        }
+        changes.add(new PositionChange(node, target));
+        return true;
+    }
+
+    /**
+     * Plans the provided component to be at the target position
+     *
+     * @param component to move
+     * @param target position of the component
+     * @return {@code true} if the component needs to be moved
+     */
+    public boolean add(ComponentSummary component, PositionDTO target) {
+        if (isSame(component.getPosition(), target)) {
+            unchangedCount++;
+            return false;
+        }
+        changes.add(new PositionChange(component, target));
+        return true;
+    }
+
+    /**
+     * Plans the bends of the provided connection to be removed, connections without bends are left as they are
+     *
+     * @param connection to straighten
+     * @return {@code true} if the connection has bends to remove
+     */
+    public boolean clearBends(ConnectionSummary connection) {
+        if (connection.getBendCount() == 0) {
+            return false;
+        }
+        changes.add(new PositionChange(connection));
+        return true;
+    }
+
+    /**
+     * Total number of components planned
+     *
+     * @return planned component count
+     */
+    public int getTotalCount() {
+        return changes.size() + unchangedCount;
+    }
+
+    /**
+     * Whether both positions are same
+     *
+     * @param current position
+     * @param target position
+     * @return {@code true} if positions are same
+     */
+    private static boolean isSame(PositionDTO current, PositionDTO target) {
+        return current != null && current.getX() != null && current.getY() != null && Math.abs(current.getX() - target.getX()) < TOLERANCE && Math.abs(current.getY() - target.getY()) < TOLERANCE;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Projection of the progress of an asynchronous provenance query, without its events
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@Getter
+@Setter
+public class ProvenanceQuery {
+    /**
+     * Query id
+     */
+    final String id;
+    /**
+     * Whether the query is finished
+     */
+    boolean finished;
+    /**
+     * Progress of the query
+     */
+    int percentCompleted;
+    /**
+     * Number of the events matching the query, more than the ones returned if the maximum results are reached
+     */
+    long totalCount;
+    /**
+     * First error of the query, {@code null} if none
+     */
+    String error;
+
+    /**
+     * Create instance
+     *
+     * @param id of the query
+     */
+    public ProvenanceQuery(String id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+
+/**
+ * On-disk cache of the NiFi access tokens keyed by the NiFi location and username. Files are readable by the owner
+ * only and cached files with broader permissions are ignored.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class AccessTokenCache {
+
+    /**
+     * Application configuration
+     */
+    @Inject
+    AppConfig appConfig;
+    /**
+     * Json mapper to read the access token claims
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Provides the cached access token if it is still valid
+     *
+     * @param location of the NiFi
+     * @param username of the user
+     * @return cached access token or {@code null} if not cached or expired
+     */
+    public String get(URI location, String username) {
+        try {
+            Path file = getFile(location, username);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            if (AppUtils.isPosix() && !AppUtils.FILE_PERMISSIONS.containsAll(Files.getPosixFilePermissions(file))) {
+                Log.warn("Ignoring cached access token with unsafe permissions: " + file);
+                return null;
+            }
+            String token = Files.readString(file, StandardCharsets.UTF_8).trim();
+            return isValid(token) ? token : null;
+        } catch (Exception e) {
+            Log.debug("Unable to read cached access token: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Caches the access token
+     *
+     * @param location of the NiFi
+     * @param username of the user
+     * @param token access token to cache
+     */
+    public void put(URI location, String username, String token) {
+        try {
+            AppUtils.writeAtomically(getFile(location, username), temp -> Files.writeString(temp, token, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            Log.warn("Unable to cache access token: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the cached access token
+     *
+     * @param location of the NiFi
+     * @param username of the user
+     */
+    public void remove(URI location, String username) {
+        try {
+            Files.deleteIfExists(getFile(location, username));
+        } catch (Exception e) {
+            Log.debug("Unable to remove cached access token: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the access token is not going to expire within the configured skew
+     *
+     * @param token access token (JWT) issued by the NiFi
+     * @return {@code true} if the token can be reused
+     */
+    public boolean isValid(String token) {
+        try {
+            String[] parts = token.split("\\.");
+            if (parts.length < 2) {
+                return false;
+            }
+            long expiry = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1])).path("exp").asLong(0);
+            return expiry - getExpirySkewSeconds() > System.currentTimeMillis() / 1000;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Provides the file of the cached access token
+     *
+     * @param location of the NiFi
+     * @param username of the user
+     * @return path of the cached token file
+     */
+    Path getFile(URI location, String username) {
+        return getDirectory().resolve(AppUtils.sha256Hex(location + "\n" + username));
+    }
+
+    /**
+     * Provides the directory of the cached access tokens
+     *
+     * @return path of the cache directory
+     */
+    Path getDirectory() {
+        return Paths.get(appConfig.tokenCache().directory());
+    }
+
+    /**
+     * Provides the seconds before the expiry of an access token from which it is not reused anymore
+     *
+     * @return expiry skew in seconds
+     */
+    long getExpirySkewSeconds() {
+        return appConfig.tokenCache().expirySkewSeconds();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.models.BackupSnapshot;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.github.deepakdaneva.nifi.cli.utils.FlowHashes;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * On-disk content-addressed store of the backed up process group flow definitions. Every flow definition is an object
+ * named by the canonical SHA-256 hash of its content, see {@link io.github.deepakdaneva.nifi.cli.utils.FlowHashes}, and
+ * written only if the store does not have it yet, so backing up a process group which did not change costs hashing it
+ * and no new bytes, however the NiFi orders the sets of the flow definition. The snapshots only list the objects of
+ * their process groups.
+ * <p>
+ * Layout: {@code objects/<first two hex digits>/<remaining hex digits>} and {@code snapshots/<id>.json}. Object format,
+ * all numbers big-endian: {@code int magic, long length} followed by the deflated content.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class BackupStore {
+
+    /**
+     * Marks the objects of this format, {@code NBO1}
+     */
+    static final int MAGIC = 0x4E424F31;
+    /**
+     * Extension of the snapshot files
+     */
+    static final String SNAPSHOT_EXTENSION = ".json";
+    /**
+     * Application configuration
+     */
+    @Inject
+    AppConfig appConfig;
+    /**
+     * Json mapper to read and write the snapshots
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Provides the canonical hash of the flow definition, the name of its object. Flow definitions differing only in
+     * the order of their fields, of the elements of their sets or in their formatting hash the same.
+     *
+     * @param definition to hash
+     * @return lowercase hex SHA-256 hash
+     * @throws IOException if the flow definition is not a valid json
+     */
+    public String hash(byte[] definition) throws IOException {
+        return AppUtils.toHex(FlowHashes.hash(objectMapper.readTree(definition)));
+    }
+
+    /**
+     * Writes the content as an object unless the store has it already
+     *
+     * @param hash of the content, see {@link BackupStore#hash(byte[])}
+     * @param content to write
+     * @return number of the bytes written to the store, {@code 0} if the object exists
+     * @throws IOException if writing fails
+     */
+    public long putObject(String hash, byte[] content) throws IOException {
+        Path file = getObjectFile(hash);
+        if (Files.isRegularFile(file)) {
+            return 0;
+        }
+        long[] written = {0};
+        // objects are immutable, a concurrent writer of the same object writes the same bytes
+        AppUtils.writeAtomically(file, temp -> {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(content.length);
+                try (OutputStream deflated = new DeflaterOutputStream(out, deflater, 1 << 16)) {
+                    deflated.write(content);
+                }
+            } finally {
+                deflater.end();
+            }
+            written[0] = Files.size(temp);
+        });
+        return written[0];
+    }
+
+    /**
+     * Reads the content of the object, verifying it against its hash
+     *
+     * @param hash of the content
+     * @return content of the object
+     * @throws IOException if the object is missing, not valid or does not match its hash
+     */
+    public byte[] getObject(String hash) throws IOException {
+        Path file = getObjectFile(hash);
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("Object " + hash + " is missing from the store.");
+        }
+        byte[] content;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unknown format of object " + hash + ".");
+            }
+            long length = in.readLong();
+            if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                throw new IOException("Invalid length of object " + hash + ".");
+            }
+            try (InflaterInputStream inflated = new InflaterInputStream(in)) {
+                content = inflated.readNBytes((int) length);
+            }
+            if (content.length != length) {
+                throw new IOException("Truncated object " + hash + ".");
+            }
+        }
+        String actual;
+        try {
+            actual = hash(content);
+        } catch (IOException e) {
+            throw new IOException("Object " + hash + " is not a valid flow definition.", e);
+        }
+        if (!hash.equals(actual)) {
+            throw new IOException("Object " + hash + " does not match its hash.");
+        }
+        return content;
+    }
+
+    /**
+     * Writes the snapshot, named by its id
+     *
+     * @param snapshot to write
+     * @throws IOException if writing fails
+     */
+    public void putSnapshot(BackupSnapshot snapshot) throws IOException {
+        Path file = getSnapshotsDirectory().resolve(snapshot.getId() + SNAPSHOT_EXTENSION);
+        AppUtils.writeAtomically(file, temp -> {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(out, snapshot);
+            }
+        });
+        Log.debug("Saved backup snapshot of " + snapshot.getGroups().size() + " process groups: " + file);
+    }
+
+    /**
+     * Reads the snapshot by its id
+     *
+     * @param id of the snapshot
+     * @return snapshot
+     * @throws IOException if the snapshot is missing or not valid
+     */
+    public BackupSnapshot getSnapshot(String id) throws IOException {
+        if (id == null || !id.matches("[0-9A-Za-z_-]+")) {
+            throw new IOException("Invalid snapshot id (" + id + ").");
+        }
+        Path file = getSnapshotsDirectory().resolve(id + SNAPSHOT_EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("Snapshot " + id + " is missing from the store.");
+        }
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return objectMapper.readValue(in, BackupSnapshot.class);
+        }
+    }
+
+    /**
+     * Provides the ids of the snapshots of the store, oldest first
+     *
+     * @return snapshot ids
+     * @throws IOException if listing fails
+     */
+    public List<String> getSnapshotIds() throws IOException {
+        Path directory = getSnapshotsDirectory();
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        List<String> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(SNAPSHOT_EXTENSION)).sorted().forEach(name -> ids.add(name.substring(0, name.length() - SNAPSHOT_EXTENSION.length())));
+        }
+        return ids;
+    }
+
+    /**
+     * Provides the file of the object
+     *
+     * @param hash of the content
+     * @return path of the object file
+     */
+    private Path getObjectFile(String hash) {
+        if (hash == null || hash.length() != 64 || !hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("Invalid object hash (" + hash + ").");
+        }
+        return getDirectory().resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    /**
+     * Provides the directory of the snapshots
+     *
+     * @return path of the snapshots directory
+     */
+    private Path getSnapshotsDirectory() {
+        return getDirectory().resolve("snapshots");
+    }
+
+    /**
+     * Provides the directory of the store
+     *
+     * @return path of the store directory
+     */
+    Path getDirectory() {
+        return Paths.get(appConfig.backup().directory());
+    }
+}
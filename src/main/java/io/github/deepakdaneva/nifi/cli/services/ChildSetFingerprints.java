@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.models.FlowNode;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk fingerprints of the child process group sets aligned by a previous run, one file per NiFi location. A process
+ * group whose children are the same as when it was last aligned does not need to be fetched nor aligned again. The
+ * fingerprint covers the ids of the children only, so the children moved by others since are noticed only once the set
+ * changes.
+ * <p>
+ * File format, all numbers big-endian: {@code int magic, int entryCount} followed by the entries, each one as
+ * {@code string groupId, long fingerprint}. Strings are written using {@link java.io.DataOutputStream#writeUTF(String)}.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class ChildSetFingerprints {
+
+    /**
+     * Marks the files of this format, {@code NCF1}
+     */
+    static final int MAGIC = 0x4E434631;
+    /**
+     * Application configuration
+     */
+    final AppConfig appConfig;
+    /**
+     * File of the opened fingerprints, {@code null} if not opened
+     */
+    volatile Path file;
+    /**
+     * Fingerprints of the child process group sets by process group id
+     */
+    final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+    /**
+     * Whether anything changed since the fingerprints were opened
+     */
+    volatile boolean dirty;
+
+    /**
+     * Create instance keeping the fingerprints in the configured directory
+     *
+     * @param appConfig application configuration
+     */
+    public ChildSetFingerprints(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Opens the fingerprints of the provided NiFi location, an unreadable file is ignored as if nothing was aligned
+     * before
+     *
+     * @param location of the NiFi
+     */
+    public synchronized void open(URI location) {
+        fingerprints.clear();
+        dirty = false;
+        try {
+            file = getFile(location);
+            if (!Files.isRegularFile(file)) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Unknown format.");
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    fingerprints.put(in.readUTF(), in.readLong());
+                }
+            }
+            Log.debug("Opened fingerprints of " + fingerprints.size() + " process groups: " + file);
+        } catch (Exception e) {
+            Log.debug("Ignoring unreadable fingerprints: " + e.getMessage());
+            fingerprints.clear();
+        }
+    }
+
+    /**
+     * Whether the fingerprints are opened
+     *
+     * @return {@code true} if opened
+     */
+    public boolean isOpen() {
+        return file != null;
+    }
+
+    /**
+     * Whether the children of the process group are the same as when it was last aligned
+     *
+     * @param node process group with its children
+     * @return {@code true} if aligned before with the same children
+     */
+    public boolean isUnchanged(FlowNode node) {
+        Long fingerprint = fingerprints.get(node.getId());
+        return fingerprint != null && fingerprint == fingerprint(node);
+    }
+
+    /**
+     * Records the children of the process group as aligned
+     *
+     * @param node process group with its children
+     */
+    public void put(FlowNode node) {
+        long fingerprint = fingerprint(node);
+        Long previous = fingerprints.put(node.getId(), fingerprint);
+        if (previous == null || previous != fingerprint) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Saves the fingerprints if anything changed
+     */
+    public synchronized void save() {
+        if (file == null || !dirty) {
+            return;
+        }
+        try {
+            Map<String, Long> snapshot = Map.copyOf(fingerprints);
+            AppUtils.writeAtomically(file, temp -> {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeLong(entry.getValue());
+                    }
+                }
+            });
+            dirty = false;
+            Log.debug("Saved fingerprints of " + snapshot.size() + " process groups: " + file);
+        } catch (Exception e) {
+            Log.warn("Unable to save fingerprints: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the fingerprints without saving them
+     */
+    public synchronized void close() {
+        file = null;
+        fingerprints.clear();
+        dirty = false;
+    }
+
+    /**
+     * Provides the fingerprint of the children of the process group, independent of their order
+     *
+     * @param node process group with its children
+     * @return fingerprint of the child process group ids
+     */
+    static long fingerprint(FlowNode node) {
+        String[] ids = node.getChildren().stream().map(FlowNode::getId).sorted().toArray(String[]::new);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String id : ids) {
+                digest.update(id.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Provides the fingerprints file of the NiFi location
+     *
+     * @param location of the NiFi
+     * @return path of the fingerprints file
+     */
+    private Path getFile(URI location) {
+        return Paths.get(appConfig.align().directory(), AppUtils.sha256Hex(location.toString()) + ".bin");
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowSummary;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+import org.apache.nifi.web.api.dto.PositionDTO;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk cache of the process group flows keyed by the process group id and revision version, one file per NiFi
+ * location. The file is memory-mapped and only indexed when opened, an entry is decoded the first time it is looked up
+ * and the entries not looked up are copied as they are when the cache is saved.
+ * <p>
+ * A cached flow is reused while the revision of its process group, as listed by the parent, is unchanged and it is not
+ * older than the configured maximum age. Moving the child process groups does not change the revision of the parent so
+ * the maximum age bounds how long such changes made by others can go unnoticed, the moves made by this application are
+ * written through using {@link FlowCache#update(String, RevisionDTO, PositionDTO)}.
+ * <p>
+ * File format, all numbers big-endian: {@code int magic, int entryCount} followed by the entries, each one as
+ * {@code int length, string groupId, long version, long fetchedAtMillis, int[7] counts, int childCount} and for every
+ * child {@code string id, string name, long version, byte hasPosition, double x, double y}. Strings are an {@code int}
+ * length, {@code -1} for {@code null}, followed by the UTF-8 bytes.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class FlowCache {
+
+    /**
+     * Marks the files of this format, {@code NFC1}
+     */
+    static final int MAGIC = 0x4E464331;
+    /**
+     * Application configuration
+     */
+    final AppConfig appConfig;
+    /**
+     * File of the opened cache, {@code null} if not opened
+     */
+    volatile Path file;
+    /**
+     * Mapped content of the file, empty if the file did not exist or was not valid
+     */
+    ByteBuffer mapped = ByteBuffer.allocate(0);
+    /**
+     * Offsets of the entries in the mapped content by process group id
+     */
+    final Map<String, Integer> offsets = new ConcurrentHashMap<>();
+    /**
+     * Decoded or fetched entries by process group id
+     */
+    final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Parent process group id by child process group id of the decoded or fetched entries
+     */
+    final Map<String, String> parents = new ConcurrentHashMap<>();
+    /**
+     * Whether anything changed since the cache was opened
+     */
+    volatile boolean dirty;
+
+    /**
+     * Create instance keeping the cache in the configured directory
+     *
+     * @param appConfig application configuration
+     */
+    public FlowCache(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Opens the cache of the provided NiFi location
+     *
+     * @param location of the NiFi
+     */
+    public synchronized void open(URI location) {
+        try {
+            file = getFile(location);
+            if (!Files.isRegularFile(file)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            index();
+            Log.debug("Opened flow cache of " + offsets.size() + " process groups: " + file);
+        } catch (Exception e) {
+            Log.debug("Ignoring unreadable flow cache: " + e.getMessage());
+            mapped = ByteBuffer.allocate(0);
+            offsets.clear();
+        }
+    }
+
+    /**
+     * Whether the cache is opened
+     *
+     * @return {@code true} if opened
+     */
+    public boolean isOpen() {
+        return file != null;
+    }
+
+    /**
+     * Provides the cached flow of the process group if it was cached with the same revision version and is not
+     * expired
+     *
+     * @param groupId id of the process group
+     * @param version current revision version of the process group
+     * @return cached flow, {@code null} if not cached, changed or expired
+     */
+    public FlowSummary get(String groupId, long version) {
+        Entry entry = entries.get(groupId);
+        if (entry == null) {
+            Integer offset = offsets.get(groupId);
+            if (offset == null) {
+                return null;
+            }
+            entry = entries.computeIfAbsent(groupId, id -> decode(offset));
+            entry.summary.getProcessGroups().forEach(child -> parents.put(child.getId(), groupId));
+        }
+        if (entry.version != version || System.currentTimeMillis() - entry.fetchedAt > TimeUnit.SECONDS.toMillis(appConfig.flowCache().maxAgeSeconds())) {
+            return null;
+        }
+        return entry.summary;
+    }
+
+    /**
+     * Caches the fetched flow of the process group
+     *
+     * @param groupId id of the process group
+     * @param version revision version of the process group the flow was fetched at
+     * @param summary fetched flow
+     */
+    public void put(String groupId, long version, FlowSummary summary) {
+        entries.put(groupId, new Entry(version, System.currentTimeMillis(), summary));
+        summary.getProcessGroups().forEach(child -> parents.put(child.getId(), groupId));
+        dirty = true;
+    }
+
+    /**
+     * Updates the cached revision and position of the process group in the flow of its parent, to be invoked once the
+     * process group is updated
+     *
+     * @param groupId id of the updated process group
+     * @param revision of the process group after the update
+     * @param position of the process group after the update
+     */
+    public void update(String groupId, RevisionDTO revision, PositionDTO position) {
+        String parentId = parents.get(groupId);
+        Entry entry = parentId != null ? entries.get(parentId) : null;
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            for (ComponentSummary child : entry.summary.getProcessGroups()) {
+                if (child.getId().equals(groupId)) {
+                    child.setRevision(revision);
+                    child.setPosition(position);
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the cache if anything changed, expired entries are dropped
+     */
+    public synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (dirty) {
+                save();
+            }
+        } catch (Exception e) {
+            Log.warn("Unable to save flow cache: " + e.getMessage());
+        } finally {
+            file = null;
+            mapped = ByteBuffer.allocate(0);
+            offsets.clear();
+            entries.clear();
+            parents.clear();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Indexes the entries of the mapped content
+     *
+     * @throws IOException if the content is not valid
+     */
+    private void index() throws IOException {
+        ByteBuffer buffer = mapped.duplicate();
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Unknown format.");
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.position();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Truncated entry.");
+            }
+            offsets.put(readString(buffer), offset);
+            buffer.position(offset + 4 + length);
+        }
+    }
+
+    /**
+     * Decodes the entry at the provided offset of the mapped content
+     *
+     * @param offset of the entry
+     * @return decoded entry
+     */
+    private Entry decode(int offset) {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset + 4);
+        readString(buffer);
+        long version = buffer.getLong();
+        long fetchedAt = buffer.getLong();
+        FlowSummary summary = new FlowSummary();
+        summary.setProcessorCount(buffer.getInt());
+        summary.setConnectionCount(buffer.getInt());
+        summary.setInputPortCount(buffer.getInt());
+        summary.setOutputPortCount(buffer.getInt());
+        summary.setRemoteProcessGroupCount(buffer.getInt());
+        summary.setFunnelCount(buffer.getInt());
+        summary.setLabelCount(buffer.getInt());
+        int childCount = buffer.getInt();
+        for (int i = 0; i < childCount; i++) {
+            ComponentSummary child = new ComponentSummary(readString(buffer));
+            child.setName(readString(buffer));
+            long childVersion = buffer.getLong();
+            if (childVersion >= 0) {
+                RevisionDTO revision = new RevisionDTO();
+                revision.setVersion(childVersion);
+                child.setRevision(revision);
+            }
+            boolean hasPosition = buffer.get() != 0;
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+            if (hasPosition) {
+                child.setPosition(new PositionDTO(x, y));
+            }
+            summary.getProcessGroups().add(child);
+        }
+        return new Entry(version, fetchedAt, summary);
+    }
+
+    /**
+     * Writes the entries to a temporary file and replaces the cache file with it
+     *
+     * @throws IOException if writing fails
+     */
+    private void save() throws IOException {
+        long expiredBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(appConfig.flowCache().maxAgeSeconds());
+        int[] count = {0};
+        AppUtils.writeAtomically(file, temp -> {
+            // the entry count is not known upfront, it is written in place once all the entries are written
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(0);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    if (entry.getValue().fetchedAt >= expiredBefore) {
+                        bytes.reset();
+                        encode(new DataOutputStream(bytes), entry.getKey(), entry.getValue());
+                        out.writeInt(bytes.size());
+                        bytes.writeTo(out);
+                        count[0]++;
+                    }
+                }
+                for (Map.Entry<String, Integer> offset : offsets.entrySet()) {
+                    if (!entries.containsKey(offset.getKey())) {
+                        count[0] += copy(out, offset.getValue(), expiredBefore);
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, count[0]), 4);
+            }
+        });
+        Log.debug("Saved flow cache of " + count[0] + " process groups: " + file);
+    }
+
+    /**
+     * Encodes the entry without its length
+     *
+     * @param out to write to
+     * @param groupId id of the process group
+     * @param entry to encode
+     * @throws IOException if writing fails
+     */
+    private static void encode(DataOutputStream out, String groupId, Entry entry) throws IOException {
+        FlowSummary summary = entry.summary;
+        writeString(out, groupId);
+        out.writeLong(entry.version);
+        out.writeLong(entry.fetchedAt);
+        out.writeInt(summary.getProcessorCount());
+        out.writeInt(summary.getConnectionCount());
+        out.writeInt(summary.getInputPortCount());
+        out.writeInt(summary.getOutputPortCount());
+        out.writeInt(summary.getRemoteProcessGroupCount());
+        out.writeInt(summary.getFunnelCount());
+        out.writeInt(summary.getLabelCount());
+        synchronized (entry) {
+            out.writeInt(summary.getProcessGroups().size());
+            for (ComponentSummary child : summary.getProcessGroups()) {
+                writeString(out, child.getId());
+                writeString(out, child.getName());
+                out.writeLong(child.getRevision() != null && child.getRevision().getVersion() != null ? child.getRevision().getVersion() : -1);
+                PositionDTO position = child.getPosition();
+                out.writeBoolean(position != null);
+                out.writeDouble(position != null && position.getX() != null ? position.getX() : 0);
+                out.writeDouble(position != null && position.getY() != null ? position.getY() : 0);
+            }
+        }
+    }
+
+    /**
+     * Copies the entry of the mapped content as it is if not expired
+     *
+     * @param out to write to
+     * @param offset of the entry
+     * @param expiredBefore entries fetched before this time are not copied
+     * @return {@code 1} if copied, {@code 0} otherwise
+     * @throws IOException if writing fails
+     */
+    private int copy(OutputStream out, int offset, long expiredBefore) throws IOException {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset);
+        int length = buffer.getInt();
+        readString(buffer);
+        buffer.getLong();
+        if (buffer.getLong() < expiredBefore) {
+            return 0;
+        }
+        byte[] entry = new byte[4 + length];
+        buffer.position(offset);
+        buffer.get(entry);
+        out.write(entry);
+        return 1;
+    }
+
+    /**
+     * Reads the length prefixed string
+     *
+     * @param buffer to read from
+     * @return string, {@code null} if the length is negative
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the length prefixed string
+     *
+     * @param out to write to
+     * @param value string to write, may be {@code null}
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Provides the cache file of the NiFi location
+     *
+     * @param location of the NiFi
+     * @return path of the cache file
+     */
+    private Path getFile(URI location) {
+        return Paths.get(appConfig.flowCache().directory(), AppUtils.sha256Hex(location.toString()) + ".bin");
+    }
+
+    /**
+     * Cached flow of a process group
+     */
+    static final class Entry {
+        /**
+         * Revision version of the process group the flow was fetched at
+         */
+        final long version;
+        /**
+         * Time the flow was fetched at
+         */
+        final long fetchedAt;
+        /**
+         * Flow of the process group
+         */
+        final FlowSummary summary;
+
+        /**
+         * Create instance
+         *
+         * @param version revision version of the process group the flow was fetched at
+         * @param fetchedAt time the flow was fetched at
+         * @param summary flow of the process group
+         */
+        Entry(long version, long fetchedAt, FlowSummary summary) {
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,853 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.models.ComponentStatus;
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.ComponentType;
+import io.github.deepakdaneva.nifi.cli.models.ConnectionSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowSnapshot;
+import io.github.deepakdaneva.nifi.cli.models.FlowSummary;
+import io.github.deepakdaneva.nifi.cli.models.LabelSummary;
+import io.github.deepakdaneva.nifi.cli.utils.StatusSeries;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.nifi.web.api.dto.DimensionsDTO;
+import org.apache.nifi.web.api.dto.PositionDTO;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads projections of the flow responses of the NiFi while streaming them, only the fields declared by the command are
+ * materialized and everything else, like the configurations and the status of the components, is skipped without
+ * being bound. The memory held is proportional to the projection instead of the response.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class FlowProjectionReader {
+
+    /**
+     * Json mapper to create the parsers and bind the small objects
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Create instance, the mapper is injected by the container
+     */
+    public FlowProjectionReader() {
+    }
+
+    /**
+     * Create instance reading with the provided mapper, outside of the container
+     *
+     * @param objectMapper json mapper to create the parsers
+     */
+    public FlowProjectionReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the process group flow response of {@code GET /flow/process-groups/{id}}
+     *
+     * @param response stream of the response, it is not closed
+     * @param fields of the child process groups to read, the id is always read
+     * @return projection of the flow
+     * @throws IOException if the response is not a valid json
+     */
+    public FlowSummary readFlow(InputStream response, Set<ComponentSummary.Field> fields) throws IOException {
+        FlowSummary summary = new FlowSummary();
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !moveTo(parser, "processGroupFlow") || !moveTo(parser, "flow")) {
+                return summary;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (field) {
+                    case "processGroups":
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            summary.getProcessGroups().add(readComponent(parser, fields, ComponentType.PROCESS_GROUP));
+                        }
+                        break;
+                    case "processors":
+                        summary.setProcessorCount(readComponents(parser, fields, ComponentType.PROCESSOR, summary));
+                        break;
+                    case "connections":
+                        summary.setConnectionCount(fields.contains(ComponentSummary.Field.COMPONENTS) ? readConnections(parser, summary) : count(parser));
+                        break;
+                    case "inputPorts":
+                        summary.setInputPortCount(readComponents(parser, fields, ComponentType.INPUT_PORT, summary));
+                        break;
+                    case "outputPorts":
+                        summary.setOutputPortCount(readComponents(parser, fields, ComponentType.OUTPUT_PORT, summary));
+                        break;
+                    case "remoteProcessGroups":
+                        summary.setRemoteProcessGroupCount(readComponents(parser, fields, ComponentType.REMOTE_PROCESS_GROUP, summary));
+                        break;
+                    case "funnels":
+                        summary.setFunnelCount(readComponents(parser, fields, ComponentType.FUNNEL, summary));
+                        break;
+                    case "labels":
+                        summary.setLabelCount(fields.contains(ComponentSummary.Field.COMPONENTS) ? readLabels(parser, summary) : count(parser));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Reads the recursive process group status response of {@code GET /flow/process-groups/{id}/status} into a
+     * snapshot holding the structure of the hierarchy along with the names and the component counts of the process
+     * groups. Nested process groups are tracked on an explicit stack so deep hierarchies do not grow the call stack.
+     *
+     * @param response stream of the response, it is not closed
+     * @return snapshot without revisions and positions
+     * @throws IOException if the response is not a valid json or has no status
+     */
+    public FlowSnapshot readStatusTree(InputStream response) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !moveTo(parser, "processGroupStatus") || !moveTo(parser, "aggregateSnapshot")) {
+                throw new IOException("Process group status is missing in the response.");
+            }
+            List<FlowNode> nodes = new ArrayList<>();
+            Deque<StatusFrame> stack = new ArrayDeque<>();
+            stack.push(new StatusFrame(StatusFrame.SNAPSHOT));
+            FlowNode root = null;
+            while (!stack.isEmpty()) {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw new IOException("Unexpected end of the process group status.");
+                }
+                StatusFrame frame = stack.peek();
+                if (frame.kind == StatusFrame.CHILDREN) {
+                    // array of the process group status snapshot entities
+                    if (token == JsonToken.START_OBJECT) {
+                        stack.push(new StatusFrame(StatusFrame.ENTITY));
+                    } else if (token == JsonToken.END_ARRAY) {
+                        stack.pop();
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (frame.kind == StatusFrame.ENTITY) {
+                    // process group status snapshot entity wrapping the snapshot
+                    if (token == JsonToken.END_OBJECT) {
+                        stack.pop();
+                    } else {
+                        String field = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT && "processGroupStatusSnapshot".equals(field)) {
+                            stack.push(new StatusFrame(StatusFrame.SNAPSHOT));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if (token == JsonToken.END_OBJECT) {
+                    stack.pop();
+                    FlowNode node = new FlowNode(frame.id);
+                    node.setName(frame.name);
+                    node.setComponentCount(frame.componentCount);
+                    node.setChildren(frame.children);
+                    nodes.add(node);
+                    StatusFrame parent = parentSnapshot(stack);
+                    if (parent != null) {
+                        parent.children.add(node);
+                    } else {
+                        root = node;
+                    }
+                } else {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "id":
+                            frame.id = parser.getValueAsString();
+                            break;
+                        case "name":
+                            frame.name = parser.getValueAsString();
+                            break;
+                        case "processGroupStatusSnapshots":
+                            if (value == JsonToken.START_ARRAY) {
+                                stack.push(new StatusFrame(StatusFrame.CHILDREN));
+                            } else {
+                                parser.skipChildren();
+                            }
+                            break;
+                        case "processorStatusSnapshots":
+                        case "connectionStatusSnapshots":
+                        case "inputPortStatusSnapshots":
+                        case "outputPortStatusSnapshots":
+                        case "remoteProcessGroupStatusSnapshots":
+                            // funnels are not part of the status, they are counted once the process group is fetched
+                            frame.componentCount += value == JsonToken.START_ARRAY ? count(parser) : 0;
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+            }
+            FlowSnapshot snapshot = new FlowSnapshot(root);
+            nodes.forEach(snapshot::add);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Reads the statuses of the processors and the ports from the recursive process group status response of
+     * {@code GET /flow/process-groups/{id}/status}, at any depth of the hierarchy. The statuses of the connections and
+     * the remote process groups are skipped without being read.
+     *
+     * @param response stream of the response, it is not closed
+     * @return statuses of the processors and the ports in the order listed
+     * @throws IOException if the response is not a valid json
+     */
+    public List<ComponentStatus> readComponentStatuses(InputStream response) throws IOException {
+        List<ComponentStatus> statuses = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            ComponentType portType = ComponentType.INPUT_PORT;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                String field = parser.getCurrentName();
+                switch (field) {
+                    case "inputPortStatusSnapshots":
+                        portType = ComponentType.INPUT_PORT;
+                        break;
+                    case "outputPortStatusSnapshots":
+                        portType = ComponentType.OUTPUT_PORT;
+                        break;
+                    case "processorStatusSnapshot":
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            statuses.add(readComponentStatus(parser, ComponentType.PROCESSOR));
+                        }
+                        break;
+                    case "portStatusSnapshot":
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            statuses.add(readComponentStatus(parser, portType));
+                        }
+                        break;
+                    case "connectionStatusSnapshots":
+                    case "remoteProcessGroupStatusSnapshots":
+                        parser.nextToken();
+                        parser.skipChildren();
+                        break;
+                    default:
+                        // the value is read as the next token, descending into the objects and the arrays
+                }
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Reads the status snapshot of a processor or a port, the parser is at the start of the snapshot and is left at its
+     * end
+     *
+     * @param parser positioned at the start of the snapshot
+     * @param type of the component
+     * @return projection of the status
+     * @throws IOException if the snapshot is not a valid json
+     */
+    private static ComponentStatus readComponentStatus(JsonParser parser, ComponentType type) throws IOException {
+        String id = null;
+        String groupId = null;
+        String name = null;
+        String runStatus = null;
+        int activeThreadCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsString();
+                    break;
+                case "groupId":
+                    groupId = parser.getValueAsString();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "runStatus":
+                    runStatus = parser.getValueAsString();
+                    break;
+                case "activeThreadCount":
+                    activeThreadCount = parser.getValueAsInt();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        ComponentStatus status = new ComponentStatus(id);
+        status.setType(type);
+        status.setGroupId(groupId);
+        status.setName(name);
+        status.setRunStatus(runStatus);
+        status.setActiveThreadCount(activeThreadCount);
+        return status;
+    }
+
+    /**
+     * Reads the counters of the process groups and of the connections from the recursive process group status response
+     * of {@code GET /flow/process-groups/{id}/status} into the series, as a new poll of them. The ids are looked up
+     * from the buffer of the parser and the counters are read as primitives into frames reused for every process group
+     * at the same depth, so reading a status whose components are all known allocates next to nothing. The back
+     * pressure of a process group is the highest one of its own connections.
+     *
+     * @param response stream of the response, it is not closed
+     * @param groups series of the process groups
+     * @param connections series of the connections
+     * @throws IOException if the response is not a valid json or has no status
+     */
+    public void readStatusCounters(InputStream response, StatusSeries groups, StatusSeries connections) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !moveTo(parser, "processGroupStatus") || !moveTo(parser, "aggregateSnapshot")) {
+                throw new IOException("Process group status is missing in the response.");
+            }
+            groups.beginPoll();
+            connections.beginPoll();
+            List<CounterFrame> frames = new ArrayList<>();
+            frames.add(new CounterFrame());
+            CounterFrame connection = new CounterFrame();
+            int[] kinds = new int[16];
+            int top = 0;
+            int depth = 0;
+            kinds[top] = StatusFrame.SNAPSHOT;
+            while (top >= 0) {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw new IOException("Unexpected end of the process group status.");
+                }
+                if (kinds[top] == StatusFrame.CHILDREN) {
+                    // array of the process group status snapshot entities
+                    if (token == JsonToken.START_OBJECT) {
+                        kinds = push(kinds, ++top, StatusFrame.ENTITY);
+                    } else if (token == JsonToken.END_ARRAY) {
+                        top--;
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (kinds[top] == StatusFrame.ENTITY) {
+                    // process group status snapshot entity wrapping the snapshot
+                    if (token == JsonToken.END_OBJECT) {
+                        top--;
+                    } else {
+                        String field = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT && "processGroupStatusSnapshot".equals(field)) {
+                            kinds = push(kinds, ++top, StatusFrame.SNAPSHOT);
+                            if (++depth == frames.size()) {
+                                frames.add(new CounterFrame());
+                            }
+                            frames.get(depth).reset();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if (token == JsonToken.END_OBJECT) {
+                    top--;
+                    CounterFrame frame = frames.get(depth--);
+                    int index = groups.indexOf(frame.id, 0, frame.idLength);
+                    if (groups.isUnlabeled(index)) {
+                        groups.setLabel(index, frame.name.toString());
+                    }
+                    groups.record(index, frame.counters);
+                } else {
+                    CounterFrame frame = frames.get(depth);
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "processGroupStatusSnapshots":
+                            if (value == JsonToken.START_ARRAY) {
+                                kinds = push(kinds, ++top, StatusFrame.CHILDREN);
+                            } else {
+                                parser.skipChildren();
+                            }
+                            break;
+                        case "connectionStatusSnapshots":
+                            if (value == JsonToken.START_ARRAY) {
+                                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                    readConnectionCounters(parser, connection, connections);
+                                    frame.counters[StatusSeries.PERCENT_USE] = Math.max(frame.counters[StatusSeries.PERCENT_USE], connection.counters[StatusSeries.PERCENT_USE]);
+                                }
+                            } else {
+                                parser.skipChildren();
+                            }
+                            break;
+                        case "activeThreadCount":
+                            frame.counters[StatusSeries.ACTIVE_THREADS] = parser.getValueAsLong();
+                            break;
+                        default:
+                            if (!frame.read(parser, field)) {
+                                parser.skipChildren();
+                            }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the connection status snapshot entity into the series, the parser is at the start of the entity and is left
+     * at its end
+     *
+     * @param parser positioned at the start of the entity
+     * @param frame to read the snapshot into, reused for all the connections
+     * @param connections series of the connections
+     * @throws IOException if the entity is not a valid json
+     */
+    private static void readConnectionCounters(JsonParser parser, CounterFrame frame, StatusSeries connections) throws IOException {
+        frame.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT || !"connectionStatusSnapshot".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            long percentUseCount = 0;
+            long percentUseBytes = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String snapshotField = parser.getCurrentName();
+                parser.nextToken();
+                switch (snapshotField) {
+                    case "sourceName":
+                        frame.sourceName.setLength(0);
+                        frame.sourceName.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        break;
+                    case "destinationName":
+                        frame.destinationName.setLength(0);
+                        frame.destinationName.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        break;
+                    case "percentUseCount":
+                        percentUseCount = parser.getValueAsLong();
+                        break;
+                    case "percentUseBytes":
+                        percentUseBytes = parser.getValueAsLong();
+                        break;
+                    default:
+                        if (!frame.read(parser, snapshotField)) {
+                            parser.skipChildren();
+                        }
+                }
+            }
+            frame.counters[StatusSeries.PERCENT_USE] = Math.max(percentUseCount, percentUseBytes);
+        }
+        if (frame.idLength == 0) {
+            return;
+        }
+        int index = connections.indexOf(frame.id, 0, frame.idLength);
+        if (connections.isUnlabeled(index)) {
+            StringBuilder label = new StringBuilder();
+            if (frame.name.length() > 0) {
+                label.append(frame.name).append(' ');
+            }
+            connections.setLabel(index, label.append(frame.sourceName).append(" -> ").append(frame.destinationName).toString());
+        }
+        connections.record(index, frame.counters);
+    }
+
+    /**
+     * Reads the component entities of the array if {@link ComponentSummary.Field#COMPONENTS} is declared or counts them
+     * otherwise, the parser is at the start of the array and is left at its end
+     *
+     * @param parser positioned at the start of the array
+     * @param fields to read
+     * @param type of the components
+     * @param summary to add the read components to
+     * @return number of components
+     * @throws IOException if the array is not a valid json
+     */
+    private int readComponents(JsonParser parser, Set<ComponentSummary.Field> fields, ComponentType type, FlowSummary summary) throws IOException {
+        if (!fields.contains(ComponentSummary.Field.COMPONENTS)) {
+            return count(parser);
+        }
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            summary.getComponents().add(readComponent(parser, fields, type));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the connection entities of the array, the parser is at the start of the array and is left at its end
+     *
+     * @param parser positioned at the start of the array
+     * @param summary to add the read connections to
+     * @return number of connections
+     * @throws IOException if the array is not a valid json
+     */
+    private int readConnections(JsonParser parser, FlowSummary summary) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null;
+            RevisionDTO revision = null;
+            String sourceId = null;
+            String sourceGroupId = null;
+            String destinationId = null;
+            String destinationGroupId = null;
+            int bendCount = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id":
+                        id = parser.getValueAsString();
+                        break;
+                    case "revision":
+                        if (value == JsonToken.START_OBJECT) {
+                            revision = objectMapper.readValue(parser, RevisionDTO.class);
+                        }
+                        break;
+                    case "sourceId":
+                        sourceId = parser.getValueAsString();
+                        break;
+                    case "sourceGroupId":
+                        sourceGroupId = parser.getValueAsString();
+                        break;
+                    case "destinationId":
+                        destinationId = parser.getValueAsString();
+                        break;
+                    case "destinationGroupId":
+                        destinationGroupId = parser.getValueAsString();
+                        break;
+                    case "bends":
+                        bendCount = value == JsonToken.START_ARRAY ? count(parser) : 0;
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            ConnectionSummary connection = new ConnectionSummary(id);
+            connection.setRevision(revision);
+            connection.setSourceId(sourceId);
+            connection.setSourceGroupId(sourceGroupId);
+            connection.setDestinationId(destinationId);
+            connection.setDestinationGroupId(destinationGroupId);
+            connection.setBendCount(bendCount);
+            summary.getConnections().add(connection);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the areas covered by the label entities of the array, the parser is at the start of the array and is left at
+     * its end. Labels without a position or a size, not readable by the user, are counted only.
+     *
+     * @param parser positioned at the start of the array
+     * @param summary to add the read labels to
+     * @return number of labels
+     * @throws IOException if the array is not a valid json
+     */
+    private int readLabels(JsonParser parser, FlowSummary summary) throws IOException {
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            count++;
+            String id = null;
+            PositionDTO position = null;
+            DimensionsDTO dimensions = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("id".equals(field)) {
+                    id = parser.getValueAsString();
+                } else if ("position".equals(field) && value == JsonToken.START_OBJECT) {
+                    position = objectMapper.readValue(parser, PositionDTO.class);
+                } else if ("dimensions".equals(field) && value == JsonToken.START_OBJECT) {
+                    dimensions = objectMapper.readValue(parser, DimensionsDTO.class);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (position != null && position.getX() != null && position.getY() != null && dimensions != null && dimensions.getWidth() != null && dimensions.getHeight() != null) {
+                LabelSummary label = new LabelSummary(id);
+                label.setPosition(position);
+                label.setWidth(dimensions.getWidth());
+                label.setHeight(dimensions.getHeight());
+                summary.getLabels().add(label);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the component entity, the parser is at the start of the entity and is left at its end
+     *
+     * @param parser positioned at the start of the entity
+     * @param fields to read
+     * @param type of the component
+     * @return projection of the component
+     * @throws IOException if the entity is not a valid json
+     */
+    private ComponentSummary readComponent(JsonParser parser, Set<ComponentSummary.Field> fields, ComponentType type) throws IOException {
+        String id = null;
+        String name = null;
+        RevisionDTO revision = null;
+        PositionDTO position = null;
+        PositionDTO componentPosition = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getValueAsString();
+            } else if ("revision".equals(field) && value == JsonToken.START_OBJECT && fields.contains(ComponentSummary.Field.REVISION)) {
+                revision = objectMapper.readValue(parser, RevisionDTO.class);
+            } else if ("position".equals(field) && value == JsonToken.START_OBJECT && fields.contains(ComponentSummary.Field.POSITION)) {
+                position = objectMapper.readValue(parser, PositionDTO.class);
+            } else if ("component".equals(field) && value == JsonToken.START_OBJECT && (fields.contains(ComponentSummary.Field.NAME) || fields.contains(ComponentSummary.Field.POSITION))) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String componentField = parser.getCurrentName();
+                    JsonToken componentValue = parser.nextToken();
+                    if ("name".equals(componentField) && fields.contains(ComponentSummary.Field.NAME)) {
+                        name = parser.getValueAsString();
+                    } else if ("position".equals(componentField) && componentValue == JsonToken.START_OBJECT && fields.contains(ComponentSummary.Field.POSITION)) {
+                        componentPosition = objectMapper.readValue(parser, PositionDTO.class);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        ComponentSummary summary = new ComponentSummary(id);
+        summary.setType(type);
+        summary.setName(name);
+        summary.setRevision(revision);
+        // the position of the entity is missing if the component is not readable by the user
+        summary.setPosition(position != null ? position : componentPosition);
+        return summary;
+    }
+
+    /**
+     * Moves the parser into the value of the provided field of the current object, skipping the fields before it
+     *
+     * @param parser positioned inside an object
+     * @param name of the field holding an object
+     * @return {@code true} if the parser is at the start of the object of the field
+     * @throws IOException if the response is not a valid json
+     */
+    public static boolean moveTo(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field) && value == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Counts the elements of the array without reading them, the parser is at the start of the array and is left at
+     * its end
+     *
+     * @param parser positioned at the start of the array
+     * @return number of elements
+     * @throws IOException if the array is not a valid json
+     */
+    private static int count(JsonParser parser) throws IOException {
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Pushes the kind of the frame on the stack of the kinds, growing it if needed
+     *
+     * @param kinds stack of the kinds of the frames
+     * @param top position of the pushed frame
+     * @param kind of the pushed frame
+     * @return stack of the kinds
+     */
+    private static int[] push(int[] kinds, int top, int kind) {
+        if (top == kinds.length) {
+            kinds = Arrays.copyOf(kinds, top * 2);
+        }
+        kinds[top] = kind;
+        return kinds;
+    }
+
+    /**
+     * Provides the nearest snapshot frame of the stack
+     *
+     * @param stack of the frames
+     * @return nearest snapshot frame, {@code null} if there is none
+     */
+    private static StatusFrame parentSnapshot(Deque<StatusFrame> stack) {
+        for (StatusFrame frame : stack) {
+            if (frame.kind == StatusFrame.SNAPSHOT) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Json object or array being read from the process group status
+     */
+    static final class StatusFrame {
+        /**
+         * Process group status snapshot
+         */
+        static final int SNAPSHOT = 0;
+        /**
+         * Array of the child process group status snapshot entities
+         */
+        static final int CHILDREN = 1;
+        /**
+         * Process group status snapshot entity
+         */
+        static final int ENTITY = 2;
+        /**
+         * Kind of the frame
+         */
+        final int kind;
+        /**
+         * Process group id
+         */
+        String id;
+        /**
+         * Process group name
+         */
+        String name;
+        /**
+         * Number of components other than process groups
+         */
+        int componentCount;
+        /**
+         * Child process groups
+         */
+        List<FlowNode> children = new ArrayList<>();
+
+        /**
+         * Create instance of the provided kind
+         *
+         * @param kind of the frame
+         */
+        StatusFrame(int kind) {
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Counters of a process group or a connection status snapshot being read, reused for the snapshots read one after
+     * the other
+     */
+    static final class CounterFrame {
+        /**
+         * Characters of the id
+         */
+        char[] id = new char[64];
+        /**
+         * Length of the id
+         */
+        int idLength;
+        /**
+         * Name
+         */
+        final StringBuilder name = new StringBuilder();
+        /**
+         * Name of the source of the connection
+         */
+        final StringBuilder sourceName = new StringBuilder();
+        /**
+         * Name of the destination of the connection
+         */
+        final StringBuilder destinationName = new StringBuilder();
+        /**
+         * Counters, see {@link StatusSeries#METRICS}
+         */
+        final long[] counters = new long[StatusSeries.METRICS];
+
+        /**
+         * Clears the frame for the next snapshot
+         */
+        void reset() {
+            idLength = 0;
+            name.setLength(0);
+            sourceName.setLength(0);
+            destinationName.setLength(0);
+            Arrays.fill(counters, 0);
+        }
+
+        /**
+         * Reads the value of the field common to the process group and the connection snapshots
+         *
+         * @param parser positioned at the value of the field
+         * @param field name of the field
+         * @return {@code true} if the field is read, {@code false} if the value is left to be skipped
+         * @throws IOException if the value is not a valid json
+         */
+        boolean read(JsonParser parser, String field) throws IOException {
+            switch (field) {
+                case "id":
+                    idLength = parser.getTextLength();
+                    if (idLength > id.length) {
+                        id = new char[idLength];
+                    }
+                    System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), id, 0, idLength);
+                    return true;
+                case "name":
+                    name.setLength(0);
+                    name.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    return true;
+                case "flowFilesIn":
+                    counters[StatusSeries.FLOWFILES_IN] = parser.getValueAsLong();
+                    return true;
+                case "bytesIn":
+                    counters[StatusSeries.BYTES_IN] = parser.getValueAsLong();
+                    return true;
+                case "flowFilesOut":
+                    counters[StatusSeries.FLOWFILES_OUT] = parser.getValueAsLong();
+                    return true;
+                case "bytesOut":
+                    counters[StatusSeries.BYTES_OUT] = parser.getValueAsLong();
+                    return true;
+                case "flowFilesQueued":
+                    counters[StatusSeries.FLOWFILES_QUEUED] = parser.getValueAsLong();
+                    return true;
+                case "bytesQueued":
+                    counters[StatusSeries.BYTES_QUEUED] = parser.getValueAsLong();
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
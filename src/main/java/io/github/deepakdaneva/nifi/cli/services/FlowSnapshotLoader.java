@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowSnapshot;
+import io.github.deepakdaneva.nifi.cli.models.FlowSummary;
+import io.github.deepakdaneva.nifi.cli.utils.TreeWalker;
+import io.quarkus.logging.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Loads a {@link io.github.deepakdaneva.nifi.cli.models.FlowSnapshot} of a process group hierarchy. The structure and
+ * the component counts of the whole hierarchy come from a single recursive status request, NiFi does not expose the
+ * revisions and positions of a subtree in bulk, so only the process groups holding nothing but process groups are
+ * fetched to read the revisions and positions of their children. Responses are streamed through
+ * {@link io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader} so only the fields needed are kept in memory, and
+ * the flows unchanged since a previous run are reused from the {@link io.github.deepakdaneva.nifi.cli.services.FlowCache}
+ * if it is opened. Process groups holding other components are fetched as well when their components are to be loaded,
+ * their flows are never cached as the cache holds only the child process groups.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class FlowSnapshotLoader {
+
+    /**
+     * Fields of the child process groups needed by the snapshot
+     */
+    static final Set<ComponentSummary.Field> FIELDS = EnumSet.of(ComponentSummary.Field.NAME, ComponentSummary.Field.REVISION, ComponentSummary.Field.POSITION);
+    /**
+     * Fields of the child process groups and the other components needed by the snapshot when loading the components
+     */
+    static final Set<ComponentSummary.Field> COMPONENT_FIELDS = EnumSet.allOf(ComponentSummary.Field.class);
+
+    /**
+     * NiFi Service
+     */
+    final NiFiService nifiService;
+    /**
+     * Request throttle
+     */
+    final RequestThrottle requestThrottle;
+    /**
+     * Reader of the flow responses
+     */
+    final FlowProjectionReader flowProjectionReader;
+    /**
+     * Cache of the flows fetched by previous runs
+     */
+    final FlowCache flowCache;
+
+    /**
+     * Create instance loading the snapshots of a NiFi
+     *
+     * @param nifiService to fetch the flows with
+     * @param requestThrottle to send the requests through
+     * @param flowProjectionReader to read the flow responses with
+     * @param flowCache of the flows fetched by previous runs
+     */
+    public FlowSnapshotLoader(NiFiService nifiService, RequestThrottle requestThrottle, FlowProjectionReader flowProjectionReader, FlowCache flowCache) {
+        this.nifiService = nifiService;
+        this.requestThrottle = requestThrottle;
+        this.flowProjectionReader = flowProjectionReader;
+        this.flowCache = flowCache;
+    }
+
+    /**
+     * Loads the snapshot of the provided process group
+     *
+     * @param rootPgId id of the process group to load the hierarchy of
+     * @param depth upto which revisions and positions of the process groups are loaded, negative means unlimited
+     * @param parallelism maximum number of process groups fetched concurrently
+     * @return loaded snapshot
+     * @throws Exception if loading fails
+     */
+    public FlowSnapshot load(String rootPgId, int depth, int parallelism) throws Exception {
+        return load(rootPgId, depth, parallelism, false);
+    }
+
+    /**
+     * Loads the snapshot of the provided process group
+     *
+     * @param rootPgId id of the process group to load the hierarchy of
+     * @param depth upto which revisions and positions of the process groups are loaded, negative means unlimited
+     * @param parallelism maximum number of process groups fetched concurrently
+     * @param components whether to load the other components and the connections of the process groups holding them
+     * @return loaded snapshot
+     * @throws Exception if loading fails
+     */
+    public FlowSnapshot load(String rootPgId, int depth, int parallelism, boolean components) throws Exception {
+        return load(rootPgId, depth, parallelism, components, node -> false);
+    }
+
+    /**
+     * Loads the snapshot of the provided process group, skipping the process groups which do not need to be fetched
+     * while still loading their descendants
+     *
+     * @param rootPgId id of the process group to load the hierarchy of
+     * @param depth upto which revisions and positions of the process groups are loaded, negative means unlimited
+     * @param parallelism maximum number of process groups fetched concurrently
+     * @param components whether to load the other components and the connections of the process groups holding them
+     * @param skipped tests the process groups, with their children as listed by the status, not to fetch
+     * @return loaded snapshot
+     * @throws Exception if loading fails
+     */
+    public FlowSnapshot load(String rootPgId, int depth, int parallelism, boolean components, Predicate<FlowNode> skipped) throws Exception {
+        FlowSnapshot snapshot;
+        try (InputStream status = requestThrottle.call(() -> nifiService.getProcessGroupStatusStream(rootPgId, true))) {
+            snapshot = flowProjectionReader.readStatusTree(status);
+        }
+        AtomicInteger requests = new AtomicInteger(1);
+        AtomicInteger cacheHits = new AtomicInteger();
+        AtomicInteger skips = new AtomicInteger();
+        if (depth != 0) {
+            new TreeWalker<Level>(parallelism).walk(new Level(snapshot.getRoot(), depth), level -> loadChildren(snapshot, level, components, skipped, requests, cacheHits, skips));
+        }
+        Log.debug("Loaded snapshot of " + snapshot.size() + " process groups using " + requests.get() + " requests and " + cacheHits.get() + " cached flows, " + skips.get() + " process groups skipped.");
+        return snapshot;
+    }
+
+    /**
+     * Loads the revisions and positions of the child process groups of the provided process group if it holds nothing
+     * but process groups, or along with its other components and connections if they are to be loaded
+     *
+     * @param snapshot being loaded
+     * @param level process group to load along with the remaining depth
+     * @param components whether to load the other components and the connections
+     * @param skipped tests the process groups not to fetch
+     * @param requests counter of the requests made
+     * @param cacheHits counter of the flows reused from the cache
+     * @param skips counter of the process groups skipped
+     * @return child process groups to load next
+     * @throws IOException if the response can not be read
+     */
+    private List<Level> loadChildren(FlowSnapshot snapshot, Level level, boolean components, Predicate<FlowNode> skipped, AtomicInteger requests, AtomicInteger cacheHits, AtomicInteger skips) throws IOException {
+        FlowNode node = level.node;
+        List<Level> next = new ArrayList<>();
+        boolean withComponents = components && !node.isIndependent();
+        if (!withComponents && (!node.isIndependent() || node.getChildren().isEmpty())) {
+            return next;
+        }
+        if (skipped.test(node)) {
+            skips.incrementAndGet();
+            if (level.depth - 1 != 0) {
+                node.getChildren().forEach(child -> next.add(new Level(child, level.depth - 1)));
+            }
+            return next;
+        }
+        // the revision is listed by the parent, so the root is always fetched
+        Long version = node.getRevision() != null ? node.getRevision().getVersion() : null;
+        boolean cached = version != null && !withComponents && flowCache.isOpen();
+        FlowSummary flow = cached ? flowCache.get(node.getId(), version) : null;
+        // adding, removing or moving a child process group does not change the revision of the parent
+        if (flow != null && !hasSameChildren(node, flow)) {
+            Log.debug("Ignoring cached flow of " + node.getId() + " as its child process groups changed.");
+            flow = null;
+        }
+        boolean hit = flow != null;
+        if (hit) {
+            cacheHits.incrementAndGet();
+        } else {
+            try (InputStream response = requestThrottle.call(() -> nifiService.getFlowProcessGroupStream(node.getId(), true))) {
+                flow = flowProjectionReader.readFlow(response, withComponents ? COMPONENT_FIELDS : FIELDS);
+            }
+            requests.incrementAndGet();
+            if (cached) {
+                flowCache.put(node.getId(), version, flow);
+            }
+        }
+        // funnels and labels are counted only by the flow, the status counts the other components of now
+        node.setComponentCount(hit ? Math.max(node.getComponentCount(), flow.getComponentCount()) : flow.getComponentCount());
+        if (withComponents) {
+            node.setComponents(flow.getComponents());
+            node.setConnections(flow.getConnections());
+            node.setLabels(flow.getLabels());
+            node.setComponentsLoaded(true);
+        }
+        // keep the listing order so the layout is the same as the one NiFi returns
+        List<FlowNode> children = new ArrayList<>();
+        for (ComponentSummary pg : flow.getProcessGroups()) {
+            FlowNode child = snapshot.getNode(pg.getId());
+            if (child == null) {
+                // created after the status was taken, a cached flow has the same children as the status
+                child = new FlowNode(pg.getId());
+                snapshot.add(child);
+            }
+            if (pg.getName() != null) {
+                child.setName(pg.getName());
+            }
+            child.setRevision(pg.getRevision());
+            child.setPosition(pg.getPosition());
+            children.add(child);
+            if (level.depth - 1 != 0) {
+                next.add(new Level(child, level.depth - 1));
+            }
+        }
+        node.setChildren(children);
+        node.setChildrenLoaded(true);
+        return next;
+    }
+
+    /**
+     * Whether the child process groups of the cached flow are the ones listed by the status
+     *
+     * @param node process group with its children as listed by the status
+     * @param flow cached flow of the process group
+     * @return {@code true} if both have the same child process group ids
+     */
+    static boolean hasSameChildren(FlowNode node, FlowSummary flow) {
+        List<ComponentSummary> cachedChildren = flow.getProcessGroups();
+        if (cachedChildren.size() != node.getChildren().size()) {
+            return false;
+        }
+        Set<String> ids = new HashSet<>();
+        node.getChildren().forEach(child -> ids.add(child.getId()));
+        for (ComponentSummary pg : cachedChildren) {
+            if (!ids.remove(pg.getId())) {
+                return false;
+            }
+        }
+        return ids.isEmpty();
+    }
+
+    /**
+     * Process group to be loaded along with the remaining depth
+     */
+    static final class Level {
+        /**
+         * Process group
+         */
+        final FlowNode node;
+        /**
+         * Remaining depth, negative means unlimited
+         */
+        final int depth;
+
+        /**
+         * Create instance with the provided process group and remaining depth
+         *
+         * @param node process group
+         * @param depth remaining depth
+         */
+        Level(FlowNode node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+    }
+}
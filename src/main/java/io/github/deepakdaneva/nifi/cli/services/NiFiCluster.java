@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import java.net.URI;
+
+/**
+ * NiFi cluster the commands run against, with the session, the rest client, the request throttle and the caches of its
+ * own. Created by {@link io.github.deepakdaneva.nifi.cli.services.NiFiClusters}.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class NiFiCluster {
+
+    /**
+     * Name of the cluster
+     */
+    final String name;
+    /**
+     * Session with the cluster
+     */
+    final NiFiSession nifiSession;
+    /**
+     * Throttle of the requests sent to the cluster
+     */
+    final RequestThrottle requestThrottle;
+    /**
+     * Cache of the flows of the cluster
+     */
+    final FlowCache flowCache;
+    /**
+     * Fingerprints of the child process group sets of the cluster
+     */
+    final ChildSetFingerprints childSetFingerprints;
+    /**
+     * Loader of the flow snapshots of the cluster
+     */
+    final FlowSnapshotLoader flowSnapshotLoader;
+
+    /**
+     * Create instance
+     *
+     * @param name of the cluster
+     * @param nifiSession with the cluster
+     * @param requestThrottle of the requests sent to the cluster
+     * @param flowCache of the flows of the cluster
+     * @param childSetFingerprints of the child process group sets of the cluster
+     * @param flowSnapshotLoader of the flow snapshots of the cluster
+     */
+    NiFiCluster(String name, NiFiSession nifiSession, RequestThrottle requestThrottle, FlowCache flowCache, ChildSetFingerprints childSetFingerprints, FlowSnapshotLoader flowSnapshotLoader) {
+        this.name = name;
+        this.nifiSession = nifiSession;
+        this.requestThrottle = requestThrottle;
+        this.flowCache = flowCache;
+        this.childSetFingerprints = childSetFingerprints;
+        this.flowSnapshotLoader = flowSnapshotLoader;
+    }
+
+    /**
+     * Provides the name of the cluster
+     *
+     * @return name of the cluster
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Provides the location of the cluster
+     *
+     * @return location of the NiFi
+     */
+    public URI getLocation() {
+        return nifiSession.getLocation();
+    }
+
+    /**
+     * Provides the rest client of the cluster
+     *
+     * @return NiFi Service sending the access token of the session
+     */
+    public NiFiService getNiFiService() {
+        return nifiSession.getNiFiService();
+    }
+
+    /**
+     * Provides the session with the cluster
+     *
+     * @return session with the cluster
+     */
+    public NiFiSession getNiFiSession() {
+        return nifiSession;
+    }
+
+    /**
+     * Provides the throttle of the requests sent to the cluster
+     *
+     * @return request throttle
+     */
+    public RequestThrottle getRequestThrottle() {
+        return requestThrottle;
+    }
+
+    /**
+     * Provides the cache of the flows of the cluster
+     *
+     * @return flow cache, opened only if requested
+     */
+    public FlowCache getFlowCache() {
+        return flowCache;
+    }
+
+    /**
+     * Provides the fingerprints of the child process group sets of the cluster
+     *
+     * @return child set fingerprints, opened only while aligning incrementally
+     */
+    public ChildSetFingerprints getChildSetFingerprints() {
+        return childSetFingerprints;
+    }
+
+    /**
+     * Provides the loader of the flow snapshots of the cluster
+     *
+     * @return flow snapshot loader
+     */
+    public FlowSnapshotLoader getFlowSnapshotLoader() {
+        return flowSnapshotLoader;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.configs.RequestMetricsFilter;
+import io.github.deepakdaneva.nifi.cli.configs.RequestTraceFilter;
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * NiFi clusters of the invocation, each one with a rest client and a session of its own. A command finds the cluster to
+ * run against by the top command of its command line, the command lines running a command against one of several
+ * clusters are bound to it, the others run against the only cluster.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class NiFiClusters {
+
+    /**
+     * Application configuration
+     */
+    @Inject
+    AppConfig appConfig;
+    /**
+     * Access token cache shared by the sessions, it keys the tokens by the location
+     */
+    @Inject
+    AccessTokenCache accessTokenCache;
+    /**
+     * Reader of the flow responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+    /**
+     * Request Metrics, shared by the clusters
+     */
+    @Inject
+    RequestMetrics requestMetrics;
+    /**
+     * Request Tracer, shared by the clusters
+     */
+    @Inject
+    RequestTracer requestTracer;
+    /**
+     * Clusters in the order they were added
+     */
+    final List<NiFiCluster> clusters = new CopyOnWriteArrayList<>();
+    /**
+     * Clusters by the spec of the top command of the command lines bound to them
+     */
+    final Map<CommandLine.Model.CommandSpec, NiFiCluster> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the cluster creating its rest client, session, request throttle and caches
+     *
+     * @param name of the cluster
+     * @param location of the NiFi
+     * @return added cluster, not opened yet
+     */
+    public NiFiCluster add(String name, URI location) {
+        QuarkusRestClientBuilder clientBuilder = QuarkusRestClientBuilder.newBuilder().register(new RequestMetricsFilter(requestMetrics)).register(new RequestTraceFilter(requestTracer));
+        NiFiSession nifiSession = new NiFiSession(location, clientBuilder, accessTokenCache);
+        RequestThrottle requestThrottle = new RequestThrottle(appConfig, nifiSession);
+        FlowCache flowCache = new FlowCache(appConfig);
+        FlowSnapshotLoader flowSnapshotLoader = new FlowSnapshotLoader(nifiSession.getNiFiService(), requestThrottle, flowProjectionReader, flowCache);
+        NiFiCluster cluster = new NiFiCluster(name, nifiSession, requestThrottle, flowCache, new ChildSetFingerprints(appConfig), flowSnapshotLoader);
+        clusters.add(cluster);
+        return cluster;
+    }
+
+    /**
+     * Provides the clusters
+     *
+     * @return clusters in the order they were added
+     */
+    public List<NiFiCluster> getClusters() {
+        return clusters;
+    }
+
+    /**
+     * Binds the command line to the cluster, so its commands run against the cluster
+     *
+     * @param root spec of the top command of the command line
+     * @param cluster to run the commands against
+     */
+    public void bind(CommandLine.Model.CommandSpec root, NiFiCluster cluster) {
+        bindings.put(root, cluster);
+    }
+
+    /**
+     * Unbinds the command line from its cluster
+     *
+     * @param root spec of the top command of the command line
+     */
+    public void unbind(CommandLine.Model.CommandSpec root) {
+        bindings.remove(root);
+    }
+
+    /**
+     * Provides the cluster the command runs against
+     *
+     * @param spec of the command
+     * @return cluster of the command line of the command, or the only cluster if not bound
+     */
+    public NiFiCluster of(CommandLine.Model.CommandSpec spec) {
+        NiFiCluster cluster = bindings.get(spec.root());
+        if (cluster != null) {
+            return cluster;
+        }
+        if (clusters.size() != 1) {
+            throw new IllegalStateException("Unable to choose the NiFi cluster of the command among " + clusters.size() + " clusters.");
+        }
+        return clusters.get(0);
+    }
+
+    /**
+     * Provides the cluster by its name
+     *
+     * @param name of the cluster
+     * @return cluster, {@code null} if none has the name
+     */
+    public NiFiCluster get(String name) {
+        for (NiFiCluster cluster : clusters) {
+            if (cluster.getName().equals(name)) {
+                return cluster;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the file the command writes to. The command lines running a command against one of several clusters all
+     * parse the same file, so the name of their cluster is inserted before the extensions of the file to keep them
+     * apart, i.e. {@code events.ndjson.gz} is written as {@code events.<cluster>.ndjson.gz}.
+     *
+     * @param spec of the command
+     * @param file provided to the command
+     * @return file of the cluster of the command line of the command, or the provided file if not bound
+     */
+    public Path outputOf(CommandLine.Model.CommandSpec spec, String file) {
+        Path path = Paths.get(file);
+        NiFiCluster cluster = bindings.get(spec.root());
+        if (cluster == null) {
+            return path;
+        }
+        String name = path.getFileName().toString();
+        // the default names of the clusters are the host and port of their locations
+        String clusterName = cluster.getName().replaceAll("[^A-Za-z0-9_.-]", "_");
+        int extension = name.indexOf('.', 1);
+        return path.resolveSibling(extension > 0 ? name.substring(0, extension) + "." + clusterName + name.substring(extension) : name + "." + clusterName);
+    }
+}
@@ -12,10 +12,11 @@
  */
 package io.github.deepakdaneva.nifi.cli.services;
 
-import io.github.deepakdaneva.nifi.cli.configs.AppRestClientConfig;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.github.deepakdaneva.nifi.cli.exceptions.NiFiResponseException;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.quarkus.rest.client.reactive.ClientExceptionMapper;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.Dependent;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
@@ -26,12 +27,19 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.apache.nifi.web.api.entity.ComponentEntity;
+import org.apache.nifi.web.api.entity.ComponentRunStatusEntity;
+import org.apache.nifi.web.api.entity.DropRequestEntity;
+import org.apache.nifi.web.api.entity.ListingRequestEntity;
 import org.apache.nifi.web.api.entity.ProcessGroupEntity;
 import org.apache.nifi.web.api.entity.ProcessGroupFlowEntity;
-import org.eclipse.microprofile.rest.client.annotation.ClientHeaderParam;
+import org.apache.nifi.web.api.entity.ProcessGroupStatusEntity;
+import org.apache.nifi.web.api.entity.ScheduleComponentsEntity;
 
+import java.io.InputStream;
 import java.lang.reflect.Method;
 
 /**
@@ -43,7 +51,6 @@ import java.lang.reflect.Method;
 @Path("/nifi-api")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
-@ClientHeaderParam(name = NiFiService.AUTHORIZATION_HEADER_KEY, value = "{authorizationHeaderValue}")
 public interface NiFiService {
 
     /**
@@ -75,15 +82,6 @@ public interface NiFiService {
         return null;
     }
 
-    /**
-     * Provides the header value to use for authorization header key
-     * 
-     * @return authorization header value to use directly in header
-     */
-    default String authorizationHeaderValue() {
-        return AppRestClientConfig.accessToken != null ? "Bearer " + AppRestClientConfig.accessToken : "";
-    }
-
     /**
      * Uses username and password to generate access token for other subsequent REST API calls.
      * 
@@ -95,7 +93,6 @@ public interface NiFiService {
     @Path("/access/token")
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
     @Produces(MediaType.TEXT_PLAIN)
-    @ClientHeaderParam(name = NiFiService.AUTHORIZATION_HEADER_KEY, value = "")
     String getAccessToken(@FormParam("username") String username, @FormParam("password") String password);
 
     /**
@@ -117,6 +114,51 @@ public interface NiFiService {
     @Path("/flow/process-groups/{id}")
     ProcessGroupFlowEntity getFlowProcessGroup(@PathParam("id") String id);
 
+    /**
+     * Streams the process group flow of the provided process group by id, to be read using
+     * {@link io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader} without binding the whole response
+     * 
+     * @param id of the process group
+     * @param uiOnly whether the NiFi should leave out the details not needed to render the canvas
+     * @return stream of the process group flow entity
+     */
+    @GET
+    @Path("/flow/process-groups/{id}")
+    InputStream getFlowProcessGroupStream(@PathParam("id") String id, @QueryParam("uiOnly") boolean uiOnly);
+
+    /**
+     * Provides the status of the provided process group by id
+     * 
+     * @param id of the process group
+     * @param recursive whether to include the status of all descendant process groups
+     * @return process group status entity
+     */
+    @GET
+    @Path("/flow/process-groups/{id}/status")
+    ProcessGroupStatusEntity getProcessGroupStatus(@PathParam("id") String id, @QueryParam("recursive") boolean recursive);
+
+    /**
+     * Streams the status of the provided process group by id, to be read using
+     * {@link io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader} without binding the whole response
+     * 
+     * @param id of the process group
+     * @param recursive whether to include the status of all descendant process groups
+     * @return stream of the process group status entity
+     */
+    @GET
+    @Path("/flow/process-groups/{id}/status")
+    InputStream getProcessGroupStatusStream(@PathParam("id") String id, @QueryParam("recursive") boolean recursive);
+
+    /**
+     * Provides process group by id
+     * 
+     * @param id of the process group
+     * @return uni emitting the process group entity
+     */
+    @GET
+    @Path("/process-groups/{id}")
+    Uni<ProcessGroupEntity> getProcessGroupAsync(@PathParam("id") String id);
+
     /**
      * Updates process group by id
      * 
@@ -126,4 +168,200 @@ public interface NiFiService {
     @PUT
     @Path("/process-groups/{id}")
     void updateProcessGroup(@PathParam("id") String id, ProcessGroupEntity pgEntity);
+
+    /**
+     * Provides the component by id, the response is bound only to the revision and the position the component entities
+     * have in common
+     * 
+     * @param resource of the component type, e.g. {@code processors}
+     * @param id of the component
+     * @return uni emitting the component entity
+     */
+    @GET
+    @Path("/{resource}/{id}")
+    Uni<ComponentEntity> getComponentAsync(@PathParam("resource") String resource, @PathParam("id") String id);
+
+    /**
+     * Updates the component by id, the entity should be the one of the component type, e.g.
+     * {@link org.apache.nifi.web.api.entity.ProcessorEntity} for {@code processors}
+     * 
+     * @param resource of the component type, e.g. {@code processors}
+     * @param id of the component to update
+     * @param entity updated component entity of the component to update in the NiFi
+     * @return uni emitting the component entity as updated by the NiFi
+     */
+    @PUT
+    @Path("/{resource}/{id}")
+    Uni<ComponentEntity> updateComponentAsync(@PathParam("resource") String resource, @PathParam("id") String id, ComponentEntity entity);
+
+    /**
+     * Schedules the components of the provided process group and of all its descendants at once, the components not
+     * listed in the entity are the ones eligible for the state
+     * 
+     * @param id of the process group
+     * @param entity with the state to schedule the components to, i.e. {@code RUNNING}
+     * @return uni emitting the schedule components entity as applied by the NiFi
+     */
+    @PUT
+    @Path("/flow/process-groups/{id}")
+    Uni<ScheduleComponentsEntity> scheduleComponentsAsync(@PathParam("id") String id, ScheduleComponentsEntity entity);
+
+    /**
+     * Updates the run status of the component by id, the entity should be the one of the component type, e.g.
+     * {@link org.apache.nifi.web.api.entity.ProcessorRunStatusEntity} for {@code processors}
+     * 
+     * @param resource of the component type, e.g. {@code processors}
+     * @param id of the component to update
+     * @param entity with the revision and the state of the component
+     * @return uni emitting the component entity as updated by the NiFi
+     */
+    @PUT
+    @Path("/{resource}/{id}/run-status")
+    Uni<ComponentEntity> updateRunStatusAsync(@PathParam("resource") String resource, @PathParam("id") String id, ComponentRunStatusEntity entity);
+
+    /**
+     * Creates a request listing the flowfiles queued in the connection, the listing is made by the NiFi in the
+     * background and is polled using {@link NiFiService#getListingRequestAsync(String, String)}
+     * 
+     * @param connectionId id of the connection
+     * @return uni emitting the listing request as created by the NiFi
+     */
+    @POST
+    @Path("/flowfile-queues/{id}/listing-requests")
+    Uni<ListingRequestEntity> createListingRequestAsync(@PathParam("id") String connectionId);
+
+    /**
+     * Provides the listing request of the connection, holding the listed flowfiles once finished
+     * 
+     * @param connectionId id of the connection
+     * @param requestId id of the listing request
+     * @return uni emitting the listing request
+     */
+    @GET
+    @Path("/flowfile-queues/{id}/listing-requests/{requestId}")
+    Uni<ListingRequestEntity> getListingRequestAsync(@PathParam("id") String connectionId, @PathParam("requestId") String requestId);
+
+    /**
+     * Deletes the listing request of the connection, cancelling it if not finished
+     * 
+     * @param connectionId id of the connection
+     * @param requestId id of the listing request
+     * @return uni emitting the deleted listing request
+     */
+    @DELETE
+    @Path("/flowfile-queues/{id}/listing-requests/{requestId}")
+    Uni<ListingRequestEntity> deleteListingRequestAsync(@PathParam("id") String connectionId, @PathParam("requestId") String requestId);
+
+    /**
+     * Creates a request dropping the flowfiles queued in the connection, the drop is made by the NiFi in the background
+     * and is polled using {@link NiFiService#getDropRequestAsync(String, String)}
+     * 
+     * @param connectionId id of the connection
+     * @return uni emitting the drop request as created by the NiFi
+     */
+    @POST
+    @Path("/flowfile-queues/{id}/drop-requests")
+    Uni<DropRequestEntity> createDropRequestAsync(@PathParam("id") String connectionId);
+
+    /**
+     * Provides the drop request of the connection
+     * 
+     * @param connectionId id of the connection
+     * @param requestId id of the drop request
+     * @return uni emitting the drop request
+     */
+    @GET
+    @Path("/flowfile-queues/{id}/drop-requests/{requestId}")
+    Uni<DropRequestEntity> getDropRequestAsync(@PathParam("id") String connectionId, @PathParam("requestId") String requestId);
+
+    /**
+     * Deletes the drop request of the connection, cancelling it if not finished
+     * 
+     * @param connectionId id of the connection
+     * @param requestId id of the drop request
+     * @return uni emitting the deleted drop request
+     */
+    @DELETE
+    @Path("/flowfile-queues/{id}/drop-requests/{requestId}")
+    Uni<DropRequestEntity> deleteDropRequestAsync(@PathParam("id") String connectionId, @PathParam("requestId") String requestId);
+
+    /**
+     * Submits a provenance query, the query is run by the NiFi in the background and is polled using
+     * {@link NiFiService#getProvenanceStream(String, boolean, boolean)}. The request is sent as a json tree since the
+     * NiFi expects the dates of the query in its own format.
+     * 
+     * @param request provenance entity holding the query
+     * @return stream of the provenance entity as created by the NiFi
+     */
+    @POST
+    @Path("/provenance")
+    @Consumes(MediaType.APPLICATION_JSON)
+    InputStream submitProvenance(JsonNode request);
+
+    /**
+     * Streams the provenance query, to be read using {@link io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader}
+     * without binding the events
+     * 
+     * @param id of the query
+     * @param summarize whether the NiFi should leave out the details of the events
+     * @param incrementalResults whether the NiFi should return the events found so far before the query is finished
+     * @return stream of the provenance entity
+     */
+    @GET
+    @Path("/provenance/{id}")
+    InputStream getProvenanceStream(@PathParam("id") String id, @QueryParam("summarize") boolean summarize, @QueryParam("incrementalResults") boolean incrementalResults);
+
+    /**
+     * Deletes the provenance query, cancelling it if not finished
+     * 
+     * @param id of the query
+     */
+    @DELETE
+    @Path("/provenance/{id}")
+    void deleteProvenance(@PathParam("id") String id);
+
+    /**
+     * Streams the flow definition of the process group, the same one the NiFi UI downloads, holding the process group
+     * and all its descendants
+     * 
+     * @param id of the process group
+     * @param includeReferencedServices whether to include the controller services referenced from outside of the
+     *            process group
+     * @return stream of the flow definition
+     */
+    @GET
+    @Path("/process-groups/{id}/download")
+    InputStream downloadFlowDefinition(@PathParam("id") String id, @QueryParam("includeReferencedServices") boolean includeReferencedServices);
+
+    /**
+     * Creates a request replacing the flow of the process group with the provided flow definition, the replacement is
+     * made by the NiFi in the background and is polled using {@link NiFiService#getReplaceRequest(String)}. The
+     * request and the response are json trees since the flow definition classes are not part of the client DTOs.
+     * 
+     * @param id of the process group
+     * @param request holding the {@code processGroupRevision} and the {@code versionedFlowSnapshot}
+     * @return replace request as created by the NiFi
+     */
+    @POST
+    @Path("/process-groups/{id}/replace-requests")
+    JsonNode createReplaceRequest(@PathParam("id") String id, JsonNode request);
+
+    /**
+     * Provides the replace request
+     * 
+     * @param requestId id of the replace request
+     * @return replace request
+     */
+    @GET
+    @Path("/process-groups/replace-requests/{requestId}")
+    JsonNode getReplaceRequest(@PathParam("requestId") String requestId);
+
+    /**
+     * Deletes the replace request, cancelling it if not finished
+     * 
+     * @param requestId id of the replace request
+     */
+    @DELETE
+    @Path("/process-groups/replace-requests/{requestId}")
+    void deleteReplaceRequest(@PathParam("requestId") String requestId);
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.configs.AccessTokenFilter;
+import io.quarkus.logging.Log;
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Authenticated session with a NiFi, optionally reusing the access token cached by a previous invocation. Every session
+ * has a rest client of its own which sends the access token of the session, so the sessions with several NiFi clusters
+ * are independent of each other.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class NiFiSession {
+
+    /**
+     * NiFi Base URL
+     */
+    final URI location;
+    /**
+     * NiFi Service sending the access token of the session
+     */
+    final NiFiService nifiService;
+    /**
+     * Access token cache
+     */
+    final AccessTokenCache accessTokenCache;
+    /**
+     * NiFi Username
+     */
+    String username;
+    /**
+     * NiFi Password
+     */
+    String password;
+    /**
+     * Whether the access token is cached across invocations
+     */
+    boolean tokenCacheEnabled;
+    /**
+     * Access token, {@code null} if not opened
+     */
+    volatile String accessToken;
+
+    /**
+     * Create instance building the rest client of the session
+     *
+     * @param location of the NiFi
+     * @param clientBuilder to build the rest client with, the filter sending the access token is registered by the
+     *            session
+     * @param accessTokenCache to cache the access token across invocations into
+     */
+    public NiFiSession(URI location, QuarkusRestClientBuilder clientBuilder, AccessTokenCache accessTokenCache) {
+        this.location = location;
+        this.nifiService = clientBuilder.baseUri(location).register(new AccessTokenFilter(this::getAccessToken)).build(NiFiService.class);
+        this.accessTokenCache = accessTokenCache;
+    }
+
+    /**
+     * Opens the session by reusing the cached access token or by authenticating with the provided credentials
+     *
+     * @param username of the user
+     * @param password of the user
+     * @param tokenCacheEnabled whether to cache the access token across invocations
+     */
+    public synchronized void open(String username, String password, boolean tokenCacheEnabled) {
+        this.username = username;
+        this.password = password;
+        this.tokenCacheEnabled = tokenCacheEnabled;
+        if (tokenCacheEnabled) {
+            String cachedToken = accessTokenCache.get(location, username);
+            if (cachedToken != null) {
+                Log.debug("Using cached access token.");
+                accessToken = cachedToken;
+                return;
+            }
+        }
+        authenticate();
+    }
+
+    /**
+     * Authenticates again if the provided access token is still the one in use, to be invoked when the NiFi rejects
+     * the access token
+     *
+     * @param rejectedToken access token rejected by the NiFi
+     * @return {@code true} if the request can be retried with the current access token
+     */
+    public synchronized boolean reauthenticate(String rejectedToken) {
+        if (username == null) {
+            return false;
+        }
+        if (Objects.equals(rejectedToken, accessToken)) {
+            Log.debug("Access token rejected, authenticating again.");
+            if (tokenCacheEnabled) {
+                accessTokenCache.remove(location, username);
+            }
+            authenticate();
+        }
+        return true;
+    }
+
+    /**
+     * Provides the location of the NiFi of the session
+     *
+     * @return location of the NiFi
+     */
+    public URI getLocation() {
+        return location;
+    }
+
+    /**
+     * Provides the rest client of the session
+     *
+     * @return NiFi Service sending the access token of the session
+     */
+    public NiFiService getNiFiService() {
+        return nifiService;
+    }
+
+    /**
+     * Provides the access token in use
+     *
+     * @return access token, {@code null} if not opened
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Closes the session, the access token is kept without logging out if it is cached and still valid
+     */
+    public synchronized void close() {
+        try {
+            String token = accessToken;
+            if (token != null && !(tokenCacheEnabled && accessTokenCache.isValid(token))) {
+                nifiService.logout();
+            }
+        } finally {
+            accessToken = null;
+        }
+    }
+
+    /**
+     * Authenticates with the credentials of the session
+     */
+    private void authenticate() {
+        String token = nifiService.getAccessToken(username, password);
+        accessToken = token;
+        if (tokenCacheEnabled) {
+            accessTokenCache.put(location, username, token);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.utils.LatencyHistogram;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms, request and byte counters and error counts of the requests sent to the NiFi, by the endpoint
+ * which is the invoked method of {@link io.github.deepakdaneva.nifi.cli.services.NiFiService}. Recorded by
+ * {@link io.github.deepakdaneva.nifi.cli.configs.RequestMetricsFilter} for every request. The destination of the summary
+ * is kept here until it is written at the end of the run, after the logout.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class RequestMetrics {
+
+    /**
+     * Standard output as the destination of the summary
+     */
+    public static final String STANDARD_OUTPUT = "-";
+    /**
+     * Json mapper to write the summary
+     */
+    @Inject
+    ObjectMapper objectMapper;
+    /**
+     * Metrics by the endpoints
+     */
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    /**
+     * Time the metrics started to be recorded
+     */
+    private final long startNanos = System.nanoTime();
+    /**
+     * Destination of the summary, {@code null} if not requested
+     */
+    private volatile String destination;
+    /**
+     * Output of the command line to print the summary to
+     */
+    private volatile PrintWriter out;
+
+    /**
+     * Provides the metrics of the endpoint, created on its first request
+     *
+     * @param name of the endpoint
+     * @return metrics of the endpoint
+     */
+    public Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, key -> new Endpoint());
+    }
+
+    /**
+     * Provides the summary of the metrics, the latencies are in milliseconds
+     *
+     * @return summary to be written as json
+     */
+    public Map<String, Object> summary() {
+        long totalRequests = 0;
+        long totalErrors = 0;
+        long totalInFlight = 0;
+        Map<String, Object> endpointSummaries = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            totalRequests += endpoint.requests.sum();
+            totalErrors += endpoint.getErrorCount();
+            totalInFlight += endpoint.getInFlightCount();
+            endpointSummaries.put(entry.getKey(), endpoint.summary());
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("elapsedMillis", (System.nanoTime() - startNanos) / 1_000_000);
+        summary.put("totalRequests", totalRequests);
+        summary.put("totalErrors", totalErrors);
+        summary.put("totalInFlight", totalInFlight);
+        summary.put("endpoints", endpointSummaries);
+        return summary;
+    }
+
+    /**
+     * Requests the summary to be written at the end of the run
+     *
+     * @param destination file to write the summary to, {@link #STANDARD_OUTPUT} to print it
+     * @param out output of the command line to print the summary to
+     */
+    public void writeOnEnd(String destination, PrintWriter out) {
+        this.out = out;
+        this.destination = destination;
+    }
+
+    /**
+     * Writes the summary as json to the requested destination, nothing if not requested
+     *
+     * @throws IOException if the summary can not be written
+     */
+    public void write() throws IOException {
+        String destination = this.destination;
+        if (destination == null) {
+            return;
+        }
+        if (STANDARD_OUTPUT.equals(destination)) {
+            out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(summary()));
+            out.flush();
+        } else {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(Paths.get(destination).toFile(), summary());
+        }
+    }
+
+    /**
+     * Metrics of a single endpoint
+     */
+    public static final class Endpoint {
+        /**
+         * Latencies of the responses in microseconds
+         */
+        private final LatencyHistogram latency = new LatencyHistogram();
+        /**
+         * Number of requests sent
+         */
+        private final LongAdder requests = new LongAdder();
+        /**
+         * Number of responses with an error status
+         */
+        private final LongAdder errorResponses = new LongAdder();
+        /**
+         * Number of bytes sent in the request bodies
+         */
+        private final LongAdder requestBytes = new LongAdder();
+        /**
+         * Number of bytes read from the response bodies
+         */
+        private final LongAdder responseBytes = new LongAdder();
+
+        /**
+         * Records a request being sent
+         */
+        public void requestSent() {
+            requests.increment();
+        }
+
+        /**
+         * Records the response of a request
+         *
+         * @param latencyNanos between sending the request and receiving the response
+         * @param status of the response
+         */
+        public void responseReceived(long latencyNanos, int status) {
+            latency.record(latencyNanos / 1_000);
+            if (status >= 400) {
+                errorResponses.increment();
+            }
+        }
+
+        /**
+         * Records the bytes sent in a request body
+         *
+         * @param bytes sent
+         */
+        public void addRequestBytes(long bytes) {
+            requestBytes.add(bytes);
+        }
+
+        /**
+         * Records the bytes read from a response body
+         *
+         * @param bytes read
+         */
+        public void addResponseBytes(long bytes) {
+            responseBytes.add(bytes);
+        }
+
+        /**
+         * Provides the number of requests responded with an error status
+         *
+         * @return number of failed requests
+         */
+        long getErrorCount() {
+            return errorResponses.sum();
+        }
+
+        /**
+         * Provides the number of requests without any response, the ones still waiting for it and the ones which never
+         * get it like on connection failures
+         *
+         * @return number of requests without a response
+         */
+        long getInFlightCount() {
+            return Math.max(0, requests.sum() - latency.getCount());
+        }
+
+        /**
+         * Provides the summary of the endpoint, the latencies are in milliseconds
+         *
+         * @return summary to be written as json
+         */
+        Map<String, Object> summary() {
+            Map<String, Object> latencyMillis = new LinkedHashMap<>();
+            latencyMillis.put("p50", millis(latency.getValueAtPercentile(50)));
+            latencyMillis.put("p90", millis(latency.getValueAtPercentile(90)));
+            latencyMillis.put("p99", millis(latency.getValueAtPercentile(99)));
+            latencyMillis.put("max", millis(latency.getMax()));
+            latencyMillis.put("mean", millis(latency.getMean()));
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", requests.sum());
+            summary.put("errors", getErrorCount());
+            summary.put("inFlight", getInFlightCount());
+            summary.put("requestBytes", requestBytes.sum());
+            summary.put("responseBytes", responseBytes.sum());
+            summary.put("latencyMillis", latencyMillis);
+            return summary;
+        }
+
+        /**
+         * Converts the microseconds to milliseconds rounded to microseconds
+         *
+         * @param micros to convert
+         * @return milliseconds
+         */
+        private static double millis(double micros) {
+            return Math.round(micros) / 1_000d;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.exceptions.NiFiResponseException;
+import io.github.deepakdaneva.nifi.cli.utils.AimdLimiter;
+import io.github.deepakdaneva.nifi.cli.utils.TokenBucket;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Throttle for the requests sent to a NiFi, one per {@link io.github.deepakdaneva.nifi.cli.services.NiFiCluster} so
+ * that a slow cluster does not hold back the others. Requests are rate limited by a token bucket, the number of
+ * concurrent requests is adapted to the observed latency and overload responses, and requests rejected with
+ * {@code 429} or {@code 503} are retried with exponential back-off. Requests rejected with {@code 401} are retried once
+ * after authenticating again.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class RequestThrottle {
+
+    /**
+     * Initial back-off before retrying a rejected request
+     */
+    static final Duration INITIAL_BACKOFF = Duration.ofMillis(200);
+    /**
+     * Maximum back-off before retrying a rejected request
+     */
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(10);
+    /**
+     * Application configuration
+     */
+    final AppConfig appConfig;
+    /**
+     * NiFi session to authenticate again when the access token is rejected
+     */
+    final NiFiSession nifiSession;
+    /**
+     * Rate limiter
+     */
+    final TokenBucket tokenBucket;
+    /**
+     * Concurrency limiter
+     */
+    final AimdLimiter limiter;
+    /**
+     * Latency above which the NiFi is considered overloaded
+     */
+    final long latencyThresholdNanos;
+
+    /**
+     * Create instance initializing the limiters from the configuration
+     *
+     * @param appConfig application configuration
+     * @param nifiSession to authenticate again when the access token is rejected
+     */
+    public RequestThrottle(AppConfig appConfig, NiFiSession nifiSession) {
+        this.appConfig = appConfig;
+        this.nifiSession = nifiSession;
+        AppConfig.Throttle throttle = appConfig.throttle();
+        tokenBucket = new TokenBucket(throttle.requestsPerSecond(), throttle.burst());
+        limiter = new AimdLimiter(throttle.initialConcurrency(), 1, throttle.maxConcurrency());
+        latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(throttle.latencyThresholdMillis());
+    }
+
+    /**
+     * Sends the non-blocking request once a token and a concurrency permit are available, retrying it if rejected by an
+     * overloaded NiFi or with an expired access token. The supplier is invoked again for every attempt.
+     *
+     * @param request supplier of the request to send
+     * @param <T> type of the response
+     * @return uni emitting the response
+     */
+    public <T> Uni<T> submit(Supplier<Uni<T>> request) {
+        return Uni.createFrom().deferred(() -> {
+            String token = nifiSession.getAccessToken();
+            // authenticating again is blocking, keep it off the event loop
+            return submitWithRetries(request).onFailure(RequestThrottle::isUnauthorized).recoverWithUni(unauthorized -> Uni.createFrom().item(() -> nifiSession.reauthenticate(token)).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()).onItem().transformToUni(retry -> retry ? submitWithRetries(request) : Uni.createFrom().failure(unauthorized)));
+        });
+    }
+
+    /**
+     * Sends the non-blocking request, retrying it if rejected by an overloaded NiFi
+     *
+     * @param request supplier of the request to send
+     * @param <T> type of the response
+     * @return uni emitting the response
+     */
+    private <T> Uni<T> submitWithRetries(Supplier<Uni<T>> request) {
+        return Uni.createFrom().deferred(() -> submitOnce(request)).onFailure(RequestThrottle::isRetryable).retry().withBackOff(INITIAL_BACKOFF, MAX_BACKOFF).withJitter(0.2).atMost(appConfig.throttle().maxRetries());
+    }
+
+    /**
+     * Sends the blocking request once a token and a concurrency permit are available, retrying it if rejected by an
+     * overloaded NiFi or with an expired access token.
+     *
+     * @param request supplier of the request to send
+     * @param <T> type of the response
+     * @return response
+     */
+    public <T> T call(Supplier<T> request) {
+        int attempt = 0;
+        boolean reauthenticated = false;
+        while (true) {
+            String token = nifiSession.getAccessToken();
+            long acquiredNanos;
+            try {
+                sleep(tokenBucket.reserve());
+                acquiredNanos = limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to send the request.", e);
+            }
+            try {
+                T response = request.get();
+                limiter.release(acquiredNanos, System.nanoTime() - acquiredNanos > latencyThresholdNanos);
+                return response;
+            } catch (RuntimeException e) {
+                limiter.release(acquiredNanos, isRetryable(e));
+                if (isUnauthorized(e) && !reauthenticated && nifiSession.reauthenticate(token)) {
+                    reauthenticated = true;
+                    continue;
+                }
+                if (!isRetryable(e) || ++attempt > appConfig.throttle().maxRetries()) {
+                    throw e;
+                }
+                try {
+                    sleep(backoff(attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the non-blocking request once
+     *
+     * @param request supplier of the request to send
+     * @param <T> type of the response
+     * @return uni emitting the response
+     */
+    private <T> Uni<T> submitOnce(Supplier<Uni<T>> request) {
+        long waitNanos = tokenBucket.reserve();
+        Uni<Void> token = waitNanos > 0 ? Uni.createFrom().voidItem().onItem().delayIt().by(Duration.ofNanos(waitNanos)) : Uni.createFrom().voidItem();
+        return token.onItem().transformToUni(ignored -> Uni.createFrom().<T>emitter(emitter -> limiter.execute(() -> {
+            long acquiredNanos = System.nanoTime();
+            Uni<T> response;
+            try {
+                response = request.get();
+            } catch (RuntimeException e) {
+                limiter.release(acquiredNanos, false);
+                emitter.fail(e);
+                return;
+            }
+            response.subscribe().with(item -> {
+                limiter.release(acquiredNanos, System.nanoTime() - acquiredNanos > latencyThresholdNanos);
+                emitter.complete(item);
+            }, failure -> {
+                limiter.release(acquiredNanos, isRetryable(failure));
+                emitter.fail(failure);
+            });
+        })));
+    }
+
+    /**
+     * Exponential back-off with jitter for the provided attempt
+     *
+     * @param attempt number of the retry, starting from {@code 1}
+     * @return nanoseconds to wait before retrying
+     */
+    private static long backoff(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF.toNanos(), INITIAL_BACKOFF.toNanos() << Math.min(attempt - 1, 16));
+        return (long) (backoff * (0.8 + ThreadLocalRandom.current().nextDouble() * 0.4));
+    }
+
+    /**
+     * Sleeps for the provided nanoseconds
+     *
+     * @param nanos to sleep
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    private static void sleep(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    /**
+     * Provides the status of the NiFi response which caused the failure
+     *
+     * @param failure to get the status of
+     * @return status code, {@code -1} if the failure is not caused by a NiFi response
+     */
+    public static int statusOf(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NiFiResponseException) {
+                return ((NiFiResponseException) cause).getStatus();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the failure is caused by an overloaded NiFi and the request can be retried
+     *
+     * @param failure to check
+     * @return {@code true} if NiFi responded with {@code 429} or {@code 503}
+     */
+    public static boolean isRetryable(Throwable failure) {
+        int status = statusOf(failure);
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Whether the failure is caused by a rejected access token
+     *
+     * @param failure to check
+     * @return {@code true} if NiFi responded with {@code 401}
+     */
+    public static boolean isUnauthorized(Throwable failure) {
+        return statusOf(failure) == 401;
+    }
+
+    /**
+     * Whether the failure is caused by a revision conflict
+     *
+     * @param failure to check
+     * @return {@code true} if NiFi responded with {@code 409}
+     */
+    public static boolean isConflict(Throwable failure) {
+        return statusOf(failure) == 409;
+    }
+}
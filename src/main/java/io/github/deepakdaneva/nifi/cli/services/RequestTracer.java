@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the timeline of a run as spans, i.e. the requests sent to the NiFi by
+ * {@link io.github.deepakdaneva.nifi.cli.configs.RequestTraceFilter}, and writes it in the trace event format which
+ * can be opened in the Chrome tracing or the Perfetto UI. The spans of the commands are complete events on the thread
+ * running them, the asynchronous spans of the requests share the event loop threads with each other, so they are async
+ * events of their own ids instead. Nothing is recorded until it is enabled, along with the file the trace is written to
+ * at the end of the run and the span of the whole run.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class RequestTracer {
+
+    /**
+     * Category of the spans of the requests
+     */
+    public static final String HTTP_CATEGORY = "http";
+    /**
+     * Category of the spans of the commands
+     */
+    public static final String COMMAND_CATEGORY = "command";
+    /**
+     * Json mapper to write the trace
+     */
+    @Inject
+    ObjectMapper objectMapper;
+    /**
+     * Ended spans
+     */
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+    /**
+     * Started spans not ended yet, they are written as ending with the trace
+     */
+    private final Set<Span> openSpans = ConcurrentHashMap.newKeySet();
+    /**
+     * Names of the threads the spans started on, by their ids
+     */
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+    /**
+     * Sequence of the ids of the asynchronous spans
+     */
+    private final AtomicLong asyncIds = new AtomicLong();
+    /**
+     * Whether the spans are recorded
+     */
+    private volatile boolean enabled;
+    /**
+     * Time the timestamps of the spans are relative to
+     */
+    private volatile long originNanos;
+    /**
+     * File to write the trace to at the end of the run, {@code null} if not enabled
+     */
+    private volatile String file;
+    /**
+     * Span of the whole run
+     */
+    private volatile Span runSpan;
+
+    /**
+     * Starts recording the spans, the timeline and the span of the whole run start now
+     *
+     * @param file to write the trace to at the end of the run
+     * @param name of the span of the whole run
+     */
+    public synchronized void enable(String file, String name) {
+        if (!enabled) {
+            originNanos = System.nanoTime();
+            enabled = true;
+            this.file = file;
+            runSpan = begin(name, COMMAND_CATEGORY);
+        }
+    }
+
+    /**
+     * Whether the spans are recorded
+     *
+     * @return {@code true} if the spans are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a span on the current thread, to be ended on the same thread before any other span started after it
+     *
+     * @param name of the span
+     * @param category of the span
+     * @return started span, {@code null} if the tracer is not enabled
+     */
+    public Span begin(String name, String category) {
+        return begin(name, category, 0);
+    }
+
+    /**
+     * Starts an asynchronous span, which may overlap the other spans of the current thread and end on any thread
+     *
+     * @param name of the span
+     * @param category of the span
+     * @return started span, {@code null} if the tracer is not enabled
+     */
+    public Span beginAsync(String name, String category) {
+        return enabled ? begin(name, category, asyncIds.incrementAndGet()) : null;
+    }
+
+    /**
+     * Starts a span
+     *
+     * @param name of the span
+     * @param category of the span
+     * @param asyncId id of the asynchronous span, {@code 0} if synchronous
+     * @return started span, {@code null} if the tracer is not enabled
+     */
+    private Span begin(String name, String category, long asyncId) {
+        if (!enabled) {
+            return null;
+        }
+        Thread thread = Thread.currentThread();
+        threadNames.putIfAbsent(thread.getId(), thread.getName());
+        Span span = new Span(name, category, thread.getId(), asyncId, System.nanoTime());
+        openSpans.add(span);
+        return span;
+    }
+
+    /**
+     * Ends the span
+     *
+     * @param span to end, ignored if {@code null} or already ended
+     */
+    public void end(Span span) {
+        if (span != null && openSpans.remove(span)) {
+            span.endNanos = System.nanoTime();
+            spans.add(span);
+        }
+    }
+
+    /**
+     * Ends the span of the whole run and writes the recorded spans to the file provided on enabling, nothing if not
+     * enabled. The spans not ended yet are written as ending now.
+     *
+     * @throws IOException if the trace can not be written
+     */
+    public void write() throws IOException {
+        String file = this.file;
+        if (file == null) {
+            return;
+        }
+        end(runSpan);
+        long now = System.nanoTime();
+        try (OutputStream out = Files.newOutputStream(Paths.get(file)); JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("displayTimeUnit", "ms");
+            generator.writeArrayFieldStart("traceEvents");
+            for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+                generator.writeStartObject();
+                generator.writeStringField("name", "thread_name");
+                generator.writeStringField("ph", "M");
+                generator.writeNumberField("pid", 1);
+                generator.writeNumberField("tid", thread.getKey());
+                generator.writeObjectFieldStart("args");
+                generator.writeStringField("name", thread.getValue());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            for (Span span : spans) {
+                writeSpan(generator, span, span.endNanos, false);
+            }
+            for (Span span : openSpans) {
+                writeSpan(generator, span, now, true);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the span as a complete event, or as a pair of async begin and end events sharing the id of the span if
+     * asynchronous
+     *
+     * @param generator to write with
+     * @param span to write
+     * @param endNanos time the span ended
+     * @param unfinished whether the span did not end
+     * @throws IOException if the span can not be written
+     */
+    private void writeSpan(JsonGenerator generator, Span span, long endNanos, boolean unfinished) throws IOException {
+        if (span.asyncId == 0) {
+            writeEvent(generator, span, "X", span.startNanos, endNanos - span.startNanos, unfinished);
+        } else {
+            writeEvent(generator, span, "b", span.startNanos, -1, unfinished);
+            writeEvent(generator, span, "e", endNanos, -1, unfinished);
+        }
+    }
+
+    /**
+     * Writes an event of the span
+     *
+     * @param generator to write with
+     * @param span of the event
+     * @param phase of the event, {@code X} for complete, {@code b} and {@code e} for async begin and end
+     * @param nanos time of the event
+     * @param durationNanos duration of a complete event, negative for the others
+     * @param unfinished whether the span did not end
+     * @throws IOException if the event can not be written
+     */
+    private void writeEvent(JsonGenerator generator, Span span, String phase, long nanos, long durationNanos, boolean unfinished) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", span.name);
+        generator.writeStringField("cat", span.category);
+        generator.writeStringField("ph", phase);
+        if (span.asyncId != 0) {
+            generator.writeStringField("id", Long.toHexString(span.asyncId));
+        }
+        generator.writeNumberField("ts", (nanos - originNanos) / 1_000d);
+        if (durationNanos >= 0) {
+            generator.writeNumberField("dur", durationNanos / 1_000d);
+        }
+        generator.writeNumberField("pid", 1);
+        generator.writeNumberField("tid", span.threadId);
+        if ("b".equals(phase)) {
+            // the details are shown once for the pair
+            generator.writeEndObject();
+            return;
+        }
+        Map<String, Object> args;
+        synchronized (span) {
+            args = new LinkedHashMap<>(span.args);
+        }
+        generator.writeObjectFieldStart("args");
+        for (Map.Entry<String, Object> arg : args.entrySet()) {
+            generator.writeObjectField(arg.getKey(), arg.getValue());
+        }
+        if (unfinished) {
+            generator.writeBooleanField("unfinished", true);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Timed operation of the run
+     */
+    public static final class Span {
+        /**
+         * Name of the span
+         */
+        private final String name;
+        /**
+         * Category of the span
+         */
+        private final String category;
+        /**
+         * Id of the thread the span started on
+         */
+        private final long threadId;
+        /**
+         * Id of the asynchronous span, {@code 0} if synchronous
+         */
+        private final long asyncId;
+        /**
+         * Time the span started
+         */
+        private final long startNanos;
+        /**
+         * Details of the span
+         */
+        private final Map<String, Object> args = new LinkedHashMap<>();
+        /**
+         * Time the span ended
+         */
+        private long endNanos;
+
+        /**
+         * Create instance
+         *
+         * @param name of the span
+         * @param category of the span
+         * @param threadId of the thread the span started on
+         * @param asyncId id of the asynchronous span, {@code 0} if synchronous
+         * @param startNanos time the span started
+         */
+        Span(String name, String category, long threadId, long asyncId, long startNanos) {
+            this.name = name;
+            this.category = category;
+            this.threadId = threadId;
+            this.asyncId = asyncId;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Adds a detail to the span
+         *
+         * @param key of the detail
+         * @param value of the detail, ignored if {@code null}
+         * @return this span
+         */
+        public synchronized Span arg(String key, Object value) {
+            if (value != null) {
+                args.put(key, value);
+            }
+            return this;
+        }
+    }
+}
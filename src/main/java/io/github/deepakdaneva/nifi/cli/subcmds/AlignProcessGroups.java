@@ -12,23 +12,48 @@
  */
 package io.github.deepakdaneva.nifi.cli.subcmds;
 
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.ComponentType;
+import io.github.deepakdaneva.nifi.cli.models.ConnectionSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowSnapshot;
+import io.github.deepakdaneva.nifi.cli.models.LabelSummary;
+import io.github.deepakdaneva.nifi.cli.models.PositionChange;
+import io.github.deepakdaneva.nifi.cli.models.PositionPlan;
+import io.github.deepakdaneva.nifi.cli.services.ChildSetFingerprints;
+import io.github.deepakdaneva.nifi.cli.services.FlowCache;
+import io.github.deepakdaneva.nifi.cli.services.FlowSnapshotLoader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
 import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.github.deepakdaneva.nifi.cli.utils.LayeredLayout;
+import io.github.deepakdaneva.nifi.cli.utils.SpatialGrid;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import org.apache.nifi.web.api.dto.PositionDTO;
-import org.apache.nifi.web.api.dto.ProcessGroupDTO;
-import org.apache.nifi.web.api.dto.flow.FlowDTO;
-import org.apache.nifi.web.api.entity.ProcessGroupEntity;
-import org.apache.nifi.web.api.entity.ProcessGroupFlowEntity;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.apache.nifi.web.api.entity.ComponentEntity;
 import picocli.CommandLine;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author Deepak Kumar Jangir
  * @version 1
  * @since 1
  */
-@CommandLine.Command(name = "align", description = "Align independent process groups on the canvas in a grid manner.")
+@CommandLine.Command(name = "align", description = "Align independent process groups on the canvas in a grid manner, and with --components the components of the other process groups in layers following their connections.")
 public class AlignProcessGroups implements Runnable {
 
     /**
@@ -43,6 +68,14 @@ public class AlignProcessGroups implements Runnable {
      * Fixed gap between the aligned process groups
      */
     static final int PG_GAP = 10;
+    /**
+     * Gap between the components of a layer and between the unconnected parts of the laid out process group
+     */
+    static final int COMPONENT_GAP = 60;
+    /**
+     * Gap between the layers of the laid out process group, leaving room for the labels of the connections
+     */
+    static final int LAYER_GAP = 150;
     /**
      * Command Spec
      */
@@ -58,84 +91,270 @@ public class AlignProcessGroups implements Runnable {
      */
     @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Root process group id from which aligning the process groups should be started down the hierarchy. NOTE: If not provided then root process group i.e. 'NIFI Flow' will be used.")
     String givenRootPgId;
+    /**
+     * Whether to only print the plan without updating anything
+     */
+    @CommandLine.Option(names = {Options.DRYRUN}, description = "Print the process groups which would be moved without moving them.")
+    boolean dryRun;
+    /**
+     * Whether to lay out the components of the process groups holding more than process groups
+     */
+    @CommandLine.Option(names = {Options.COMPONENTS}, description = "Also lay out the process groups holding processors, ports, funnels or remote process groups, following the direction of their connections. The bends of the connections of the moved components are removed, labels are left as they are and the components are laid out around them.")
+    boolean components;
+    /**
+     * Whether to place only the new or overlapping process groups, keeping the others where they are
+     */
+    @CommandLine.Option(names = {Options.INCREMENTAL}, description = "Keep the process groups where they are and place only the new or overlapping ones into the free cells of the grid. Process groups whose children are the same as when last aligned incrementally are not fetched again. NOTE: Can not be used along with --components.")
+    boolean incremental;
     /**
      * Maximum number of columns to align upto
      */
     int PG_GRID_MAX_COLUMNS;
     /**
-     * NiFi Service
+     * Maximum number of process groups to align concurrently
+     */
+    int parallelism;
+    /**
+     * NiFi Clusters
      */
     @Inject
-    @RestClient
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
     NiFiService nifiService;
+    /**
+     * Flow snapshot loader of the cluster the command runs against
+     */
+    FlowSnapshotLoader flowSnapshotLoader;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Cache of the flows of the cluster the command runs against, kept in sync with the moves
+     */
+    FlowCache flowCache;
+    /**
+     * Fingerprints of the child process group sets of the cluster the command runs against, aligned incrementally
+     */
+    ChildSetFingerprints childSetFingerprints;
+    /**
+     * Cluster the command runs against, the fingerprints are kept by its location
+     */
+    NiFiCluster cluster;
 
     /**
      * Actual command logic to execute
      */
     @Override
     public void run() {
+        cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        flowSnapshotLoader = cluster.getFlowSnapshotLoader();
+        flowCache = cluster.getFlowCache();
+        childSetFingerprints = cluster.getChildSetFingerprints();
         givenRootPgId = givenRootPgId != null ? givenRootPgId.trim() : "";
+        if (incremental && components) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Options '" + Options.INCREMENTAL + "' and '" + Options.COMPONENTS + "' can not be used together.");
+        }
         if (givenDepth != 0) {
-            ProcessGroupFlowEntity pgfDto;
-            if (givenRootPgId.isEmpty()) {
-                pgfDto = nifiService.getFlowProcessGroup("root");
-            } else {
-                pgfDto = nifiService.getFlowProcessGroup(givenRootPgId);
-            }
+            String rootPgId = givenRootPgId.isEmpty() ? "root" : givenRootPgId;
             Log.info("Aligning Process Groups...");
-            align(givenDepth, pgfDto);
+            try {
+                if (incremental) {
+                    childSetFingerprints.open(cluster.getLocation());
+                }
+                FlowSnapshot snapshot = flowSnapshotLoader.load(rootPgId, givenDepth, parallelism, components, node -> incremental && childSetFingerprints.isUnchanged(node));
+                List<FlowNode> placed = new ArrayList<>();
+                PositionPlan plan = plan(snapshot, placed);
+                if (dryRun) {
+                    plan.getChanges().forEach(change -> Log.info(change.toString()));
+                    Log.info("Dry run: " + plan.getChanges().size() + " of " + plan.getTotalCount() + " " + subject() + " would be moved, " + plan.getUnchangedCount() + " already aligned.");
+                    return;
+                }
+                // pipeline the updates instead of waiting for each one
+                Multi.createFrom().iterable(plan.getChanges()).onItem().transformToUni(this::move).merge(parallelism).collect().last().await().indefinitely();
+                Log.info("Moved " + plan.getChanges().size() + " of " + plan.getTotalCount() + " " + subject() + ", " + plan.getUnchangedCount() + " writes avoided as already aligned.");
+                if (incremental) {
+                    placed.forEach(childSetFingerprints::put);
+                    childSetFingerprints.save();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to align process groups: " + e.getMessage(), e);
+            } finally {
+                childSetFingerprints.close();
+            }
             Log.info("Aligning Completed!");
         }
     }
 
     /**
-     * Align all the independent process groups
+     * Moves the component as per the change, refreshing the revision and retrying once if the planned revision is
+     * stale
+     * 
+     * @param change to apply
+     * @return uni emitting the updated component entity
+     */
+    private Uni<ComponentEntity> move(PositionChange change) {
+        String resource = change.getType().getResource();
+        return requestThrottle.submit(() -> nifiService.updateComponentAsync(resource, change.getId(), change.toEntity())).onFailure(RequestThrottle::isConflict).recoverWithUni(conflict -> requestThrottle.submit(() -> nifiService.getComponentAsync(resource, change.getId())).onItem().transformToUni(latest -> requestThrottle.submit(() -> nifiService.updateComponentAsync(resource, change.getId(), change.toEntity(latest.getRevision()))))).onItem().invoke(updated -> {
+            // only the process groups are cached
+            if (change.getType() == ComponentType.PROCESS_GROUP) {
+                flowCache.update(change.getId(), updated.getRevision(), change.getTarget());
+            }
+        });
+    }
+
+    /**
+     * Computes the plan to align all the independent process groups of the snapshot, along with the components of the
+     * other process groups if they are loaded
      * 
-     * @param depth upto which process groups should be aligned
-     * @param pgfe process group flow entity instance
-     */
-    private void align(int depth, ProcessGroupFlowEntity pgfe) {
-        if (depth > 0) {
-            if (pgfe != null) {
-                FlowDTO flow = pgfe.getProcessGroupFlow().getFlow();
-                if (flow.getConnections().isEmpty() && flow.getFunnels().isEmpty() && flow.getInputPorts().isEmpty() && flow.getOutputPorts().isEmpty() && flow.getRemoteProcessGroups().isEmpty() && flow.getProcessors().isEmpty()) {
-                    if (!flow.getProcessGroups().isEmpty()) {
-                        int currentRow = 0;
-                        int currentColumn = 0;
-                        for (ProcessGroupEntity pgEntity : flow.getProcessGroups()) {
-                            try {
-                                String currentPgId = pgEntity.getId();
-                                ProcessGroupFlowEntity pgFlowEntity = nifiService.getFlowProcessGroup(currentPgId);
-                                // align sub process groups first
-                                if (depth - 1 != 0) {
-                                    align(depth - 1, pgFlowEntity);
-                                }
-                                // align current pg
-                                ProcessGroupEntity newPgEntity = new ProcessGroupEntity();
-                                newPgEntity.setRevision(pgEntity.getRevision());
-
-                                ProcessGroupDTO pgDto = new ProcessGroupDTO();
-                                pgDto.setId(currentPgId);
-                                pgDto.setPosition(getPos(currentRow, currentColumn));
-
-                                newPgEntity.setComponent(pgDto);
-                                nifiService.updateProcessGroup(currentPgId, newPgEntity);
-                            } catch (Exception e) {
-                                Log.error("Unable to align process groups: " + e.getMessage());
-                                System.exit(CommandLine.ExitCode.SOFTWARE);
-                            }
-                            currentColumn++;
-                            if (currentColumn == PG_GRID_MAX_COLUMNS) {
-                                currentColumn = 0;
-                                currentRow++;
-                            }
-                        }
+     * @param snapshot of the process group hierarchy to align
+     * @param placed to add the process groups whose children are placed incrementally to
+     * @return plan of the process groups to move
+     */
+    private PositionPlan plan(FlowSnapshot snapshot, List<FlowNode> placed) {
+        PositionPlan plan = new PositionPlan();
+        Deque<PgNode> pending = new ArrayDeque<>();
+        pending.push(new PgNode(snapshot.getRoot(), givenDepth));
+        while (!pending.isEmpty()) {
+            PgNode pgNode = pending.pop();
+            FlowNode node = pgNode.node;
+            if (node.isChildrenLoaded() && node.isComponentsLoaded()) {
+                layout(plan, node);
+            } else if (node.isChildrenLoaded() && node.isIndependent() && incremental) {
+                place(plan, node);
+                placed.add(node);
+            } else if (node.isChildrenLoaded() && node.isIndependent()) {
+                int currentRow = 0;
+                int currentColumn = 0;
+                for (FlowNode child : node.getChildren()) {
+                    plan.add(child, getPos(currentRow, currentColumn));
+                    currentColumn++;
+                    if (currentColumn == PG_GRID_MAX_COLUMNS) {
+                        currentColumn = 0;
+                        currentRow++;
                     }
                 }
             }
+            // align sub process groups next, including the ones of the process groups skipped as unchanged
+            if ((node.isIndependent() || node.isComponentsLoaded()) && pgNode.depth - 1 != 0) {
+                node.getChildren().forEach(child -> pending.push(new PgNode(child, pgNode.depth - 1)));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Plans the child process groups of the process group which are new or overlapping another child process group to
+     * be moved into the free cells of the grid, the others are kept where they are. The children are kept in the listing
+     * order, so of two overlapping process groups the one listed later is moved.
+     * 
+     * @param plan to add the changes to
+     * @param node process group holding nothing but process groups
+     */
+    private void place(PositionPlan plan, FlowNode node) {
+        SpatialGrid occupied = new SpatialGrid(PG_WIDTH + PG_GAP);
+        List<FlowNode> misplaced = new ArrayList<>();
+        for (FlowNode child : node.getChildren()) {
+            PositionDTO position = child.getPosition();
+            if (position != null && position.getX() != null && position.getY() != null && !occupied.overlaps(position.getX(), position.getY(), PG_WIDTH, PG_HEIGHT)) {
+                occupied.add(position.getX(), position.getY(), PG_WIDTH, PG_HEIGHT);
+                plan.add(child, position);
+            } else {
+                misplaced.add(child);
+            }
+        }
+        int cell = 0;
+        for (FlowNode child : misplaced) {
+            PositionDTO target;
+            do {
+                target = getPos(cell / PG_GRID_MAX_COLUMNS, cell % PG_GRID_MAX_COLUMNS);
+                cell++;
+            } while (occupied.overlaps(target.getX(), target.getY(), PG_WIDTH, PG_HEIGHT));
+            occupied.add(target.getX(), target.getY(), PG_WIDTH, PG_HEIGHT);
+            plan.add(child, target);
         }
     }
 
+    /**
+     * Plans the child process groups and the components of the process group to be laid out in layers following their
+     * connections, see {@link io.github.deepakdaneva.nifi.cli.utils.LayeredLayout}, around its labels which are kept
+     * where they are. The bends of the connections of the moved components are removed as they would not match the new
+     * positions, except for the connections looping back to their source which can not be drawn without them.
+     * 
+     * @param plan to add the changes to
+     * @param node process group to lay out
+     */
+    private void layout(PositionPlan plan, FlowNode node) {
+        long start = System.nanoTime();
+        // ordered by id so the layout does not depend on the listing order
+        List<FlowNode> children = new ArrayList<>(node.getChildren());
+        children.sort(Comparator.comparing(FlowNode::getId));
+        List<ComponentSummary> components = new ArrayList<>(node.getComponents());
+        components.sort(Comparator.comparing(ComponentSummary::getId));
+        int size = children.size() + components.size();
+        double[] widths = new double[size];
+        double[] heights = new double[size];
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < children.size(); i++) {
+            indexes.put(children.get(i).getId(), i);
+            widths[i] = ComponentType.PROCESS_GROUP.getWidth();
+            heights[i] = ComponentType.PROCESS_GROUP.getHeight();
+        }
+        for (int i = 0; i < components.size(); i++) {
+            ComponentSummary component = components.get(i);
+            indexes.put(component.getId(), children.size() + i);
+            widths[children.size() + i] = component.getType().getWidth();
+            heights[children.size() + i] = component.getType().getHeight();
+        }
+        List<ConnectionSummary> connections = node.getConnections();
+        int[] sources = new int[connections.size()];
+        int[] targets = new int[connections.size()];
+        int edges = 0;
+        for (ConnectionSummary connection : connections) {
+            // ports of the child and the remote process groups are drawn as part of their process group
+            Integer source = indexes.get(node.getId().equals(connection.getSourceGroupId()) ? connection.getSourceId() : connection.getSourceGroupId());
+            Integer target = indexes.get(node.getId().equals(connection.getDestinationGroupId()) ? connection.getDestinationId() : connection.getDestinationGroupId());
+            if (source != null && target != null) {
+                sources[edges] = source;
+                targets[edges] = target;
+                edges++;
+            }
+        }
+        List<LabelSummary> labels = node.getLabels();
+        double[][] obstacles = new double[labels.size()][];
+        for (int i = 0; i < labels.size(); i++) {
+            LabelSummary label = labels.get(i);
+            obstacles[i] = new double[] {label.getPosition().getX(), label.getPosition().getY(), label.getWidth(), label.getHeight()};
+        }
+        double[][] positions = new LayeredLayout(COMPONENT_GAP, LAYER_GAP).layout(widths, heights, Arrays.copyOf(sources, edges), Arrays.copyOf(targets, edges), obstacles);
+        Set<String> moved = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            PositionDTO target = new PositionDTO(positions[0][i], positions[1][i]);
+            if (i < children.size() ? plan.add(children.get(i), target) : plan.add(components.get(i - children.size()), target)) {
+                moved.add(i < children.size() ? children.get(i).getId() : components.get(i - children.size()).getId());
+            }
+        }
+        for (ConnectionSummary connection : connections) {
+            if (!connection.isSelfLoop() && (moved.contains(connection.getSourceId()) || moved.contains(connection.getSourceGroupId()) || moved.contains(connection.getDestinationId()) || moved.contains(connection.getDestinationGroupId()))) {
+                plan.clearBends(connection);
+            }
+        }
+        Log.debug("Laid out " + size + " components and " + edges + " connections of " + node.getId() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Provides what is aligned, for the messages
+     * 
+     * @return aligned components
+     */
+    private String subject() {
+        return components ? "components" : "process groups";
+    }
+
     /**
      * Provides the new instance of {@link org.apache.nifi.web.api.dto.PositionDTO} by calculating using current row and current column
      * 
@@ -167,6 +386,51 @@ public class AlignProcessGroups implements Runnable {
         }
     }
 
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.AlignProcessGroups#parallelism} by using the provided parallelism string by the user.
+     * 
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "8", description = "Maximum number of process groups to fetch and update concurrently. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Process group to be aligned along with the remaining depth
+     */
+    static final class PgNode {
+        /**
+         * Process group
+         */
+        final FlowNode node;
+        /**
+         * Remaining depth, negative means unlimited
+         */
+        final int depth;
+
+        /**
+         * Create instance with the provided process group and remaining depth
+         * 
+         * @param node process group
+         * @param depth remaining depth
+         */
+        PgNode(FlowNode node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+    }
+
     /**
      * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.AlignProcessGroups}
      */
@@ -195,6 +459,22 @@ public class AlignProcessGroups implements Runnable {
          * Grid columns to align process groups into
          */
         public static final String COLUMNS = "--columns";
+        /**
+         * Maximum number of process groups to align concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+        /**
+         * Only print the plan
+         */
+        public static final String DRYRUN = "--dry-run";
+        /**
+         * Lay out the components of the process groups as well
+         */
+        public static final String COMPONENTS = "--components";
+        /**
+         * Place only the new or overlapping process groups
+         */
+        public static final String INCREMENTAL = "--incremental";
     }
 
 }
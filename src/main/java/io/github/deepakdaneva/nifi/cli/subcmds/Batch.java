@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.configs.CommandLineConfig;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "batch", description = "Run many commands, one per line of the file or standard input, in one process using one authenticated session. Empty lines and lines starting with '#' are skipped.")
+public class Batch implements Runnable {
+
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * File to read the commands from
+     */
+    @CommandLine.Option(names = {Options.F, Options.FILE}, defaultValue = "-", description = "File to read the commands from, '-' to read from the standard input.")
+    String file;
+    /**
+     * Whether to continue with the next commands if a command fails
+     */
+    @CommandLine.Option(names = {Options.CONTINUE_ON_ERROR}, description = "Continue running the next commands if a command fails.")
+    boolean continueOnError;
+    /**
+     * Picocli factory to create the commands with their dependencies injected
+     */
+    @Inject
+    CommandLine.IFactory factory;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        int executed = 0;
+        int failed = 0;
+        long start = System.nanoTime();
+        try (BufferedReader reader = "-".equals(file) ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                executed++;
+                int exitCode = execute(lineNumber, line);
+                if (exitCode != CommandLine.ExitCode.OK) {
+                    failed++;
+                    Log.error("Command at line " + lineNumber + " failed with exit code " + exitCode + ": " + line);
+                    if (!continueOnError) {
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to read commands: " + e.getMessage(), e);
+        }
+        Log.info("Executed " + executed + " commands in " + (System.nanoTime() - start) / 1_000_000 + " ms, " + failed + " failed.");
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + executed + " commands failed.");
+        }
+    }
+
+    /**
+     * Executes the command line as a subcommand of the top command, without its options as the session is already
+     * authenticated
+     *
+     * @param lineNumber of the command line
+     * @param line command line to execute
+     * @return exit code of the command
+     */
+    private int execute(int lineNumber, String line) {
+        List<String> args;
+        try {
+            args = AppUtils.splitArgs(line);
+        } catch (IllegalArgumentException e) {
+            Log.error("Invalid command at line " + lineNumber + ": " + e.getMessage());
+            return CommandLine.ExitCode.USAGE;
+        }
+        CommandLine commandLine = createLineCommandLine(spec.root(), factory);
+        return commandLine.execute(args.toArray(new String[0]));
+    }
+
+    /**
+     * Creates the command line to execute a single line of commands, it has all the subcommands of the top command
+     * except the ones managing sessions themselves
+     *
+     * @param root spec of the top command
+     * @param factory to create the commands with their dependencies injected
+     * @return command line to execute a single line of commands
+     */
+    static CommandLine createLineCommandLine(CommandLine.Model.CommandSpec root, CommandLine.IFactory factory) {
+        CommandLine commandLine = new CommandLine(new Line(), factory).setExecutionExceptionHandler(CommandLineConfig::handleExecutionException);
+        for (Map.Entry<String, CommandLine> subcommand : root.subcommands().entrySet()) {
+            Class<?> commandClass = subcommand.getValue().getCommandSpec().userObject().getClass();
+            if (!isSessionCommand(commandClass)) {
+                commandLine.addSubcommand(subcommand.getKey(), commandClass);
+            }
+        }
+        return commandLine;
+    }
+
+    /**
+     * Whether the command manages sessions itself and can not be run as a line of commands
+     *
+     * @param commandClass class of the command
+     * @return {@code true} if the command can not be run as a line of commands
+     */
+    public static boolean isSessionCommand(Class<?> commandClass) {
+        return Batch.class.isAssignableFrom(commandClass) || Daemon.class.isAssignableFrom(commandClass) || DaemonClient.class.isAssignableFrom(commandClass);
+    }
+
+    /**
+     * Parent of the commands of a single line, it does nothing by itself
+     */
+    @CommandLine.Command(name = "")
+    static class Line implements Runnable {
+        /**
+         * Command Spec
+         */
+        @CommandLine.Spec
+        CommandLine.Model.CommandSpec spec;
+
+        /**
+         * Fails as a command needs to be provided on every line
+         */
+        @Override
+        public void run() {
+            throw new CommandLine.ParameterException(spec.commandLine(), "No Command provided to Execute!");
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.Batch}
+     */
+    public static final class Options {
+        /**
+         * File to read the commands from
+         */
+        public static final String F = "-f";
+        /**
+         * File to read the commands from
+         */
+        public static final String FILE = "--file";
+        /**
+         * Continue running the next commands if a command fails
+         */
+        public static final String CONTINUE_ON_ERROR = "--continue-on-error";
+    }
+}
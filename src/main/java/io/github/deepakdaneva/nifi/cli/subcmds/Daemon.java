@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.github.deepakdaneva.nifi.cli.utils.LineWriter;
+import io.quarkus.logging.Log;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.parsetools.RecordParser;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "daemon", description = "Keep the authenticated session and the warm connections to the NiFi open, and run the commands sent by 'client' over a Unix domain socket until stopped.")
+public class Daemon implements Runnable {
+
+    /**
+     * Prefix of a line of the command output sent to the client
+     */
+    static final String OUTPUT_PREFIX = "O ";
+    /**
+     * Prefix of the line carrying the exit code of the command sent to the client
+     */
+    static final String EXIT_PREFIX = "X ";
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Unix domain socket to listen on
+     */
+    @CommandLine.Option(names = {Options.S, Options.SOCKET}, description = "Unix domain socket to listen on, its directory should be owned by the current user and accessible to it only (rwx------). NOTE: If not provided then '~/.nifi-cli/daemon.sock' will be used.")
+    String socket;
+    /**
+     * Picocli factory to create the commands with their dependencies injected
+     */
+    @Inject
+    CommandLine.IFactory factory;
+    /**
+     * Json mapper to read the requests
+     */
+    @Inject
+    ObjectMapper objectMapper;
+    /**
+     * Application configuration
+     */
+    @Inject
+    AppConfig appConfig;
+    /**
+     * Runs the commands one at a time so that the output of a command is not mixed with another one
+     */
+    final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "nifi-cli-daemon"));
+    /**
+     * Released when the daemon is requested to stop
+     */
+    final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        Path path = Paths.get(socket != null ? socket : appConfig.daemon().socket()).toAbsolutePath();
+        Vertx vertx = null;
+        NetServer server = null;
+        try {
+            if (AppUtils.isPosix()) {
+                Files.createDirectories(path.getParent(), PosixFilePermissions.asFileAttribute(AppUtils.DIRECTORY_PERMISSIONS));
+                // the socket is bound with the default permissions, the directory keeps the others out until they are changed
+                checkPrivate(path.getParent());
+            } else {
+                Files.createDirectories(path.getParent());
+            }
+            Files.deleteIfExists(path);
+            vertx = createSocketVertx();
+            server = vertx.createNetServer().connectHandler(this::accept).listen(SocketAddress.domainSocketAddress(path.toString())).toCompletionStage().toCompletableFuture().get();
+            if (AppUtils.isPosix()) {
+                Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+            }
+            Log.info("Daemon listening on " + path);
+            stopped.await();
+            Log.info("Daemon stopped!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to run daemon on " + path + ": " + e.getMessage(), e);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            if (vertx != null) {
+                vertx.close();
+            }
+            executor.shutdownNow();
+            try {
+                Files.deleteIfExists(path);
+            } catch (Exception e) {
+                Log.debug("Unable to delete socket: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates the Vert.x instance of the socket of the daemon and its clients. The Unix domain sockets need the native
+     * transport of the platform, so it is preferred by this instance only and the REST client keeps the default transport.
+     *
+     * @return Vert.x instance using the native transport, to be closed once the socket is closed
+     * @throws IllegalStateException if the native transport is not bundled or not available on the platform
+     */
+    static Vertx createSocketVertx() {
+        Vertx vertx = Vertx.vertx(new VertxOptions().setPreferNativeTransport(true).setEventLoopPoolSize(1).setWorkerPoolSize(1).setInternalBlockingPoolSize(1));
+        if (!vertx.isNativeTransportEnabled()) {
+            Throwable cause = vertx.unavailableNativeTransportCause();
+            vertx.close();
+            if (cause == null || cause instanceof LinkageError) {
+                throw new IllegalStateException("The native transport of the Unix domain sockets is not bundled, build the CLI using the daemon profile i.e. -Pdev,daemon" + (cause != null ? ": " + cause.getMessage() : ""));
+            }
+            throw new IllegalStateException("Unix domain sockets are not supported on this platform: " + cause.getMessage());
+        }
+        return vertx;
+    }
+
+    /**
+     * Checks that the directory of the socket is not a link, is owned by the current user and is accessible to it only
+     *
+     * @param directory of the socket
+     * @throws Exception if the attributes of the directory can not be read
+     * @throws IllegalStateException if the directory is not private to the current user
+     */
+    static void checkPrivate(Path directory) throws Exception {
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.isDirectory() || !attributes.owner().equals(user) || !attributes.permissions().equals(AppUtils.DIRECTORY_PERMISSIONS)) {
+            throw new IllegalStateException("Directory of the socket (" + directory + ") should be a directory, not a link, owned by " + user.getName() + " and accessible to it only (" + PosixFilePermissions.toString(AppUtils.DIRECTORY_PERMISSIONS) + "), found " + attributes.owner().getName() + " (" + PosixFilePermissions.toString(attributes.permissions()) + ").");
+        }
+    }
+
+    /**
+     * Accepts the client connection, every line received is a request
+     *
+     * @param netSocket connection of the client
+     */
+    private void accept(NetSocket netSocket) {
+        netSocket.handler(RecordParser.newDelimited("\n", line -> {
+            String request = line.toString(StandardCharsets.UTF_8);
+            executor.execute(() -> handle(netSocket, request));
+        }));
+    }
+
+    /**
+     * Handles the request of the client by running the command and streaming its output back
+     *
+     * @param netSocket connection of the client
+     * @param request json request, i.e. {@code {"args": ["align", "-r", "..."]}} or {@code {"stop": true}}
+     */
+    private void handle(NetSocket netSocket, String request) {
+        Consumer<String> output = text -> netSocket.write(frame(text));
+        int exitCode;
+        try {
+            JsonNode json = objectMapper.readTree(request);
+            if (json.path("stop").asBoolean(false)) {
+                output.accept("Stopping daemon...");
+                netSocket.write(EXIT_PREFIX + CommandLine.ExitCode.OK + "\n");
+                netSocket.end();
+                stopped.countDown();
+                return;
+            }
+            List<String> args = new ArrayList<>();
+            json.path("args").forEach(arg -> args.add(arg.asText()));
+            exitCode = execute(args, output);
+        } catch (Exception e) {
+            output.accept("Invalid request: " + e.getMessage());
+            exitCode = CommandLine.ExitCode.USAGE;
+        }
+        netSocket.write(EXIT_PREFIX + exitCode + "\n");
+        netSocket.end();
+    }
+
+    /**
+     * Frames the output text as lines of the protocol, every line of a text spanning several lines is prefixed so none of
+     * them is dropped by the client or read as the exit line
+     *
+     * @param text output of the command, possibly spanning several lines
+     * @return lines to send to the client, each one prefixed and terminated
+     */
+    static String frame(String text) {
+        StringBuilder lines = new StringBuilder(text.length() + OUTPUT_PREFIX.length() + 1);
+        for (String line : text.split("\\R", -1)) {
+            lines.append(OUTPUT_PREFIX).append(line).append('\n');
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Executes the command forwarding its log records and picocli output to the client
+     *
+     * @param args of the command
+     * @param output to forward the lines to
+     * @return exit code of the command
+     */
+    private int execute(List<String> args, Consumer<String> output) {
+        Handler handler = new Handler() {
+            final SimpleFormatter formatter = new SimpleFormatter();
+
+            @Override
+            public void publish(LogRecord record) {
+                if (isLoggable(record)) {
+                    output.accept(String.format("%-5s| %s", record.getLevel(), formatter.formatMessage(record)));
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger rootLogger = Logger.getLogger("");
+        rootLogger.addHandler(handler);
+        try {
+            PrintWriter writer = new PrintWriter(new LineWriter(output), true);
+            return Batch.createLineCommandLine(spec.root(), factory).setOut(writer).setErr(writer).execute(args.toArray(new String[0]));
+        } finally {
+            rootLogger.removeHandler(handler);
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.Daemon} and
+     * {@link io.github.deepakdaneva.nifi.cli.subcmds.DaemonClient}
+     */
+    public static final class Options {
+        /**
+         * Unix domain socket of the daemon
+         */
+        public static final String S = "-s";
+        /**
+         * Unix domain socket of the daemon
+         */
+        public static final String SOCKET = "--socket";
+        /**
+         * Stop the daemon
+         */
+        public static final String STOP = "--stop";
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.deepakdaneva.nifi.cli.configs.props.AppConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.parsetools.RecordParser;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "client", description = "Run the command on the running daemon and print its output, i.e. 'client -- align -r <id>'. The location and credentials are not needed as the daemon holds the session.")
+public class DaemonClient implements Callable<Integer> {
+
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Unix domain socket of the daemon
+     */
+    @CommandLine.Option(names = {Daemon.Options.S, Daemon.Options.SOCKET}, description = "Unix domain socket of the daemon. NOTE: If not provided then '~/.nifi-cli/daemon.sock' will be used.")
+    String socket;
+    /**
+     * Whether to stop the daemon
+     */
+    @CommandLine.Option(names = {Daemon.Options.STOP}, description = "Stop the daemon.")
+    boolean stop;
+    /**
+     * Command to run on the daemon
+     */
+    @CommandLine.Parameters(paramLabel = "COMMAND", description = "Command along with its options to run on the daemon.")
+    List<String> args;
+    /**
+     * Json mapper to write the requests
+     */
+    @Inject
+    ObjectMapper objectMapper;
+    /**
+     * Application configuration
+     */
+    @Inject
+    AppConfig appConfig;
+
+    /**
+     * Actual command logic to execute
+     *
+     * @return exit code of the command run on the daemon
+     */
+    @Override
+    public Integer call() {
+        if (!stop && (args == null || args.isEmpty())) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "No Command provided to Execute!");
+        }
+        ObjectNode request = objectMapper.createObjectNode();
+        if (stop) {
+            request.put("stop", true);
+        } else {
+            args.forEach(request.putArray("args")::add);
+        }
+        String path = socket != null ? socket : appConfig.daemon().socket();
+        PrintWriter out = spec.commandLine().getOut();
+        CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+        Vertx vertx = Daemon.createSocketVertx();
+        NetClient client = vertx.createNetClient();
+        try {
+            NetSocket netSocket = client.connect(SocketAddress.domainSocketAddress(path)).toCompletionStage().toCompletableFuture().get();
+            netSocket.handler(RecordParser.newDelimited("\n", buffer -> {
+                Integer code = read(buffer.toString(StandardCharsets.UTF_8), out);
+                if (code != null) {
+                    exitCode.complete(code);
+                }
+            }));
+            netSocket.closeHandler(ignored -> exitCode.complete(CommandLine.ExitCode.SOFTWARE));
+            netSocket.write(objectMapper.writeValueAsString(request) + "\n");
+            return exitCode.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to reach daemon on " + path + ": " + e.getMessage(), e);
+        } finally {
+            client.close();
+            vertx.close();
+        }
+    }
+
+    /**
+     * Reads the line sent by the daemon, printing it if it is a line of the command output
+     *
+     * @param line received without its line terminator
+     * @param out to print the command output to
+     * @return exit code of the command if the line carries it, otherwise {@code null}
+     */
+    static Integer read(String line, PrintWriter out) {
+        if (line.startsWith(Daemon.EXIT_PREFIX)) {
+            return Integer.parseInt(line.substring(Daemon.EXIT_PREFIX.length()).trim());
+        }
+        if (line.startsWith(Daemon.OUTPUT_PREFIX)) {
+            out.println(line.substring(Daemon.OUTPUT_PREFIX.length()));
+            out.flush();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.deepakdaneva.nifi.cli.models.BackupSnapshot;
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowSummary;
+import io.github.deepakdaneva.nifi.cli.services.BackupStore;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import org.apache.nifi.web.api.entity.ProcessGroupEntity;
+import picocli.CommandLine;
+
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "backup", description = "Back up the flow definitions of the child process groups of a process group concurrently into a local content-addressed store, list the snapshots of the store or restore the process groups of a snapshot in place.")
+public class FlowBackup implements Runnable {
+
+    /**
+     * Format of the snapshot ids, sorting in the order the snapshots are created
+     */
+    static final DateTimeFormatter SNAPSHOT_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'", Locale.US).withZone(ZoneOffset.UTC);
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Action to apply
+     */
+    Action action;
+    /**
+     * NiFi Root process group id
+     */
+    @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Process group id whose child process groups are backed up. NOTE: If not provided then root process group i.e. 'NIFI Flow' will be used.")
+    String givenRootPgId;
+    /**
+     * Snapshot to restore
+     */
+    @CommandLine.Option(names = {Options.SNAPSHOT}, description = "Id of the snapshot to restore, as printed by 'backup list'. NOTE: If not provided then the latest snapshot of the location will be used.")
+    String snapshotId;
+    /**
+     * Process groups of the snapshot to restore
+     */
+    @CommandLine.Option(names = {Options.GROUP}, split = ",", description = "Id of a process group of the snapshot to restore, all of them are restored if not provided.")
+    Set<String> groupIds;
+    /**
+     * Maximum number of process groups processed concurrently
+     */
+    int parallelism;
+    /**
+     * Seconds to wait for the replacement of a process group to finish
+     */
+    long timeoutSeconds;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
+    NiFiService nifiService;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Reader of the flow responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+    /**
+     * Store of the backups
+     */
+    @Inject
+    BackupStore backupStore;
+    /**
+     * Cluster the command runs against, the snapshots are kept by its location
+     */
+    NiFiCluster cluster;
+    /**
+     * Json mapper to create the replace requests
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        try {
+            switch (action) {
+                case CREATE:
+                    create();
+                    break;
+                case LIST:
+                    list();
+                    break;
+                case RESTORE:
+                    restore();
+                    break;
+            }
+        } catch (IllegalStateException | CommandLine.ParameterException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to " + action.getName() + " backup: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads the flow definitions of the child process groups concurrently and writes the ones not in the store yet,
+     * then the snapshot listing all of them
+     *
+     * @throws Exception if listing the child process groups or writing the snapshot fails
+     */
+    private void create() throws Exception {
+        String rootPgId = givenRootPgId != null && !givenRootPgId.trim().isEmpty() ? givenRootPgId.trim() : "root";
+        long startNanos = System.nanoTime();
+        FlowSummary flow;
+        try (InputStream response = requestThrottle.call(() -> nifiService.getFlowProcessGroupStream(rootPgId, true))) {
+            flow = flowProjectionReader.readFlow(response, EnumSet.of(ComponentSummary.Field.NAME));
+        }
+        if (flow.getProcessGroups().isEmpty()) {
+            Log.info("Nothing to back up, process group " + rootPgId + " has no child process groups.");
+            return;
+        }
+        Log.info("Backing up " + flow.getProcessGroups().size() + " process groups...");
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        AtomicLong writtenBytes = new AtomicLong();
+        List<BackupSnapshot.Group> groups = Multi.createFrom().iterable(flow.getProcessGroups()).onItem().transformToUni(child -> Uni.createFrom().item(() -> {
+            try {
+                byte[] definition;
+                try (InputStream response = requestThrottle.call(() -> nifiService.downloadFlowDefinition(child.getId(), true))) {
+                    definition = response.readAllBytes();
+                }
+                BackupSnapshot.Group group = new BackupSnapshot.Group();
+                group.setId(child.getId());
+                group.setName(child.getName());
+                group.setObject(backupStore.hash(definition));
+                group.setSize(definition.length);
+                long bytes = backupStore.putObject(group.getObject(), definition);
+                if (bytes > 0) {
+                    written.incrementAndGet();
+                    writtenBytes.addAndGet(bytes);
+                }
+                return group;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()).onFailure().recoverWithItem(failure -> {
+            failures.incrementAndGet();
+            Log.warn("Unable to back up process group " + child.getId() + " (" + child.getName() + "): " + failure.getMessage());
+            // discarded by the merge
+            return null;
+        })).merge(parallelism).collect().asList().await().indefinitely();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + flow.getProcessGroups().size() + " process groups could not be backed up, no snapshot is created.");
+        }
+        Instant now = Instant.now();
+        BackupSnapshot snapshot = new BackupSnapshot();
+        snapshot.setId(SNAPSHOT_ID_FORMAT.format(now));
+        snapshot.setLocation(String.valueOf(cluster.getLocation()));
+        snapshot.setRootGroupId(rootPgId);
+        snapshot.setCreatedAt(now.toString());
+        groups.sort(Comparator.comparing(BackupSnapshot.Group::getId));
+        snapshot.setGroups(groups);
+        backupStore.putSnapshot(snapshot);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Log.info("Backed up " + groups.size() + " process groups as snapshot " + snapshot.getId() + " in " + elapsedMillis + " ms, " + written.get() + " changed ones written using " + writtenBytes.get() + " bytes.");
+    }
+
+    /**
+     * Prints the snapshots of the store, one line per snapshot
+     *
+     * @throws Exception if reading the snapshots fails
+     */
+    private void list() throws Exception {
+        PrintWriter out = spec.commandLine().getOut();
+        for (String id : backupStore.getSnapshotIds()) {
+            BackupSnapshot snapshot = backupStore.getSnapshot(id);
+            long size = snapshot.getGroups().stream().mapToLong(BackupSnapshot.Group::getSize).sum();
+            out.println(snapshot.getId() + "\t" + snapshot.getCreatedAt() + "\t" + snapshot.getLocation() + "\t" + snapshot.getRootGroupId() + "\t" + snapshot.getGroups().size() + " process groups\t" + size + " bytes");
+        }
+        out.flush();
+    }
+
+    /**
+     * Replaces the flows of the process groups of the snapshot concurrently with their backed up flow definitions, the
+     * process groups whose current flow definition is the backed up one are left as they are
+     *
+     * @throws Exception if reading the snapshot fails
+     */
+    private void restore() throws Exception {
+        String id = snapshotId != null ? snapshotId.trim() : latestSnapshotId();
+        BackupSnapshot snapshot = backupStore.getSnapshot(id);
+        List<BackupSnapshot.Group> groups = snapshot.getGroups().stream().filter(group -> groupIds == null || groupIds.contains(group.getId())).collect(Collectors.toList());
+        if (groupIds != null && groups.size() < groupIds.size()) {
+            Set<String> found = groups.stream().map(BackupSnapshot.Group::getId).collect(Collectors.toSet());
+            throw new CommandLine.ParameterException(spec.commandLine(), "Process groups " + groupIds.stream().filter(groupId -> !found.contains(groupId)).collect(Collectors.joining(", ")) + " are not in snapshot " + id + ".");
+        }
+        Log.info("Restoring " + groups.size() + " process groups of snapshot " + id + "...");
+        long startNanos = System.nanoTime();
+        AtomicInteger failures = new AtomicInteger();
+        long replaced = Multi.createFrom().iterable(groups).onItem().transformToUni(group -> Uni.createFrom().item(() -> {
+            try {
+                return replace(group) ? 1L : 0L;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()).onFailure().recoverWithItem(failure -> {
+            failures.incrementAndGet();
+            Log.warn("Unable to restore process group " + group.getId() + " (" + group.getName() + "): " + failure.getMessage());
+            // discarded by the merge
+            return null;
+        })).merge(parallelism).collect().with(Collectors.summingLong(Long::longValue)).await().indefinitely();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Log.info("Restored " + replaced + " of " + groups.size() + " process groups of snapshot " + id + " in " + elapsedMillis + " ms, " + (groups.size() - replaced - failures.get()) + " unchanged since the snapshot.");
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + groups.size() + " process groups could not be restored.");
+        }
+    }
+
+    /**
+     * Replaces the flow of the process group with its backed up flow definition unless it did not change, and waits
+     * for the replacement to finish
+     *
+     * @param group of the snapshot
+     * @return {@code true} if replaced, {@code false} if unchanged
+     * @throws Exception if the replacement fails
+     */
+    private boolean replace(BackupSnapshot.Group group) throws Exception {
+        byte[] definition = backupStore.getObject(group.getObject());
+        byte[] current;
+        try (InputStream response = requestThrottle.call(() -> nifiService.downloadFlowDefinition(group.getId(), true))) {
+            current = response.readAllBytes();
+        }
+        if (group.getObject().equals(backupStore.hash(current))) {
+            Log.debug("Process group " + group.getId() + " is unchanged since the snapshot.");
+            return false;
+        }
+        ProcessGroupEntity entity = requestThrottle.submit(() -> nifiService.getProcessGroupAsync(group.getId())).await().indefinitely();
+        ObjectNode request = objectMapper.createObjectNode();
+        request.set("processGroupRevision", objectMapper.valueToTree(entity.getRevision()));
+        request.set("versionedFlowSnapshot", objectMapper.readTree(definition));
+        JsonNode replaceRequest = requestThrottle.call(() -> nifiService.createReplaceRequest(group.getId(), request)).path("request");
+        String requestId = replaceRequest.path("requestId").asText();
+        try {
+            long startNanos = System.nanoTime();
+            long delayMillis = 0;
+            while (!replaceRequest.path("complete").asBoolean() && !replaceRequest.hasNonNull("failureReason")) {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                if (elapsedMillis > TimeUnit.SECONDS.toMillis(timeoutSeconds)) {
+                    throw new IllegalStateException("Replacement did not finish within " + timeoutSeconds + " seconds.");
+                }
+                delayMillis = AppUtils.nextPollDelayMillis(replaceRequest.path("percentCompleted").asInt(), elapsedMillis, delayMillis);
+                Thread.sleep(delayMillis);
+                replaceRequest = requestThrottle.call(() -> nifiService.getReplaceRequest(requestId)).path("request");
+            }
+            if (replaceRequest.hasNonNull("failureReason")) {
+                throw new IllegalStateException(replaceRequest.path("failureReason").asText());
+            }
+        } finally {
+            try {
+                requestThrottle.call(() -> {
+                    nifiService.deleteReplaceRequest(requestId);
+                    return null;
+                });
+            } catch (Exception e) {
+                Log.debug("Unable to delete replace request " + requestId + " of process group " + group.getId() + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Provides the latest snapshot of the location of the session
+     *
+     * @return id of the snapshot
+     * @throws Exception if there is no snapshot of the location
+     */
+    private String latestSnapshotId() throws Exception {
+        String location = String.valueOf(cluster.getLocation());
+        List<String> ids = new ArrayList<>(backupStore.getSnapshotIds());
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            if (location.equals(backupStore.getSnapshot(ids.get(i)).getLocation())) {
+                return ids.get(i);
+            }
+        }
+        throw new CommandLine.ParameterException(spec.commandLine(), "No snapshot of " + location + " in the store, provide '" + Options.SNAPSHOT + "'.");
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup#action} by using the provided action string
+     * by the user.
+     *
+     * @param value string action
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<action>", description = "Action to apply, one of: create, list, restore.")
+    void setAction(String value) {
+        try {
+            action = Action.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid action (" + value + ") provided, expected one of: create, list, restore.");
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup#parallelism} by using the provided
+     * parallelism string by the user.
+     *
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "8", description = "Maximum number of process groups to back up or restore concurrently. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup#timeoutSeconds} by using the provided timeout
+     * string by the user.
+     *
+     * @param value string timeout in seconds
+     * @throws Exception if provided timeout is not valid
+     */
+    @CommandLine.Option(names = {Options.TIMEOUT}, defaultValue = "300", description = "Seconds to wait for the restore of a process group to finish, the restore is cancelled after it. NOTE: This should not be less than 1.")
+    void setTimeout(String value) throws Exception {
+        try {
+            timeoutSeconds = Long.parseLong(value);
+            if (timeoutSeconds < 1) {
+                throw new IllegalArgumentException("Timeout can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid timeout (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Actions applicable to the backups
+     */
+    enum Action {
+        /**
+         * Backs up the child process groups as a new snapshot
+         */
+        CREATE,
+        /**
+         * Lists the snapshots of the store
+         */
+        LIST,
+        /**
+         * Restores the process groups of a snapshot
+         */
+        RESTORE;
+
+        /**
+         * Provides the name of the action as typed by the user
+         *
+         * @return name of the action
+         */
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup}
+     */
+    public static final class Options {
+        /**
+         * Root process group id
+         */
+        public static final String R = "-r";
+        /**
+         * Root process group id
+         */
+        public static final String ROOTPGID = "--rootpgid";
+        /**
+         * Snapshot to restore
+         */
+        public static final String SNAPSHOT = "--snapshot";
+        /**
+         * Process group of the snapshot to restore
+         */
+        public static final String GROUP = "--group";
+        /**
+         * Maximum number of process groups to process concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+        /**
+         * Seconds to wait for the restore of a process group to finish
+         */
+        public static final String TIMEOUT = "--timeout";
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.models.BackupSnapshot;
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.FlowDefinitionNode;
+import io.github.deepakdaneva.nifi.cli.services.BackupStore;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.utils.FlowDefinitionDiff;
+import io.github.deepakdaneva.nifi.cli.utils.FlowDefinitionReader;
+import io.github.deepakdaneva.nifi.cli.utils.FlowHashes;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "diff", description = "Compare the flows of two sources, each one a snapshot of the backup store or the live flow of one of the NiFi clusters, printing a line per difference. The process groups are hashed as a Merkle tree so the identical ones are skipped along with their descendants and only the differing branches are compared in detail.")
+public class FlowDiff implements Runnable {
+
+    /**
+     * Source naming the live flow of the NiFi
+     */
+    static final String LIVE = "live";
+    /**
+     * Prefix of the source naming the live flow of one of several clusters
+     */
+    static final String LIVE_PREFIX = LIVE + ":";
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Source to compare from
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<from>", description = "Source to compare from, either 'live', 'live:<cluster>' naming one of several clusters provided or the id of a snapshot as printed by 'backup list'.")
+    String from;
+    /**
+     * Source to compare to
+     */
+    @CommandLine.Parameters(index = "1", paramLabel = "<to>", description = "Source to compare to, either 'live', 'live:<cluster>' naming one of several clusters provided or the id of a snapshot as printed by 'backup list'.")
+    String to;
+    /**
+     * NiFi Root process group id
+     */
+    @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Process group id whose child process groups are the live flow. NOTE: If not provided then the process group the compared snapshot was backed up from will be used, or the root process group i.e. 'NIFI Flow' when comparing two live flows.")
+    String givenRootPgId;
+    /**
+     * Whether to compare the positions of the components too
+     */
+    @CommandLine.Option(names = {Options.LAYOUT}, description = "Compare the positions of the components and the bends of the connections too, by default only the configuration is compared.")
+    boolean layout;
+    /**
+     * Maximum number of process groups compared concurrently
+     */
+    int parallelism;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * Cluster of the live flow to compare from, {@code null} if comparing from a snapshot
+     */
+    NiFiCluster fromCluster;
+    /**
+     * Cluster of the live flow to compare to, {@code null} if comparing to a snapshot
+     */
+    NiFiCluster toCluster;
+    /**
+     * Reader of the flow responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+    /**
+     * Json mapper to read the flow definitions
+     */
+    @Inject
+    ObjectMapper objectMapper;
+    /**
+     * Reader of the flow definitions
+     */
+    FlowDefinitionReader flowDefinitionReader;
+    /**
+     * Store of the backups
+     */
+    @Inject
+    BackupStore backupStore;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        fromCluster = clusterOf(from);
+        toCluster = clusterOf(to);
+        flowDefinitionReader = new FlowDefinitionReader(objectMapper);
+        if (fromCluster != null && fromCluster == toCluster) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Both sources are the live flow of " + fromCluster.getName() + ", provide several clusters and name their live flows as '" + LIVE_PREFIX + "<cluster>' to compare them.");
+        }
+        long startNanos = System.nanoTime();
+        Set<String> ignored = new HashSet<>(FlowHashes.IDENTITY_FIELDS);
+        if (!layout) {
+            ignored.addAll(FlowHashes.LAYOUT_FIELDS);
+        }
+        AtomicInteger comparedGroups = new AtomicInteger();
+        AtomicInteger skippedGroups = new AtomicInteger();
+        AtomicInteger comparedComponents = new AtomicInteger();
+        List<String> changes = new ArrayList<>();
+        try {
+            BackupSnapshot left = fromCluster == null ? backupStore.getSnapshot(from.trim()) : null;
+            BackupSnapshot right = toCluster == null ? backupStore.getSnapshot(to.trim()) : null;
+            String rootPgId = givenRootPgId != null && !givenRootPgId.trim().isEmpty() ? givenRootPgId.trim() : left != null ? left.getRootGroupId() : right != null ? right.getRootGroupId() : "root";
+            left = left != null ? left : live(fromCluster, rootPgId);
+            right = right != null ? right : live(toCluster, rootPgId);
+            List<BackupSnapshot.Group[]> pairs = new ArrayList<>();
+            FlowDefinitionDiff.match(left.getGroups(), right.getGroups(), BackupSnapshot.Group::getId, BackupSnapshot.Group::getName, (leftGroup, rightGroup) -> pairs.add(new BackupSnapshot.Group[] {leftGroup, rightGroup}), removed -> changes.add("- /" + removed.getName() + " (processGroups)"), added -> changes.add("+ /" + added.getName() + " (processGroups)"));
+            Log.info("Comparing " + pairs.size() + " process groups...");
+            List<List<String>> compared = Multi.createFrom().iterable(pairs).onItem().transformToUni(pair -> Uni.createFrom().item(() -> {
+                try {
+                    List<String> pairChanges = new ArrayList<>();
+                    FlowDefinitionDiff diff = compare(pair[0], pair[1], ignored, pairChanges);
+                    comparedGroups.addAndGet(diff.getComparedGroups());
+                    skippedGroups.addAndGet(diff.getSkippedGroups());
+                    comparedComponents.addAndGet(diff.getComparedComponents());
+                    return pairChanges;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Unable to compare process group " + pair[1].getName() + ": " + e.getMessage(), e);
+                }
+            }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool())).merge(parallelism).collect().asList().await().indefinitely();
+            compared.forEach(changes::addAll);
+        } catch (IllegalStateException | CommandLine.ParameterException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to compare flows: " + e.getMessage(), e);
+        }
+        changes.sort(null);
+        PrintWriter out = spec.commandLine().getOut();
+        changes.forEach(out::println);
+        out.flush();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Log.info("Found " + changes.size() + " differences comparing " + comparedGroups.get() + " process groups and " + comparedComponents.get() + " components in " + elapsedMillis + " ms, " + skippedGroups.get() + " identical process groups skipped along with their descendants.");
+    }
+
+    /**
+     * Compares the top process groups of both sources. Groups backed up as the same object are same without being read,
+     * the others are read and compared as Merkle trees, and the contents of the differing process groups are read only
+     * if details are needed.
+     *
+     * @param left process group
+     * @param right process group
+     * @param ignored fields left out of the comparison
+     * @param changes receiving a line per change
+     * @return comparison holding the counts
+     * @throws Exception if reading a flow definition fails
+     */
+    private FlowDefinitionDiff compare(BackupSnapshot.Group left, BackupSnapshot.Group right, Set<String> ignored, List<String> changes) throws Exception {
+        FlowDefinitionDiff diff = new FlowDefinitionDiff(ignored);
+        if (left.getObject() != null && left.getObject().equals(right.getObject())) {
+            // same content, the whole subtree is same
+            diff.skip();
+            return diff;
+        }
+        byte[] leftDefinition = definition(left, fromCluster);
+        byte[] rightDefinition = definition(right, toCluster);
+        if (backupStore.hash(leftDefinition).equals(backupStore.hash(rightDefinition))) {
+            diff.skip();
+            return diff;
+        }
+        FlowDefinitionNode leftTree = read(leftDefinition, ignored);
+        FlowDefinitionNode rightTree = read(rightDefinition, ignored);
+        List<String> summary = new ArrayList<>();
+        diff.compare(leftTree, rightTree, "/" + right.getName(), summary::add);
+        if (diff.getLeftPending().isEmpty() && diff.getRightPending().isEmpty()) {
+            changes.addAll(summary);
+            return diff;
+        }
+        // only the differing process groups are read again with their contents for the details
+        try (InputStream in = new ByteArrayInputStream(leftDefinition)) {
+            flowDefinitionReader.readFlowDefinitionContents(in, leftTree, diff.getLeftPending());
+        }
+        try (InputStream in = new ByteArrayInputStream(rightDefinition)) {
+            flowDefinitionReader.readFlowDefinitionContents(in, rightTree, diff.getRightPending());
+        }
+        new FlowDefinitionDiff(ignored).compare(leftTree, rightTree, "/" + right.getName(), changes::add);
+        return diff;
+    }
+
+    /**
+     * Reads the flow definition into a Merkle tree
+     *
+     * @param definition bytes of the flow definition
+     * @param ignored fields left out of the hashes
+     * @return top process group
+     * @throws Exception if the flow definition is not valid
+     */
+    private FlowDefinitionNode read(byte[] definition, Set<String> ignored) throws Exception {
+        try (InputStream in = new ByteArrayInputStream(definition)) {
+            return flowDefinitionReader.readFlowDefinition(in, ignored);
+        }
+    }
+
+    /**
+     * Provides the flow definition of the process group, from the store if backed up or downloaded from the NiFi
+     *
+     * @param group of the source
+     * @param cluster of the source, {@code null} if a snapshot
+     * @return bytes of the flow definition
+     * @throws Exception if reading or downloading fails
+     */
+    private byte[] definition(BackupSnapshot.Group group, NiFiCluster cluster) throws Exception {
+        if (group.getObject() != null) {
+            return backupStore.getObject(group.getObject());
+        }
+        try (InputStream response = cluster.getRequestThrottle().call(() -> cluster.getNiFiService().downloadFlowDefinition(group.getId(), true))) {
+            return response.readAllBytes();
+        }
+    }
+
+    /**
+     * Provides the cluster whose live flow the source names
+     *
+     * @param source snapshot id, {@code live} or {@code live:<cluster>}
+     * @return cluster of the live flow, {@code null} if the source is a snapshot
+     * @throws CommandLine.ParameterException if the cluster is not provided or can not be chosen
+     */
+    private NiFiCluster clusterOf(String source) {
+        String value = source.trim();
+        if (LIVE.equalsIgnoreCase(value)) {
+            if (nifiClusters.getClusters().size() != 1) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "Several clusters provided, name the live flow to compare as '" + LIVE_PREFIX + "<cluster>'.");
+            }
+            return nifiClusters.of(spec);
+        }
+        if (!value.regionMatches(true, 0, LIVE_PREFIX, 0, LIVE_PREFIX.length())) {
+            return null;
+        }
+        String name = value.substring(LIVE_PREFIX.length());
+        NiFiCluster cluster = nifiClusters.get(name);
+        if (cluster == null) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid cluster (" + name + ") provided, expected one of: " + nifiClusters.getClusters().stream().map(NiFiCluster::getName).collect(Collectors.joining(", ")) + ".");
+        }
+        return cluster;
+    }
+
+    /**
+     * Lists the top process groups of the live flow, they are listed without their objects and are downloaded once
+     * compared
+     *
+     * @param cluster of the live flow
+     * @param rootPgId id of the process group whose child process groups are the live flow
+     * @return top process groups of the live flow
+     * @throws Exception if listing the live flow fails
+     */
+    private BackupSnapshot live(NiFiCluster cluster, String rootPgId) throws Exception {
+        BackupSnapshot live = new BackupSnapshot();
+        live.setRootGroupId(rootPgId);
+        try (InputStream response = cluster.getRequestThrottle().call(() -> cluster.getNiFiService().getFlowProcessGroupStream(rootPgId, true))) {
+            for (ComponentSummary child : flowProjectionReader.readFlow(response, EnumSet.of(ComponentSummary.Field.NAME)).getProcessGroups()) {
+                BackupSnapshot.Group group = new BackupSnapshot.Group();
+                group.setId(child.getId());
+                group.setName(child.getName());
+                live.getGroups().add(group);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowDiff#parallelism} by using the provided parallelism
+     * string by the user.
+     *
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "8", description = "Maximum number of process groups to compare concurrently. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowDiff}
+     */
+    public static final class Options {
+        /**
+         * Root process group id
+         */
+        public static final String R = "-r";
+        /**
+         * Root process group id
+         */
+        public static final String ROOTPGID = "--rootpgid";
+        /**
+         * Compare the layout too
+         */
+        public static final String LAYOUT = "--layout";
+        /**
+         * Maximum number of process groups to compare concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.github.deepakdaneva.nifi.cli.utils.StatusSeries;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.apache.nifi.web.api.dto.DropRequestDTO;
+import org.apache.nifi.web.api.dto.FlowFileSummaryDTO;
+import org.apache.nifi.web.api.dto.ListingRequestDTO;
+import picocli.CommandLine;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "queues", description = "List or drop the flowfiles queued in the connections of a process group and of its descendants, concurrently, printing one json line per listed flowfile or per emptied queue.")
+public class FlowFileQueues implements Runnable {
+
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Action to apply to the queues
+     */
+    Action action;
+    /**
+     * NiFi Root process group id
+     */
+    @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Process group id whose connections and the connections of all its descendants are processed, 'root' for the root process group i.e. 'NIFI Flow'. NOTE: Required to drop. If not provided then the root process group will be listed.")
+    String givenRootPgId;
+    /**
+     * Whether to process the connections with nothing queued too
+     */
+    @CommandLine.Option(names = {Options.ALL}, description = "Process all the connections, by default the ones with nothing queued according to the status are skipped.")
+    boolean all;
+    /**
+     * File to write the json lines to, standard output if not provided
+     */
+    @CommandLine.Option(names = {Options.O, Options.OUTPUT}, description = "File to write the json lines to, instead of the standard output. When run against several clusters, the name of the cluster is inserted before the extensions of the file (i.e. queues.ndjson is written as queues.<cluster>.ndjson).")
+    String output;
+    /**
+     * Maximum number of queues processed concurrently
+     */
+    int parallelism;
+    /**
+     * Seconds to wait for the request of a queue to finish
+     */
+    long timeoutSeconds;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
+    NiFiService nifiService;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Reader of the status responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+    /**
+     * Json mapper to write the lines
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        boolean rootPgIdGiven = givenRootPgId != null && !givenRootPgId.trim().isEmpty();
+        if (action == Action.DROP && !rootPgIdGiven) {
+            // dropping deletes the flowfiles, the whole flow is dropped only if asked for explicitly
+            throw new CommandLine.ParameterException(spec.commandLine(), "Missing required option: '" + Options.ROOTPGID + "' to drop, provide 'root' to drop the queues of the whole flow.");
+        }
+        NiFiCluster cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        String rootPgId = rootPgIdGiven ? givenRootPgId.trim() : "root";
+        long start = System.nanoTime();
+        AtomicInteger failures = new AtomicInteger();
+        List<Integer> targets = new ArrayList<>();
+        long flowFiles;
+        try {
+            StatusSeries connections = new StatusSeries();
+            try (InputStream status = requestThrottle.call(() -> nifiService.getProcessGroupStatusStream(rootPgId, true))) {
+                flowProjectionReader.readStatusCounters(status, new StatusSeries(), connections);
+            }
+            for (int index = 0; index < connections.size(); index++) {
+                if (all || connections.get(index, StatusSeries.FLOWFILES_QUEUED) > 0) {
+                    targets.add(index);
+                }
+            }
+            if (targets.isEmpty()) {
+                Log.info("Nothing to " + action.getName() + ", none of the " + connections.size() + " connections has flowfiles queued.");
+                return;
+            }
+            Log.info(action.getProgress() + " " + targets.size() + " of " + connections.size() + " queues...");
+            try (Writer out = output != null ? Files.newBufferedWriter(nifiClusters.outputOf(spec, output), StandardCharsets.UTF_8) : new ShieldedWriter(spec.commandLine().getOut())) {
+                flowFiles = Multi.createFrom().iterable(targets).onItem().transformToUni(index -> {
+                    String connectionId = connections.getId(index);
+                    String connection = connections.getLabel(index);
+                    Uni<Long> processed = action == Action.LIST ? list(out, connectionId, connection) : drop(out, connectionId, connection);
+                    return processed.onFailure().recoverWithItem(failure -> {
+                        failures.incrementAndGet();
+                        Log.warn("Unable to " + action.getName() + " queue " + connectionId + " (" + connection + "): " + failure.getMessage());
+                        // discarded by the merge
+                        return null;
+                    });
+                }).merge(parallelism).collect().with(Collectors.summingLong(Long::longValue)).await().indefinitely();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to " + action.getName() + " queues: " + e.getMessage(), e);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.info(action.getDone() + " " + flowFiles + " flowfiles of " + (targets.size() - failures.get()) + " queues in " + elapsedMillis + " ms.");
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + targets.size() + " queues could not be " + action.getDone().toLowerCase(Locale.ROOT) + ".");
+        }
+    }
+
+    /**
+     * Lists the flowfiles of the queue, writing a line per flowfile, and deletes the listing request from the NiFi
+     *
+     * @param out to write the lines to
+     * @param connectionId id of the connection
+     * @param connection label of the connection
+     * @return uni emitting the number of the listed flowfiles
+     */
+    private Uni<Long> list(Writer out, String connectionId, String connection) {
+        long startNanos = System.nanoTime();
+        return requestThrottle.submit(() -> nifiService.createListingRequestAsync(connectionId)).onItem().transformToUni(created -> {
+            String requestId = created.getListingRequest().getId();
+            Predicate<ListingRequestDTO> finished = listing -> Boolean.TRUE.equals(listing.getFinished()) || listing.getFailureReason() != null;
+            return awaitFinished(created.getListingRequest(), finished, listing -> valueOf(listing.getPercentCompleted()), () -> requestThrottle.submit(() -> nifiService.getListingRequestAsync(connectionId, requestId)).map(entity -> entity.getListingRequest()), startNanos, 0).ifNoItem().after(Duration.ofSeconds(timeoutSeconds)).failWith(() -> new TimeoutException("Listing did not finish within " + timeoutSeconds + " seconds.")).map(listing -> {
+                if (listing.getFailureReason() != null) {
+                    throw new IllegalStateException(listing.getFailureReason());
+                }
+                List<FlowFileSummaryDTO> summaries = listing.getFlowFileSummaries() != null ? listing.getFlowFileSummaries() : List.of();
+                for (FlowFileSummaryDTO summary : summaries) {
+                    ObjectNode line = objectMapper.createObjectNode();
+                    line.put("connectionId", connectionId);
+                    line.put("connection", connection);
+                    line.setAll((ObjectNode) objectMapper.valueToTree(summary));
+                    write(out, line);
+                }
+                return (long) summaries.size();
+            }).eventually(() -> requestThrottle.submit(() -> nifiService.deleteListingRequestAsync(connectionId, requestId)).onFailure().recoverWithItem(failure -> {
+                Log.debug("Unable to delete listing request " + requestId + " of queue " + connectionId + ": " + failure.getMessage());
+                return null;
+            }));
+        });
+    }
+
+    /**
+     * Drops the flowfiles of the queue, writing a line with the outcome, and deletes the drop request from the NiFi
+     *
+     * @param out to write the lines to
+     * @param connectionId id of the connection
+     * @param connection label of the connection
+     * @return uni emitting the number of the dropped flowfiles
+     */
+    private Uni<Long> drop(Writer out, String connectionId, String connection) {
+        long startNanos = System.nanoTime();
+        return requestThrottle.submit(() -> nifiService.createDropRequestAsync(connectionId)).onItem().transformToUni(created -> {
+            String requestId = created.getDropRequest().getId();
+            Predicate<DropRequestDTO> finished = drop -> Boolean.TRUE.equals(drop.isFinished()) || drop.getFailureReason() != null;
+            return awaitFinished(created.getDropRequest(), finished, drop -> valueOf(drop.getPercentCompleted()), () -> requestThrottle.submit(() -> nifiService.getDropRequestAsync(connectionId, requestId)).map(entity -> entity.getDropRequest()), startNanos, 0).ifNoItem().after(Duration.ofSeconds(timeoutSeconds)).failWith(() -> new TimeoutException("Drop did not finish within " + timeoutSeconds + " seconds.")).map(drop -> {
+                if (drop.getFailureReason() != null) {
+                    throw new IllegalStateException(drop.getFailureReason());
+                }
+                ObjectNode line = objectMapper.createObjectNode();
+                line.put("connectionId", connectionId);
+                line.put("connection", connection);
+                line.put("state", drop.getState());
+                line.put("droppedCount", drop.getDroppedCount());
+                line.put("droppedSize", drop.getDroppedSize());
+                line.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                write(out, line);
+                return drop.getDroppedCount() != null ? drop.getDroppedCount().longValue() : 0L;
+            }).eventually(() -> requestThrottle.submit(() -> nifiService.deleteDropRequestAsync(connectionId, requestId)).onFailure().recoverWithItem(failure -> {
+                Log.debug("Unable to delete drop request " + requestId + " of queue " + connectionId + ": " + failure.getMessage());
+                return null;
+            }));
+        });
+    }
+
+    /**
+     * Polls the request until finished, see {@link AppUtils#nextPollDelayMillis(int, long, long)}
+     *
+     * @param current latest state of the request
+     * @param finished whether the request is finished
+     * @param percentCompleted progress of the request
+     * @param refresh supplier of the next poll of the request
+     * @param startNanos when the request was created
+     * @param previousDelayMillis delay before the previous poll
+     * @param <T> type of the request
+     * @return uni emitting the finished request
+     */
+    private static <T> Uni<T> awaitFinished(T current, Predicate<T> finished, ToIntFunction<T> percentCompleted, Supplier<Uni<T>> refresh, long startNanos, long previousDelayMillis) {
+        if (finished.test(current)) {
+            return Uni.createFrom().item(current);
+        }
+        long delayMillis = AppUtils.nextPollDelayMillis(percentCompleted.applyAsInt(current), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), previousDelayMillis);
+        return Uni.createFrom().voidItem().onItem().delayIt().by(Duration.ofMillis(delayMillis)).onItem().transformToUni(ignored -> refresh.get()).onItem().transformToUni(latest -> awaitFinished(latest, finished, percentCompleted, refresh, startNanos, delayMillis));
+    }
+
+    /**
+     * Provides the value of the optional percentage
+     *
+     * @param percent optional percentage
+     * @return percentage, {@code 0} if missing
+     */
+    private static int valueOf(Integer percent) {
+        return percent != null ? percent : 0;
+    }
+
+    /**
+     * Writes the json line, the queues are processed concurrently so the lines are written one at a time
+     *
+     * @param out to write to
+     * @param line json object
+     */
+    private void write(Writer out, ObjectNode line) {
+        try {
+            String json = objectMapper.writeValueAsString(line);
+            synchronized (out) {
+                out.write(json);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues#action} by using the provided action
+     * string by the user.
+     *
+     * @param value string action
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<action>", description = "Action to apply, one of: list (the first 100 flowfiles of every queue as listed by the NiFi), drop.")
+    void setAction(String value) {
+        try {
+            action = Action.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid action (" + value + ") provided, expected one of: list, drop.");
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues#parallelism} by using the provided
+     * parallelism string by the user.
+     *
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "16", description = "Maximum number of queues to process concurrently. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues#timeoutSeconds} by using the provided
+     * timeout string by the user.
+     *
+     * @param value string timeout in seconds
+     * @throws Exception if provided timeout is not valid
+     */
+    @CommandLine.Option(names = {Options.TIMEOUT}, defaultValue = "120", description = "Seconds to wait for the request of a queue to finish, the request is cancelled after it. NOTE: This should not be less than 1.")
+    void setTimeout(String value) throws Exception {
+        try {
+            timeoutSeconds = Long.parseLong(value);
+            if (timeoutSeconds < 1) {
+                throw new IllegalArgumentException("Timeout can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid timeout (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Actions applicable to the queues
+     */
+    enum Action {
+        /**
+         * Lists the flowfiles of the queues
+         */
+        LIST("Listing", "Listed"),
+        /**
+         * Drops the flowfiles of the queues
+         */
+        DROP("Dropping", "Dropped");
+
+        /**
+         * Verb of the action in progress
+         */
+        final String progress;
+        /**
+         * Verb of the action done
+         */
+        final String done;
+
+        /**
+         * Create instance
+         *
+         * @param progress verb of the action in progress
+         * @param done verb of the action done
+         */
+        Action(String progress, String done) {
+            this.progress = progress;
+            this.done = done;
+        }
+
+        /**
+         * Provides the name of the action as typed by the user
+         *
+         * @return name of the action
+         */
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Provides the verb of the action in progress
+         *
+         * @return verb, i.e. {@code Listing}
+         */
+        String getProgress() {
+            return progress;
+        }
+
+        /**
+         * Provides the verb of the action done
+         *
+         * @return verb, i.e. {@code Listed}
+         */
+        String getDone() {
+            return done;
+        }
+    }
+
+    /**
+     * Writer leaving the wrapped writer open once closed, the standard output is flushed but not closed
+     */
+    static final class ShieldedWriter extends FilterWriter {
+
+        /**
+         * Create instance
+         *
+         * @param out writer to shield
+         */
+        ShieldedWriter(Writer out) {
+            super(out);
+        }
+
+        /**
+         * Flushes the wrapped writer without closing it
+         *
+         * @throws IOException if flushing fails
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues}
+     */
+    public static final class Options {
+        /**
+         * Root process group id
+         */
+        public static final String R = "-r";
+        /**
+         * Root process group id
+         */
+        public static final String ROOTPGID = "--rootpgid";
+        /**
+         * Process the connections with nothing queued too
+         */
+        public static final String ALL = "--all";
+        /**
+         * File to write the json lines to
+         */
+        public static final String O = "-o";
+        /**
+         * File to write the json lines to
+         */
+        public static final String OUTPUT = "--output";
+        /**
+         * Maximum number of queues to process concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+        /**
+         * Seconds to wait for the request of a queue to finish
+         */
+        public static final String TIMEOUT = "--timeout";
+    }
+}
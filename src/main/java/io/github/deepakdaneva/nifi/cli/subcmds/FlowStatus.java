@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.github.deepakdaneva.nifi.cli.utils.StatusSeries;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "status", description = "Poll the status of a process group and of its descendants at a fixed interval and show the connections and the process groups with the most back pressure, queued flowfiles, queue growth since the previous poll or bytes moved over the last five minutes.")
+public class FlowStatus implements Runnable {
+
+    /**
+     * Longest name shown, longer ones are cut
+     */
+    static final int NAME_WIDTH = 60;
+    /**
+     * Clears the terminal and moves the cursor to its top left corner
+     */
+    static final String CLEAR_SCREEN = "\033[H\033[2J";
+    /**
+     * Headers of the counter columns, the deltas are the changes since the previous poll
+     */
+    static final String[] HEADERS = {"USE%", "QUEUED", "DELTA", "SIZE", "IN/5M", "DELTA", "SIZE", "DELTA", "OUT/5M", "DELTA", "SIZE", "DELTA"};
+    /**
+     * Widths of the counter columns, the byte deltas are wider to keep their sign apart from the previous column
+     */
+    static final int[] WIDTHS = {10, 10, 10, 10, 10, 10, 10, 11, 10, 10, 10, 11};
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * NiFi Root process group id
+     */
+    @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Process group id whose status and the status of all its descendants is polled. NOTE: If not provided then root process group i.e. 'NIFI Flow' will be used.")
+    String givenRootPgId;
+    /**
+     * Order of the components shown
+     */
+    Sort sort;
+    /**
+     * Milliseconds between the polls
+     */
+    long intervalMillis;
+    /**
+     * Number of the connections and of the process groups shown
+     */
+    int top;
+    /**
+     * Number of polls, {@code 0} polls until stopped
+     */
+    long iterations;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
+    NiFiService nifiService;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Reader of the status responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        NiFiCluster cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        String rootPgId = givenRootPgId != null && !givenRootPgId.trim().isEmpty() ? givenRootPgId.trim() : "root";
+        StatusSeries groups = new StatusSeries();
+        StatusSeries connections = new StatusSeries();
+        IntToLongFunction groupScore = sort.score(groups);
+        IntToLongFunction connectionScore = sort.score(connections);
+        int[] topGroups = new int[top];
+        int[] topConnections = new int[top];
+        StringBuilder screen = new StringBuilder(1 << 14);
+        StringBuilder cell = new StringBuilder(32);
+        PrintWriter out = spec.commandLine().getOut();
+        boolean clear = System.console() != null;
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        long skipped = 0;
+        long next = System.nanoTime();
+        try {
+            for (long poll = 1; iterations == 0 || poll <= iterations; poll++) {
+                long start = System.nanoTime();
+                try (InputStream status = requestThrottle.call(() -> nifiService.getProcessGroupStatusStream(rootPgId, true))) {
+                    flowProjectionReader.readStatusCounters(status, groups, connections);
+                }
+                long pollMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                screen.setLength(0);
+                if (clear) {
+                    screen.append(CLEAR_SCREEN);
+                }
+                screen.append("Status of ").append(rootPgId).append(" at ").append(LocalTime.now().truncatedTo(ChronoUnit.SECONDS)).append(", poll ").append(poll).append(" read in ").append(pollMillis).append(" ms, ").append(connections.getPresent()).append(" connections, ").append(groups.getPresent()).append(" process groups");
+                if (skipped > 0) {
+                    screen.append(", ").append(skipped).append(" intervals skipped");
+                }
+                screen.append(", sorted by ").append(sort.getName()).append(System.lineSeparator()).append(System.lineSeparator());
+                render(screen, cell, "CONNECTION", connections, topConnections, connections.top(connectionScore, topConnections), false);
+                screen.append(System.lineSeparator());
+                render(screen, cell, "PROCESS GROUP", groups, topGroups, groups.top(groupScore, topGroups), true);
+                out.print(screen);
+                out.flush();
+                if (iterations != 0 && poll == iterations) {
+                    break;
+                }
+                next += intervalNanos;
+                long now = System.nanoTime();
+                if (next < now) {
+                    // the poll overran the interval, the missed ticks are skipped instead of polling back to back
+                    long missed = (now - next) / intervalNanos + 1;
+                    skipped += missed;
+                    next += missed * intervalNanos;
+                }
+                TimeUnit.NANOSECONDS.sleep(next - now);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to poll status: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Renders the table of the top components
+     *
+     * @param screen to render into
+     * @param cell scratch buffer of a cell
+     * @param title of the name column
+     * @param series of the components
+     * @param indexes of the top components, highest first
+     * @param count number of the top components
+     * @param threads whether to show the active threads
+     */
+    private static void render(StringBuilder screen, StringBuilder cell, String title, StatusSeries series, int[] indexes, int count, boolean threads) {
+        for (int i = 0; i < HEADERS.length; i++) {
+            pad(screen, HEADERS[i], WIDTHS[i]);
+        }
+        if (threads) {
+            pad(screen, "THREADS", 10);
+        }
+        screen.append("  ").append(title).append(System.lineSeparator());
+        for (int i = 0; i < count; i++) {
+            int index = indexes[i];
+            pad(screen, cell(cell).append(series.get(index, StatusSeries.PERCENT_USE)), 10);
+            pad(screen, cell(cell).append(series.get(index, StatusSeries.FLOWFILES_QUEUED)), 10);
+            pad(screen, signed(cell(cell), series.delta(index, StatusSeries.FLOWFILES_QUEUED)), 10);
+            pad(screen, bytes(cell(cell), series.get(index, StatusSeries.BYTES_QUEUED)), 10);
+            pad(screen, cell(cell).append(series.get(index, StatusSeries.FLOWFILES_IN)), 10);
+            pad(screen, signed(cell(cell), series.delta(index, StatusSeries.FLOWFILES_IN)), 10);
+            pad(screen, bytes(cell(cell), series.get(index, StatusSeries.BYTES_IN)), 10);
+            pad(screen, signedBytes(cell(cell), series.delta(index, StatusSeries.BYTES_IN)), 11);
+            pad(screen, cell(cell).append(series.get(index, StatusSeries.FLOWFILES_OUT)), 10);
+            pad(screen, signed(cell(cell), series.delta(index, StatusSeries.FLOWFILES_OUT)), 10);
+            pad(screen, bytes(cell(cell), series.get(index, StatusSeries.BYTES_OUT)), 10);
+            pad(screen, signedBytes(cell(cell), series.delta(index, StatusSeries.BYTES_OUT)), 11);
+            if (threads) {
+                pad(screen, cell(cell).append(series.get(index, StatusSeries.ACTIVE_THREADS)), 10);
+            }
+            String label = series.getLabel(index);
+            screen.append("  ");
+            if (label == null || label.isEmpty()) {
+                screen.append(series.getId(index));
+            } else if (label.length() > NAME_WIDTH) {
+                screen.append(label, 0, NAME_WIDTH - 3).append("...");
+            } else {
+                screen.append(label);
+            }
+            screen.append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Clears the cell
+     *
+     * @param cell scratch buffer of a cell
+     * @return cleared cell
+     */
+    private static StringBuilder cell(StringBuilder cell) {
+        cell.setLength(0);
+        return cell;
+    }
+
+    /**
+     * Appends the value with its sign, {@code 0} has none
+     *
+     * @param cell to append to
+     * @param value to append
+     * @return cell
+     */
+    private static StringBuilder signed(StringBuilder cell, long value) {
+        return value > 0 ? cell.append('+').append(value) : cell.append(value);
+    }
+
+    /**
+     * Appends the change of the number of bytes with its sign, {@code 0} has none
+     *
+     * @param cell to append to
+     * @param bytes change to append
+     * @return cell
+     */
+    private static StringBuilder signedBytes(StringBuilder cell, long bytes) {
+        if (bytes > 0) {
+            cell.append('+');
+        } else if (bytes < 0) {
+            cell.append('-');
+        }
+        return bytes(cell, Math.abs(bytes));
+    }
+
+    /**
+     * Appends the number of bytes using the largest binary unit keeping it at least {@code 1}, with one decimal
+     *
+     * @param cell to append to
+     * @param bytes to append
+     * @return cell
+     */
+    private static StringBuilder bytes(StringBuilder cell, long bytes) {
+        if (bytes < 1024) {
+            return cell.append(bytes).append(" B");
+        }
+        int unit = 0;
+        long tenths = bytes * 10 / 1024;
+        while (tenths >= 10240 && unit < 4) {
+            tenths /= 1024;
+            unit++;
+        }
+        return cell.append(tenths / 10).append('.').append(tenths % 10).append(' ').append("KMGTP".charAt(unit)).append('B');
+    }
+
+    /**
+     * Appends the value right aligned in the column
+     *
+     * @param screen to append to
+     * @param value to append
+     * @param width of the column
+     */
+    private static void pad(StringBuilder screen, CharSequence value, int width) {
+        for (int i = value.length(); i < width; i++) {
+            screen.append(' ');
+        }
+        screen.append(value);
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus#intervalMillis} by using the provided
+     * interval string by the user.
+     *
+     * @param value string interval in seconds
+     * @throws Exception if provided interval is not valid
+     */
+    @CommandLine.Option(names = {Options.INTERVAL}, defaultValue = "1", description = "Seconds between the polls, fractions are allowed i.e. 0.5. Polls taking longer skip the missed intervals. NOTE: This should be positive.")
+    void setInterval(String value) throws Exception {
+        try {
+            intervalMillis = Math.round(Double.parseDouble(value) * 1000);
+            if (intervalMillis < 1) {
+                throw new IllegalArgumentException("Interval should be positive.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid interval (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus#top} by using the provided top string by the
+     * user.
+     *
+     * @param value string number of components
+     * @throws Exception if provided number is not valid
+     */
+    @CommandLine.Option(names = {Options.TOP}, defaultValue = "20", description = "Number of the connections and of the process groups shown. NOTE: This should not be less than 1.")
+    void setTop(String value) throws Exception {
+        try {
+            top = Integer.parseInt(value);
+            if (top < 1) {
+                throw new IllegalArgumentException("Top can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid top (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus#iterations} by using the provided iterations
+     * string by the user.
+     *
+     * @param value string number of polls
+     * @throws Exception if provided number is not valid
+     */
+    @CommandLine.Option(names = {Options.N, Options.ITERATIONS}, defaultValue = "0", description = "Number of polls before exiting, 0 polls until stopped. NOTE: This should not be negative.")
+    void setIterations(String value) throws Exception {
+        try {
+            iterations = Long.parseLong(value);
+            if (iterations < 0) {
+                throw new IllegalArgumentException("Iterations can not be negative.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid iterations (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus#sort} by using the provided sort string by the
+     * user.
+     *
+     * @param value string sort
+     */
+    @CommandLine.Option(names = {Options.SORT}, defaultValue = "pressure", description = "Order of the components shown, one of: pressure (back pressure used), queued (flowfiles queued), growth (flowfiles queued since the previous poll), bytes (bytes in and out over the last five minutes).")
+    void setSort(String value) {
+        try {
+            sort = Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid sort (" + value + ") provided, expected one of: pressure, queued, growth, bytes.");
+        }
+    }
+
+    /**
+     * Orders of the components shown
+     */
+    enum Sort {
+        /**
+         * Most back pressure used first, then most flowfiles queued
+         */
+        PRESSURE,
+        /**
+         * Most flowfiles queued first
+         */
+        QUEUED,
+        /**
+         * Most flowfiles queued since the previous poll first
+         */
+        GROWTH,
+        /**
+         * Most bytes in and out over the last five minutes first
+         */
+        BYTES;
+
+        /**
+         * Provides the name of the sort as typed by the user
+         *
+         * @return name of the sort
+         */
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Provides the score of the components of the series, higher is shown first
+         *
+         * @param series of the components
+         * @return score of the component by its index
+         */
+        IntToLongFunction score(StatusSeries series) {
+            switch (this) {
+                case PRESSURE:
+                    // the percentage in the upper bits, the queued flowfiles breaking the ties
+                    return index -> (series.get(index, StatusSeries.PERCENT_USE) << 40) | Math.min(series.get(index, StatusSeries.FLOWFILES_QUEUED), (1L << 40) - 1);
+                case QUEUED:
+                    return index -> series.get(index, StatusSeries.FLOWFILES_QUEUED);
+                case GROWTH:
+                    return index -> series.delta(index, StatusSeries.FLOWFILES_QUEUED);
+                default:
+                    return index -> series.get(index, StatusSeries.BYTES_IN) + series.get(index, StatusSeries.BYTES_OUT);
+            }
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowStatus}
+     */
+    public static final class Options {
+        /**
+         * Root process group id
+         */
+        public static final String R = "-r";
+        /**
+         * Root process group id
+         */
+        public static final String ROOTPGID = "--rootpgid";
+        /**
+         * Seconds between the polls
+         */
+        public static final String INTERVAL = "--interval";
+        /**
+         * Number of the components shown
+         */
+        public static final String TOP = "--top";
+        /**
+         * Number of polls
+         */
+        public static final String N = "-n";
+        /**
+         * Number of polls
+         */
+        public static final String ITERATIONS = "--iterations";
+        /**
+         * Order of the components shown
+         */
+        public static final String SORT = "--sort";
+    }
+}
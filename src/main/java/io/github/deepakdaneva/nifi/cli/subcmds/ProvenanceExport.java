@@ -0,0 +1,457 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
+import io.github.deepakdaneva.nifi.cli.models.ProvenanceQuery;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.github.deepakdaneva.nifi.cli.utils.AppUtils;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.inject.Inject;
+import picocli.CommandLine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "provenance", description = "Export the provenance events of a time range into a gzip compressed file of json lines, querying the windows of the range concurrently.")
+public class ProvenanceExport implements Runnable {
+
+    /**
+     * Format of the dates of the provenance query as expected by the NiFi
+     */
+    static final DateTimeFormatter QUERY_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss 'UTC'", Locale.US).withZone(ZoneOffset.UTC);
+    /**
+     * Search term of the provenance query matching the component id
+     */
+    static final String COMPONENT_ID_SEARCH_TERM = "ProcessorID";
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Start of the time range
+     */
+    Instant start;
+    /**
+     * End of the time range
+     */
+    Instant end = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    /**
+     * Seconds of the windows queried concurrently
+     */
+    long windowSeconds;
+    /**
+     * Maximum number of events of a query
+     */
+    int maxResults;
+    /**
+     * Maximum number of queries run concurrently
+     */
+    int parallelism;
+    /**
+     * Seconds to wait for a query to finish
+     */
+    long timeoutSeconds;
+    /**
+     * Id of the component whose events to export
+     */
+    @CommandLine.Option(names = {Options.COMPONENT_ID}, description = "Export the events of this component only.")
+    String componentId;
+    /**
+     * File to write the events to
+     */
+    @CommandLine.Option(names = {Options.O, Options.OUTPUT}, required = true, description = "Gzip compressed file to write the events to, one json line per event. When run against several clusters, the name of the cluster is inserted before the extensions of the file (i.e. events.ndjson.gz is written as events.<cluster>.ndjson.gz).")
+    String output;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
+    NiFiService nifiService;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Reader of the provenance responses
+     */
+    @Inject
+    ProvenanceReader provenanceReader;
+    /**
+     * Json mapper to create the queries
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        NiFiCluster cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        if (!end.isAfter(start)) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "End (" + end + ") should be after start (" + start + ").");
+        }
+        List<Instant> windows = new ArrayList<>();
+        for (Instant from = start; from.isBefore(end); from = from.plusSeconds(windowSeconds)) {
+            windows.add(from);
+        }
+        Path file = nifiClusters.outputOf(spec, output);
+        long startNanos = System.nanoTime();
+        AtomicInteger queries = new AtomicInteger();
+        long events;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 1 << 16)) {
+            Consumer<ByteArrayOutputStream> sink = line -> {
+                try {
+                    synchronized (out) {
+                        line.writeTo(out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            events = Multi.createFrom().iterable(windows).onItem().transformToUni(from -> Uni.createFrom().item(() -> {
+                Instant to = from.plusSeconds(windowSeconds).isBefore(end) ? from.plusSeconds(windowSeconds) : end;
+                // the windows share their bounds, the events at the start of a window belong to the previous one
+                long afterMillis = from.equals(start) ? from.toEpochMilli() - 1 : from.toEpochMilli();
+                try {
+                    return export(from, to, afterMillis, sink, queries);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Unable to export window " + from + " - " + to + ": " + e.getMessage(), e);
+                }
+            }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool())).merge(parallelism).collect().with(Collectors.summingLong(Long::longValue)).await().indefinitely();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to export provenance: " + e.getMessage(), e);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Log.info("Exported " + events + " provenance events from " + start + " to " + end + " using " + queries.get() + " queries in " + elapsedMillis + " ms into " + file);
+    }
+
+    /**
+     * Exports the events of the window, splitting it in halves as long as the window has more events than a query
+     * returns
+     *
+     * @param from start of the window
+     * @param to end of the window
+     * @param afterMillis events at or before this time belong to another window
+     * @param sink receiving the line of every event
+     * @param queries number of queries made
+     * @return number of exported events
+     * @throws Exception if the query fails
+     */
+    private long export(Instant from, Instant to, long afterMillis, Consumer<ByteArrayOutputStream> sink, AtomicInteger queries) throws Exception {
+        ProvenanceQuery query;
+        try (InputStream created = requestThrottle.call(() -> nifiService.submitProvenance(toRequest(from, to)))) {
+            query = provenanceReader.readProvenanceQuery(created);
+        }
+        queries.incrementAndGet();
+        String id = query.getId();
+        boolean split;
+        try {
+            query = awaitFinished(query);
+            if (query.getError() != null) {
+                throw new IllegalStateException(query.getError());
+            }
+            split = query.getTotalCount() > maxResults && Duration.between(from, to).getSeconds() > 1;
+            if (!split) {
+                long exported;
+                try (InputStream events = requestThrottle.call(() -> nifiService.getProvenanceStream(id, false, false))) {
+                    exported = provenanceReader.readProvenanceEvents(events, afterMillis, sink);
+                }
+                if (query.getTotalCount() > maxResults) {
+                    Log.warn("Only " + maxResults + " of the " + query.getTotalCount() + " events from " + from + " to " + to + " are exported, raise " + Options.MAX_RESULTS + " to export all of them.");
+                }
+                return exported;
+            }
+        } finally {
+            try {
+                requestThrottle.call(() -> {
+                    nifiService.deleteProvenance(id);
+                    return null;
+                });
+            } catch (Exception e) {
+                Log.debug("Unable to delete provenance query " + id + ": " + e.getMessage());
+            }
+        }
+        Instant middle = from.plusSeconds(Duration.between(from, to).getSeconds() / 2);
+        Log.debug("Splitting window " + from + " - " + to + " having " + query.getTotalCount() + " events.");
+        return export(from, middle, afterMillis, sink, queries) + export(middle, to, middle.toEpochMilli(), sink, queries);
+    }
+
+    /**
+     * Polls the query until finished, see {@link AppUtils#nextPollDelayMillis(int, long, long)}. Only the progress is
+     * read, the events are left to be read once finished.
+     *
+     * @param query as created by the NiFi
+     * @return finished query
+     * @throws Exception if the query does not finish within the timeout
+     */
+    private ProvenanceQuery awaitFinished(ProvenanceQuery query) throws Exception {
+        String id = query.getId();
+        long startNanos = System.nanoTime();
+        long delayMillis = 0;
+        while (!query.isFinished() && query.getError() == null) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (elapsedMillis > TimeUnit.SECONDS.toMillis(timeoutSeconds)) {
+                throw new IllegalStateException("Query did not finish within " + timeoutSeconds + " seconds.");
+            }
+            delayMillis = AppUtils.nextPollDelayMillis(query.getPercentCompleted(), elapsedMillis, delayMillis);
+            Thread.sleep(delayMillis);
+            try (InputStream polled = requestThrottle.call(() -> nifiService.getProvenanceStream(id, true, false))) {
+                query = provenanceReader.readProvenanceQuery(polled);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Creates the provenance query of the window
+     *
+     * @param from start of the window
+     * @param to end of the window
+     * @return provenance entity holding the query
+     */
+    private ObjectNode toRequest(Instant from, Instant to) {
+        ObjectNode entity = objectMapper.createObjectNode();
+        ObjectNode request = entity.putObject("provenance").putObject("request");
+        request.put("maxResults", maxResults);
+        request.put("startDate", QUERY_DATE_FORMAT.format(from));
+        request.put("endDate", QUERY_DATE_FORMAT.format(to));
+        request.put("summarize", false);
+        request.put("incrementalResults", false);
+        if (componentId != null && !componentId.trim().isEmpty()) {
+            request.putObject("searchTerms").putObject(COMPONENT_ID_SEARCH_TERM).put("value", componentId.trim()).put("inverse", false);
+        }
+        return entity;
+    }
+
+    /**
+     * Parses the date provided by the user, in ISO-8601 i.e. {@code 2023-10-01T00:00:00Z} or in the format of the NiFi
+     * i.e. {@code 10/01/2023 00:00:00 UTC}
+     *
+     * @param value string date
+     * @param name of the option
+     * @return date truncated to seconds, the precision of the provenance query
+     */
+    private Instant parseDate(String value, String name) {
+        try {
+            return Instant.parse(value.trim()).truncatedTo(ChronoUnit.SECONDS);
+        } catch (DateTimeParseException dtpe) {
+            Date date = NiFiDateTimeDeserializer.parse(value.trim());
+            if (date == null) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "Invalid " + name + " (" + value + ") provided, expected i.e. 2023-10-01T00:00:00Z or 10/01/2023 00:00:00 UTC.");
+            }
+            return date.toInstant().truncatedTo(ChronoUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Validates the action provided by the user, only {@code export} is supported.
+     *
+     * @param value string action
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<action>", description = "Action to apply, one of: export.")
+    void setAction(String value) {
+        if (!"export".equals(value.trim().toLowerCase(Locale.ROOT))) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid action (" + value + ") provided, expected one of: export.");
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#start} by using the provided start
+     * string by the user.
+     *
+     * @param value string start
+     */
+    @CommandLine.Option(names = {Options.START}, required = true, description = "Start of the time range, i.e. 2023-10-01T00:00:00Z or 10/01/2023 00:00:00 UTC.")
+    void setStart(String value) {
+        start = parseDate(value, "start");
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#end} by using the provided end string
+     * by the user.
+     *
+     * @param value string end
+     */
+    @CommandLine.Option(names = {Options.END}, description = "End of the time range, i.e. 2023-10-02T00:00:00Z or 10/02/2023 00:00:00 UTC. NOTE: If not provided then now will be used.")
+    void setEnd(String value) {
+        end = parseDate(value, "end");
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#windowSeconds} by using the provided
+     * window string by the user.
+     *
+     * @param value string window in minutes
+     * @throws Exception if provided window is not valid
+     */
+    @CommandLine.Option(names = {Options.WINDOW}, defaultValue = "60", description = "Minutes of the windows the time range is split into, the windows are queried concurrently and the ones with more events than a query returns are split further. NOTE: This should not be less than 1.")
+    void setWindow(String value) throws Exception {
+        try {
+            windowSeconds = TimeUnit.MINUTES.toSeconds(Long.parseLong(value));
+            if (windowSeconds < 60) {
+                throw new IllegalArgumentException("Window can not be less than 1 minute.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid window (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#maxResults} by using the provided
+     * maximum results string by the user.
+     *
+     * @param value string maximum results
+     * @throws Exception if provided maximum results is not valid
+     */
+    @CommandLine.Option(names = {Options.MAX_RESULTS}, defaultValue = "10000", description = "Maximum number of events returned by a query, the NiFi may cap it further. NOTE: This should not be less than 1.")
+    void setMaxResults(String value) throws Exception {
+        try {
+            maxResults = Integer.parseInt(value);
+            if (maxResults < 1) {
+                throw new IllegalArgumentException("Maximum results can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid maximum results (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#parallelism} by using the provided
+     * parallelism string by the user.
+     *
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "4", description = "Maximum number of queries to run concurrently. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport#timeoutSeconds} by using the provided
+     * timeout string by the user.
+     *
+     * @param value string timeout in seconds
+     * @throws Exception if provided timeout is not valid
+     */
+    @CommandLine.Option(names = {Options.TIMEOUT}, defaultValue = "300", description = "Seconds to wait for a query to finish. NOTE: This should not be less than 1.")
+    void setTimeout(String value) throws Exception {
+        try {
+            timeoutSeconds = Long.parseLong(value);
+            if (timeoutSeconds < 1) {
+                throw new IllegalArgumentException("Timeout can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid timeout (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport}
+     */
+    public static final class Options {
+        /**
+         * Start of the time range
+         */
+        public static final String START = "--start";
+        /**
+         * End of the time range
+         */
+        public static final String END = "--end";
+        /**
+         * Minutes of the windows
+         */
+        public static final String WINDOW = "--window";
+        /**
+         * Maximum number of events of a query
+         */
+        public static final String MAX_RESULTS = "--max-results";
+        /**
+         * Maximum number of queries to run concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+        /**
+         * Seconds to wait for a query to finish
+         */
+        public static final String TIMEOUT = "--timeout";
+        /**
+         * Id of the component whose events to export
+         */
+        public static final String COMPONENT_ID = "--component-id";
+        /**
+         * File to write the events to
+         */
+        public static final String O = "-o";
+        /**
+         * File to write the events to
+         */
+        public static final String OUTPUT = "--output";
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer;
+import io.github.deepakdaneva.nifi.cli.models.ProvenanceQuery;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * Reads the provenance query responses of the NiFi for the
+ * {@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport} while streaming them, the progress of the query is
+ * read without its events and the events are copied one at a time.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@ApplicationScoped
+public class ProvenanceReader {
+
+    /**
+     * Json mapper to create the parsers and the generators
+     */
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Create instance, the mapper is injected by the container
+     */
+    public ProvenanceReader() {
+    }
+
+    /**
+     * Create instance reading with the provided mapper, outside of the container
+     *
+     * @param objectMapper json mapper to create the parsers and the generators
+     */
+    public ProvenanceReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the progress of the provenance query from the response of {@code POST /provenance} or
+     * {@code GET /provenance/{id}}, the events are skipped without being read
+     *
+     * @param response stream of the response, it is not closed
+     * @return progress of the query
+     * @throws IOException if the response is not a valid json or has no query
+     */
+    public ProvenanceQuery readProvenanceQuery(InputStream response) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !FlowProjectionReader.moveTo(parser, "provenance")) {
+                throw new IOException("Provenance query is missing in the response.");
+            }
+            String id = null;
+            boolean finished = false;
+            int percentCompleted = 0;
+            long totalCount = 0;
+            String error = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id":
+                        id = parser.getValueAsString();
+                        break;
+                    case "finished":
+                        finished = parser.getValueAsBoolean();
+                        break;
+                    case "percentCompleted":
+                        percentCompleted = parser.getValueAsInt();
+                        break;
+                    case "results":
+                        if (value != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String resultsField = parser.getCurrentName();
+                            JsonToken resultsValue = parser.nextToken();
+                            if ("totalCount".equals(resultsField)) {
+                                totalCount = parser.getValueAsLong();
+                            } else if ("errors".equals(resultsField) && resultsValue == JsonToken.START_ARRAY) {
+                                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                    if (error == null) {
+                                        error = parser.getValueAsString();
+                                    }
+                                    parser.skipChildren();
+                                }
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            ProvenanceQuery query = new ProvenanceQuery(id);
+            query.setFinished(finished);
+            query.setPercentCompleted(percentCompleted);
+            query.setTotalCount(totalCount);
+            query.setError(error);
+            return query;
+        }
+    }
+
+    /**
+     * Reads the events of the finished provenance query from the response of {@code GET /provenance/{id}}, copying
+     * every event as a json line. The event time is converted from the format of the NiFi to ISO-8601 using
+     * {@link NiFiDateTimeDeserializer#parse(String)}, the other fields are copied as they are. Only one event is
+     * buffered at a time, so the memory held does not grow with the number of events.
+     *
+     * @param response stream of the response, it is not closed
+     * @param afterMillis events at or before this time are skipped, {@link Long#MIN_VALUE} to keep all of them
+     * @param sink receiving the buffer holding the line of every event, the buffer is reused once the sink returns
+     * @return number of events passed to the sink
+     * @throws IOException if the response is not a valid json
+     */
+    public long readProvenanceEvents(InputStream response, long afterMillis, Consumer<ByteArrayOutputStream> sink) throws IOException {
+        long count = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+        try (JsonParser parser = objectMapper.getFactory().createParser(response); JsonGenerator generator = objectMapper.getFactory().createGenerator(line)) {
+            // the lines are separated by the sink, not by the generator
+            generator.setRootValueSeparator(null);
+            if (parser.nextToken() != JsonToken.START_OBJECT || !FlowProjectionReader.moveTo(parser, "provenance") || !FlowProjectionReader.moveTo(parser, "results")) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !"provenanceEvents".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    long eventMillis = Long.MIN_VALUE;
+                    generator.writeStartObject();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String eventField = parser.getCurrentName();
+                        parser.nextToken();
+                        Date eventTime = "eventTime".equals(eventField) && parser.hasToken(JsonToken.VALUE_STRING) ? NiFiDateTimeDeserializer.parse(parser.getText()) : null;
+                        if (eventTime != null) {
+                            eventMillis = eventTime.getTime();
+                            generator.writeStringField(eventField, eventTime.toInstant().toString());
+                        } else {
+                            generator.writeFieldName(eventField);
+                            generator.copyCurrentStructure(parser);
+                        }
+                    }
+                    generator.writeEndObject();
+                    generator.flush();
+                    if (eventMillis == Long.MIN_VALUE || eventMillis > afterMillis) {
+                        line.write('\n');
+                        sink.accept(line);
+                        count++;
+                    }
+                    line.reset();
+                }
+            }
+        }
+        return count;
+    }
+}
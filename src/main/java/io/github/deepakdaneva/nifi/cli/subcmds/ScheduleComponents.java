@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.models.ComponentStatus;
+import io.github.deepakdaneva.nifi.cli.models.ComponentSummary;
+import io.github.deepakdaneva.nifi.cli.models.ComponentType;
+import io.github.deepakdaneva.nifi.cli.models.FlowNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowSnapshot;
+import io.github.deepakdaneva.nifi.cli.services.FlowProjectionReader;
+import io.github.deepakdaneva.nifi.cli.services.FlowSnapshotLoader;
+import io.github.deepakdaneva.nifi.cli.services.NiFiCluster;
+import io.github.deepakdaneva.nifi.cli.services.NiFiClusters;
+import io.github.deepakdaneva.nifi.cli.services.NiFiService;
+import io.github.deepakdaneva.nifi.cli.services.RequestThrottle;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.apache.nifi.web.api.dto.RevisionDTO;
+import org.apache.nifi.web.api.entity.ComponentEntity;
+import org.apache.nifi.web.api.entity.ComponentRunStatusEntity;
+import org.apache.nifi.web.api.entity.PortRunStatusEntity;
+import org.apache.nifi.web.api.entity.ProcessorRunStatusEntity;
+import org.apache.nifi.web.api.entity.ScheduleComponentsEntity;
+import picocli.CommandLine;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@CommandLine.Command(name = "schedule", description = "Start, stop, enable or disable all the processors and ports of a process group and of its descendants, then wait until they reach the state.")
+public class ScheduleComponents implements Runnable {
+
+    /**
+     * Delay before the first poll of the status
+     */
+    static final long INITIAL_POLL_DELAY_MILLIS = 250;
+    /**
+     * Maximum delay between the polls of the status
+     */
+    static final long MAX_POLL_DELAY_MILLIS = 5000;
+    /**
+     * Command Spec
+     */
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+    /**
+     * Action to apply to the components
+     */
+    Action action;
+    /**
+     * NiFi Root process group id
+     */
+    @CommandLine.Option(names = {Options.R, Options.ROOTPGID}, description = "Process group id whose components and the components of all its descendants are scheduled. NOTE: If not provided then root process group i.e. 'NIFI Flow' will be used.")
+    String givenRootPgId;
+    /**
+     * Whether to skip the process group level request and schedule every component on its own
+     */
+    @CommandLine.Option(names = {Options.PER_COMPONENT}, description = "Schedule every component with its own request instead of one request for the whole process group.")
+    boolean perComponent;
+    /**
+     * Maximum number of components scheduled concurrently when scheduled one by one
+     */
+    int parallelism;
+    /**
+     * Seconds to wait for the components to reach the state
+     */
+    long timeoutSeconds;
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+    /**
+     * NiFi Service of the cluster the command runs against
+     */
+    NiFiService nifiService;
+    /**
+     * Request throttle of the cluster the command runs against
+     */
+    RequestThrottle requestThrottle;
+    /**
+     * Reader of the status responses
+     */
+    @Inject
+    FlowProjectionReader flowProjectionReader;
+    /**
+     * Flow snapshot loader of the cluster the command runs against, to read the revisions of the components when
+     * scheduled one by one
+     */
+    FlowSnapshotLoader flowSnapshotLoader;
+
+    /**
+     * Actual command logic to execute
+     */
+    @Override
+    public void run() {
+        NiFiCluster cluster = nifiClusters.of(spec);
+        nifiService = cluster.getNiFiService();
+        requestThrottle = cluster.getRequestThrottle();
+        flowSnapshotLoader = cluster.getFlowSnapshotLoader();
+        String rootPgId = givenRootPgId != null && !givenRootPgId.trim().isEmpty() ? givenRootPgId.trim() : "root";
+        long start = System.nanoTime();
+        List<ComponentStatus> stragglers;
+        try {
+            List<ComponentStatus> targets = new ArrayList<>();
+            int reached = 0;
+            int ineligible = 0;
+            for (ComponentStatus status : readStatuses(rootPgId)) {
+                if (action.isReached(status)) {
+                    reached++;
+                } else if (action.isEligible(status)) {
+                    targets.add(status);
+                } else {
+                    ineligible++;
+                }
+            }
+            if (targets.isEmpty()) {
+                Log.info("Nothing to " + action.getName() + ", " + reached + " components already " + action.getBulkState() + " and " + ineligible + " not eligible.");
+                return;
+            }
+            Log.info("Scheduling " + targets.size() + " components to " + action.getBulkState() + "...");
+            String requests;
+            if (perComponent || !scheduleBulk(rootPgId)) {
+                requests = scheduleEach(rootPgId, targets) + " per-component requests";
+            } else {
+                requests = "one process group request";
+            }
+            stragglers = await(rootPgId, targets);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Log.info((targets.size() - stragglers.size()) + " of " + targets.size() + " components reached " + action.getBulkState() + " in " + elapsedMillis + " ms using " + requests + ", " + reached + " were already " + action.getBulkState() + " and " + ineligible + " not eligible.");
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to " + action.getName() + " components: " + e.getMessage(), e);
+        }
+        if (!stragglers.isEmpty()) {
+            stragglers.forEach(straggler -> Log.warn("Straggler " + straggler));
+            throw new IllegalStateException(stragglers.size() + " components did not reach " + action.getBulkState() + " within " + timeoutSeconds + " seconds.");
+        }
+    }
+
+    /**
+     * Schedules all the eligible components of the process group and of its descendants using one request
+     *
+     * @param rootPgId id of the process group
+     * @return {@code true} if scheduled, {@code false} if the NiFi rejected the request
+     */
+    private boolean scheduleBulk(String rootPgId) {
+        ScheduleComponentsEntity entity = new ScheduleComponentsEntity();
+        entity.setId(rootPgId);
+        entity.setState(action.getBulkState());
+        try {
+            requestThrottle.submit(() -> nifiService.scheduleComponentsAsync(rootPgId, entity)).await().indefinitely();
+            return true;
+        } catch (Exception e) {
+            Log.warn("Unable to schedule the process group at once, scheduling the components one by one: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Schedules the components one by one, concurrently upto the parallelism. The components failing are reported and
+     * end up as stragglers instead of aborting the others.
+     *
+     * @param rootPgId id of the process group holding the components
+     * @param targets components to schedule
+     * @return number of requests made
+     * @throws Exception if the revisions of the components can not be loaded
+     */
+    private int scheduleEach(String rootPgId, List<ComponentStatus> targets) throws Exception {
+        // the status does not hold the revisions, they are read from the flows of the process groups holding components
+        FlowSnapshot snapshot = flowSnapshotLoader.load(rootPgId, -1, parallelism, true);
+        Map<String, ComponentSummary> components = new HashMap<>();
+        for (FlowNode node : snapshot.getNodes().values()) {
+            node.getComponents().forEach(component -> components.put(component.getId(), component));
+        }
+        List<ComponentSummary> scheduled = new ArrayList<>();
+        for (ComponentStatus target : targets) {
+            ComponentSummary component = components.get(target.getId());
+            if (component != null) {
+                scheduled.add(component);
+            }
+        }
+        AtomicInteger failures = new AtomicInteger();
+        Multi.createFrom().iterable(scheduled).onItem().transformToUni(component -> schedule(component).onFailure().recoverWithItem(failure -> {
+            failures.incrementAndGet();
+            Log.warn("Unable to " + action.getName() + " " + component.getType().getResource() + " " + component.getId() + ": " + failure.getMessage());
+            // discarded by the merge
+            return null;
+        })).merge(parallelism).collect().last().await().indefinitely();
+        if (failures.get() > 0) {
+            Log.warn(failures.get() + " of " + scheduled.size() + " components could not be scheduled.");
+        }
+        return scheduled.size();
+    }
+
+    /**
+     * Schedules the component, refreshing the revision and retrying once if the revision is stale
+     *
+     * @param component to schedule
+     * @return uni emitting the scheduled component entity
+     */
+    private Uni<ComponentEntity> schedule(ComponentSummary component) {
+        String resource = component.getType().getResource();
+        return requestThrottle.submit(() -> nifiService.updateRunStatusAsync(resource, component.getId(), toRunStatusEntity(component, component.getRevision()))).onFailure(RequestThrottle::isConflict).recoverWithUni(conflict -> requestThrottle.submit(() -> nifiService.getComponentAsync(resource, component.getId())).onItem().transformToUni(latest -> requestThrottle.submit(() -> nifiService.updateRunStatusAsync(resource, component.getId(), toRunStatusEntity(component, latest.getRevision())))));
+    }
+
+    /**
+     * Provides the run status entity of the component type, as the NiFi validates the state against it
+     *
+     * @param component to schedule
+     * @param revision of the component
+     * @return run status entity with the revision and the state
+     */
+    private ComponentRunStatusEntity toRunStatusEntity(ComponentSummary component, RevisionDTO revision) {
+        ComponentRunStatusEntity entity = component.getType() == ComponentType.PROCESSOR ? new ProcessorRunStatusEntity() : new PortRunStatusEntity();
+        entity.setRevision(revision);
+        entity.setState(action.getComponentState());
+        return entity;
+    }
+
+    /**
+     * Polls the status of the process group, backing off exponentially, until all the targets reach the state or the
+     * timeout expires
+     *
+     * @param rootPgId id of the process group holding the components
+     * @param targets components scheduled
+     * @return components which did not reach the state, with their last status
+     * @throws Exception if the status can not be read
+     */
+    private List<ComponentStatus> await(String rootPgId, List<ComponentStatus> targets) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        long delayMillis = INITIAL_POLL_DELAY_MILLIS;
+        List<ComponentStatus> pending = targets;
+        while (true) {
+            Thread.sleep(Math.max(0, Math.min(delayMillis, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+            Map<String, ComponentStatus> current = new HashMap<>();
+            readStatuses(rootPgId).forEach(status -> current.put(status.getId(), status));
+            List<ComponentStatus> remaining = new ArrayList<>();
+            for (ComponentStatus target : pending) {
+                // components removed meanwhile are not waited for
+                ComponentStatus status = current.get(target.getId());
+                if (status != null && !action.isReached(status)) {
+                    remaining.add(status);
+                }
+            }
+            pending = remaining;
+            Log.debug(pending.size() + " of " + targets.size() + " components still to reach " + action.getBulkState() + ".");
+            if (pending.isEmpty() || System.nanoTime() >= deadline) {
+                return pending;
+            }
+            delayMillis = Math.min(delayMillis * 2, MAX_POLL_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Reads the statuses of all the processors and ports of the process group and of its descendants
+     *
+     * @param rootPgId id of the process group
+     * @return statuses of the components
+     * @throws Exception if the status can not be read
+     */
+    private List<ComponentStatus> readStatuses(String rootPgId) throws Exception {
+        try (InputStream status = requestThrottle.call(() -> nifiService.getProcessGroupStatusStream(rootPgId, true))) {
+            return flowProjectionReader.readComponentStatuses(status);
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents#action} by using the provided action
+     * string by the user.
+     *
+     * @param value string action
+     */
+    @CommandLine.Parameters(index = "0", paramLabel = "<action>", description = "Action to apply, one of: start, stop, enable, disable.")
+    void setAction(String value) {
+        try {
+            action = Action.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid action (" + value + ") provided, expected one of: start, stop, enable, disable.");
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents#parallelism} by using the provided
+     * parallelism string by the user.
+     *
+     * @param value string parallelism
+     * @throws Exception if provided parallelism is not valid
+     */
+    @CommandLine.Option(names = {Options.PARALLELISM}, defaultValue = "16", description = "Maximum number of components to schedule concurrently when scheduled one by one. NOTE: This should not be less than 1.")
+    void setParallelism(String value) throws Exception {
+        try {
+            parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism can not be less than 1.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid parallelism (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Sets the ${@link io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents#timeoutSeconds} by using the provided
+     * timeout string by the user.
+     *
+     * @param value string timeout in seconds
+     * @throws Exception if provided timeout is not valid
+     */
+    @CommandLine.Option(names = {Options.TIMEOUT}, defaultValue = "120", description = "Seconds to wait for the components to reach the state, the ones which do not are reported as stragglers. NOTE: This should not be negative.")
+    void setTimeout(String value) throws Exception {
+        try {
+            timeoutSeconds = Long.parseLong(value);
+            if (timeoutSeconds < 0) {
+                throw new IllegalArgumentException("Timeout can not be negative.");
+            }
+        } catch (NumberFormatException nfe) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "Invalid timeout (" + value + ") provided.");
+        } catch (IllegalArgumentException iae) {
+            throw new CommandLine.ParameterException(spec.commandLine(), iae.getMessage());
+        }
+    }
+
+    /**
+     * Actions applicable to the components along with the states they schedule the components to
+     */
+    enum Action {
+        /**
+         * Starts the stopped components
+         */
+        START("RUNNING", "RUNNING"),
+        /**
+         * Stops the running components and waits for their threads to finish
+         */
+        STOP("STOPPED", "STOPPED"),
+        /**
+         * Enables the disabled components, they are stopped once enabled
+         */
+        ENABLE("ENABLED", "STOPPED"),
+        /**
+         * Disables the components which are not running
+         */
+        DISABLE("DISABLED", "DISABLED");
+
+        /**
+         * State of the process group level request
+         */
+        final String bulkState;
+        /**
+         * State of the component level request
+         */
+        final String componentState;
+
+        /**
+         * Create instance
+         *
+         * @param bulkState state of the process group level request
+         * @param componentState state of the component level request
+         */
+        Action(String bulkState, String componentState) {
+            this.bulkState = bulkState;
+            this.componentState = componentState;
+        }
+
+        /**
+         * Provides the name of the action as typed by the user
+         *
+         * @return name of the action
+         */
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * Provides the state of the process group level request
+         *
+         * @return state, i.e. {@code RUNNING}
+         */
+        String getBulkState() {
+            return bulkState;
+        }
+
+        /**
+         * Provides the state of the component level request
+         *
+         * @return state, i.e. {@code RUNNING}
+         */
+        String getComponentState() {
+            return componentState;
+        }
+
+        /**
+         * Whether the component is in the state of the action
+         *
+         * @param status of the component
+         * @return {@code true} if nothing is left to do for the component
+         */
+        boolean isReached(ComponentStatus status) {
+            String runStatus = status.getRunStatus();
+            switch (this) {
+                case START:
+                    return ComponentStatus.RUNNING.equals(runStatus);
+                case STOP:
+                    return !ComponentStatus.RUNNING.equals(runStatus) && status.getActiveThreadCount() == 0;
+                case ENABLE:
+                    return !ComponentStatus.DISABLED.equals(runStatus);
+                default:
+                    return ComponentStatus.DISABLED.equals(runStatus);
+            }
+        }
+
+        /**
+         * Whether the action can bring the component to its state, i.e. invalid or disabled components can not be
+         * started and running ones can not be disabled
+         *
+         * @param status of the component, not in the state of the action
+         * @return {@code true} if the component is to be scheduled
+         */
+        boolean isEligible(ComponentStatus status) {
+            String runStatus = status.getRunStatus();
+            switch (this) {
+                case START:
+                    return !ComponentStatus.INVALID.equals(runStatus) && !ComponentStatus.DISABLED.equals(runStatus);
+                case DISABLE:
+                    return !ComponentStatus.RUNNING.equals(runStatus) && status.getActiveThreadCount() == 0;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Options for {@link io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents}
+     */
+    public static final class Options {
+        /**
+         * Root process group id
+         */
+        public static final String R = "-r";
+        /**
+         * Root process group id
+         */
+        public static final String ROOTPGID = "--rootpgid";
+        /**
+         * Schedule every component on its own
+         */
+        public static final String PER_COMPONENT = "--per-component";
+        /**
+         * Maximum number of components to schedule concurrently
+         */
+        public static final String PARALLELISM = "--parallelism";
+        /**
+         * Seconds to wait for the components to reach the state
+         */
+        public static final String TIMEOUT = "--timeout";
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Concurrency limiter using additive increase and multiplicative decrease. The limit grows by one per window of
+ * successful requests and is halved on overload, at most once for the requests started before the previous decrease.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class AimdLimiter {
+
+    /**
+     * Minimum limit
+     */
+    private final int minLimit;
+    /**
+     * Maximum limit
+     */
+    private final int maxLimit;
+    /**
+     * Tasks waiting for a permit
+     */
+    private final Deque<Runnable> waiters = new ArrayDeque<>();
+    /**
+     * Current limit
+     */
+    private double limit;
+    /**
+     * Number of acquired permits
+     */
+    private int inFlight;
+    /**
+     * Last time the limit was decreased
+     */
+    private long lastDecreaseNanos = System.nanoTime();
+
+    /**
+     * Create instance with the provided limits
+     *
+     * @param initialLimit limit to start with
+     * @param minLimit minimum limit
+     * @param maxLimit maximum limit
+     */
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits [" + minLimit + ", " + maxLimit + "].");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Blocks until a permit is acquired
+     *
+     * @return time at which the permit was acquired, to be passed back on release
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Runs the provided task once a permit is acquired, without blocking the caller. The task must release the permit.
+     *
+     * @param task to run with an acquired permit
+     */
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                waiters.add(task);
+                return;
+            }
+            inFlight++;
+        }
+        task.run();
+    }
+
+    /**
+     * Releases the permit and adjusts the limit
+     *
+     * @param acquiredNanos time at which the permit was acquired
+     * @param overloaded whether the request signalled an overloaded server
+     */
+    public void release(long acquiredNanos, boolean overloaded) {
+        List<Runnable> next = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (overloaded) {
+                if (acquiredNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit / 2);
+                    lastDecreaseNanos = System.nanoTime();
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                next.add(waiters.poll());
+                inFlight++;
+            }
+            notifyAll();
+        }
+        next.forEach(Runnable::run);
+    }
+
+    /**
+     * Current limit
+     *
+     * @return current concurrency limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+}
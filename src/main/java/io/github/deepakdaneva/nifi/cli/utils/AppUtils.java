@@ -12,8 +12,22 @@
  */
 package io.github.deepakdaneva.nifi.cli.utils;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author Deepak Kumar Jangir
@@ -22,6 +36,27 @@ import java.net.URISyntaxException;
  */
 public class AppUtils {
 
+    /**
+     * Shortest delay between the polls of an asynchronous request of the NiFi
+     */
+    public static final long MIN_POLL_DELAY_MILLIS = 50;
+    /**
+     * Longest delay between the polls of an asynchronous request of the NiFi
+     */
+    public static final long MAX_POLL_DELAY_MILLIS = 2000;
+    /**
+     * Owner only permissions of the files written by the CLI
+     */
+    public static final Set<PosixFilePermission> FILE_PERMISSIONS = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    /**
+     * Owner only permissions of the directories created by the CLI
+     */
+    public static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
+    /**
+     * Digits of the hex encoding
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * This method parses the URI string and returns null if any exception is raised and ignoreException is true.
      * 
@@ -39,4 +74,154 @@ public class AppUtils {
         }
         return null;
     }
+
+    /**
+     * Splits the command line into arguments the way a shell would for the simple cases, i.e. arguments are separated by
+     * whitespace, single or double quotes group an argument and a backslash escapes the next character.
+     * 
+     * @param line command line to split
+     * @return arguments of the command line
+     * @throws IllegalArgumentException if a quote is not closed
+     */
+    public static List<String> splitArgs(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && quote != '\'' && i + 1 < line.length()) {
+                current.append(line.charAt(++i));
+                inArg = true;
+            } else if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unclosed quote in: " + line);
+        }
+        if (inArg) {
+            args.add(current.toString());
+        }
+        return args;
+    }
+
+    /**
+     * Provides the delay before the next poll of an asynchronous request of the NiFi, i.e. a listing request. The delay
+     * is the time left as estimated from the progress made so far, or twice the previous delay while there is no
+     * progress, bounded by {@link #MIN_POLL_DELAY_MILLIS} and {@link #MAX_POLL_DELAY_MILLIS}.
+     * 
+     * @param percentCompleted progress of the request
+     * @param elapsedMillis since the request was created
+     * @param previousDelayMillis delay before the previous poll, {@code 0} before the first poll
+     * @return delay before the next poll
+     */
+    public static long nextPollDelayMillis(int percentCompleted, long elapsedMillis, long previousDelayMillis) {
+        long delayMillis;
+        if (percentCompleted > 0 && percentCompleted < 100) {
+            delayMillis = elapsedMillis * (100 - percentCompleted) / percentCompleted;
+        } else {
+            delayMillis = previousDelayMillis * 2;
+        }
+        return Math.max(MIN_POLL_DELAY_MILLIS, Math.min(MAX_POLL_DELAY_MILLIS, delayMillis));
+    }
+
+    /**
+     * Whether the default file system supports POSIX permissions
+     *
+     * @return {@code true} if POSIX permissions are supported
+     */
+    public static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Encodes the bytes as lowercase hex
+     *
+     * @param bytes to encode
+     * @return two hex digits per byte
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Provides the SHA-256 hash of the value as lowercase hex, i.e. to name a file after a NiFi location
+     *
+     * @param value to hash, encoded as UTF-8
+     * @return 64 hex digits
+     */
+    public static String sha256Hex(String value) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the file through a temporary file of the same directory moved over it once written, so the file is either
+     * the previous or the new one whatever happens while writing. The directory is created if missing, and both are
+     * accessible to the current user only.
+     *
+     * @param file to write
+     * @param writer writing the content to the temporary file
+     * @throws IOException if writing or moving fails, the temporary file is deleted
+     */
+    public static void writeAtomically(Path file, ContentWriter writer) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp;
+        if (isPosix()) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            temp = Files.createTempFile(directory, null, ".tmp", PosixFilePermissions.asFileAttribute(FILE_PERMISSIONS));
+        } else {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, null, ".tmp");
+            temp.toFile().setReadable(false, false);
+            temp.toFile().setReadable(true, true);
+            temp.toFile().setWritable(false, false);
+            temp.toFile().setWritable(true, true);
+        }
+        try {
+            writer.write(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the content of a file, see {@link AppUtils#writeAtomically(Path, ContentWriter)}
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        /**
+         * Writes the content to the file
+         *
+         * @param file to write to
+         * @throws IOException if writing fails
+         */
+        void write(Path file) throws IOException;
+    }
 }
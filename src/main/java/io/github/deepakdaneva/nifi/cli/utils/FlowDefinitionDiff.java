@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowDefinitionNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compares two Merkle trees of flow definitions, see {@link FlowDefinitionNode}. Process groups with the same hash are
+ * skipped along with all their descendants without being visited, so the work is proportional to the differing
+ * branches instead of the whole flows. Process groups and components are matched by their identifier first and the
+ * remaining ones by their kind and name when unique on both sides, so the flows of different clusters can be compared
+ * even if they are not versioned.
+ * <p>
+ * A changed component whose contents are not retained on both sides is reported without details and its process group
+ * is recorded as pending, so the differing process groups can be read again retaining their contents and compared
+ * again in detail.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class FlowDefinitionDiff {
+
+    /**
+     * Longest value printed in a change
+     */
+    static final int MAX_VALUE_LENGTH = 120;
+    /**
+     * Fields left out of the comparison
+     */
+    private final Set<String> ignored;
+    /**
+     * Identifiers of the left process groups whose contents are needed for the details
+     */
+    private final Set<String> leftPending = new HashSet<>();
+    /**
+     * Identifiers of the right process groups whose contents are needed for the details
+     */
+    private final Set<String> rightPending = new HashSet<>();
+    /**
+     * Number of the process group pairs visited
+     */
+    private int comparedGroups;
+    /**
+     * Number of the process group pairs skipped as same along with their descendants
+     */
+    private int skippedGroups;
+    /**
+     * Number of the component pairs compared
+     */
+    private int comparedComponents;
+
+    /**
+     * Create instance
+     *
+     * @param ignored fields left out of the comparison, the same ones left out of the hashes
+     */
+    public FlowDefinitionDiff(Set<String> ignored) {
+        this.ignored = ignored;
+    }
+
+    /**
+     * Compares the process groups along with their descendants, the pairs of the hierarchy are tracked on an explicit
+     * stack so deep hierarchies do not grow the call stack
+     *
+     * @param left process group
+     * @param right process group
+     * @param path of the process groups, i.e. {@code /Ingest}
+     * @param changes receiving a line per change, {@code +} for added, {@code -} for removed and {@code ~} for changed
+     */
+    public void compare(FlowDefinitionNode left, FlowDefinitionNode right, String path, Consumer<String> changes) {
+        Deque<Object[]> stack = new ArrayDeque<>();
+        stack.push(new Object[] {left, right, path});
+        while (!stack.isEmpty()) {
+            Object[] pair = stack.pop();
+            FlowDefinitionNode leftGroup = (FlowDefinitionNode) pair[0];
+            FlowDefinitionNode rightGroup = (FlowDefinitionNode) pair[1];
+            String groupPath = (String) pair[2];
+            comparedGroups++;
+            if (Arrays.equals(leftGroup.getHash(), rightGroup.getHash())) {
+                skippedGroups++;
+                continue;
+            }
+            if (!Arrays.equals(leftGroup.getAttributesHash(), rightGroup.getAttributesHash())) {
+                if (leftGroup.getAttributes() != null && rightGroup.getAttributes() != null) {
+                    compareContents(leftGroup.getAttributes(), rightGroup.getAttributes(), "", "~ " + groupPath + " (processGroups) ", changes);
+                } else {
+                    changes.accept("~ " + groupPath + " (processGroups)");
+                    pending(leftGroup, rightGroup);
+                }
+            }
+            match(leftGroup.getComponents(), rightGroup.getComponents(), component -> component.getKind() + '\0' + component.getIdentifier(), component -> component.getKind() + '\0' + component.getName(), (leftComponent, rightComponent) -> {
+                comparedComponents++;
+                if (Arrays.equals(leftComponent.getHash(), rightComponent.getHash())) {
+                    return;
+                }
+                String componentPath = "~ " + groupPath + "/" + rightComponent.getName() + " (" + rightComponent.getKind() + ")";
+                if (leftComponent.getContent() != null && rightComponent.getContent() != null) {
+                    compareContents(leftComponent.getContent(), rightComponent.getContent(), "", componentPath + " ", changes);
+                } else {
+                    changes.accept(componentPath);
+                    pending(leftGroup, rightGroup);
+                }
+            }, removed -> changes.accept("- " + groupPath + "/" + removed.getName() + " (" + removed.getKind() + ")"), added -> changes.accept("+ " + groupPath + "/" + added.getName() + " (" + added.getKind() + ")"));
+            match(leftGroup.getChildren(), rightGroup.getChildren(), FlowDefinitionNode::getIdentifier, FlowDefinitionNode::getName, (leftChild, rightChild) -> stack.push(new Object[] {leftChild, rightChild, groupPath + "/" + rightChild.getName()}), removed -> changes.accept("- " + groupPath + "/" + removed.getName() + " (processGroups)"), added -> changes.accept("+ " + groupPath + "/" + added.getName() + " (processGroups)"));
+        }
+    }
+
+    /**
+     * Records a pair of process groups known to be same without reading them, i.e. their flow definitions are the same
+     * bytes
+     */
+    public void skip() {
+        comparedGroups++;
+        skippedGroups++;
+    }
+
+    /**
+     * Provides the identifiers of the left process groups whose contents are needed for the details
+     *
+     * @return identifiers of the process groups
+     */
+    public Set<String> getLeftPending() {
+        return leftPending;
+    }
+
+    /**
+     * Provides the identifiers of the right process groups whose contents are needed for the details
+     *
+     * @return identifiers of the process groups
+     */
+    public Set<String> getRightPending() {
+        return rightPending;
+    }
+
+    /**
+     * Provides the number of the process group pairs visited
+     *
+     * @return number of the process group pairs
+     */
+    public int getComparedGroups() {
+        return comparedGroups;
+    }
+
+    /**
+     * Provides the number of the process group pairs skipped as same along with their descendants
+     *
+     * @return number of the process group pairs
+     */
+    public int getSkippedGroups() {
+        return skippedGroups;
+    }
+
+    /**
+     * Provides the number of the component pairs compared
+     *
+     * @return number of the component pairs
+     */
+    public int getComparedComponents() {
+        return comparedComponents;
+    }
+
+    /**
+     * Records the process groups as pending
+     *
+     * @param left process group
+     * @param right process group
+     */
+    private void pending(FlowDefinitionNode left, FlowDefinitionNode right) {
+        if (left.getIdentifier() != null) {
+            leftPending.add(left.getIdentifier());
+        }
+        if (right.getIdentifier() != null) {
+            rightPending.add(right.getIdentifier());
+        }
+    }
+
+    /**
+     * Compares the json values field by field, reporting every differing value with its path. Arrays are compared as a
+     * whole, the sets regardless of the order of their elements and the other arrays in order.
+     *
+     * @param left value
+     * @param right value
+     * @param field path of the values, empty for the top one
+     * @param prefix of the reported lines
+     * @param changes receiving a line per differing value
+     */
+    private void compareContents(JsonNode left, JsonNode right, String field, String prefix, Consumer<String> changes) {
+        if (left != null && right != null && left.isObject() && right.isObject()) {
+            Set<String> names = new TreeSet<>();
+            left.fieldNames().forEachRemaining(names::add);
+            right.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                if (!FlowHashes.isIgnored(name, field.isEmpty(), ignored)) {
+                    compareContents(left.get(name), right.get(name), field.isEmpty() ? name : field + "." + name, prefix, changes);
+                }
+            }
+        } else if (!FlowHashes.isSame(field.substring(field.lastIndexOf('.') + 1), left, right, ignored)) {
+            changes.accept(prefix + field + ": " + abbreviate(left) + " -> " + abbreviate(right));
+        }
+    }
+
+    /**
+     * Provides the json value as printed in a change
+     *
+     * @param value json value
+     * @return json of the value, abbreviated if too long
+     */
+    private static String abbreviate(JsonNode value) {
+        String json = value == null || value.isMissingNode() ? "null" : value.toString();
+        return json.length() > MAX_VALUE_LENGTH ? json.substring(0, MAX_VALUE_LENGTH) + "..." : json;
+    }
+
+    /**
+     * Matches the items of both sides by their key, then the remaining ones by their fallback key when it is unique on
+     * both sides
+     *
+     * @param left items
+     * @param right items
+     * @param key of the items, unique on each side
+     * @param fallbackKey of the items
+     * @param matched receiving the matched pairs
+     * @param removed receiving the left items without a match
+     * @param added receiving the right items without a match
+     * @param <T> type of the items
+     */
+    public static <T> void match(List<T> left, List<T> right, Function<T, String> key, Function<T, String> fallbackKey, BiConsumer<T, T> matched, Consumer<T> removed, Consumer<T> added) {
+        Map<String, T> rightByKey = new HashMap<>(right.size() * 2);
+        for (T item : right) {
+            rightByKey.put(key.apply(item), item);
+        }
+        List<T> leftRemaining = new ArrayList<>();
+        for (T item : left) {
+            T other = rightByKey.remove(key.apply(item));
+            if (other != null) {
+                matched.accept(item, other);
+            } else {
+                leftRemaining.add(item);
+            }
+        }
+        if (leftRemaining.isEmpty()) {
+            rightByKey.values().forEach(added);
+            return;
+        }
+        // a fallback key seen more than once on either side is ambiguous and matches nothing
+        Set<String> ambiguous = new HashSet<>();
+        Map<String, T> rightByFallback = new HashMap<>();
+        for (T item : rightByKey.values()) {
+            if (rightByFallback.putIfAbsent(fallbackKey.apply(item), item) != null) {
+                ambiguous.add(fallbackKey.apply(item));
+            }
+        }
+        Set<String> leftFallbacks = new HashSet<>();
+        for (T item : leftRemaining) {
+            if (!leftFallbacks.add(fallbackKey.apply(item))) {
+                ambiguous.add(fallbackKey.apply(item));
+            }
+        }
+        for (T item : leftRemaining) {
+            String fallback = fallbackKey.apply(item);
+            T other = ambiguous.contains(fallback) ? null : rightByFallback.get(fallback);
+            if (other != null) {
+                rightByKey.remove(key.apply(other));
+                matched.accept(item, other);
+            } else {
+                removed.accept(item);
+            }
+        }
+        rightByKey.values().forEach(added);
+    }
+}
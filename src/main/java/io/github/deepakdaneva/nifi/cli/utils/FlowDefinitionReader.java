@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.deepakdaneva.nifi.cli.models.FlowDefinitionNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the flow definitions downloaded from the NiFi into Merkle trees of their process groups while streaming them,
+ * see {@link FlowDefinitionNode}, to be compared by {@link FlowDefinitionDiff}. Only the hashes of the components are
+ * kept while reading the tree, and their contents are read again for the differing process groups only.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class FlowDefinitionReader {
+
+    /**
+     * Component arrays of the process groups of a flow definition, the child process groups aside
+     */
+    static final Set<String> DEFINITION_COMPONENTS = Set.of("processors", "inputPorts", "outputPorts", "connections", "funnels", "labels", "remoteProcessGroups", "controllerServices");
+    /**
+     * Ends of a connection of a flow definition
+     */
+    static final List<String> CONNECTION_ENDS = List.of("source", "destination");
+    /**
+     * Maps of a flow definition outside of its process groups
+     */
+    static final Set<String> DEFINITION_CONTEXTS = Set.of("parameterContexts", "externalControllerServices", "parameterProviders");
+    /**
+     * Json mapper to create the parsers and bind the components
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Create instance
+     *
+     * @param objectMapper json mapper to create the parsers
+     */
+    public FlowDefinitionReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the flow definition of {@code GET /process-groups/{id}/download} into a Merkle tree of its process groups,
+     * see {@link FlowDefinitionNode}. Every component is bound on its own to be hashed, see {@link FlowHashes}, and only
+     * its hash is kept. The parameter contexts, the external controller services and the parameter providers of the
+     * definition are components of the top process group. Nested process groups are tracked on an explicit stack so
+     * deep hierarchies do not grow the call stack.
+     *
+     * @param definition stream of the flow definition, it is not closed
+     * @param ignored fields of the components and the process groups left out of the hashes at any depth
+     * @return top process group of the definition
+     * @throws IOException if the definition is not a valid json or has no flow contents
+     */
+    public FlowDefinitionNode readFlowDefinition(InputStream definition, Set<String> ignored) throws IOException {
+        FlowDefinitionNode root = null;
+        List<FlowDefinitionNode.Component> contexts = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(definition)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Flow definition is not a json object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("flowContents".equals(field) && value == JsonToken.START_OBJECT) {
+                    root = readDefinitionGroups(parser, ignored);
+                } else if (DEFINITION_CONTEXTS.contains(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        parser.nextToken();
+                        contexts.add(toDefinitionComponent(field, key, parser.readValueAsTree(), ignored));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (root == null) {
+            throw new IOException("Flow contents are missing in the flow definition.");
+        }
+        if (!contexts.isEmpty()) {
+            root.getComponents().addAll(contexts);
+            root.setHash(combine(root));
+        }
+        return root;
+    }
+
+    /**
+     * Reads the attributes and the contents of the components of the provided process groups from the flow definition
+     * already read into the tree using {@link FlowDefinitionReader#readFlowDefinition(InputStream, Set)}, so the details
+     * are bound for the differing process groups only. The components of the other process groups are skipped without
+     * being bound once the identifier of their process group is read, the NiFi writes it before the components.
+     *
+     * @param definition stream of the same flow definition, it is not closed
+     * @param root top process group read from the definition
+     * @param identifiers of the process groups to read the contents of
+     * @throws IOException if the definition is not a valid json
+     */
+    public void readFlowDefinitionContents(InputStream definition, FlowDefinitionNode root, Set<String> identifiers) throws IOException {
+        Map<String, FlowDefinitionNode> targets = new HashMap<>();
+        Deque<FlowDefinitionNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            FlowDefinitionNode node = pending.pop();
+            if (node.getIdentifier() != null && identifiers.contains(node.getIdentifier())) {
+                targets.put(node.getIdentifier(), node);
+            }
+            node.getChildren().forEach(pending::push);
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        boolean rootTargeted = targets.containsValue(root);
+        try (JsonParser parser = objectMapper.getFactory().createParser(definition)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Flow definition is not a json object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("flowContents".equals(field) && value == JsonToken.START_OBJECT) {
+                    readDefinitionContents(parser, targets);
+                } else if (rootTargeted && DEFINITION_CONTEXTS.contains(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String key = parser.getCurrentName();
+                        parser.nextToken();
+                        JsonNode content = parser.readValueAsTree();
+                        for (FlowDefinitionNode.Component component : root.getComponents()) {
+                            if (field.equals(component.getKind()) && key.equals(component.getIdentifier())) {
+                                component.setContent(content);
+                            }
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the process group of the flow definition along with its descendants, the parser is at the start of the
+     * process group and is left at its end
+     *
+     * @param parser positioned at the start of the process group
+     * @param ignored fields left out of the hashes
+     * @return process group
+     * @throws IOException if the process group is not a valid json
+     */
+    private FlowDefinitionNode readDefinitionGroups(JsonParser parser, Set<String> ignored) throws IOException {
+        Deque<DefinitionFrame> stack = new ArrayDeque<>();
+        stack.push(new DefinitionFrame(objectMapper.createObjectNode()));
+        FlowDefinitionNode root = null;
+        while (!stack.isEmpty()) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Unexpected end of the flow definition.");
+            }
+            DefinitionFrame frame = stack.peek();
+            if (frame.inChildren) {
+                // array of the child process groups
+                if (token == JsonToken.START_OBJECT) {
+                    stack.push(new DefinitionFrame(objectMapper.createObjectNode()));
+                } else if (token == JsonToken.END_ARRAY) {
+                    frame.inChildren = false;
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (token == JsonToken.END_OBJECT) {
+                stack.pop();
+                FlowDefinitionNode node = toDefinitionNode(frame, ignored);
+                if (stack.isEmpty()) {
+                    root = node;
+                } else {
+                    stack.peek().children.add(node);
+                }
+            } else {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("processGroups".equals(field) && value == JsonToken.START_ARRAY) {
+                    frame.inChildren = true;
+                } else if ("connections".equals(field) && value == JsonToken.START_ARRAY) {
+                    // hashed once the process group is read, their ends may be in its child process groups
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        frame.connections.add(parser.readValueAsTree());
+                    }
+                } else if (DEFINITION_COMPONENTS.contains(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        frame.components.add(toDefinitionComponent(field, null, parser.readValueAsTree(), ignored));
+                    }
+                } else {
+                    frame.attributes.set(field, parser.readValueAsTree());
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Reads the attributes and the contents of the components of the targeted process groups, the parser is at the
+     * start of the top process group and is left at its end
+     *
+     * @param parser positioned at the start of the process group
+     * @param targets process groups to read the contents of by their identifiers
+     * @throws IOException if the process group is not a valid json
+     */
+    private void readDefinitionContents(JsonParser parser, Map<String, FlowDefinitionNode> targets) throws IOException {
+        Deque<DefinitionFrame> stack = new ArrayDeque<>();
+        stack.push(new DefinitionFrame(objectMapper.createObjectNode()));
+        while (!stack.isEmpty()) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Unexpected end of the flow definition.");
+            }
+            DefinitionFrame frame = stack.peek();
+            if (frame.inChildren) {
+                if (token == JsonToken.START_OBJECT) {
+                    stack.push(new DefinitionFrame(objectMapper.createObjectNode()));
+                } else if (token == JsonToken.END_ARRAY) {
+                    frame.inChildren = false;
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (token == JsonToken.END_OBJECT) {
+                stack.pop();
+                FlowDefinitionNode target = targets.get(frame.attributes.path("identifier").asText(""));
+                if (target != null) {
+                    target.setAttributes(frame.attributes);
+                    // same definition, the components are in the order they were read with the connections last
+                    Map<String, String> groupNames = groupNames(target.getChildren(), target.getComponents());
+                    for (JsonNode connection : frame.connections) {
+                        frame.contents.add(toMatchedEnds(connection, target.getIdentifier(), groupNames));
+                    }
+                    for (int i = 0; i < frame.contents.size() && i < target.getComponents().size(); i++) {
+                        target.getComponents().get(i).setContent(frame.contents.get(i));
+                    }
+                }
+            } else {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                boolean skipped = frame.attributes.has("identifier") && !targets.containsKey(frame.attributes.path("identifier").asText(""));
+                if ("processGroups".equals(field) && value == JsonToken.START_ARRAY) {
+                    frame.inChildren = true;
+                } else if (skipped) {
+                    parser.skipChildren();
+                } else if ("connections".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        frame.connections.add(parser.readValueAsTree());
+                    }
+                } else if (DEFINITION_COMPONENTS.contains(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        frame.contents.add(parser.readValueAsTree());
+                    }
+                } else {
+                    frame.attributes.set(field, parser.readValueAsTree());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes the process group read into the frame, its connections are hashed after its other components
+     *
+     * @param frame of the process group
+     * @param ignored fields left out of the hashes
+     * @return process group
+     */
+    private static FlowDefinitionNode toDefinitionNode(DefinitionFrame frame, Set<String> ignored) {
+        FlowDefinitionNode node = new FlowDefinitionNode(frame.attributes.path("identifier").asText(null));
+        node.setName(frame.attributes.path("name").asText(null));
+        node.setAttributesHash(FlowHashes.hash("processGroups", frame.attributes, ignored));
+        Map<String, String> groupNames = groupNames(frame.children, frame.components);
+        for (JsonNode connection : frame.connections) {
+            frame.components.add(toDefinitionComponent("connections", null, toMatchedEnds(connection, node.getIdentifier(), groupNames), ignored));
+        }
+        node.setComponents(frame.components);
+        node.setChildren(frame.children);
+        node.setHash(combine(node));
+        return node;
+    }
+
+    /**
+     * Hashes the component of the flow definition, its content is not kept
+     *
+     * @param kind of the component
+     * @param key of the component in its map, {@code null} if listed in an array
+     * @param content of the component
+     * @param ignored fields left out of the hash
+     * @return component
+     */
+    private static FlowDefinitionNode.Component toDefinitionComponent(String kind, String key, JsonNode content, Set<String> ignored) {
+        FlowDefinitionNode.Component component = new FlowDefinitionNode.Component(kind, key != null ? key : content.path("identifier").asText(null));
+        String name = content.path("name").asText("");
+        if (name.isEmpty() && "connections".equals(kind)) {
+            name = content.path("source").path("name").asText("") + " -> " + content.path("destination").path("name").asText("");
+        } else if (name.isEmpty() && "labels".equals(kind)) {
+            String label = content.path("label").asText("");
+            name = label.length() > 32 ? label.substring(0, 32) + "..." : label;
+        }
+        component.setName(name);
+        component.setHash(FlowHashes.hash(kind, content, ignored));
+        return component;
+    }
+
+    /**
+     * Provides the connection with its ends identified by the connected components the way they are matched, by their
+     * type and name along with the name of the child process group or the remote process group they are in, instead of
+     * their identifiers which differ in every cluster
+     *
+     * @param connection content of the connection
+     * @param groupId identifier of the process group of the connection
+     * @param groupNames names of the child process groups and the remote process groups by their identifiers
+     * @return content of the connection with the matched ends
+     */
+    private static JsonNode toMatchedEnds(JsonNode connection, String groupId, Map<String, String> groupNames) {
+        if (!connection.isObject()) {
+            return connection;
+        }
+        ObjectNode matched = connection.deepCopy();
+        for (String end : CONNECTION_ENDS) {
+            if (matched.get(end) instanceof ObjectNode) {
+                ObjectNode connectable = (ObjectNode) matched.get(end);
+                connectable.remove("id");
+                String endGroupId = connectable.path("groupId").asText("");
+                connectable.remove("groupId");
+                if (!endGroupId.isEmpty() && !endGroupId.equals(groupId)) {
+                    connectable.put("group", groupNames.getOrDefault(endGroupId, endGroupId));
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Provides the names of the child process groups and the remote process groups of a process group, the groups the
+     * ends of its connections can be in
+     *
+     * @param children child process groups
+     * @param components components of the process group
+     * @return names by the identifiers
+     */
+    private static Map<String, String> groupNames(List<FlowDefinitionNode> children, List<FlowDefinitionNode.Component> components) {
+        Map<String, String> names = new HashMap<>();
+        for (FlowDefinitionNode child : children) {
+            if (child.getIdentifier() != null) {
+                names.put(child.getIdentifier(), child.getName());
+            }
+        }
+        for (FlowDefinitionNode.Component component : components) {
+            if ("remoteProcessGroups".equals(component.getKind()) && component.getIdentifier() != null) {
+                names.put(component.getIdentifier(), component.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Hashes the process group out of the hashes of its attributes, components and child process groups
+     *
+     * @param node process group
+     * @return hash of the process group
+     */
+    private static byte[] combine(FlowDefinitionNode node) {
+        return FlowHashes.combine(node.getAttributesHash(), node.getComponents().stream().map(FlowDefinitionNode.Component::getHash).toArray(byte[][]::new), node.getChildren().stream().map(FlowDefinitionNode::getHash).toArray(byte[][]::new));
+    }
+
+    /**
+     * Process group being read from the flow definition
+     */
+    static final class DefinitionFrame {
+        /**
+         * Attributes of the process group other than its components and child process groups
+         */
+        final ObjectNode attributes;
+        /**
+         * Hashed components, while reading the tree
+         */
+        final List<FlowDefinitionNode.Component> components = new ArrayList<>();
+        /**
+         * Contents of the components, while reading the contents
+         */
+        final List<JsonNode> contents = new ArrayList<>();
+        /**
+         * Contents of the connections, held until the process group is read
+         */
+        final List<JsonNode> connections = new ArrayList<>();
+        /**
+         * Child process groups
+         */
+        final List<FlowDefinitionNode> children = new ArrayList<>();
+        /**
+         * Whether the array of the child process groups is being read
+         */
+        boolean inChildren;
+
+        /**
+         * Create instance
+         *
+         * @param attributes to read the attributes into
+         */
+        DefinitionFrame(ObjectNode attributes) {
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Canonical SHA-256 hashes of the flow definition parts. Object fields are hashed in the order of their names and the
+ * elements of the sets of a flow definition, see {@link FlowHashes#SET_FIELDS}, in the order of their hashes as the NiFi
+ * writes them in no particular order, so two equal parts hash the same however they are serialized. The elements of
+ * the other arrays are hashed in their order, as it matters i.e. for the prioritizers of a connection.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class FlowHashes {
+
+    /**
+     * Fields identifying the components in their cluster, left out so the same flow hashes the same in every cluster.
+     * They are left out on the top level of the components only, the nested values are hashed as they are.
+     */
+    public static final Set<String> IDENTITY_FIELDS = Set.of("identifier", "instanceIdentifier", "groupIdentifier", "instanceGroupId", "versionedComponentId", "id", "groupId");
+    /**
+     * Fields of the layout of the components on the canvas
+     */
+    public static final Set<String> LAYOUT_FIELDS = Set.of("position", "bends", "labelIndex", "zIndex");
+    /**
+     * Fields holding the sets of a flow definition, the other arrays are ordered
+     */
+    public static final Set<String> SET_FIELDS = Set.of("processGroups", "remoteProcessGroups", "processors", "inputPorts", "outputPorts", "connections", "labels", "funnels", "controllerServices", "parameters", "selectedRelationships", "autoTerminatedRelationships");
+    /**
+     * Tags of the json value types, so values of different types never hash the same
+     */
+    private static final byte OBJECT = 'o', ARRAY = 'a', SET = 'e', STRING = 's', NUMBER = 'n', BOOLEAN = 'b', NULL = 'z';
+    /**
+     * Digests of the thread by the depth of the json value they hash, the elements of a set are hashed on their own one
+     * level deeper, so nothing is allocated for the digests once the deepest level is reached
+     */
+    private static final ThreadLocal<List<MessageDigest>> DIGESTS = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * Hashes the component along with its kind
+     *
+     * @param kind of the component, i.e. {@code processors}
+     * @param content of the component
+     * @param ignored fields left out, see {@link FlowHashes#isIgnored(String, boolean, Set)}
+     * @return hash of the component
+     */
+    public static byte[] hash(String kind, JsonNode content, Set<String> ignored) {
+        MessageDigest digest = digest(0);
+        updateString(digest, kind);
+        update(digest, 0, content, ignored, true, false);
+        return digest.digest();
+    }
+
+    /**
+     * Hashes the json value as a whole, nothing left out
+     *
+     * @param content json value
+     * @return hash of the json value
+     */
+    public static byte[] hash(JsonNode content) {
+        MessageDigest digest = digest(0);
+        update(digest, 0, content, Set.of(), true, false);
+        return digest.digest();
+    }
+
+    /**
+     * Hashes the process group out of the hashes of its parts, the components and the children are hashed in the order
+     * of their hashes
+     *
+     * @param attributesHash hash of the attributes of the process group
+     * @param componentHashes hashes of the components, sorted in place
+     * @param childHashes hashes of the child process groups, sorted in place
+     * @return hash of the process group
+     */
+    public static byte[] combine(byte[] attributesHash, byte[][] componentHashes, byte[][] childHashes) {
+        MessageDigest digest = digest(0);
+        digest.update(attributesHash);
+        Arrays.sort(componentHashes, Arrays::compareUnsigned);
+        digest.update(OBJECT);
+        updateInt(digest, componentHashes.length);
+        for (byte[] hash : componentHashes) {
+            digest.update(hash);
+        }
+        Arrays.sort(childHashes, Arrays::compareUnsigned);
+        digest.update(ARRAY);
+        updateInt(digest, childHashes.length);
+        for (byte[] hash : childHashes) {
+            digest.update(hash);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Whether the json values nested in the components are the same, compared the way they are hashed
+     *
+     * @param field name of the field holding the values, an array of a {@link FlowHashes#SET_FIELDS} is compared as a
+     *            set and any other array in order
+     * @param left value
+     * @param right value
+     * @param ignored fields left out, see {@link FlowHashes#isIgnored(String, boolean, Set)}
+     * @return {@code true} if same
+     */
+    public static boolean isSame(String field, JsonNode left, JsonNode right, Set<String> ignored) {
+        boolean set = SET_FIELDS.contains(field);
+        MessageDigest digest = digest(0);
+        update(digest, 0, left, ignored, false, set);
+        byte[] leftHash = digest.digest();
+        update(digest, 0, right, ignored, false, set);
+        return Arrays.equals(leftHash, digest.digest());
+    }
+
+    /**
+     * Whether the field is left out, the {@link FlowHashes#IDENTITY_FIELDS} among the ignored ones are left out on the
+     * top level of the components only and the other ones at any depth
+     *
+     * @param field name of the field
+     * @param top whether the field is on the top level of the component
+     * @param ignored fields left out
+     * @return {@code true} if left out
+     */
+    public static boolean isIgnored(String field, boolean top, Set<String> ignored) {
+        return ignored.contains(field) && (top || !IDENTITY_FIELDS.contains(field));
+    }
+
+    /**
+     * Updates the digest with the canonical form of the json value
+     *
+     * @param digest to update
+     * @param depth of the digest
+     * @param node json value, {@code null} is same as json null
+     * @param ignored fields left out, see {@link FlowHashes#isIgnored(String, boolean, Set)}
+     * @param top whether the json value is the component itself
+     * @param set whether the json value, if an array, is a set whose elements are in no particular order
+     */
+    private static void update(MessageDigest digest, int depth, JsonNode node, Set<String> ignored, boolean top, boolean set) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            digest.update(NULL);
+        } else if (node.isObject()) {
+            Map<String, JsonNode> fields = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> field = it.next();
+                // absent and null fields are same, the NiFi leaves some of them out
+                if (!isIgnored(field.getKey(), top, ignored) && !field.getValue().isNull()) {
+                    fields.put(field.getKey(), field.getValue());
+                }
+            }
+            digest.update(OBJECT);
+            updateInt(digest, fields.size());
+            for (Map.Entry<String, JsonNode> field : fields.entrySet()) {
+                updateString(digest, field.getKey());
+                update(digest, depth, field.getValue(), ignored, false, SET_FIELDS.contains(field.getKey()));
+            }
+        } else if (node.isArray() && !set) {
+            digest.update(ARRAY);
+            updateInt(digest, node.size());
+            for (JsonNode element : node) {
+                update(digest, depth, element, ignored, false, false);
+            }
+        } else if (node.isArray()) {
+            List<byte[]> elements = new ArrayList<>(node.size());
+            MessageDigest elementDigest = digest(depth + 1);
+            for (JsonNode element : node) {
+                update(elementDigest, depth + 1, element, ignored, false, false);
+                elements.add(elementDigest.digest());
+            }
+            elements.sort(Arrays::compareUnsigned);
+            digest.update(SET);
+            updateInt(digest, elements.size());
+            elements.forEach(digest::update);
+        } else if (node.isNumber()) {
+            digest.update(NUMBER);
+            updateString(digest, node.isIntegralNumber() ? node.asText() : node.decimalValue().stripTrailingZeros().toPlainString());
+        } else if (node.isBoolean()) {
+            digest.update(BOOLEAN);
+            digest.update((byte) (node.booleanValue() ? 1 : 0));
+        } else {
+            digest.update(STRING);
+            updateString(digest, node.asText());
+        }
+    }
+
+    /**
+     * Updates the digest with the length prefixed string
+     *
+     * @param digest to update
+     * @param value string
+     */
+    private static void updateString(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Updates the digest with the big-endian int
+     *
+     * @param digest to update
+     * @param value int
+     */
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    /**
+     * Provides the SHA-256 digest of the thread for the depth, reset
+     *
+     * @param depth of the json value to hash
+     * @return digest
+     */
+    private static MessageDigest digest(int depth) {
+        List<MessageDigest> digests = DIGESTS.get();
+        try {
+            while (digests.size() <= depth) {
+                digests.add(MessageDigest.getInstance("SHA-256"));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        MessageDigest digest = digests.get(depth);
+        digest.reset();
+        return digest;
+    }
+}
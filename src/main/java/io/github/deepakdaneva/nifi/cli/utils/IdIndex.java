@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense indexes, {@code 0, 1, 2...}, to the ids of the components in the order they are first seen. Lookups
+ * are made with the characters of the id as they are in the buffer of the json parser, so an id seen before is found
+ * without creating a string. Open addressing with linear probing over primitive arrays, the table is doubled once half
+ * full.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class IdIndex {
+
+    /**
+     * Ids by their indexes
+     */
+    private String[] ids = new String[64];
+    /**
+     * Hashes of the ids by their indexes
+     */
+    private int[] hashes = new int[64];
+    /**
+     * Table of the indexes plus one, {@code 0} marks a free slot
+     */
+    private int[] table = new int[128];
+    /**
+     * Number of ids
+     */
+    private int size;
+
+    /**
+     * Provides the index of the id, assigning the next one if the id is seen for the first time
+     *
+     * @param chars buffer holding the id
+     * @param offset of the id in the buffer
+     * @param length of the id
+     * @return index of the id
+     */
+    public int indexOf(char[] chars, int offset, int length) {
+        int hash = hash(chars, offset, length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(slot, hash, new String(chars, offset, length));
+            }
+            int index = entry - 1;
+            if (hashes[index] == hash && matches(ids[index], chars, offset, length)) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Provides the id of the index
+     *
+     * @param index of the id
+     * @return id
+     */
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Provides the number of ids, the indexes are below it
+     *
+     * @return number of ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the id at the free slot of the table
+     *
+     * @param slot free slot of the table
+     * @param hash of the id
+     * @param id to add
+     * @return index of the id
+     */
+    private int add(int slot, int hash, String id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        ids[size] = id;
+        hashes[size] = hash;
+        table[slot] = size + 1;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Rebuilds the table with the provided capacity
+     *
+     * @param capacity of the table, a power of two
+     */
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hashes[index] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Hashes the characters, spreading the bits as the table uses the lowest ones
+     *
+     * @param chars buffer holding the id
+     * @param offset of the id in the buffer
+     * @param length of the id
+     * @return hash of the id
+     */
+    private static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Whether the id is made of the characters
+     *
+     * @param id to compare
+     * @param chars buffer holding the other id
+     * @param offset of the other id in the buffer
+     * @param length of the other id
+     * @return {@code true} if same
+     */
+    private static boolean matches(String id, char[] chars, int offset, int length) {
+        if (id.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (id.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
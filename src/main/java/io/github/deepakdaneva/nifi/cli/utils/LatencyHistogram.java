@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values with buckets of logarithmic size, like the HDR histogram every power of
+ * two is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so any recorded value is reported within about 3% of
+ * itself while the whole range of {@code long} fits in a few thousand counters. Recording is a single atomic increment
+ * and is safe to be done concurrently.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class LatencyHistogram {
+
+    /**
+     * Bits of the value used to select the sub-bucket within its power of two
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    /**
+     * Number of sub-buckets of every power of two
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Counts of the recorded values by their buckets
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKET_COUNT * (Long.SIZE - SUB_BUCKET_BITS));
+    /**
+     * Number of recorded values
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * Sum of the recorded values
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * Maximum recorded value
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the value, negative values are recorded as {@code 0}
+     *
+     * @param value to record
+     */
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(index(recorded));
+        count.increment();
+        sum.add(recorded);
+        max.accumulateAndGet(recorded, Math::max);
+    }
+
+    /**
+     * Provides the number of recorded values
+     *
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Provides the maximum recorded value
+     *
+     * @return maximum recorded value, {@code 0} if nothing is recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Provides the mean of the recorded values
+     *
+     * @return mean of the recorded values, {@code 0} if nothing is recorded
+     */
+    public double getMean() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+    }
+
+    /**
+     * Provides the value at the percentile, as the highest value of the bucket it is recorded in
+     *
+     * @param percentile between {@code 0} and {@code 100}
+     * @return value at the percentile, {@code 0} if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long recorded = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            recorded += counts.get(i);
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Provides the bucket of the value
+     *
+     * @param value non-negative value
+     * @return index of the bucket
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Provides the highest value recorded in the bucket
+     *
+     * @param index of the bucket
+     * @return highest value of the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Layered layout of a directed graph flowing from the top to the bottom. Every connected part of the graph is laid out on
+ * its own: cycles are broken by reversing the edges closing them, the nodes are assigned to layers along the longest
+ * path, ordered within the layers to reduce the crossings by the barycenter heuristic and placed below their
+ * predecessors. Nodes without any edge are laid out in a grid, and the laid out parts are packed together, the largest
+ * first, at the top-most then left-most free place found using a {@link SpatialGrid} which also holds the obstacles to
+ * keep clear of. The nodes never overlap each other nor the obstacles and the layout only depends on the order of the
+ * nodes and the edges and on the obstacles, not on their current positions.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class LayeredLayout {
+
+    /**
+     * Number of sweeps ordering the nodes within the layers
+     */
+    private static final int ORDERING_SWEEPS = 8;
+    /**
+     * Width to height ratio the parts are packed into
+     */
+    private static final double PACKING_RATIO = 1.5;
+    /**
+     * Horizontal gap between the nodes
+     */
+    private final double horizontalGap;
+    /**
+     * Vertical gap between the layers
+     */
+    private final double verticalGap;
+
+    /**
+     * Create instance with the provided gaps
+     *
+     * @param horizontalGap between the nodes of a layer and between the packed parts
+     * @param verticalGap between the layers, room for the labels of the edges
+     */
+    public LayeredLayout(double horizontalGap, double verticalGap) {
+        this.horizontalGap = horizontalGap;
+        this.verticalGap = verticalGap;
+    }
+
+    /**
+     * Lays out the graph
+     *
+     * @param widths of the nodes
+     * @param heights of the nodes
+     * @param sources of the edges, indexes of the nodes
+     * @param targets of the edges, indexes of the nodes
+     * @return top left corners of the nodes, the x coordinates at {@code [0]} and the y coordinates at {@code [1]}
+     */
+    public double[][] layout(double[] widths, double[] heights, int[] sources, int[] targets) {
+        return layout(widths, heights, sources, targets, new double[0][]);
+    }
+
+    /**
+     * Lays out the graph around the obstacles, the laid out parts are packed without overlapping them
+     *
+     * @param widths of the nodes
+     * @param heights of the nodes
+     * @param sources of the edges, indexes of the nodes
+     * @param targets of the edges, indexes of the nodes
+     * @param obstacles rectangles to keep clear of, each one as its x, y, width and height
+     * @return top left corners of the nodes, the x coordinates at {@code [0]} and the y coordinates at {@code [1]}
+     */
+    public double[][] layout(double[] widths, double[] heights, int[] sources, int[] targets, double[][] obstacles) {
+        int n = widths.length;
+        if (heights.length != n || sources.length != targets.length) {
+            throw new IllegalArgumentException("Sizes of the nodes and endpoints of the edges should be provided in pairs.");
+        }
+        Graph graph = new Graph(n, sources, targets);
+        List<Block> blocks = new ArrayList<>();
+        List<Integer> isolated = new ArrayList<>();
+        for (int[] part : graph.parts()) {
+            if (part.length == 1) {
+                isolated.add(part[0]);
+            } else {
+                blocks.add(layers(graph, part, widths, heights));
+            }
+        }
+        if (!isolated.isEmpty()) {
+            blocks.add(grid(isolated.stream().mapToInt(Integer::intValue).toArray(), widths, heights));
+        }
+        double[][] positions = new double[2][n];
+        pack(blocks, obstacles, positions);
+        return positions;
+    }
+
+    /**
+     * Lays out the connected part of the graph in layers
+     *
+     * @param graph whole graph
+     * @param nodes of the part in their order
+     * @param widths of the nodes
+     * @param heights of the nodes
+     * @return laid out part
+     */
+    private Block layers(Graph graph, int[] nodes, double[] widths, double[] heights) {
+        int[] local = graph.local;
+        for (int i = 0; i < nodes.length; i++) {
+            local[nodes[i]] = i;
+        }
+        List<List<Integer>> successors = acyclicSuccessors(graph, nodes);
+        List<List<Integer>> predecessors = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            predecessors.add(new ArrayList<>());
+        }
+        for (int u = 0; u < nodes.length; u++) {
+            for (int v : successors.get(u)) {
+                predecessors.get(v).add(u);
+            }
+        }
+        // longest path layering in the topological order, the order of the nodes is kept for the ties
+        int[] indegree = new int[nodes.length];
+        for (int v = 0; v < nodes.length; v++) {
+            indegree[v] = predecessors.get(v).size();
+        }
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int v = 0; v < nodes.length; v++) {
+            if (indegree[v] == 0) {
+                ready.add(v);
+            }
+        }
+        int[] topological = new int[nodes.length];
+        int[] layer = new int[nodes.length];
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            int u = ready.poll();
+            topological[sorted++] = u;
+            for (int v : successors.get(u)) {
+                layer[v] = Math.max(layer[v], layer[u] + 1);
+                if (--indegree[v] == 0) {
+                    ready.add(v);
+                }
+            }
+        }
+        // pull the sources down next to their successors so the edges leaving them are short
+        for (int i = sorted - 1; i >= 0; i--) {
+            int u = topological[i];
+            if (predecessors.get(u).isEmpty() && !successors.get(u).isEmpty()) {
+                int min = Integer.MAX_VALUE;
+                for (int v : successors.get(u)) {
+                    min = Math.min(min, layer[v]);
+                }
+                layer[u] = min - 1;
+            }
+        }
+        int layerCount = 0;
+        for (int v = 0; v < nodes.length; v++) {
+            layerCount = Math.max(layerCount, layer[v] + 1);
+        }
+        List<List<Integer>> layers = new ArrayList<>(layerCount);
+        for (int l = 0; l < layerCount; l++) {
+            layers.add(new ArrayList<>());
+        }
+        for (int i = 0; i < sorted; i++) {
+            layers.get(layer[topological[i]]).add(topological[i]);
+        }
+        order(layers, successors, predecessors);
+        // place the layers from the top, every node as close as possible below the center of its predecessors
+        double[] x = new double[nodes.length];
+        double[] y = new double[nodes.length];
+        double top = 0;
+        double width = 0;
+        for (List<Integer> row : layers) {
+            double height = 0;
+            for (int v : row) {
+                height = Math.max(height, heights[nodes[v]]);
+            }
+            double cursor = 0;
+            for (int v : row) {
+                double nodeWidth = widths[nodes[v]];
+                double preferred = cursor;
+                List<Integer> preds = predecessors.get(v);
+                if (!preds.isEmpty()) {
+                    double center = 0;
+                    for (int u : preds) {
+                        center += x[u] + widths[nodes[u]] / 2;
+                    }
+                    preferred = center / preds.size() - nodeWidth / 2;
+                }
+                x[v] = Math.max(cursor, preferred);
+                y[v] = top + (height - heights[nodes[v]]) / 2;
+                cursor = x[v] + nodeWidth + horizontalGap;
+                width = Math.max(width, x[v] + nodeWidth);
+            }
+            top += height + verticalGap;
+        }
+        return new Block(nodes, x, y, width, top - verticalGap);
+    }
+
+    /**
+     * Provides the successors of the nodes of the part with the edges closing a cycle reversed, found by a depth first
+     * search which keeps its own stack so long chains do not grow the call stack
+     *
+     * @param graph whole graph
+     * @param nodes of the part, their local indexes are set in the graph
+     * @return successors of the nodes by their local indexes, without any cycle
+     */
+    private static List<List<Integer>> acyclicSuccessors(Graph graph, int[] nodes) {
+        List<List<Integer>> successors = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            successors.add(new ArrayList<>());
+        }
+        byte[] state = new byte[nodes.length];
+        int[] stackNodes = new int[nodes.length];
+        int[] stackEdges = new int[nodes.length];
+        for (int start = 0; start < nodes.length; start++) {
+            if (state[start] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stackNodes[0] = start;
+            stackEdges[0] = graph.outStart[nodes[start]];
+            state[start] = 1;
+            while (depth >= 0) {
+                int u = stackNodes[depth];
+                int edge = stackEdges[depth];
+                if (edge == graph.outStart[nodes[u] + 1]) {
+                    state[u] = 2;
+                    depth--;
+                    continue;
+                }
+                stackEdges[depth]++;
+                int v = graph.local[graph.outTargets[edge]];
+                if (state[v] == 1) {
+                    // closes a cycle
+                    successors.get(v).add(u);
+                } else {
+                    successors.get(u).add(v);
+                    if (state[v] == 0) {
+                        state[v] = 1;
+                        depth++;
+                        stackNodes[depth] = v;
+                        stackEdges[depth] = graph.outStart[nodes[v]];
+                    }
+                }
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * Orders the nodes within the layers by the average position of their neighbours, sweeping down using the
+     * predecessors and up using the successors
+     *
+     * @param layers nodes of the layers in their initial order, ordered in place
+     * @param successors of the nodes
+     * @param predecessors of the nodes
+     */
+    private static void order(List<List<Integer>> layers, List<List<Integer>> successors, List<List<Integer>> predecessors) {
+        double[] position = new double[successors.size()];
+        double[] barycenter = new double[successors.size()];
+        for (List<Integer> row : layers) {
+            for (int i = 0; i < row.size(); i++) {
+                position[row.get(i)] = i;
+            }
+        }
+        Comparator<Integer> byBarycenter = Comparator.comparingDouble(v -> barycenter[v]);
+        for (int sweep = 0; sweep < ORDERING_SWEEPS; sweep++) {
+            boolean down = sweep % 2 == 0;
+            for (int i = 0; i < layers.size(); i++) {
+                List<Integer> row = layers.get(down ? i : layers.size() - 1 - i);
+                for (int v : row) {
+                    List<Integer> neighbours = down ? predecessors.get(v) : successors.get(v);
+                    if (neighbours.isEmpty()) {
+                        barycenter[v] = position[v];
+                    } else {
+                        double sum = 0;
+                        for (int u : neighbours) {
+                            sum += position[u];
+                        }
+                        barycenter[v] = sum / neighbours.size();
+                    }
+                }
+                row.sort(byBarycenter);
+                for (int p = 0; p < row.size(); p++) {
+                    position[row.get(p)] = p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lays out the nodes without any edge in a square-ish grid of uniform cells
+     *
+     * @param nodes to lay out in their order
+     * @param widths of the nodes
+     * @param heights of the nodes
+     * @return laid out nodes
+     */
+    private Block grid(int[] nodes, double[] widths, double[] heights) {
+        double cellWidth = 0;
+        double cellHeight = 0;
+        for (int node : nodes) {
+            cellWidth = Math.max(cellWidth, widths[node]);
+            cellHeight = Math.max(cellHeight, heights[node]);
+        }
+        int columns = (int) Math.ceil(Math.sqrt(nodes.length));
+        double[] x = new double[nodes.length];
+        double[] y = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            x[i] = (i % columns) * (cellWidth + horizontalGap);
+            y[i] = (i / columns) * (cellHeight + horizontalGap);
+        }
+        int rows = (nodes.length + columns - 1) / columns;
+        return new Block(nodes, x, y, Math.min(columns, nodes.length) * (cellWidth + horizontalGap) - horizontalGap, rows * (cellHeight + horizontalGap) - horizontalGap);
+    }
+
+    /**
+     * Packs the laid out parts, the largest first, each at the top-most then left-most place where it fits without
+     * overlapping the obstacles and the parts already packed and without exceeding the width of the packing
+     *
+     * @param blocks laid out parts
+     * @param obstacles rectangles to keep clear of
+     * @param positions to set the positions of the nodes in
+     */
+    private void pack(List<Block> blocks, double[][] obstacles, double[][] positions) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        double area = 0;
+        double widest = 0;
+        for (Block block : blocks) {
+            area += (block.width + horizontalGap) * (block.height + verticalGap);
+            widest = Math.max(widest, block.width);
+        }
+        double maxWidth = Math.max(widest, Math.sqrt(area * PACKING_RATIO));
+        // stable sort keeps the order of the nodes for the parts of the same size
+        blocks.sort(Comparator.comparingDouble((Block block) -> -block.width * block.height));
+        SpatialGrid grid = new SpatialGrid(Math.max(256, Math.sqrt(area / blocks.size())));
+        TreeSet<double[]> candidates = new TreeSet<>(Comparator.<double[]>comparingDouble(point -> point[1]).thenComparingDouble(point -> point[0]));
+        candidates.add(new double[] {0, 0});
+        double bottom = 0;
+        for (double[] obstacle : obstacles) {
+            // registered along with the gaps the way the parts are, so the parts keep the gaps from them
+            grid.add(obstacle[0], obstacle[1], obstacle[2] + horizontalGap, obstacle[3] + verticalGap);
+            candidates.add(new double[] {Math.max(0, obstacle[0] + obstacle[2] + horizontalGap), Math.max(0, obstacle[1])});
+            candidates.add(new double[] {Math.max(0, obstacle[0]), Math.max(0, obstacle[1] + obstacle[3] + verticalGap)});
+            bottom = Math.max(bottom, obstacle[1] + obstacle[3] + verticalGap);
+        }
+        for (Block block : blocks) {
+            double width = block.width + horizontalGap;
+            double height = block.height + verticalGap;
+            double[] place = null;
+            for (Iterator<double[]> it = candidates.iterator(); it.hasNext();) {
+                double[] point = it.next();
+                if (grid.overlaps(point[0], point[1], Double.MIN_NORMAL, Double.MIN_NORMAL)) {
+                    // covered by a packed part, it can not fit anything anymore
+                    it.remove();
+                } else if ((point[0] == 0 || point[0] + block.width <= maxWidth) && !grid.overlaps(point[0], point[1], width, height)) {
+                    place = point;
+                    it.remove();
+                    break;
+                }
+            }
+            if (place == null) {
+                // below everything always fits
+                place = new double[] {0, bottom};
+            }
+            grid.add(place[0], place[1], width, height);
+            bottom = Math.max(bottom, place[1] + height);
+            candidates.add(new double[] {place[0] + width, place[1]});
+            candidates.add(new double[] {place[0], place[1] + height});
+            for (int i = 0; i < block.nodes.length; i++) {
+                positions[0][block.nodes[i]] = place[0] + block.x[i];
+                positions[1][block.nodes[i]] = place[1] + block.y[i];
+            }
+        }
+    }
+
+    /**
+     * Graph with the edges of every node in a compact array, without the edges looping back to their source
+     */
+    static final class Graph {
+        /**
+         * Start of the edges of every node in {@link #outTargets}, the end is the start of the next node
+         */
+        final int[] outStart;
+        /**
+         * Targets of the edges grouped by their sources
+         */
+        final int[] outTargets;
+        /**
+         * Local indexes of the nodes within the part being laid out
+         */
+        final int[] local;
+        /**
+         * Representative of the connected part of every node
+         */
+        private final int[] parent;
+
+        /**
+         * Create instance
+         *
+         * @param n number of nodes
+         * @param sources of the edges
+         * @param targets of the edges
+         */
+        Graph(int n, int[] sources, int[] targets) {
+            outStart = new int[n + 1];
+            parent = new int[n];
+            local = new int[n];
+            for (int v = 0; v < n; v++) {
+                parent[v] = v;
+            }
+            int edges = 0;
+            for (int e = 0; e < sources.length; e++) {
+                if (sources[e] != targets[e]) {
+                    outStart[sources[e] + 1]++;
+                    edges++;
+                    union(sources[e], targets[e]);
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                outStart[v + 1] += outStart[v];
+            }
+            outTargets = new int[edges];
+            int[] fill = Arrays.copyOf(outStart, n);
+            for (int e = 0; e < sources.length; e++) {
+                if (sources[e] != targets[e]) {
+                    outTargets[fill[sources[e]]++] = targets[e];
+                }
+            }
+        }
+
+        /**
+         * Provides the connected parts of the graph, in the order of their first nodes with the nodes in their order
+         *
+         * @return nodes of the connected parts
+         */
+        List<int[]> parts() {
+            int n = parent.length;
+            int[] size = new int[n];
+            for (int v = 0; v < n; v++) {
+                size[find(v)]++;
+            }
+            int[][] parts = new int[n][];
+            int[] fill = new int[n];
+            List<int[]> ordered = new ArrayList<>();
+            for (int v = 0; v < n; v++) {
+                int root = find(v);
+                if (parts[root] == null) {
+                    parts[root] = new int[size[root]];
+                    ordered.add(parts[root]);
+                }
+                parts[root][fill[root]++] = v;
+            }
+            return ordered;
+        }
+
+        /**
+         * Joins the connected parts of the nodes
+         *
+         * @param a node
+         * @param b node
+         */
+        private void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA != rootB) {
+                parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+            }
+        }
+
+        /**
+         * Finds the representative of the connected part of the node, halving the path on the way
+         *
+         * @param v node
+         * @return representative node
+         */
+        private int find(int v) {
+            while (parent[v] != v) {
+                parent[v] = parent[parent[v]];
+                v = parent[v];
+            }
+            return v;
+        }
+    }
+
+    /**
+     * Laid out part of the graph with the positions of its nodes relative to its top left corner
+     */
+    static final class Block {
+        /**
+         * Nodes of the part
+         */
+        final int[] nodes;
+        /**
+         * X coordinates of the nodes
+         */
+        final double[] x;
+        /**
+         * Y coordinates of the nodes
+         */
+        final double[] y;
+        /**
+         * Width of the part
+         */
+        final double width;
+        /**
+         * Height of the part
+         */
+        final double height;
+
+        /**
+         * Create instance
+         *
+         * @param nodes of the part
+         * @param x coordinates of the nodes
+         * @param y coordinates of the nodes
+         * @param width of the part
+         * @param height of the part
+         */
+        Block(int[] nodes, double[] x, double[] y, double width, double height) {
+            this.nodes = nodes;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Writer forwarding complete lines to the consumer, without their line terminators
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class LineWriter extends Writer {
+
+    /**
+     * Consumer of the lines
+     */
+    final Consumer<String> output;
+    /**
+     * Current incomplete line
+     */
+    final StringBuilder line = new StringBuilder();
+
+    /**
+     * Create instance forwarding the lines to the provided consumer
+     *
+     * @param output consumer of the lines
+     */
+    public LineWriter(Consumer<String> output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (chars[i] == '\n') {
+                output.accept(line.toString());
+                line.setLength(0);
+            } else if (chars[i] != '\r') {
+                line.append(chars[i]);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (line.length() > 0) {
+            output.accept(line.toString());
+            line.setLength(0);
+        }
+    }
+}
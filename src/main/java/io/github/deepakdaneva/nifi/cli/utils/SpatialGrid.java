@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of rectangles on a uniform grid of square cells. A rectangle is registered in every cell it covers, so
+ * finding the rectangles overlapping another one only looks at the few rectangles around it instead of all of them.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class SpatialGrid {
+
+    /**
+     * Size of the cells
+     */
+    private final double cellSize;
+    /**
+     * Indexes of the rectangles by the cells they cover
+     */
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+    /**
+     * Rectangles as {@code x, y, width, height} in the order they are added
+     */
+    private final List<double[]> rectangles = new ArrayList<>();
+
+    /**
+     * Create instance with the provided cell size, it should be close to the size of the typical rectangle
+     *
+     * @param cellSize size of the cells
+     */
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size of the spatial grid should be positive.");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds the rectangle
+     *
+     * @param x of the top left corner
+     * @param y of the top left corner
+     * @param width of the rectangle
+     * @param height of the rectangle
+     */
+    public void add(double x, double y, double width, double height) {
+        int index = rectangles.size();
+        rectangles.add(new double[] {x, y, width, height});
+        for (int cx = cell(x); cx <= cell(x + width); cx++) {
+            for (int cy = cell(y); cy <= cell(y + height); cy++) {
+                cells.computeIfAbsent(key(cx, cy), key -> new ArrayList<>(2)).add(index);
+            }
+        }
+    }
+
+    /**
+     * Whether the rectangle overlaps any of the added rectangles, touching edges do not overlap
+     *
+     * @param x of the top left corner
+     * @param y of the top left corner
+     * @param width of the rectangle
+     * @param height of the rectangle
+     * @return {@code true} if the rectangle overlaps an added rectangle
+     */
+    public boolean overlaps(double x, double y, double width, double height) {
+        for (int cx = cell(x); cx <= cell(x + width); cx++) {
+            for (int cy = cell(y); cy <= cell(y + height); cy++) {
+                List<Integer> indexes = cells.get(key(cx, cy));
+                if (indexes == null) {
+                    continue;
+                }
+                for (int index : indexes) {
+                    double[] other = rectangles.get(index);
+                    if (x < other[0] + other[2] && other[0] < x + width && y < other[1] + other[3] && other[1] < y + height) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Provides the number of added rectangles
+     *
+     * @return number of rectangles
+     */
+    public int size() {
+        return rectangles.size();
+    }
+
+    /**
+     * Provides the cell of the coordinate
+     *
+     * @param coordinate along either axis
+     * @return cell along the same axis
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Provides the key of the cell
+     *
+     * @param cx cell along the x axis
+     * @param cy cell along the y axis
+     * @return key of the cell
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
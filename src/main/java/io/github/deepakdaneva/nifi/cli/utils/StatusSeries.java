@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Status counters of the components of one kind, i.e. the connections, across the polls of the status. The counters of
+ * the current and of the previous poll are kept in primitive arrays indexed by the {@link IdIndex} of the component id,
+ * and the arrays are swapped on every poll, so once all the components are seen polling again allocates nothing.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class StatusSeries {
+
+    /**
+     * Flowfiles in over the last five minutes
+     */
+    public static final int FLOWFILES_IN = 0;
+    /**
+     * Bytes in over the last five minutes
+     */
+    public static final int BYTES_IN = 1;
+    /**
+     * Flowfiles out over the last five minutes
+     */
+    public static final int FLOWFILES_OUT = 2;
+    /**
+     * Bytes out over the last five minutes
+     */
+    public static final int BYTES_OUT = 3;
+    /**
+     * Flowfiles queued
+     */
+    public static final int FLOWFILES_QUEUED = 4;
+    /**
+     * Bytes queued
+     */
+    public static final int BYTES_QUEUED = 5;
+    /**
+     * Percentage of the back pressure threshold used, the higher of the object and the data size ones
+     */
+    public static final int PERCENT_USE = 6;
+    /**
+     * Active threads
+     */
+    public static final int ACTIVE_THREADS = 7;
+    /**
+     * Number of the counters of a component
+     */
+    public static final int METRICS = 8;
+    /**
+     * Indexes of the component ids
+     */
+    private final IdIndex ids = new IdIndex();
+    /**
+     * Counters of the current poll, {@link #METRICS} per component
+     */
+    private long[] current = new long[64 * METRICS];
+    /**
+     * Counters of the previous poll, {@link #METRICS} per component
+     */
+    private long[] previous = new long[64 * METRICS];
+    /**
+     * Last poll the components were seen in
+     */
+    private int[] lastSeen = new int[64];
+    /**
+     * First poll of the components since they are seen in every poll
+     */
+    private int[] firstSeen = new int[64];
+    /**
+     * Labels of the components
+     */
+    private String[] labels = new String[64];
+    /**
+     * Current poll, starting from {@code 1}
+     */
+    private int poll;
+    /**
+     * Number of the components seen in the current poll
+     */
+    private int present;
+    /**
+     * Scores of the heap used to find the top components
+     */
+    private long[] heapScores = new long[0];
+
+    /**
+     * Starts the next poll, the counters of the current poll become the previous ones
+     */
+    public void beginPoll() {
+        long[] swap = previous;
+        previous = current;
+        current = swap;
+        poll++;
+        present = 0;
+    }
+
+    /**
+     * Provides the index of the component, assigning one if the component is seen for the first time
+     *
+     * @param chars buffer holding the id of the component
+     * @param offset of the id in the buffer
+     * @param length of the id
+     * @return index of the component
+     */
+    public int indexOf(char[] chars, int offset, int length) {
+        int index = ids.indexOf(chars, offset, length);
+        if (index == lastSeen.length) {
+            int capacity = lastSeen.length * 2;
+            current = Arrays.copyOf(current, capacity * METRICS);
+            previous = Arrays.copyOf(previous, capacity * METRICS);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+            firstSeen = Arrays.copyOf(firstSeen, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        return index;
+    }
+
+    /**
+     * Records the counters of the component for the current poll
+     *
+     * @param index of the component
+     * @param counters of the component, {@link #METRICS} of them
+     */
+    public void record(int index, long[] counters) {
+        System.arraycopy(counters, 0, current, index * METRICS, METRICS);
+        if (lastSeen[index] != poll) {
+            present++;
+            // 0 marks never seen, as the first poll is 1
+            if (lastSeen[index] == 0 || lastSeen[index] != poll - 1) {
+                firstSeen[index] = poll;
+            }
+            lastSeen[index] = poll;
+        }
+    }
+
+    /**
+     * Whether the component has no label yet
+     *
+     * @param index of the component
+     * @return {@code true} if the label is to be set
+     */
+    public boolean isUnlabeled(int index) {
+        return labels[index] == null;
+    }
+
+    /**
+     * Sets the label of the component
+     *
+     * @param index of the component
+     * @param label of the component
+     */
+    public void setLabel(int index, String label) {
+        labels[index] = label;
+    }
+
+    /**
+     * Provides the label of the component
+     *
+     * @param index of the component
+     * @return label, {@code null} if not set
+     */
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    /**
+     * Provides the id of the component
+     *
+     * @param index of the component
+     * @return id of the component
+     */
+    public String getId(int index) {
+        return ids.getId(index);
+    }
+
+    /**
+     * Provides the number of the components seen in any poll, the indexes are below it
+     *
+     * @return number of the components
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Provides the number of the components seen in the current poll
+     *
+     * @return number of the components
+     */
+    public int getPresent() {
+        return present;
+    }
+
+    /**
+     * Whether the component is seen in the current poll
+     *
+     * @param index of the component
+     * @return {@code true} if present
+     */
+    public boolean isPresent(int index) {
+        return lastSeen[index] == poll;
+    }
+
+    /**
+     * Provides the counter of the component in the current poll
+     *
+     * @param index of the component
+     * @param metric of the counter, i.e. {@link #FLOWFILES_QUEUED}
+     * @return value of the counter
+     */
+    public long get(int index, int metric) {
+        return current[index * METRICS + metric];
+    }
+
+    /**
+     * Provides the change of the counter of the component since the previous poll, {@code 0} if the component was not
+     * in the previous poll
+     *
+     * @param index of the component
+     * @param metric of the counter, i.e. {@link #FLOWFILES_QUEUED}
+     * @return change of the counter
+     */
+    public long delta(int index, int metric) {
+        if (firstSeen[index] == poll) {
+            return 0;
+        }
+        return current[index * METRICS + metric] - previous[index * METRICS + metric];
+    }
+
+    /**
+     * Finds the components of the current poll with the highest scores using a bounded min-heap, so only the top ones
+     * are ordered
+     *
+     * @param score of the component by its index, higher comes first
+     * @param top to fill with the indexes of the components, highest score first, its length is the number to find
+     * @return number of the components filled in
+     */
+    public int top(IntToLongFunction score, int[] top) {
+        if (heapScores.length < top.length) {
+            heapScores = new long[top.length];
+        }
+        int size = 0;
+        for (int index = 0; index < ids.size() && top.length > 0; index++) {
+            if (lastSeen[index] != poll) {
+                continue;
+            }
+            long value = score.applyAsLong(index);
+            if (size < top.length) {
+                top[size] = index;
+                heapScores[size] = value;
+                siftUp(top, size++);
+            } else if (value > heapScores[0]) {
+                top[0] = index;
+                heapScores[0] = value;
+                siftDown(top, 0, size);
+            }
+        }
+        // repeatedly moving the lowest score to the end leaves the highest first
+        for (int end = size - 1; end > 0; end--) {
+            swap(top, 0, end);
+            siftDown(top, 0, end);
+        }
+        return size;
+    }
+
+    /**
+     * Moves the entry of the heap up until its parent is not higher
+     *
+     * @param heap indexes of the components
+     * @param position of the entry
+     */
+    private void siftUp(int[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (heapScores[parent] <= heapScores[position]) {
+                return;
+            }
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    /**
+     * Moves the entry of the heap down until its children are not lower
+     *
+     * @param heap indexes of the components
+     * @param position of the entry
+     * @param size of the heap
+     */
+    private void siftDown(int[] heap, int position, int size) {
+        while (true) {
+            int lowest = position;
+            int left = position * 2 + 1;
+            if (left < size && heapScores[left] < heapScores[lowest]) {
+                lowest = left;
+            }
+            if (left + 1 < size && heapScores[left + 1] < heapScores[lowest]) {
+                lowest = left + 1;
+            }
+            if (lowest == position) {
+                return;
+            }
+            swap(heap, position, lowest);
+            position = lowest;
+        }
+    }
+
+    /**
+     * Swaps two entries of the heap along with their scores
+     *
+     * @param heap indexes of the components
+     * @param i position of an entry
+     * @param j position of the other entry
+     */
+    private void swap(int[] heap, int i, int j) {
+        int index = heap[i];
+        heap[i] = heap[j];
+        heap[j] = index;
+        long score = heapScores[i];
+        heapScores[i] = heapScores[j];
+        heapScores[j] = score;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+/**
+ * Token bucket rate limiter. Tokens are reserved ahead, so a caller is told how long to wait for its token instead of
+ * being blocked by the bucket.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class TokenBucket {
+
+    /**
+     * Tokens added per nanosecond
+     */
+    private final double tokensPerNano;
+    /**
+     * Maximum number of tokens the bucket can hold
+     */
+    private final double capacity;
+    /**
+     * Available tokens, negative when tokens are reserved ahead
+     */
+    private double tokens;
+    /**
+     * Last time the bucket was refilled
+     */
+    private long lastRefillNanos;
+
+    /**
+     * Create instance with the provided rate and burst
+     *
+     * @param tokensPerSecond rate at which the tokens are added
+     * @param burst maximum number of tokens the bucket can hold
+     */
+    public TokenBucket(double tokensPerSecond, int burst) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst of the token bucket should be positive.");
+        }
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserves a token
+     *
+     * @return nanoseconds to wait before the reserved token is available, {@code 0} if available now
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+    }
+}
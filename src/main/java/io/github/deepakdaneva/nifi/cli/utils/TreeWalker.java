@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterative tree walker which expands sibling subtrees concurrently. Pending nodes are kept in a LIFO frontier so the
+ * memory held by the walker is bounded by the frontier instead of the whole tree, and at most {@code parallelism} nodes
+ * are expanded at the same time.
+ *
+ * @param <T> type of the tree node
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class TreeWalker<T> {
+
+    /**
+     * Sequence used to name the worker threads
+     */
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+    /**
+     * Maximum number of nodes expanded concurrently
+     */
+    private final int parallelism;
+
+    /**
+     * Create instance with the provided parallelism
+     *
+     * @param parallelism maximum number of nodes expanded concurrently, should not be less than 1
+     */
+    public TreeWalker(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism can not be less than 1.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walks the tree starting from the provided root node. Returns when every reachable node has been expanded, or
+     * throws the first failure raised by the expander after cancelling the in-flight expansions.
+     *
+     * @param root node to start walking from
+     * @param expander to expand a node into its children
+     * @throws Exception first exception raised by the expander
+     */
+    public void walk(T root, Expander<T> expander) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "tree-walker-" + THREAD_SEQUENCE.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Collection<T>> completionService = new ExecutorCompletionService<>(executor);
+        Deque<T> frontier = new ArrayDeque<>();
+        frontier.push(root);
+        int inFlight = 0;
+        try {
+            while (!frontier.isEmpty() || inFlight > 0) {
+                while (inFlight < parallelism && !frontier.isEmpty()) {
+                    T node = frontier.pop();
+                    completionService.submit(() -> expander.expand(node));
+                    inFlight++;
+                }
+                Future<Collection<T>> expanded = completionService.take();
+                inFlight--;
+                Collection<T> children = getChildren(expanded);
+                if (children != null) {
+                    for (T child : children) {
+                        frontier.push(child);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Provides the children of the completed expansion by unwrapping the failure if the expansion failed
+     *
+     * @param expanded completed expansion
+     * @return children of the expanded node
+     * @throws Exception raised by the expander
+     */
+    private Collection<T> getChildren(Future<Collection<T>> expanded) throws Exception {
+        try {
+            return expanded.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Expands a node of the tree into its children
+     *
+     * @param <T> type of the tree node
+     */
+    @FunctionalInterface
+    public interface Expander<T> {
+        /**
+         * Expand the provided node, this may be invoked concurrently for different nodes
+         *
+         * @param node to expand
+         * @return children of the node to walk next, {@code null} or empty if the node should not be descended into
+         * @throws Exception if expansion fails
+         */
+        Collection<T> expand(T node) throws Exception;
+    }
+}
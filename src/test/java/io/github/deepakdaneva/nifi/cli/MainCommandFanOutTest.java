@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli;
+
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs commands against two {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} clusters at once and checks that
+ * every cluster writes to a file of its own, and that the live flows of the clusters are compared with each other.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+class MainCommandFanOutTest {
+
+    /**
+     * Start of the exported time range
+     */
+    static final Instant START = Instant.parse("2023-10-01T00:00:00Z");
+    /**
+     * Directory of the inventory and the written files
+     */
+    static final Path DIRECTORY = Paths.get("target", "fan-out");
+
+    /**
+     * Exports the provenance of two clusters listed by an inventory into the same output option
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock servers fail
+     */
+    @Test
+    void provenanceExportWritesFilePerCluster(QuarkusMainLauncher launcher) throws Exception {
+        Path output = DIRECTORY.resolve("events.ndjson.gz");
+        try (MockNiFiServer east = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).provenance(events(3)).start(); MockNiFiServer west = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).provenance(events(5)).start()) {
+            Files.deleteIfExists(output);
+            LaunchResult result = launch(launcher, east, west, "provenance", "export", ProvenanceExport.Options.START + "=" + START, ProvenanceExport.Options.END + "=" + START.plusSeconds(3600), ProvenanceExport.Options.OUTPUT + "=" + output);
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertEquals(3, countLines(DIRECTORY.resolve("events.east.ndjson.gz")));
+            assertEquals(5, countLines(DIRECTORY.resolve("events.west.ndjson.gz")));
+            assertFalse(Files.exists(output), "Clusters wrote to the shared output.");
+            assertEquals(0, east.getProvenanceQueryCount(), "Provenance queries of east were not deleted.");
+            assertEquals(0, west.getProvenanceQueryCount(), "Provenance queries of west were not deleted.");
+        }
+    }
+
+    /**
+     * Compares the live flows of two clusters holding the same flow under different ids and positions, and then of two
+     * clusters holding different flows
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock servers fail
+     */
+    @Test
+    void diffComparesLiveFlowsOfClusters(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow.Builder flow = SyntheticFlow.builder().width(3).depth(2).mixedRatio(0);
+        try (MockNiFiServer east = new MockNiFiServer(flow.seed(1).build()).start(); MockNiFiServer west = new MockNiFiServer(flow.seed(2).build()).start(); MockNiFiServer changed = new MockNiFiServer(flow.seed(3).components(6, 1, 0, 1, 0).build()).start()) {
+            LaunchResult same = launch(launcher, east, west, "diff", "live:east", "live:west");
+            assertEquals(0, same.exitCode(), same::getErrorOutput);
+            assertTrue(same.getOutputStream().stream().noneMatch(MainCommandFanOutTest::isDifference), same::getOutput);
+            assertEquals(1, east.getRequestCount("GET /flow/process-groups/{id}"));
+            assertEquals(1, west.getRequestCount("GET /flow/process-groups/{id}"));
+
+            LaunchResult different = launch(launcher, east, changed, "diff", "live:east", "live:west");
+            assertEquals(0, different.exitCode(), different::getErrorOutput);
+            assertTrue(different.getOutputStream().stream().anyMatch(line -> line.startsWith("+ ") && line.endsWith("/processor 5 (processors)")), different::getOutput);
+        }
+    }
+
+    /**
+     * Runs the command against both clusters, listed by an inventory naming them {@code east} and {@code west}
+     *
+     * @param launcher to run the command with
+     * @param east first cluster
+     * @param west second cluster
+     * @param command to run along with its arguments
+     * @return result of the command
+     * @throws IOException if the inventory can not be written
+     */
+    private static LaunchResult launch(QuarkusMainLauncher launcher, MockNiFiServer east, MockNiFiServer west, String... command) throws IOException {
+        Files.createDirectories(DIRECTORY);
+        Path inventory = Files.write(DIRECTORY.resolve("inventory"), List.of("# clusters", "east " + east.getLocation(), "west " + west.getLocation()), StandardCharsets.UTF_8);
+        String[] args = Stream.concat(Stream.of(MainCommand.Options.INVENTORY + "=" + inventory, MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD), Arrays.stream(command)).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+
+    /**
+     * Whether the output line is a difference printed by the diff
+     *
+     * @param line of the output
+     * @return {@code true} if a line of the diff
+     */
+    private static boolean isDifference(String line) {
+        return line.startsWith("+ ") || line.startsWith("- ") || line.startsWith("~ ");
+    }
+
+    /**
+     * Provides the times of events a minute apart from the start of the range
+     *
+     * @param count number of events
+     * @return times of the events in epoch milliseconds
+     */
+    private static long[] events(int count) {
+        long[] events = new long[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = START.plusSeconds(60L * (i + 1)).toEpochMilli();
+        }
+        return events;
+    }
+
+    /**
+     * Counts the lines of the gzip compressed file
+     *
+     * @param file to read
+     * @return number of lines
+     * @throws IOException if the file can not be read
+     */
+    private static long countLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().count();
+        }
+    }
+}
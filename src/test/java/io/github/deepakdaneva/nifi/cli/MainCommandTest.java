@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a command against the {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} with the options of the top
+ * command recording the run, and checks what they write once the run ends.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+class MainCommandTest {
+
+    /**
+     * File the trace is written to
+     */
+    static final Path TRACE = Paths.get("target", "trace", "trace.json");
+
+    /**
+     * Prints the summary of the request metrics, counting every request the server received including the logout
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails or the summary is not a valid json
+     */
+    @Test
+    void metricsPrintsSummary(QuarkusMainLauncher launcher) throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(3).depth(2).build()).start()) {
+            LaunchResult result = align(launcher, server, MainCommand.Options.METRICS);
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            JsonNode summary = new ObjectMapper().readTree(summary(result.getOutputStream()));
+            assertEquals(server.getRequestCount(), summary.get("totalRequests").asLong(), result::getOutput);
+            assertEquals(0, summary.get("totalErrors").asLong(), result::getOutput);
+            assertEquals(0, summary.get("totalInFlight").asLong(), result::getOutput);
+            assertEquals(1, summary.at("/endpoints/getAccessToken/requests").asLong(), result::getOutput);
+            assertEquals(1, summary.at("/endpoints/logout/requests").asLong(), result::getOutput);
+            assertTrue(summary.at("/endpoints/getProcessGroupStatusStream/responseBytes").asLong() > 0, result::getOutput);
+        }
+    }
+
+    /**
+     * Writes the trace of the run, the span of the whole run ended and every request the server received recorded as a
+     * pair of async events
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails or the trace is not a valid json
+     */
+    @Test
+    void traceWritesRunTimeline(QuarkusMainLauncher launcher) throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(3).depth(2).build()).start()) {
+            Files.createDirectories(TRACE.getParent());
+            Files.deleteIfExists(TRACE);
+            LaunchResult result = align(launcher, server, MainCommand.Options.TRACE + "=" + TRACE);
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            List<JsonNode> events = StreamSupport.stream(new ObjectMapper().readTree(TRACE.toFile()).get("traceEvents").spliterator(), false).collect(Collectors.toList());
+            assertTrue(events.stream().anyMatch(event -> "nifi-cli align".equals(event.path("name").asText()) && "X".equals(event.path("ph").asText())), "Span of the run is missing.");
+            assertTrue(events.stream().anyMatch(event -> "logout".equals(event.path("name").asText()) && "command".equals(event.path("cat").asText())), "Span of the logout is missing.");
+            assertEquals(server.getRequestCount(), events.stream().filter(event -> "http".equals(event.path("cat").asText()) && "e".equals(event.path("ph").asText())).count());
+            assertEquals(server.getRequestCount(), events.stream().filter(event -> "http".equals(event.path("cat").asText()) && "b".equals(event.path("ph").asText())).count());
+            assertFalse(events.stream().anyMatch(event -> event.path("args").path("unfinished").asBoolean()), "Spans are left unfinished.");
+        }
+    }
+
+    /**
+     * Aligns the whole flow served by the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param options additional options of the top command
+     * @return result of the command
+     */
+    private static LaunchResult align(QuarkusMainLauncher launcher, MockNiFiServer server, String... options) {
+        String[] args = Stream.concat(Stream.concat(Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD), Arrays.stream(options)), Stream.of("align")).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+
+    /**
+     * Provides the json summary printed among the log lines of the output, from its opening to its closing line
+     *
+     * @param output lines of the command
+     * @return json summary
+     */
+    private static String summary(List<String> output) {
+        int start = output.indexOf("{");
+        int end = output.lastIndexOf("}");
+        assertTrue(start >= 0 && end > start, () -> String.join("\n", output));
+        return String.join("\n", output.subList(start, end + 1));
+    }
+}
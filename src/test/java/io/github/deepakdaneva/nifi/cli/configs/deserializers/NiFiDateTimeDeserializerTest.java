@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.configs.deserializers;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.configs.deserializers.NiFiDateTimeDeserializer} parses the dates in
+ * all the formats used by the NiFi to the same instants as the {@link java.text.SimpleDateFormat} formats it replaced,
+ * and rejects the values those formats would have rolled over to another day.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class NiFiDateTimeDeserializerTest {
+
+    /**
+     * {@code MM/dd/yyyy HH:mm:ss z}
+     */
+    static final String DATE_TIME_FORMAT = "MM/dd/yyyy HH:mm:ss z";
+    /**
+     * {@code MM/dd/yyyy HH:mm:ss.SSS z}
+     */
+    static final String TIMESTAMP_FORMAT = "MM/dd/yyyy HH:mm:ss.SSS z";
+
+    /**
+     * Parses dates with and without milliseconds in several zones
+     *
+     * @throws ParseException if the baseline format fails
+     */
+    @Test
+    void dateTimeMatchesSimpleDateFormat() throws ParseException {
+        for (String value : new String[] {"01/02/2023 03:04:05 UTC", "12/31/1999 23:59:59 GMT", "10/16/2023 13:37:00 PST", "06/30/2024 00:00:00 CET"}) {
+            assertEquals(baseline(DATE_TIME_FORMAT, value), NiFiDateTimeDeserializer.parse(value), value);
+        }
+        for (String value : new String[] {"01/02/2023 03:04:05.678 UTC", "12/31/1999 23:59:59.999 GMT", "10/16/2023 13:37:00.000 IST"}) {
+            assertEquals(baseline(TIMESTAMP_FORMAT, value), NiFiDateTimeDeserializer.parse(value), value);
+        }
+    }
+
+    /**
+     * Parses timestamps of one, two and three digits of milliseconds, read as a number of milliseconds and not as a
+     * fraction of the second
+     *
+     * @throws ParseException if the baseline format fails
+     */
+    @Test
+    void shortMilliseconds() throws ParseException {
+        Instant second = Instant.parse("2023-01-02T03:04:05Z");
+        String[] values = {"01/02/2023 03:04:05.7 UTC", "01/02/2023 03:04:05.67 UTC", "01/02/2023 03:04:05.678 UTC"};
+        long[] millis = {7, 67, 678};
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Date.from(second.plusMillis(millis[i])), NiFiDateTimeDeserializer.parse(values[i]), values[i]);
+            assertEquals(baseline(TIMESTAMP_FORMAT, values[i]), NiFiDateTimeDeserializer.parse(values[i]), values[i]);
+        }
+        assertNull(NiFiDateTimeDeserializer.parse("01/02/2023 03:04:05.6789 UTC"));
+        assertNull(NiFiDateTimeDeserializer.parse("01/02/2023 03:04:05. UTC"));
+    }
+
+    /**
+     * Parses the last days of the months, the days past the end of the month rejected instead of rolled over to the
+     * next month as the lenient {@link java.text.SimpleDateFormat} did
+     *
+     * @throws ParseException if the baseline format fails
+     */
+    @Test
+    void lastDaysOfMonths() throws ParseException {
+        assertEquals(baseline(DATE_TIME_FORMAT, "04/30/2023 12:00:00 UTC"), NiFiDateTimeDeserializer.parse("04/30/2023 12:00:00 UTC"));
+        assertNull(NiFiDateTimeDeserializer.parse("04/31/2023 12:00:00 UTC"), "Day 31 of a 30 days month.");
+        assertEquals(baseline(DATE_TIME_FORMAT, "02/29/2024 12:00:00 UTC"), NiFiDateTimeDeserializer.parse("02/29/2024 12:00:00 UTC"), "29 February of a leap year.");
+        assertNull(NiFiDateTimeDeserializer.parse("02/29/2023 12:00:00 UTC"), "29 February of a common year.");
+        assertNull(NiFiDateTimeDeserializer.parse("02/29/1900 12:00:00 UTC"), "29 February of a century not divisible by 400.");
+        assertEquals(baseline(DATE_TIME_FORMAT, "02/29/2000 12:00:00 UTC"), NiFiDateTimeDeserializer.parse("02/29/2000 12:00:00 UTC"), "29 February of a century divisible by 400.");
+        assertNull(NiFiDateTimeDeserializer.parse("13/01/2023 12:00:00 UTC"));
+        assertNull(NiFiDateTimeDeserializer.parse("01/01/2023 24:00:00 UTC"));
+    }
+
+    /**
+     * Parses the standard and the daylight names of a zone, each one with its own offset whatever the date, and
+     * rejects the unknown names
+     *
+     * @throws ParseException if the baseline format fails
+     */
+    @Test
+    void zoneNames() throws ParseException {
+        for (String date : new String[] {"01/15/2023 12:00:00 ", "07/15/2023 12:00:00 "}) {
+            assertEquals(Instant.parse(date.substring(6, 10) + "-" + date.substring(0, 2) + "-15T17:00:00Z"), NiFiDateTimeDeserializer.parse(date + "EST").toInstant(), date + "EST");
+            assertEquals(Instant.parse(date.substring(6, 10) + "-" + date.substring(0, 2) + "-15T16:00:00Z"), NiFiDateTimeDeserializer.parse(date + "EDT").toInstant(), date + "EDT");
+            assertEquals(baseline(DATE_TIME_FORMAT, date + "EST"), NiFiDateTimeDeserializer.parse(date + "EST"));
+            assertEquals(baseline(DATE_TIME_FORMAT, date + "EDT"), NiFiDateTimeDeserializer.parse(date + "EDT"));
+        }
+        assertNull(NiFiDateTimeDeserializer.parse("01/15/2023 12:00:00 XYZ"));
+        assertNull(NiFiDateTimeDeserializer.parse("01/15/2023 12:00:00 ESTX"));
+        assertNull(NiFiDateTimeDeserializer.parse("12:00:00 XYZ"));
+        assertNull(NiFiDateTimeDeserializer.parse("XYZ"));
+    }
+
+    /**
+     * Parses a time, considered of today in the default zone
+     */
+    @Test
+    void timeOfToday() {
+        ZoneId zone = TimeZone.getDefault().toZoneId();
+        LocalDate before = LocalDate.now(zone);
+        Date date = NiFiDateTimeDeserializer.parse("13:37:42 UTC");
+        LocalDate after = LocalDate.now(zone);
+        assertNotNull(date);
+        LocalDateTime parsed = LocalDateTime.ofInstant(date.toInstant(), zone);
+        assertEquals(LocalTime.of(13, 37, 42), parsed.toLocalTime());
+        assertTrue(parsed.toLocalDate().equals(before) || parsed.toLocalDate().equals(after), parsed::toString);
+        assertNull(NiFiDateTimeDeserializer.parse("25:00:00 UTC"));
+    }
+
+    /**
+     * Parses a zone alone, considered as now
+     */
+    @Test
+    void zoneIsNow() {
+        Date date = NiFiDateTimeDeserializer.parse("UTC");
+        assertNotNull(date);
+        assertTrue(Duration.between(date.toInstant(), Instant.now()).abs().getSeconds() < 5, date::toString);
+        assertNull(NiFiDateTimeDeserializer.parse(null));
+        assertNull(NiFiDateTimeDeserializer.parse(""));
+    }
+
+    /**
+     * Parses the value using the {@link java.text.SimpleDateFormat} the deserializer replaced
+     *
+     * @param pattern of the format
+     * @param value to parse
+     * @return parsed date
+     * @throws ParseException if the value is not in the format
+     */
+    private static Date baseline(String pattern, String value) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getDefault());
+        return format.parse(value);
+    }
+}
@@ -0,0 +1,2008 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.mock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process mock of the {@code /nifi-api} endpoints used by {@link io.github.deepakdaneva.nifi.cli.services.NiFiService}
+ * serving a {@link io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow}. The latency of the responses, the ratio of the
+ * requests failing with an error status, the number of the next ones rejected, the expiry of the access token and the
+ * ratio of the updates racing with an edit of another user are configurable, the revisions of the updates are checked like by the NiFi and the requests are counted by endpoint. The
+ * components are connected in a chain of processors, input ports, output ports and funnels, can be moved, and the
+ * processors and the ports can be scheduled at once by process group or one by one. The process groups replaced by a
+ * flow definition are downloaded as replaced, their status and flow are left as they are. The provenance queries are
+ * answered from the configured event times, finished as soon as they are submitted, and the flow definitions are
+ * generated from the flow. The connections have the configured number of flowfiles queued until dropped, their listing
+ * and drop requests finish after the configured number of polls.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public class MockNiFiServer implements AutoCloseable {
+
+    /**
+     * Username accepted by the server
+     */
+    public static final String USERNAME = "admin";
+    /**
+     * Password accepted by the server
+     */
+    public static final String PASSWORD = "password";
+    /**
+     * Access token issued by the server until it expires
+     */
+    public static final String ACCESS_TOKEN = "mock-access-token";
+    /**
+     * Flow process group endpoint
+     */
+    private static final Pattern FLOW_PATH = Pattern.compile("/nifi-api/flow/process-groups/([^/]+)");
+    /**
+     * Process group status endpoint
+     */
+    private static final Pattern STATUS_PATH = Pattern.compile("/nifi-api/flow/process-groups/([^/]+)/status");
+    /**
+     * Process group endpoint
+     */
+    private static final Pattern PROCESS_GROUP_PATH = Pattern.compile("/nifi-api/process-groups/([^/]+)");
+    /**
+     * Flow definition download endpoint
+     */
+    private static final Pattern DOWNLOAD_PATH = Pattern.compile("/nifi-api/process-groups/([^/]+)/download");
+    /**
+     * Replace request creation endpoint
+     */
+    private static final Pattern REPLACE_PATH = Pattern.compile("/nifi-api/process-groups/([^/]+)/replace-requests");
+    /**
+     * Replace request endpoint
+     */
+    private static final Pattern REPLACE_REQUEST_PATH = Pattern.compile("/nifi-api/process-groups/replace-requests/([^/]+)");
+    /**
+     * Listing and drop request creation endpoint
+     */
+    private static final Pattern QUEUE_PATH = Pattern.compile("/nifi-api/flowfile-queues/([^/]+)/(listing-requests|drop-requests)");
+    /**
+     * Listing and drop request endpoint
+     */
+    private static final Pattern QUEUE_REQUEST_PATH = Pattern.compile("/nifi-api/flowfile-queues/([^/]+)/(listing-requests|drop-requests)/([^/]+)");
+    /**
+     * Provenance query endpoint
+     */
+    private static final Pattern PROVENANCE_PATH = Pattern.compile("/nifi-api/provenance/([^/]+)");
+    /**
+     * Component endpoint of the component types other than the process groups
+     */
+    private static final Pattern COMPONENT_PATH = Pattern.compile("/nifi-api/(processors|input-ports|output-ports|funnels|remote-process-groups|connections)/([^/]+)");
+    /**
+     * Run status endpoint of the processors and the ports
+     */
+    private static final Pattern RUN_STATUS_PATH = Pattern.compile("/nifi-api/(processors|input-ports|output-ports)/([^/]+)/run-status");
+    /**
+     * Types of the components, as part of their ids, by their resources
+     */
+    private static final Map<String, String> COMPONENT_TYPES = Map.of("processors", "processor", "input-ports", "input-port", "output-ports", "output-port", "funnels", "funnel", "remote-process-groups", "remote-process-group", "connections", "connection");
+    /**
+     * Types of the components which are scheduled
+     */
+    private static final List<String> SCHEDULED_TYPES = List.of("processor", "input-port", "output-port");
+    /**
+     * Format of the dates of the provenance queries
+     */
+    private static final DateTimeFormatter QUERY_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss 'UTC'", Locale.US);
+    /**
+     * Format of the times of the provenance events
+     */
+    private static final DateTimeFormatter EVENT_TIME_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss.SSS 'UTC'", Locale.US).withZone(ZoneOffset.UTC);
+    /**
+     * Size of every queued flowfile in bytes
+     */
+    private static final long FLOWFILE_SIZE = 1024;
+    /**
+     * Maximum number of flowfiles listed, like by the NiFi
+     */
+    private static final int MAX_LISTED = 100;
+    /**
+     * Flow served
+     */
+    private final SyntheticFlow flow;
+    /**
+     * Json mapper to read the request bodies
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Json factory to stream the response bodies
+     */
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+    /**
+     * Http server
+     */
+    private final HttpServer server;
+    /**
+     * Threads handling the requests
+     */
+    private final ExecutorService executor;
+    /**
+     * Number of requests by endpoint
+     */
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    /**
+     * Fixed latency of the responses in milliseconds
+     */
+    private volatile long latencyMillis;
+    /**
+     * Maximum random latency added to the fixed latency in milliseconds
+     */
+    private volatile long jitterMillis;
+    /**
+     * Ratio of the process group requests failing with the error status
+     */
+    private volatile double errorRatio;
+    /**
+     * Status of the failing requests
+     */
+    private volatile int errorStatus = 503;
+    /**
+     * Number of the next process group requests failing with the rejection status
+     */
+    private final AtomicInteger rejections = new AtomicInteger();
+    /**
+     * Status of the rejected requests
+     */
+    private volatile int rejectionStatus = 429;
+    /**
+     * Access token accepted and issued by the server
+     */
+    private volatile String accessToken = ACCESS_TOKEN;
+    /**
+     * Number of times the access token expired
+     */
+    private final AtomicInteger expirations = new AtomicInteger();
+    /**
+     * Ratio of the process groups and components edited by another user just before they are updated the first time
+     */
+    private volatile double concurrentEditRatio;
+    /**
+     * Process groups already updated, they are not edited by another user anymore
+     */
+    private final Set<String> updatedGroups = ConcurrentHashMap.newKeySet();
+    /**
+     * Whether the revisions of the updates are checked
+     */
+    private volatile boolean revisionCheck = true;
+    /**
+     * Times of the provenance events in epoch milliseconds, sorted
+     */
+    private volatile long[] provenanceEvents = new long[0];
+    /**
+     * Provenance queries not deleted yet by their ids
+     */
+    private final Map<String, ProvenanceQuery> provenanceQueries = new ConcurrentHashMap<>();
+    /**
+     * Sequence of the provenance query ids
+     */
+    private final AtomicLong provenanceQuerySequence = new AtomicLong();
+    /**
+     * Components updated at least once by their ids, the others are at their initial position with the initial revision
+     */
+    private final Map<String, Component> components = new ConcurrentHashMap<>();
+    /**
+     * Initial run status of the processors and the ports
+     */
+    private volatile String runStatus = "Running";
+    /**
+     * Ids of the components whose run status never changes
+     */
+    private final Set<String> stuck = ConcurrentHashMap.newKeySet();
+    /**
+     * Flow definitions the process groups were replaced with by their ids, downloaded as they are
+     */
+    private final Map<String, JsonNode> replacedDefinitions = new ConcurrentHashMap<>();
+    /**
+     * Process group ids of the replace requests not deleted yet by the request ids
+     */
+    private final Map<String, String> replaceRequests = new ConcurrentHashMap<>();
+    /**
+     * Sequence of the replace request ids
+     */
+    private final AtomicLong replaceRequestSequence = new AtomicLong();
+    /**
+     * Number of flowfiles queued in every connection not dropped yet
+     */
+    private volatile long queuedFlowFiles;
+    /**
+     * Number of polls after which the listing and drop requests finish
+     */
+    private volatile int queueRequestPolls;
+    /**
+     * Ids of the connections whose flowfiles were dropped
+     */
+    private final Set<String> droppedQueues = ConcurrentHashMap.newKeySet();
+    /**
+     * Listing and drop requests not deleted yet by their ids
+     */
+    private final Map<String, QueueRequest> queueRequests = new ConcurrentHashMap<>();
+    /**
+     * Sequence of the listing and drop request ids
+     */
+    private final AtomicLong queueRequestSequence = new AtomicLong();
+
+    /**
+     * Create instance serving the provided flow on a random port of the loopback address, with as many threads as the
+     * NiFi has by default
+     *
+     * @param flow to serve
+     * @throws IOException if the server can not be created
+     */
+    public MockNiFiServer(SyntheticFlow flow) throws IOException {
+        this.flow = flow;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(32);
+        server.setExecutor(executor);
+        server.createContext("/nifi-api/", this::handle);
+    }
+
+    /**
+     * Starts the server
+     *
+     * @return this server
+     */
+    public MockNiFiServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Provides the base url of the server to be used as the NiFi location
+     *
+     * @return base url
+     */
+    public String getLocation() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Provides the flow served
+     *
+     * @return flow served
+     */
+    public SyntheticFlow getFlow() {
+        return flow;
+    }
+
+    /**
+     * Delays every response
+     *
+     * @param latencyMillis fixed latency in milliseconds
+     * @param jitterMillis maximum random latency added to the fixed latency in milliseconds
+     * @return this server
+     */
+    public MockNiFiServer latency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Fails the provided ratio of the process group requests, the authentication and the logout never fail
+     *
+     * @param errorRatio between {@code 0} and {@code 1}
+     * @param errorStatus status of the failing requests, i.e. {@code 503} when the NiFi is overloaded
+     * @return this server
+     */
+    public MockNiFiServer errors(double errorRatio, int errorStatus) {
+        this.errorRatio = errorRatio;
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Fails the next process group requests, unlike {@link #errors(double, int)} the number of failures is known
+     *
+     * @param count number of the next process group requests failing
+     * @param status of the failing requests, i.e. {@code 429} when the NiFi rate limits the requests
+     * @return this server
+     */
+    public MockNiFiServer reject(int count, int status) {
+        this.rejectionStatus = status;
+        this.rejections.set(count);
+        return this;
+    }
+
+    /**
+     * Expires the access token issued so far, the requests sending it are rejected with {@code 401} and the next
+     * authentication issues another one
+     *
+     * @return this server
+     */
+    public MockNiFiServer expireAccessToken() {
+        accessToken = ACCESS_TOKEN + "-" + expirations.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Edits the provided ratio of the process groups and components just before they are updated the first time, so the
+     * update is rejected as its revision is stale and the retry with the latest revision succeeds
+     *
+     * @param concurrentEditRatio between {@code 0} and {@code 1}
+     * @return this server
+     */
+    public MockNiFiServer concurrentEdits(double concurrentEditRatio) {
+        this.concurrentEditRatio = concurrentEditRatio;
+        return this;
+    }
+
+    /**
+     * Whether the revisions of the updates are checked
+     *
+     * @param revisionCheck {@code false} to accept updates of stale revisions
+     * @return this server
+     */
+    public MockNiFiServer revisionCheck(boolean revisionCheck) {
+        this.revisionCheck = revisionCheck;
+        return this;
+    }
+
+    /**
+     * Provenance events to be queried
+     *
+     * @param eventMillis times of the events in epoch milliseconds
+     * @return this server
+     */
+    public MockNiFiServer provenance(long... eventMillis) {
+        long[] sorted = eventMillis.clone();
+        Arrays.sort(sorted);
+        this.provenanceEvents = sorted;
+        return this;
+    }
+
+    /**
+     * Initial run status of the processors and the ports
+     *
+     * @param runStatus i.e. {@code Stopped}
+     * @return this server
+     */
+    public MockNiFiServer runStatus(String runStatus) {
+        this.runStatus = runStatus;
+        return this;
+    }
+
+    /**
+     * Components whose run status never changes, the requests scheduling them succeed nevertheless, and connections
+     * whose listing and drop requests never finish
+     *
+     * @param ids of the components
+     * @return this server
+     */
+    public MockNiFiServer stuck(String... ids) {
+        stuck.addAll(Arrays.asList(ids));
+        return this;
+    }
+
+    /**
+     * Queues flowfiles in every connection, until they are dropped
+     *
+     * @param flowFiles number of flowfiles queued in every connection
+     * @param polls number of polls after which the listing and drop requests finish, {@code 0} to finish them as soon
+     * as they are created
+     * @return this server
+     */
+    public MockNiFiServer queued(long flowFiles, int polls) {
+        this.queuedFlowFiles = flowFiles;
+        this.queueRequestPolls = polls;
+        return this;
+    }
+
+    /**
+     * Provides the number of processors and ports of the flow in the run status
+     *
+     * @param runStatus i.e. {@code Running}
+     * @return number of components in the run status
+     */
+    public long getRunStatusCount(String runStatus) {
+        long count = 0;
+        Deque<SyntheticFlow.Group> pending = new ArrayDeque<>();
+        pending.push(flow.getRoot());
+        while (!pending.isEmpty()) {
+            SyntheticFlow.Group group = pending.pop();
+            for (String type : SCHEDULED_TYPES) {
+                for (int i = 0; i < componentCount(group, type); i++) {
+                    if (runStatus.equals(runStatusOf(group, type, i))) {
+                        count++;
+                    }
+                }
+            }
+            group.getChildren().forEach(pending::push);
+        }
+        return count;
+    }
+
+    /**
+     * Provides the number of replace requests created and not deleted yet
+     *
+     * @return number of replace requests left on the server
+     */
+    public int getReplaceRequestCount() {
+        return replaceRequests.size();
+    }
+
+    /**
+     * Provides the number of listing or drop requests created and not deleted yet
+     *
+     * @param drop {@code true} for the drop requests, {@code false} for the listing requests
+     * @return number of requests left on the server
+     */
+    public long getQueueRequestCount(boolean drop) {
+        return queueRequests.values().stream().filter(request -> request.drop == drop).count();
+    }
+
+    /**
+     * Provides the number of connections whose flowfiles were dropped
+     *
+     * @return number of dropped queues
+     */
+    public int getDroppedQueueCount() {
+        return droppedQueues.size();
+    }
+
+    /**
+     * Provides the number of provenance queries submitted and not deleted yet
+     *
+     * @return number of provenance queries left on the server
+     */
+    public int getProvenanceQueryCount() {
+        return provenanceQueries.size();
+    }
+
+    /**
+     * Provides the number of requests by endpoint, i.e. {@code PUT /process-groups/{id}}
+     *
+     * @return number of requests by endpoint
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requests.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Provides the number of requests of the endpoint
+     *
+     * @param endpoint i.e. {@code PUT /process-groups/{id}}
+     * @return number of requests
+     */
+    public long getRequestCount(String endpoint) {
+        LongAdder count = requests.get(endpoint);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Provides the number of requests of all the endpoints
+     *
+     * @return number of requests
+     */
+    public long getRequestCount() {
+        return requests.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Resets the request counts
+     */
+    public void resetRequestCounts() {
+        requests.clear();
+    }
+
+    /**
+     * Stops the server
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Routes the request to its endpoint
+     *
+     * @param exchange of the request
+     * @throws IOException if the response can not be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            delay();
+            if ("POST".equals(method) && "/nifi-api/access/token".equals(path)) {
+                count("POST /access/token");
+                accessToken(exchange);
+                return;
+            }
+            if (!("Bearer " + accessToken).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                sendText(exchange, 401, "Unable to validate the access token.");
+                return;
+            }
+            if ("DELETE".equals(method) && "/nifi-api/access/logout".equals(path)) {
+                count("DELETE /access/logout");
+                sendText(exchange, 200, "");
+                return;
+            }
+            Matcher status = STATUS_PATH.matcher(path);
+            Matcher flowMatcher = FLOW_PATH.matcher(path);
+            Matcher processGroup = PROCESS_GROUP_PATH.matcher(path);
+            Matcher download = DOWNLOAD_PATH.matcher(path);
+            Matcher provenance = PROVENANCE_PATH.matcher(path);
+            Matcher component = COMPONENT_PATH.matcher(path);
+            Matcher runStatusMatcher = RUN_STATUS_PATH.matcher(path);
+            Matcher replace = REPLACE_PATH.matcher(path);
+            Matcher replaceRequest = REPLACE_REQUEST_PATH.matcher(path);
+            Matcher queue = QUEUE_PATH.matcher(path);
+            Matcher queueRequest = QUEUE_REQUEST_PATH.matcher(path);
+            if ("GET".equals(method) && status.matches()) {
+                count("GET /flow/process-groups/{id}/status");
+                if (!failed(exchange)) {
+                    status(exchange, status.group(1), "true".equals(queryParam(exchange.getRequestURI(), "recursive")));
+                }
+            } else if ("GET".equals(method) && flowMatcher.matches()) {
+                count("GET /flow/process-groups/{id}");
+                if (!failed(exchange)) {
+                    flow(exchange, flowMatcher.group(1));
+                }
+            } else if ("PUT".equals(method) && flowMatcher.matches()) {
+                count("PUT /flow/process-groups/{id}");
+                if (!failed(exchange)) {
+                    scheduleComponents(exchange, flowMatcher.group(1));
+                }
+            } else if ("POST".equals(method) && replace.matches()) {
+                count("POST /process-groups/{id}/replace-requests");
+                if (!failed(exchange)) {
+                    replace(exchange, replace.group(1));
+                }
+            } else if ("GET".equals(method) && replaceRequest.matches()) {
+                count("GET /process-groups/replace-requests/{id}");
+                if (!failed(exchange)) {
+                    replaceRequest(exchange, replaceRequest.group(1));
+                }
+            } else if ("DELETE".equals(method) && replaceRequest.matches()) {
+                count("DELETE /process-groups/replace-requests/{id}");
+                if (replaceRequests.containsKey(replaceRequest.group(1))) {
+                    replaceRequest(exchange, replaceRequest.group(1));
+                    replaceRequests.remove(replaceRequest.group(1));
+                } else {
+                    sendText(exchange, 404, "Unable to find replace request with id '" + replaceRequest.group(1) + "'.");
+                }
+            } else if ("GET".equals(method) && processGroup.matches()) {
+                count("GET /process-groups/{id}");
+                if (!failed(exchange)) {
+                    processGroup(exchange, processGroup.group(1));
+                }
+            } else if ("PUT".equals(method) && processGroup.matches()) {
+                count("PUT /process-groups/{id}");
+                if (!failed(exchange)) {
+                    updateProcessGroup(exchange, processGroup.group(1));
+                }
+            } else if ("GET".equals(method) && component.matches()) {
+                count("GET /{resource}/{id}");
+                if (!failed(exchange)) {
+                    component(exchange, component.group(1), component.group(2));
+                }
+            } else if ("PUT".equals(method) && component.matches()) {
+                count("PUT /{resource}/{id}");
+                if (!failed(exchange)) {
+                    updateComponent(exchange, component.group(1), component.group(2));
+                }
+            } else if ("PUT".equals(method) && runStatusMatcher.matches()) {
+                count("PUT /{resource}/{id}/run-status");
+                if (!failed(exchange)) {
+                    updateRunStatus(exchange, runStatusMatcher.group(1), runStatusMatcher.group(2));
+                }
+            } else if ("GET".equals(method) && download.matches()) {
+                count("GET /process-groups/{id}/download");
+                if (!failed(exchange)) {
+                    download(exchange, download.group(1));
+                }
+            } else if ("POST".equals(method) && queue.matches()) {
+                count("POST /flowfile-queues/{id}/" + queue.group(2));
+                if (!failed(exchange)) {
+                    submitQueueRequest(exchange, queue.group(1), "drop-requests".equals(queue.group(2)));
+                }
+            } else if ("GET".equals(method) && queueRequest.matches()) {
+                count("GET /flowfile-queues/{id}/" + queueRequest.group(2) + "/{requestId}");
+                if (!failed(exchange)) {
+                    queueRequest(exchange, queueRequest.group(3));
+                }
+            } else if ("DELETE".equals(method) && queueRequest.matches()) {
+                count("DELETE /flowfile-queues/{id}/" + queueRequest.group(2) + "/{requestId}");
+                QueueRequest request = queueRequests.remove(queueRequest.group(3));
+                if (request != null) {
+                    writeQueueRequest(exchange, request);
+                } else {
+                    sendText(exchange, 404, "Unable to find request with id '" + queueRequest.group(3) + "'.");
+                }
+            } else if ("POST".equals(method) && "/nifi-api/provenance".equals(path)) {
+                count("POST /provenance");
+                if (!failed(exchange)) {
+                    submitProvenance(exchange);
+                }
+            } else if ("GET".equals(method) && provenance.matches()) {
+                count("GET /provenance/{id}");
+                if (!failed(exchange)) {
+                    provenance(exchange, provenance.group(1));
+                }
+            } else if ("DELETE".equals(method) && provenance.matches()) {
+                count("DELETE /provenance/{id}");
+                if (provenanceQueries.remove(provenance.group(1)) != null) {
+                    sendText(exchange, 200, "");
+                } else {
+                    sendText(exchange, 404, "Unable to find provenance query with id '" + provenance.group(1) + "'.");
+                }
+            } else {
+                count(method + " " + path);
+                sendText(exchange, 404, "Not found: " + method + " " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Issues the access token if the credentials are valid
+     *
+     * @param exchange of the request
+     * @throws IOException if the response can not be sent
+     */
+    private void accessToken(HttpExchange exchange) throws IOException {
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (form.contains("username=" + USERNAME) && form.contains("password=" + PASSWORD)) {
+            sendText(exchange, 201, accessToken);
+        } else {
+            sendText(exchange, 400, "The supplied username and password are not valid.");
+        }
+    }
+
+    /**
+     * Sends the status of the process group
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @param recursive whether to include the status of all the descendant process groups
+     * @throws IOException if the response can not be sent
+     */
+    private void status(HttpExchange exchange, String id, boolean recursive) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("processGroupStatus");
+            json.writeStringField("id", group.getId());
+            json.writeStringField("name", group.getName());
+            json.writeStringField("statsLastRefreshed", "12:00:00 UTC");
+            json.writeFieldName("aggregateSnapshot");
+            writeStatusSnapshot(json, group, recursive ? Integer.MAX_VALUE : 1);
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Sends the flow of the process group
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void flow(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("processGroupFlow");
+            json.writeStringField("id", group.getId());
+            json.writeStringField("uri", "/nifi-api/flow/process-groups/" + group.getId());
+            json.writeStringField("parentGroupId", group.getParentId());
+            json.writeObjectFieldStart("flow");
+            json.writeArrayFieldStart("processGroups");
+            for (SyntheticFlow.Group child : group.getChildren()) {
+                writeProcessGroupEntity(json, child);
+            }
+            json.writeEndArray();
+            writeComponents(json, "processors", group, group.getProcessors(), "processor");
+            writeComponents(json, "inputPorts", group, group.getInputPorts(), "input-port");
+            writeComponents(json, "outputPorts", group, group.getOutputPorts(), "output-port");
+            writeComponents(json, "connections", group, group.getConnections(), "connection");
+            writeComponents(json, "remoteProcessGroups", group, group.getRemoteProcessGroups(), "remote-process-group");
+            writeComponents(json, "funnels", group, group.getFunnels(), "funnel");
+            writeComponents(json, "labels", group, group.getLabels(), "label");
+            json.writeEndObject();
+            json.writeStringField("lastRefreshed", "12:00:00 UTC");
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Sends the process group
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void processGroup(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            writeProcessGroupEntity(json, group);
+        }
+    }
+
+    /**
+     * Moves the process group if the revision of the update is the current one
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void updateProcessGroup(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        JsonNode entity;
+        try (InputStream body = exchange.getRequestBody()) {
+            entity = objectMapper.readTree(body);
+        }
+        JsonNode version = entity.path("revision").path("version");
+        JsonNode position = entity.path("component").path("position");
+        if (!entity.path("component").path("id").asText().equals(group.getId()) || !position.isObject()) {
+            sendText(exchange, 400, "The process group id and position are required.");
+            return;
+        }
+        if (!version.isIntegralNumber()) {
+            sendText(exchange, 400, "Revision must be specified.");
+            return;
+        }
+        if (updatedGroups.add(group.getId()) && ThreadLocalRandom.current().nextDouble() < concurrentEditRatio) {
+            group.touch();
+        }
+        if (!group.move(revisionCheck ? version.asLong() : null, position.path("x").asDouble(), position.path("y").asDouble())) {
+            sendText(exchange, 409, "[" + version.asLong() + ", null, " + group.getId() + "] is not the most up-to-date revision. This component appears to have been modified");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            writeProcessGroupEntity(json, group);
+        }
+    }
+
+    /**
+     * Sends the component
+     *
+     * @param exchange of the request
+     * @param resource of the component type
+     * @param id of the component
+     * @throws IOException if the response can not be sent
+     */
+    private void component(HttpExchange exchange, String resource, String id) throws IOException {
+        Component component = findComponent(resource, id);
+        if (component == null) {
+            sendText(exchange, 404, "Unable to find component with id '" + id + "'.");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            writeComponent(json, component);
+        }
+    }
+
+    /**
+     * Moves the component, or sets the bends of the connection, if the revision of the update is the current one
+     *
+     * @param exchange of the request
+     * @param resource of the component type
+     * @param id of the component
+     * @throws IOException if the response can not be sent
+     */
+    private void updateComponent(HttpExchange exchange, String resource, String id) throws IOException {
+        Component found = findComponent(resource, id);
+        if (found == null) {
+            sendText(exchange, 404, "Unable to find component with id '" + id + "'.");
+            return;
+        }
+        JsonNode entity;
+        try (InputStream body = exchange.getRequestBody()) {
+            entity = objectMapper.readTree(body);
+        }
+        JsonNode version = entity.path("revision").path("version");
+        JsonNode position = entity.path("component").path("position");
+        JsonNode bends = entity.path("component").path("bends");
+        if (!entity.path("component").path("id").asText().equals(id) || !position.isObject() && !bends.isArray()) {
+            sendText(exchange, 400, "The component id and position are required.");
+            return;
+        }
+        if (!version.isIntegralNumber()) {
+            sendText(exchange, 400, "Revision must be specified.");
+            return;
+        }
+        Component component = components.putIfAbsent(id, found);
+        boolean first = component == null;
+        if (first) {
+            component = found;
+        }
+        synchronized (component) {
+            if (first && ThreadLocalRandom.current().nextDouble() < concurrentEditRatio) {
+                component.version++;
+            }
+            if (revisionCheck && version.asLong() != component.version) {
+                sendText(exchange, 409, "[" + version.asLong() + ", null, " + id + "] is not the most up-to-date revision. This component appears to have been modified");
+                return;
+            }
+            if (position.isObject()) {
+                component.x = position.path("x").asDouble();
+                component.y = position.path("y").asDouble();
+            }
+            if (bends.isArray()) {
+                component.bendCount = bends.size();
+            }
+            component.version++;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            writeComponent(json, component);
+        }
+    }
+
+    /**
+     * Schedules the processors and the ports of the process group and of its descendants to the state of the request,
+     * the ones not eligible to the state are left as they are like by the NiFi
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void scheduleComponents(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group root = flow.getGroup(id);
+        if (root == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        JsonNode entity;
+        try (InputStream body = exchange.getRequestBody()) {
+            entity = objectMapper.readTree(body);
+        }
+        String state = entity.path("state").asText();
+        if (!List.of("RUNNING", "STOPPED", "ENABLED", "DISABLED").contains(state)) {
+            sendText(exchange, 400, "The state must be one of [RUNNING, STOPPED, ENABLED, DISABLED].");
+            return;
+        }
+        Deque<SyntheticFlow.Group> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            SyntheticFlow.Group group = pending.pop();
+            for (String type : SCHEDULED_TYPES) {
+                for (int i = 0; i < componentCount(group, type); i++) {
+                    int index = i;
+                    Component component = components.computeIfAbsent(componentId(group, type, i), key -> new Component(group, type, index, runStatus));
+                    synchronized (component) {
+                        schedule(component, state);
+                    }
+                }
+            }
+            group.getChildren().forEach(pending::push);
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeStringField("id", id);
+            json.writeStringField("state", state);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Schedules the processor or the port to the state of the request if the revision of the request is the current one
+     *
+     * @param exchange of the request
+     * @param resource of the component type
+     * @param id of the component
+     * @throws IOException if the response can not be sent
+     */
+    private void updateRunStatus(HttpExchange exchange, String resource, String id) throws IOException {
+        Component found = findComponent(resource, id);
+        if (found == null) {
+            sendText(exchange, 404, "Unable to find component with id '" + id + "'.");
+            return;
+        }
+        JsonNode entity;
+        try (InputStream body = exchange.getRequestBody()) {
+            entity = objectMapper.readTree(body);
+        }
+        JsonNode version = entity.path("revision").path("version");
+        String state = entity.path("state").asText();
+        if (!List.of("RUNNING", "STOPPED", "DISABLED").contains(state)) {
+            sendText(exchange, 400, "The run status must be one of [RUNNING, STOPPED, DISABLED].");
+            return;
+        }
+        if (!version.isIntegralNumber()) {
+            sendText(exchange, 400, "Revision must be specified.");
+            return;
+        }
+        Component component = components.putIfAbsent(id, found);
+        boolean first = component == null;
+        if (first) {
+            component = found;
+        }
+        synchronized (component) {
+            if (first && ThreadLocalRandom.current().nextDouble() < concurrentEditRatio) {
+                component.version++;
+            }
+            if (revisionCheck && version.asLong() != component.version) {
+                sendText(exchange, 409, "[" + version.asLong() + ", null, " + id + "] is not the most up-to-date revision. This component appears to have been modified");
+                return;
+            }
+            // stopping a disabled component enables it
+            schedule(component, "STOPPED".equals(state) && "Disabled".equals(component.runStatus) ? "ENABLED" : state);
+            component.version++;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            writeComponent(json, component);
+        }
+    }
+
+    /**
+     * Changes the run status of the component to the state if it is eligible, the caller holds the lock of the
+     * component
+     *
+     * @param component to schedule
+     * @param state of the request
+     */
+    private void schedule(Component component, String state) {
+        String id = componentId(component.group, component.type, component.index);
+        if (stuck.contains(id)) {
+            return;
+        }
+        switch (state) {
+            case "RUNNING":
+                if ("Stopped".equals(component.runStatus)) {
+                    component.runStatus = "Running";
+                }
+                break;
+            case "STOPPED":
+                if ("Running".equals(component.runStatus)) {
+                    component.runStatus = "Stopped";
+                }
+                break;
+            case "ENABLED":
+                if ("Disabled".equals(component.runStatus)) {
+                    component.runStatus = "Stopped";
+                }
+                break;
+            default:
+                if (!"Running".equals(component.runStatus)) {
+                    component.runStatus = "Disabled";
+                }
+        }
+    }
+
+    /**
+     * Replaces the flow of the process group with the flow definition of the request if the revision of the request is
+     * the current one, the replace request is complete as soon as it is created
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void replace(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+        JsonNode version = request.path("processGroupRevision").path("version");
+        JsonNode definition = request.path("versionedFlowSnapshot");
+        if (!definition.path("flowContents").isObject()) {
+            sendText(exchange, 400, "The flow definition is required.");
+            return;
+        }
+        if (!version.isIntegralNumber()) {
+            sendText(exchange, 400, "Revision must be specified.");
+            return;
+        }
+        synchronized (group) {
+            if (revisionCheck && version.asLong() != group.getVersion()) {
+                sendText(exchange, 409, "[" + version.asLong() + ", null, " + id + "] is not the most up-to-date revision. This component appears to have been modified");
+                return;
+            }
+            replacedDefinitions.put(id, definition);
+            group.touch();
+        }
+        String requestId = "replace-" + replaceRequestSequence.incrementAndGet();
+        replaceRequests.put(requestId, id);
+        replaceRequest(exchange, requestId);
+    }
+
+    /**
+     * Sends the replace request, complete
+     *
+     * @param exchange of the request
+     * @param requestId of the replace request
+     * @throws IOException if the response can not be sent
+     */
+    private void replaceRequest(HttpExchange exchange, String requestId) throws IOException {
+        String id = replaceRequests.get(requestId);
+        if (id == null) {
+            sendText(exchange, 404, "Unable to find replace request with id '" + requestId + "'.");
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("processGroupRevision");
+            json.writeNumberField("version", flow.getGroup(id).getVersion());
+            json.writeEndObject();
+            json.writeObjectFieldStart("request");
+            json.writeStringField("requestId", requestId);
+            json.writeStringField("processGroupId", id);
+            json.writeBooleanField("complete", true);
+            json.writeNumberField("percentCompleted", 100);
+            json.writeStringField("state", "Complete");
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Sends the flow definition of the process group along with its descendants
+     *
+     * @param exchange of the request
+     * @param id of the process group
+     * @throws IOException if the response can not be sent
+     */
+    private void download(HttpExchange exchange, String id) throws IOException {
+        SyntheticFlow.Group group = flow.getGroup(id);
+        if (group == null) {
+            sendText(exchange, 404, "Unable to find process group with id '" + id + "'.");
+            return;
+        }
+        JsonNode replaced = replacedDefinitions.get(group.getId());
+        if (replaced != null) {
+            try (JsonGenerator json = startJson(exchange)) {
+                json.writeTree(replaced);
+            }
+            return;
+        }
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeFieldName("flowContents");
+            writeDefinitionGroup(json, group);
+            json.writeObjectFieldStart("externalControllerServices");
+            json.writeEndObject();
+            json.writeObjectFieldStart("parameterContexts");
+            json.writeEndObject();
+            json.writeObjectFieldStart("parameterProviders");
+            json.writeEndObject();
+            json.writeStringField("flowEncodingVersion", "1.0");
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the process group of a flow definition, the components are connected in a chain of processors, input
+     * ports, output ports and funnels
+     *
+     * @param json to write to
+     * @param group process group
+     * @throws IOException if the json can not be written
+     */
+    private void writeDefinitionGroup(JsonGenerator json, SyntheticFlow.Group group) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("identifier", group.getId());
+        json.writeStringField("instanceIdentifier", group.getId());
+        json.writeStringField("name", group.getName());
+        json.writeStringField("comments", "");
+        writePosition(json, group.getX(), group.getY());
+        json.writeArrayFieldStart("processGroups");
+        for (SyntheticFlow.Group child : group.getChildren()) {
+            writeDefinitionGroup(json, child);
+        }
+        json.writeEndArray();
+        writeDefinitionComponents(json, "processors", group, group.getProcessors(), "processor");
+        writeDefinitionComponents(json, "inputPorts", group, group.getInputPorts(), "input-port");
+        writeDefinitionComponents(json, "outputPorts", group, group.getOutputPorts(), "output-port");
+        writeDefinitionComponents(json, "funnels", group, group.getFunnels(), "funnel");
+        writeDefinitionComponents(json, "labels", group, group.getLabels(), "label");
+        writeDefinitionComponents(json, "remoteProcessGroups", group, group.getRemoteProcessGroups(), "remote-process-group");
+        List<String> chain = chain(group);
+        json.writeArrayFieldStart("connections");
+        for (int i = 0; i + 1 < chain.size(); i++) {
+            json.writeStartObject();
+            json.writeStringField("identifier", componentId(group, "connection", i));
+            json.writeStringField("instanceIdentifier", componentId(group, "connection", i));
+            json.writeStringField("name", "");
+            writeConnectable(json, "source", group, chain.get(i));
+            writeConnectable(json, "destination", group, chain.get(i + 1));
+            json.writeArrayFieldStart("selectedRelationships");
+            json.writeString("success");
+            json.writeEndArray();
+            json.writeStringField("backPressureDataSizeThreshold", "1 GB");
+            json.writeNumberField("backPressureObjectThreshold", 10000);
+            json.writeStringField("groupIdentifier", group.getId());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeArrayFieldStart("controllerServices");
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes the components of the process group of a flow definition
+     *
+     * @param json to write to
+     * @param field of the array
+     * @param group process group
+     * @param count number of components
+     * @param type of the components, part of their ids
+     * @throws IOException if the json can not be written
+     */
+    private void writeDefinitionComponents(JsonGenerator json, String field, SyntheticFlow.Group group, int count, String type) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (int i = 0; i < count; i++) {
+            json.writeStartObject();
+            json.writeStringField("identifier", componentId(group, type, i));
+            json.writeStringField("instanceIdentifier", componentId(group, type, i));
+            json.writeStringField("name", type + " " + i);
+            json.writeStringField("type", type);
+            Component component = components.get(componentId(group, type, i));
+            if (component != null) {
+                synchronized (component) {
+                    writePosition(json, component.x, component.y);
+                }
+            } else {
+                writePosition(json, 400 * i, 0);
+            }
+            json.writeObjectFieldStart("properties");
+            json.writeStringField("Batch Size", "1");
+            json.writeEndObject();
+            json.writeStringField("schedulingPeriod", "0 sec");
+            json.writeStringField("groupIdentifier", group.getId());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Provides the connected components of the process group, by their types and indexes, in the order they are
+     * connected, the connection {@code i} goes from the component {@code i} to the component {@code i + 1}
+     *
+     * @param group process group
+     * @return names of the connected components
+     */
+    private static List<String> chain(SyntheticFlow.Group group) {
+        List<String> chain = new ArrayList<>();
+        String[] types = {"processor", "input-port", "output-port", "funnel"};
+        int[] counts = {group.getProcessors(), group.getInputPorts(), group.getOutputPorts(), group.getFunnels()};
+        for (int t = 0; t < types.length; t++) {
+            for (int i = 0; i < counts[t]; i++) {
+                chain.add(types[t] + " " + i);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * Writes the end of a connection of a flow definition
+     *
+     * @param json to write to
+     * @param field of the end, {@code source} or {@code destination}
+     * @param group process group
+     * @param name of the connected component, its type and index
+     * @throws IOException if the json can not be written
+     */
+    private static void writeConnectable(JsonGenerator json, String field, SyntheticFlow.Group group, String name) throws IOException {
+        int separator = name.lastIndexOf(' ');
+        String type = name.substring(0, separator);
+        json.writeObjectFieldStart(field);
+        json.writeStringField("id", componentId(group, type, Integer.parseInt(name.substring(separator + 1))));
+        json.writeStringField("groupId", group.getId());
+        json.writeStringField("name", name);
+        json.writeStringField("type", type.toUpperCase(Locale.ROOT).replace('-', '_'));
+        json.writeEndObject();
+    }
+
+    /**
+     * Creates the listing or drop request of the queue of the connection, finished as soon as it is created if it is
+     * not to be polled
+     *
+     * @param exchange of the request
+     * @param connectionId id of the connection
+     * @param drop {@code true} to drop the flowfiles, {@code false} to list them
+     * @throws IOException if the response can not be sent
+     */
+    private void submitQueueRequest(HttpExchange exchange, String connectionId, boolean drop) throws IOException {
+        if (findComponent("connections", connectionId) == null) {
+            sendText(exchange, 404, "Unable to find connection with id '" + connectionId + "'.");
+            return;
+        }
+        QueueRequest request = new QueueRequest((drop ? "drop-" : "listing-") + queueRequestSequence.incrementAndGet(), connectionId, drop, queuedOf(connectionId));
+        queueRequests.put(request.id, request);
+        synchronized (request) {
+            progress(request);
+        }
+        writeQueueRequest(exchange, request);
+    }
+
+    /**
+     * Polls the listing or drop request, finished once polled the configured number of times
+     *
+     * @param exchange of the request
+     * @param id of the request
+     * @throws IOException if the response can not be sent
+     */
+    private void queueRequest(HttpExchange exchange, String id) throws IOException {
+        QueueRequest request = queueRequests.get(id);
+        if (request == null) {
+            sendText(exchange, 404, "Unable to find request with id '" + id + "'.");
+            return;
+        }
+        synchronized (request) {
+            request.polls++;
+            progress(request);
+        }
+        writeQueueRequest(exchange, request);
+    }
+
+    /**
+     * Finishes the listing or drop request once polled the configured number of times unless its connection is stuck,
+     * the flowfiles of the connection are dropped along with the drop request
+     *
+     * @param request to progress
+     */
+    private void progress(QueueRequest request) {
+        if (!request.finished && !stuck.contains(request.connectionId) && request.polls >= queueRequestPolls) {
+            request.finished = true;
+            if (request.drop) {
+                droppedQueues.add(request.connectionId);
+            }
+        }
+    }
+
+    /**
+     * Writes the listing or drop request, the listed flowfiles once finished
+     *
+     * @param exchange of the request
+     * @param request to write
+     * @throws IOException if the response can not be sent
+     */
+    private void writeQueueRequest(HttpExchange exchange, QueueRequest request) throws IOException {
+        boolean finished;
+        int percentCompleted;
+        synchronized (request) {
+            finished = request.finished;
+            percentCompleted = finished ? 100 : queueRequestPolls > 0 ? Math.min(99, 100 * request.polls / queueRequestPolls) : 0;
+        }
+        long processed = finished ? request.flowFiles : 0;
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart(request.drop ? "dropRequest" : "listingRequest");
+            json.writeStringField("id", request.id);
+            json.writeStringField("uri", "/nifi-api/flowfile-queues/" + request.connectionId + (request.drop ? "/drop-requests/" : "/listing-requests/") + request.id);
+            json.writeBooleanField("finished", finished);
+            json.writeNumberField("percentCompleted", percentCompleted);
+            if (request.drop) {
+                json.writeStringField("state", finished ? "Completed successfully" : "Dropping FlowFiles");
+                json.writeNumberField("originalCount", request.flowFiles);
+                json.writeNumberField("originalSize", request.flowFiles * FLOWFILE_SIZE);
+                json.writeNumberField("droppedCount", processed);
+                json.writeNumberField("droppedSize", processed * FLOWFILE_SIZE);
+                json.writeNumberField("currentCount", request.flowFiles - processed);
+                json.writeNumberField("currentSize", (request.flowFiles - processed) * FLOWFILE_SIZE);
+            } else {
+                json.writeStringField("state", finished ? "Completed successfully" : "Searching FlowFiles");
+                json.writeNumberField("maxResults", MAX_LISTED);
+                json.writeObjectFieldStart("queueSize");
+                json.writeNumberField("objectCount", request.flowFiles);
+                json.writeNumberField("byteCount", request.flowFiles * FLOWFILE_SIZE);
+                json.writeEndObject();
+                json.writeArrayFieldStart("flowFileSummaries");
+                for (int i = 0; i < Math.min(processed, MAX_LISTED); i++) {
+                    json.writeStartObject();
+                    json.writeStringField("uuid", request.connectionId + "-flowfile-" + i);
+                    json.writeStringField("filename", "flowfile-" + i);
+                    json.writeNumberField("position", i + 1);
+                    json.writeNumberField("size", FLOWFILE_SIZE);
+                    json.writeNumberField("queuedDuration", 1000);
+                    json.writeNumberField("lineageDuration", 1000);
+                    json.writeBooleanField("penalized", false);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Provides the number of flowfiles queued in the connection
+     *
+     * @param connectionId id of the connection
+     * @return number of queued flowfiles, {@code 0} once dropped
+     */
+    private long queuedOf(String connectionId) {
+        return droppedQueues.contains(connectionId) ? 0 : queuedFlowFiles;
+    }
+
+    /**
+     * Runs the provenance query over the configured events, both dates of the query are inclusive like in the NiFi
+     *
+     * @param exchange of the request
+     * @throws IOException if the response can not be sent
+     */
+    private void submitProvenance(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body).path("provenance").path("request");
+        }
+        long startMillis;
+        long endMillis;
+        try {
+            startMillis = LocalDateTime.parse(request.path("startDate").asText(), QUERY_DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+            endMillis = LocalDateTime.parse(request.path("endDate").asText(), QUERY_DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (Exception e) {
+            sendText(exchange, 400, "Unable to parse the dates of the query: " + e.getMessage());
+            return;
+        }
+        int maxResults = request.path("maxResults").asInt(1000);
+        long[] events = Arrays.stream(provenanceEvents).filter(millis -> millis >= startMillis && millis <= endMillis).toArray();
+        ProvenanceQuery query = new ProvenanceQuery("query-" + provenanceQuerySequence.incrementAndGet(), events, maxResults);
+        provenanceQueries.put(query.id, query);
+        writeProvenanceQuery(exchange, query);
+    }
+
+    /**
+     * Sends the provenance query along with its results
+     *
+     * @param exchange of the request
+     * @param id of the provenance query
+     * @throws IOException if the response can not be sent
+     */
+    private void provenance(HttpExchange exchange, String id) throws IOException {
+        ProvenanceQuery query = provenanceQueries.get(id);
+        if (query == null) {
+            sendText(exchange, 404, "Unable to find provenance query with id '" + id + "'.");
+            return;
+        }
+        writeProvenanceQuery(exchange, query);
+    }
+
+    /**
+     * Writes the provenance query, finished, with at most the maximum results of its events
+     *
+     * @param exchange of the request
+     * @param query to write
+     * @throws IOException if the response can not be sent
+     */
+    private void writeProvenanceQuery(HttpExchange exchange, ProvenanceQuery query) throws IOException {
+        try (JsonGenerator json = startJson(exchange)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("provenance");
+            json.writeStringField("id", query.id);
+            json.writeStringField("uri", "/nifi-api/provenance/" + query.id);
+            json.writeBooleanField("finished", true);
+            json.writeNumberField("percentCompleted", 100);
+            json.writeObjectFieldStart("results");
+            json.writeNumberField("totalCount", query.events.length);
+            json.writeArrayFieldStart("provenanceEvents");
+            for (int i = 0; i < Math.min(query.events.length, query.maxResults); i++) {
+                json.writeStartObject();
+                json.writeStringField("id", String.valueOf(query.events[i]));
+                json.writeNumberField("eventId", query.events[i]);
+                json.writeStringField("eventTime", EVENT_TIME_FORMAT.format(Instant.ofEpochMilli(query.events[i])));
+                json.writeStringField("eventType", "RECEIVE");
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the status snapshot of the process group
+     *
+     * @param json to write to
+     * @param group process group
+     * @param depth of the descendant process groups to include
+     * @throws IOException if the json can not be written
+     */
+    private void writeStatusSnapshot(JsonGenerator json, SyntheticFlow.Group group, int depth) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", group.getId());
+        json.writeStringField("name", group.getName());
+        json.writeArrayFieldStart("processGroupStatusSnapshots");
+        if (depth > 0) {
+            for (SyntheticFlow.Group child : group.getChildren()) {
+                json.writeStartObject();
+                json.writeStringField("id", child.getId());
+                json.writeBooleanField("canRead", true);
+                json.writeFieldName("processGroupStatusSnapshot");
+                writeStatusSnapshot(json, child, depth - 1);
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+        writeStatusSnapshots(json, "processorStatusSnapshots", "processorStatusSnapshot", group, group.getProcessors(), "processor");
+        writeStatusSnapshots(json, "connectionStatusSnapshots", "connectionStatusSnapshot", group, group.getConnections(), "connection");
+        writeStatusSnapshots(json, "inputPortStatusSnapshots", "portStatusSnapshot", group, group.getInputPorts(), "input-port");
+        writeStatusSnapshots(json, "outputPortStatusSnapshots", "portStatusSnapshot", group, group.getOutputPorts(), "output-port");
+        writeStatusSnapshots(json, "remoteProcessGroupStatusSnapshots", "remoteProcessGroupStatusSnapshot", group, group.getRemoteProcessGroups(), "remote-process-group");
+        json.writeNumberField("flowFilesQueued", 0);
+        json.writeStringField("queued", "0 (0 bytes)");
+        json.writeStringField("input", "0 (0 bytes)");
+        json.writeStringField("output", "0 (0 bytes)");
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes the status snapshots of the components of the process group
+     *
+     * @param json to write to
+     * @param field of the array
+     * @param snapshotField of the snapshot in the entity
+     * @param group process group
+     * @param count number of components
+     * @param type of the components, part of their ids
+     * @throws IOException if the json can not be written
+     */
+    private void writeStatusSnapshots(JsonGenerator json, String field, String snapshotField, SyntheticFlow.Group group, int count, String type) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (int i = 0; i < count; i++) {
+            String id = componentId(group, type, i);
+            json.writeStartObject();
+            json.writeStringField("id", id);
+            json.writeBooleanField("canRead", true);
+            json.writeObjectFieldStart(snapshotField);
+            json.writeStringField("id", id);
+            json.writeStringField("groupId", group.getId());
+            json.writeStringField("name", type + " " + i);
+            if (SCHEDULED_TYPES.contains(type)) {
+                json.writeStringField("runStatus", runStatusOf(group, type, i));
+            }
+            json.writeNumberField("flowFilesIn", 0);
+            json.writeNumberField("flowFilesOut", 0);
+            if ("connection".equals(type)) {
+                json.writeNumberField("flowFilesQueued", queuedOf(id));
+                json.writeNumberField("bytesQueued", queuedOf(id) * FLOWFILE_SIZE);
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the entity of the process group
+     *
+     * @param json to write to
+     * @param group process group
+     * @throws IOException if the json can not be written
+     */
+    private void writeProcessGroupEntity(JsonGenerator json, SyntheticFlow.Group group) throws IOException {
+        long version;
+        double x;
+        double y;
+        synchronized (group) {
+            version = group.getVersion();
+            x = group.getX();
+            y = group.getY();
+        }
+        json.writeStartObject();
+        json.writeObjectFieldStart("revision");
+        json.writeNumberField("version", version);
+        json.writeEndObject();
+        json.writeStringField("id", group.getId());
+        json.writeStringField("uri", "/nifi-api/process-groups/" + group.getId());
+        writePosition(json, x, y);
+        json.writeObjectFieldStart("permissions");
+        json.writeBooleanField("canRead", true);
+        json.writeBooleanField("canWrite", true);
+        json.writeEndObject();
+        json.writeObjectFieldStart("component");
+        json.writeStringField("id", group.getId());
+        json.writeStringField("parentGroupId", group.getParentId());
+        writePosition(json, x, y);
+        json.writeStringField("name", group.getName());
+        json.writeStringField("comments", "");
+        json.writeNumberField("runningCount", group.getProcessors());
+        json.writeNumberField("stoppedCount", 0);
+        json.writeNumberField("inputPortCount", group.getInputPorts());
+        json.writeNumberField("outputPortCount", group.getOutputPorts());
+        json.writeEndObject();
+        json.writeNumberField("runningCount", group.getProcessors());
+        json.writeNumberField("inputPortCount", group.getInputPorts());
+        json.writeNumberField("outputPortCount", group.getOutputPorts());
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes the entities of the components of the process group
+     *
+     * @param json to write to
+     * @param field of the array
+     * @param group process group
+     * @param count number of components
+     * @param type of the components, part of their ids
+     * @throws IOException if the json can not be written
+     */
+    private void writeComponents(JsonGenerator json, String field, SyntheticFlow.Group group, int count, String type) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (int i = 0; i < count; i++) {
+            Component component = components.get(componentId(group, type, i));
+            writeComponent(json, component != null ? component : new Component(group, type, i, runStatus));
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the entity of the component, the connections with their ends and bends
+     *
+     * @param json to write to
+     * @param component to write
+     * @throws IOException if the json can not be written
+     */
+    private void writeComponent(JsonGenerator json, Component component) throws IOException {
+        long version;
+        double x;
+        double y;
+        int bendCount;
+        synchronized (component) {
+            version = component.version;
+            x = component.x;
+            y = component.y;
+            bendCount = component.bendCount;
+        }
+        SyntheticFlow.Group group = component.group;
+        String id = componentId(group, component.type, component.index);
+        json.writeStartObject();
+        json.writeObjectFieldStart("revision");
+        json.writeNumberField("version", version);
+        json.writeEndObject();
+        json.writeStringField("id", id);
+        if ("connection".equals(component.type)) {
+            String source = connectable(group, component.index);
+            String destination = connectable(group, component.index + 1);
+            json.writeStringField("sourceId", source);
+            json.writeStringField("sourceGroupId", group.getId());
+            json.writeStringField("destinationId", destination);
+            json.writeStringField("destinationGroupId", group.getId());
+            json.writeObjectFieldStart("component");
+            json.writeStringField("id", id);
+            json.writeStringField("parentGroupId", group.getId());
+            json.writeStringField("name", "");
+            json.writeArrayFieldStart("bends");
+            for (int i = 0; i < bendCount; i++) {
+                json.writeStartObject();
+                json.writeNumberField("x", 200);
+                json.writeNumberField("y", 200 + 50 * i);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } else {
+            writePosition(json, x, y);
+            json.writeObjectFieldStart("component");
+            json.writeStringField("id", id);
+            json.writeStringField("parentGroupId", group.getId());
+            writePosition(json, x, y);
+            json.writeStringField("name", component.type + " " + component.index);
+            json.writeStringField("type", component.type);
+            json.writeObjectFieldStart("config");
+            json.writeObjectFieldStart("properties");
+            json.writeStringField("Batch Size", "1");
+            json.writeStringField("Record Reader", null);
+            json.writeEndObject();
+            json.writeStringField("schedulingPeriod", "0 sec");
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * Provides the id of a connected component of the process group, see {@link #chain(SyntheticFlow.Group)}
+     *
+     * @param group process group
+     * @param index of the component in the chain
+     * @return id of the component
+     */
+    private static String connectable(SyntheticFlow.Group group, int index) {
+        String[] types = {"processor", "input-port", "output-port", "funnel"};
+        int[] counts = {group.getProcessors(), group.getInputPorts(), group.getOutputPorts(), group.getFunnels()};
+        int t = 0;
+        while (index >= counts[t]) {
+            index -= counts[t];
+            t++;
+        }
+        return componentId(group, types[t], index);
+    }
+
+    /**
+     * Finds the component of the resource by its id
+     *
+     * @param resource of the component type
+     * @param id of the component
+     * @return component, not registered as updated if it was not updated yet, {@code null} if not found
+     */
+    private Component findComponent(String resource, String id) {
+        Component component = components.get(id);
+        if (component != null) {
+            return component;
+        }
+        String type = COMPONENT_TYPES.get(resource);
+        int separator = id.lastIndexOf("-" + type + "-");
+        if (separator < 0) {
+            return null;
+        }
+        SyntheticFlow.Group group = flow.getGroup(id.substring(0, separator));
+        int index;
+        try {
+            index = Integer.parseInt(id.substring(separator + type.length() + 2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int count = group != null ? componentCount(group, type) : 0;
+        return index >= 0 && index < count ? new Component(group, type, index, runStatus) : null;
+    }
+
+    /**
+     * Provides the number of components of the type in the process group
+     *
+     * @param group process group
+     * @param type of the components
+     * @return number of components
+     */
+    private static int componentCount(SyntheticFlow.Group group, String type) {
+        switch (type) {
+            case "processor":
+                return group.getProcessors();
+            case "input-port":
+                return group.getInputPorts();
+            case "output-port":
+                return group.getOutputPorts();
+            case "funnel":
+                return group.getFunnels();
+            case "remote-process-group":
+                return group.getRemoteProcessGroups();
+            default:
+                return group.getConnections();
+        }
+    }
+
+    /**
+     * Provides the run status of a component of the process group
+     *
+     * @param group process group
+     * @param type of the component
+     * @param index of the component
+     * @return run status of the component
+     */
+    private String runStatusOf(SyntheticFlow.Group group, String type, int index) {
+        Component component = components.get(componentId(group, type, index));
+        if (component == null) {
+            return runStatus;
+        }
+        synchronized (component) {
+            return component.runStatus;
+        }
+    }
+
+    /**
+     * Writes the position
+     *
+     * @param json to write to
+     * @param x coordinate
+     * @param y coordinate
+     * @throws IOException if the json can not be written
+     */
+    private static void writePosition(JsonGenerator json, double x, double y) throws IOException {
+        json.writeObjectFieldStart("position");
+        json.writeNumberField("x", x);
+        json.writeNumberField("y", y);
+        json.writeEndObject();
+    }
+
+    /**
+     * Provides the id of a component of the process group
+     *
+     * @param group process group
+     * @param type of the component, i.e. {@code processor}
+     * @param index of the component
+     * @return id of the component
+     */
+    public static String componentId(SyntheticFlow.Group group, String type, int index) {
+        return group.getId() + "-" + type + "-" + index;
+    }
+
+    /**
+     * Starts the json response, sent in chunks as it is written
+     *
+     * @param exchange of the request
+     * @return generator to write the response with
+     * @throws IOException if the response can not be started
+     */
+    private JsonGenerator startJson(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024);
+        return jsonFactory.createGenerator(body);
+    }
+
+    /**
+     * Sends a text response
+     *
+     * @param exchange of the request
+     * @param status of the response
+     * @param text of the response
+     * @throws IOException if the response can not be sent
+     */
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Fails the request if rejections are left, otherwise at the configured ratio
+     *
+     * @param exchange of the request
+     * @return {@code true} if the request is failed
+     * @throws IOException if the response can not be sent
+     */
+    private boolean failed(HttpExchange exchange) throws IOException {
+        if (rejections.get() > 0 && rejections.getAndDecrement() > 0) {
+            sendText(exchange, rejectionStatus, "Injected rejection.");
+            return true;
+        }
+        if (errorRatio > 0 && ThreadLocalRandom.current().nextDouble() < errorRatio) {
+            sendText(exchange, errorStatus, "Injected failure.");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Delays the response by the configured latency
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void delay() throws InterruptedException {
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay > 0) {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Counts the request of the endpoint
+     *
+     * @param endpoint of the request
+     */
+    private void count(String endpoint) {
+        requests.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Provides the value of the query parameter
+     *
+     * @param uri of the request
+     * @param name of the query parameter
+     * @return value of the query parameter, {@code null} if not provided
+     */
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator > 0 && name.equals(param.substring(0, separator))) {
+                return param.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Provenance query with the times of the events it matches
+     */
+    private static final class ProvenanceQuery {
+        /**
+         * Id of the query
+         */
+        final String id;
+        /**
+         * Times of the matched events in epoch milliseconds, sorted
+         */
+        final long[] events;
+        /**
+         * Maximum number of events returned
+         */
+        final int maxResults;
+
+        /**
+         * Create instance
+         *
+         * @param id of the query
+         * @param events times of the matched events
+         * @param maxResults maximum number of events returned
+         */
+        ProvenanceQuery(String id, long[] events, int maxResults) {
+            this.id = id;
+            this.events = events;
+            this.maxResults = maxResults;
+        }
+    }
+
+    /**
+     * Listing or drop request of the queue of a connection
+     */
+    private static final class QueueRequest {
+        /**
+         * Id of the request
+         */
+        final String id;
+        /**
+         * Id of the connection
+         */
+        final String connectionId;
+        /**
+         * Whether the request drops the flowfiles, otherwise it lists them
+         */
+        final boolean drop;
+        /**
+         * Number of flowfiles queued when the request was created
+         */
+        final long flowFiles;
+        /**
+         * Number of times the request was polled
+         */
+        int polls;
+        /**
+         * Whether the request is finished
+         */
+        boolean finished;
+
+        /**
+         * Create instance
+         *
+         * @param id of the request
+         * @param connectionId id of the connection
+         * @param drop whether the request drops the flowfiles
+         * @param flowFiles number of flowfiles queued
+         */
+        QueueRequest(String id, String connectionId, boolean drop, long flowFiles) {
+            this.id = id;
+            this.connectionId = connectionId;
+            this.drop = drop;
+            this.flowFiles = flowFiles;
+        }
+    }
+
+    /**
+     * State of a component of a process group, the connections have a bend until it is removed
+     */
+    private static final class Component {
+        /**
+         * Process group of the component
+         */
+        final SyntheticFlow.Group group;
+        /**
+         * Type of the component, part of its id
+         */
+        final String type;
+        /**
+         * Index of the component among the ones of its type
+         */
+        final int index;
+        /**
+         * Version of the revision
+         */
+        long version;
+        /**
+         * X coordinate
+         */
+        double x;
+        /**
+         * Y coordinate
+         */
+        double y;
+        /**
+         * Number of bends of the connection
+         */
+        int bendCount;
+        /**
+         * Run status of the processor or the port
+         */
+        String runStatus;
+
+        /**
+         * Create instance at the initial position with the initial revision
+         *
+         * @param group of the component
+         * @param type of the component
+         * @param index of the component
+         * @param runStatus initial run status
+         */
+        Component(SyntheticFlow.Group group, String type, int index, String runStatus) {
+            this.group = group;
+            this.type = type;
+            this.index = index;
+            this.x = 400 * index;
+            this.bendCount = "connection".equals(type) ? 1 : 0;
+            this.runStatus = runStatus;
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.mock;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Synthetic process group hierarchy served by {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer}. Every process
+ * group has {@code width} child process groups down to the {@code depth}, the leaf process groups hold the configured
+ * mix of components and the other process groups hold them only at the configured ratio, so only the rest of them are
+ * independent. Ids and positions are generated from the seed, so the same builder always builds the same flow.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+public final class SyntheticFlow {
+
+    /**
+     * Root process group
+     */
+    private final Group root;
+    /**
+     * All the process groups by their ids
+     */
+    private final Map<String, Group> groups;
+
+    /**
+     * Create instance
+     *
+     * @param root process group
+     * @param groups all the process groups by their ids
+     */
+    private SyntheticFlow(Group root, Map<String, Group> groups) {
+        this.root = root;
+        this.groups = groups;
+    }
+
+    /**
+     * Create builder of the flow
+     *
+     * @return builder with the defaults
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Provides the root process group
+     *
+     * @return root process group
+     */
+    public Group getRoot() {
+        return root;
+    }
+
+    /**
+     * Provides the process group by id, {@code root} being the alias of the root process group like in the NiFi
+     *
+     * @param id of the process group
+     * @return process group, {@code null} if not found
+     */
+    public Group getGroup(String id) {
+        return "root".equals(id) ? root : groups.get(id);
+    }
+
+    /**
+     * Provides the number of process groups, including the root
+     *
+     * @return number of process groups
+     */
+    public int size() {
+        return groups.size();
+    }
+
+    /**
+     * Adds a process group holding nothing to the parent process group without changing the revision of the parent,
+     * like the NiFi does, so only the status and the flow of the parent list it
+     *
+     * @param parent process group to add to
+     * @param name of the process group
+     * @param x coordinate of the position
+     * @param y coordinate of the position
+     * @return added process group
+     */
+    public Group addGroup(Group parent, String name, double x, double y) {
+        Group group = new Group(UUID.randomUUID().toString(), parent.id, name, x, y);
+        parent.children.add(group);
+        groups.put(group.id, group);
+        return group;
+    }
+
+    /**
+     * Removes the process group along with its descendants without changing the revision of the parent, like the NiFi
+     * does
+     *
+     * @param group process group to remove
+     */
+    public void removeGroup(Group group) {
+        groups.get(group.parentId).children.remove(group);
+        Deque<Group> removed = new ArrayDeque<>();
+        removed.add(group);
+        while (!removed.isEmpty()) {
+            Group next = removed.poll();
+            groups.remove(next.id);
+            removed.addAll(next.children);
+        }
+    }
+
+    /**
+     * Process group of the flow, the position and the revision are updated by the mock server
+     */
+    @Getter
+    public static final class Group {
+        /**
+         * Process group id
+         */
+        private final String id;
+        /**
+         * Parent process group id, {@code null} for the root
+         */
+        private final String parentId;
+        /**
+         * Process group name
+         */
+        private final String name;
+        /**
+         * Child process groups
+         */
+        @Getter(AccessLevel.NONE)
+        private final List<Group> children = new ArrayList<>();
+        /**
+         * Number of processors
+         */
+        int processors;
+        /**
+         * Number of input ports
+         */
+        int inputPorts;
+        /**
+         * Number of output ports
+         */
+        int outputPorts;
+        /**
+         * Number of funnels
+         */
+        int funnels;
+        /**
+         * Number of labels
+         */
+        int labels;
+        /**
+         * Number of remote process groups
+         */
+        int remoteProcessGroups;
+        /**
+         * X coordinate of the position
+         */
+        @Getter(AccessLevel.NONE)
+        private double x;
+        /**
+         * Y coordinate of the position
+         */
+        @Getter(AccessLevel.NONE)
+        private double y;
+        /**
+         * Version of the revision
+         */
+        @Getter(AccessLevel.NONE)
+        private long version;
+
+        /**
+         * Create instance
+         *
+         * @param id process group id
+         * @param parentId parent process group id
+         * @param name process group name
+         * @param x coordinate of the position
+         * @param y coordinate of the position
+         */
+        Group(String id, String parentId, String name, double x, double y) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Provides the child process groups
+         *
+         * @return child process groups
+         */
+        public List<Group> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Provides the number of connections, the components are connected in a chain
+         *
+         * @return number of connections
+         */
+        public int getConnections() {
+            return Math.max(0, processors + inputPorts + outputPorts + funnels - 1);
+        }
+
+        /**
+         * Whether the process group holds nothing but process groups, labels being ignored like by the aligning
+         *
+         * @return {@code true} if the process group holds nothing but process groups
+         */
+        public boolean isIndependent() {
+            return processors + inputPorts + outputPorts + funnels + remoteProcessGroups == 0;
+        }
+
+        /**
+         * Provides the x coordinate of the position
+         *
+         * @return x coordinate
+         */
+        public synchronized double getX() {
+            return x;
+        }
+
+        /**
+         * Provides the y coordinate of the position
+         *
+         * @return y coordinate
+         */
+        public synchronized double getY() {
+            return y;
+        }
+
+        /**
+         * Provides the version of the revision
+         *
+         * @return version of the revision
+         */
+        public synchronized long getVersion() {
+            return version;
+        }
+
+        /**
+         * Moves the process group if the revision is the current one, incrementing the revision
+         *
+         * @param expectedVersion version of the revision the update is based on, {@code null} to skip the check
+         * @param x coordinate of the position
+         * @param y coordinate of the position
+         * @return {@code true} if moved, {@code false} if the revision is not the current one
+         */
+        public synchronized boolean move(Long expectedVersion, double x, double y) {
+            if (expectedVersion != null && expectedVersion != version) {
+                return false;
+            }
+            this.x = x;
+            this.y = y;
+            version++;
+            return true;
+        }
+
+        /**
+         * Increments the revision without any change, like an edit by another user
+         */
+        public synchronized void touch() {
+            version++;
+        }
+    }
+
+    /**
+     * Builder of {@link io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow}
+     */
+    public static final class Builder {
+        /**
+         * Number of child process groups of every non leaf process group
+         */
+        private int width = 4;
+        /**
+         * Number of levels of process groups below the root
+         */
+        private int depth = 3;
+        /**
+         * Number of processors of every process group holding components
+         */
+        private int processors = 5;
+        /**
+         * Number of input and of output ports of every process group holding components
+         */
+        private int ports = 1;
+        /**
+         * Number of funnels of every process group holding components
+         */
+        private int funnels = 0;
+        /**
+         * Number of labels of every process group holding components
+         */
+        private int labels = 1;
+        /**
+         * Number of remote process groups of every process group holding components
+         */
+        private int remoteProcessGroups = 0;
+        /**
+         * Ratio of the non leaf process groups holding components along with process groups
+         */
+        private double mixedRatio = 0.1;
+        /**
+         * Seed of the ids and positions
+         */
+        private long seed = 42;
+
+        /**
+         * Number of child process groups of every non leaf process group
+         *
+         * @param width number of child process groups
+         * @return this builder
+         */
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        /**
+         * Number of levels of process groups below the root
+         *
+         * @param depth number of levels
+         * @return this builder
+         */
+        public Builder depth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * Components of every process group holding components
+         *
+         * @param processors number of processors
+         * @param ports number of input and of output ports
+         * @param funnels number of funnels
+         * @param labels number of labels
+         * @param remoteProcessGroups number of remote process groups
+         * @return this builder
+         */
+        public Builder components(int processors, int ports, int funnels, int labels, int remoteProcessGroups) {
+            this.processors = processors;
+            this.ports = ports;
+            this.funnels = funnels;
+            this.labels = labels;
+            this.remoteProcessGroups = remoteProcessGroups;
+            return this;
+        }
+
+        /**
+         * Ratio of the non leaf process groups holding components along with process groups
+         *
+         * @param mixedRatio between {@code 0} and {@code 1}
+         * @return this builder
+         */
+        public Builder mixedRatio(double mixedRatio) {
+            this.mixedRatio = mixedRatio;
+            return this;
+        }
+
+        /**
+         * Seed of the ids and positions
+         *
+         * @param seed of the random generator
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Builds the flow, level by level so deep flows do not grow the call stack
+         *
+         * @return built flow
+         */
+        public SyntheticFlow build() {
+            if (width < 0 || depth < 0) {
+                throw new IllegalArgumentException("Width and depth of the flow should not be negative.");
+            }
+            Random random = new Random(seed);
+            Map<String, Group> groups = new HashMap<>();
+            Group root = new Group(new UUID(random.nextLong(), random.nextLong()).toString(), null, "NiFi Flow", 0, 0);
+            groups.put(root.id, root);
+            Deque<Group> level = new ArrayDeque<>();
+            level.add(root);
+            for (int d = 1; d <= depth; d++) {
+                Deque<Group> next = new ArrayDeque<>();
+                for (Group parent : level) {
+                    for (int i = 0; i < width; i++) {
+                        Group child = new Group(new UUID(random.nextLong(), random.nextLong()).toString(), parent.id, "Group " + d + "." + (groups.size()), random.nextInt(5000), random.nextInt(5000));
+                        parent.children.add(child);
+                        groups.put(child.id, child);
+                        next.add(child);
+                    }
+                    if (parent != root && random.nextDouble() < mixedRatio) {
+                        addComponents(parent);
+                    }
+                }
+                level = next;
+            }
+            for (Group leaf : level) {
+                if (leaf != root) {
+                    addComponents(leaf);
+                }
+            }
+            return new SyntheticFlow(root, groups);
+        }
+
+        /**
+         * Adds the configured components to the process group
+         *
+         * @param group to add the components to
+         */
+        private void addComponents(Group group) {
+            group.processors = processors;
+            group.inputPorts = ports;
+            group.outputPorts = ports;
+            group.funnels = funnels;
+            group.labels = labels;
+            group.remoteProcessGroups = remoteProcessGroups;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the {@link io.github.deepakdaneva.nifi.cli.services.AccessTokenCache} reuses the access tokens only until
+ * the skew before their expiry, keeps them in files readable by the owner only and ignores the ones readable by others,
+ * and forgets the tokens removed once rejected by the NiFi.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class AccessTokenCacheTest {
+
+    /**
+     * Seconds before the expiry of an access token from which it is not reused anymore
+     */
+    static final long EXPIRY_SKEW_SECONDS = 60;
+    /**
+     * Location of the NiFi
+     */
+    static final URI LOCATION = URI.create("https://nifi.example.com:8443");
+    /**
+     * Username of the user
+     */
+    static final String USERNAME = "admin";
+    /**
+     * Directory of the cache
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Cache under test
+     */
+    AccessTokenCache cache;
+
+    /**
+     * Creates the cache in the temporary directory
+     */
+    @BeforeEach
+    void createCache() {
+        cache = new AccessTokenCache() {
+            @Override
+            Path getDirectory() {
+                return directory.resolve("tokens");
+            }
+
+            @Override
+            long getExpirySkewSeconds() {
+                return EXPIRY_SKEW_SECONDS;
+            }
+        };
+        cache.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Checks the tokens expiring after, within and before the skew, and the tokens without a readable expiry
+     */
+    @Test
+    void expirySkew() {
+        assertTrue(cache.isValid(token(EXPIRY_SKEW_SECONDS + 30)));
+        assertFalse(cache.isValid(token(EXPIRY_SKEW_SECONDS - 30)), "Token expiring within the skew is reused.");
+        assertFalse(cache.isValid(token(-30)), "Expired token is reused.");
+        assertFalse(cache.isValid(jwt("{\"sub\":\"admin\"}")), "Token without expiry is reused.");
+        assertFalse(cache.isValid("mock-access-token"));
+        assertFalse(cache.isValid("header.not-base64!.signature"));
+
+        cache.put(LOCATION, USERNAME, token(EXPIRY_SKEW_SECONDS - 30));
+        assertNull(cache.get(LOCATION, USERNAME), "Cached token expiring within the skew is reused.");
+    }
+
+    /**
+     * Caches a token in a file readable by the owner only, in a directory accessible to the owner only, and ignores it
+     * once it is readable by others
+     *
+     * @throws Exception if the permissions can not be read or changed
+     */
+    @Test
+    void ownerOnlyPermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"), "POSIX permissions are not supported.");
+        String token = token(3600);
+        cache.put(LOCATION, USERNAME, token);
+        Path file = cache.getFile(LOCATION, USERNAME);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())));
+        assertEquals(token, cache.get(LOCATION, USERNAME));
+
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+        assertNull(cache.get(LOCATION, USERNAME), "Token readable by others is reused.");
+        // caching again replaces the file along with its permissions
+        cache.put(LOCATION, USERNAME, token);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        assertEquals(token, cache.get(LOCATION, USERNAME));
+    }
+
+    /**
+     * Removes a cached token the way the session does once the NiFi rejects it, the token of another user kept
+     *
+     * @throws Exception if the file of the token can not be resolved
+     */
+    @Test
+    void removedAfterRejection() throws Exception {
+        String token = token(3600);
+        String otherToken = token(7200);
+        cache.put(LOCATION, USERNAME, token);
+        cache.put(LOCATION, "operator", otherToken);
+        assertNotEquals(cache.getFile(LOCATION, USERNAME), cache.getFile(LOCATION, "operator"));
+        assertEquals(token, cache.get(LOCATION, USERNAME));
+
+        cache.remove(LOCATION, USERNAME);
+        assertNull(cache.get(LOCATION, USERNAME), "Rejected token is reused.");
+        assertFalse(Files.exists(cache.getFile(LOCATION, USERNAME)), "Rejected token is left on the disk.");
+        assertEquals(otherToken, cache.get(LOCATION, "operator"));
+        // removing a token not cached anymore is not an error
+        cache.remove(LOCATION, USERNAME);
+    }
+
+    /**
+     * Creates an access token expiring after the provided seconds
+     *
+     * @param expiresInSeconds seconds from now to the expiry, negative if already expired
+     * @return access token
+     */
+    private static String token(long expiresInSeconds) {
+        return jwt("{\"sub\":\"admin\",\"exp\":" + (System.currentTimeMillis() / 1000 + expiresInSeconds) + "}");
+    }
+
+    /**
+     * Creates an unsigned JWT with the provided claims
+     *
+     * @param claims json of the claims
+     * @return JWT
+     */
+    private static String jwt(String claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".";
+    }
+}
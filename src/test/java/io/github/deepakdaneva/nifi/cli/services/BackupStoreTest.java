@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.models.BackupSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link io.github.deepakdaneva.nifi.cli.services.BackupStore} reads back what it writes, stores a flow
+ * definition downloaded again only once however it is serialized but again once an ordered list of it is reordered, and
+ * detects the objects changed on the disk.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class BackupStoreTest {
+
+    /**
+     * Flow definition of a process group
+     */
+    static final String DEFINITION = "{\"flowContents\":{\"identifier\":\"a\",\"name\":\"Group\",\"processors\":[{\"identifier\":\"p1\",\"name\":\"Fetch\"},{\"identifier\":\"p2\",\"name\":\"Put\"}],\"position\":{\"x\":0.0,\"y\":0.0}},\"flowEncodingVersion\":\"1.0\"}";
+    /**
+     * Same flow definition as serialized by another download, the fields and the processors in another order
+     */
+    static final String REORDERED_DEFINITION = "{\n  \"flowEncodingVersion\" : \"1.0\",\n  \"flowContents\" : {\"position\":{\"y\":0,\"x\":0},\"processors\":[{\"name\":\"Put\",\"identifier\":\"p2\"},{\"name\":\"Fetch\",\"identifier\":\"p1\"}],\"name\":\"Group\",\"identifier\":\"a\"}\n}";
+    /**
+     * Flow definition of a process group with a connection of ordered prioritizers
+     */
+    static final String PRIORITIZED_DEFINITION = "{\"flowContents\":{\"identifier\":\"a\",\"name\":\"Group\",\"connections\":[{\"identifier\":\"c1\",\"prioritizers\":[\"org.apache.nifi.prioritizer.PriorityAttributePrioritizer\",\"org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer\"],\"selectedRelationships\":[\"success\",\"retry\"]}]},\"flowEncodingVersion\":\"1.0\"}";
+    /**
+     * Directory of the store
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Store under test
+     */
+    BackupStore store;
+
+    /**
+     * Creates the store in the temporary directory
+     */
+    @BeforeEach
+    void createStore() {
+        store = new BackupStore() {
+            @Override
+            Path getDirectory() {
+                return directory;
+            }
+        };
+        store.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Writes an object and a snapshot listing it and reads both back
+     *
+     * @throws IOException if the store fails
+     */
+    @Test
+    void roundTrip() throws IOException {
+        byte[] definition = DEFINITION.getBytes(StandardCharsets.UTF_8);
+        String hash = store.hash(definition);
+        assertTrue(store.putObject(hash, definition) > 0);
+        assertArrayEquals(definition, store.getObject(hash));
+
+        BackupSnapshot.Group group = new BackupSnapshot.Group();
+        group.setId("a");
+        group.setName("Group");
+        group.setObject(hash);
+        group.setSize(definition.length);
+        BackupSnapshot snapshot = new BackupSnapshot();
+        snapshot.setId("20231001T000000000Z");
+        snapshot.setLocation("https://localhost:8443");
+        snapshot.setRootGroupId("root");
+        snapshot.setGroups(List.of(group));
+        store.putSnapshot(snapshot);
+        assertEquals(List.of(snapshot.getId()), store.getSnapshotIds());
+        assertEquals(hash, store.getSnapshot(snapshot.getId()).getGroups().get(0).getObject());
+    }
+
+    /**
+     * Writes the same flow definition downloaded twice, serialized differently the second time
+     *
+     * @throws IOException if the store fails
+     */
+    @Test
+    void identicalDownloadIsDeduped() throws IOException {
+        byte[] definition = DEFINITION.getBytes(StandardCharsets.UTF_8);
+        byte[] reordered = REORDERED_DEFINITION.getBytes(StandardCharsets.UTF_8);
+        String hash = store.hash(definition);
+        assertEquals(hash, store.hash(reordered));
+        assertTrue(store.putObject(hash, definition) > 0);
+        assertEquals(0, store.putObject(hash, definition));
+        assertEquals(0, store.putObject(store.hash(reordered), reordered));
+        assertEquals(1, countObjects());
+
+        byte[] changed = DEFINITION.replace("Fetch", "Get").getBytes(StandardCharsets.UTF_8);
+        assertNotEquals(hash, store.hash(changed));
+        assertTrue(store.putObject(store.hash(changed), changed) > 0);
+        assertEquals(2, countObjects());
+    }
+
+    /**
+     * Writes the flow definition again with the prioritizers of its connection reordered, which changes the order the
+     * flow files are taken from the queue, and then with the relationships of the connection reordered, which does not
+     *
+     * @throws IOException if the store fails
+     */
+    @Test
+    void reorderedPrioritizersAreStored() throws IOException {
+        byte[] definition = PRIORITIZED_DEFINITION.getBytes(StandardCharsets.UTF_8);
+        byte[] reprioritized = PRIORITIZED_DEFINITION.replace("PriorityAttributePrioritizer\",\"org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer", "FirstInFirstOutPrioritizer\",\"org.apache.nifi.prioritizer.PriorityAttributePrioritizer").getBytes(StandardCharsets.UTF_8);
+        String hash = store.hash(definition);
+        String reprioritizedHash = store.hash(reprioritized);
+        assertNotEquals(hash, reprioritizedHash);
+        assertTrue(store.putObject(hash, definition) > 0);
+        assertTrue(store.putObject(reprioritizedHash, reprioritized) > 0);
+        assertArrayEquals(definition, store.getObject(hash));
+        assertArrayEquals(reprioritized, store.getObject(reprioritizedHash));
+
+        byte[] relationshipsReordered = PRIORITIZED_DEFINITION.replace("[\"success\",\"retry\"]", "[\"retry\",\"success\"]").getBytes(StandardCharsets.UTF_8);
+        assertEquals(hash, store.hash(relationshipsReordered));
+        assertEquals(2, countObjects());
+    }
+
+    /**
+     * Replaces the object on the disk by another valid object, then by a truncated one
+     *
+     * @throws IOException if the store fails
+     */
+    @Test
+    void corruptedObjectIsDetected() throws IOException {
+        byte[] definition = DEFINITION.getBytes(StandardCharsets.UTF_8);
+        String hash = store.hash(definition);
+        store.putObject(hash, definition);
+        Path file = directory.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+
+        byte[] changed = DEFINITION.replace("Fetch", "Get").getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(BackupStore.MAGIC);
+            out.writeLong(changed.length);
+            try (DeflaterOutputStream deflated = new DeflaterOutputStream(out)) {
+                deflated.write(changed);
+            }
+        }
+        IOException mismatch = assertThrows(IOException.class, () -> store.getObject(hash));
+        assertTrue(mismatch.getMessage().contains("does not match its hash"), mismatch::getMessage);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> store.getObject(hash));
+        assertThrows(IOException.class, () -> store.getObject(store.hash("{}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Counts the objects of the store
+     *
+     * @return number of objects
+     * @throws IOException if listing fails
+     */
+    private long countObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(directory.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.services;
+
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends requests through the {@link io.github.deepakdaneva.nifi.cli.services.RequestThrottle} of a cluster served by the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} and checks that the rejected requests are retried after
+ * backing off, that the concurrency limit follows the rejections and the successes, and that an expired access token is
+ * renewed once however many requests it fails.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusTest
+class RequestThrottleTest {
+
+    /**
+     * Flow process group endpoint counted by the server
+     */
+    static final String FLOW_ENDPOINT = "GET /flow/process-groups/{id}";
+    /**
+     * Authentication endpoint counted by the server
+     */
+    static final String TOKEN_ENDPOINT = "POST /access/token";
+    /**
+     * NiFi Clusters
+     */
+    @Inject
+    NiFiClusters nifiClusters;
+
+    /**
+     * Rejects the first attempts of a request with {@code 429}, the request retried after backing off exponentially and
+     * the limit decreased by the rejections and increased again by the successful requests
+     *
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void rejectedRequestBacksOff() throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).start()) {
+            NiFiCluster cluster = open(server, "rejected");
+            try {
+                RequestThrottle throttle = cluster.getRequestThrottle();
+                int initialLimit = throttle.limiter.getLimit();
+                server.reject(3, 429);
+                long start = System.nanoTime();
+                throttle.call(() -> cluster.getNiFiService().getFlowProcessGroup("root"));
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertEquals(4, server.getRequestCount(FLOW_ENDPOINT));
+                // the back-offs of the three retries are 200, 400 and 800 ms with a jitter of 20%
+                assertTrue(elapsedMillis >= (200 + 400 + 800) * 8 / 10, "Retried after " + elapsedMillis + " ms only.");
+                int overloadedLimit = throttle.limiter.getLimit();
+                assertTrue(overloadedLimit < initialLimit, "Limit " + overloadedLimit + " did not decrease from " + initialLimit + ".");
+                for (int i = 0; i < 30; i++) {
+                    throttle.call(() -> cluster.getNiFiService().getFlowProcessGroup("root"));
+                }
+                assertTrue(throttle.limiter.getLimit() > overloadedLimit, "Limit " + throttle.limiter.getLimit() + " did not increase from " + overloadedLimit + ".");
+            } finally {
+                cluster.getNiFiSession().close();
+            }
+        }
+    }
+
+    /**
+     * Expires the access token before sending concurrent requests, all of them rejected with {@code 401} at first and
+     * succeeding after a single authentication
+     *
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void expiredTokenRenewedOnce() throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).latency(50, 0).start()) {
+            NiFiCluster cluster = open(server, "expired");
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                assertEquals(1, server.getRequestCount(TOKEN_ENDPOINT));
+                server.expireAccessToken();
+                List<Future<?>> requests = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    requests.add(executor.submit(() -> cluster.getRequestThrottle().call(() -> cluster.getNiFiService().getFlowProcessGroup("root"))));
+                }
+                for (Future<?> request : requests) {
+                    request.get(30, TimeUnit.SECONDS);
+                }
+                assertEquals(2, server.getRequestCount(TOKEN_ENDPOINT), "Authenticated again more than once.");
+                assertEquals(MockNiFiServer.ACCESS_TOKEN + "-1", cluster.getNiFiSession().getAccessToken());
+            } finally {
+                executor.shutdownNow();
+                cluster.getNiFiSession().close();
+            }
+        }
+    }
+
+    /**
+     * Adds the cluster served by the server and opens its session
+     *
+     * @param server serving the cluster
+     * @param name of the cluster
+     * @return opened cluster
+     */
+    private NiFiCluster open(MockNiFiServer server, String name) {
+        NiFiCluster cluster = nifiClusters.add(name, URI.create(server.getLocation()));
+        cluster.getNiFiSession().open(MockNiFiServer.USERNAME, MockNiFiServer.PASSWORD, false);
+        return cluster;
+    }
+}
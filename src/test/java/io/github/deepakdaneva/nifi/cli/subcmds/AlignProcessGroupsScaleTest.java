@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.MainCommand;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link io.github.deepakdaneva.nifi.cli.subcmds.AlignProcessGroups} against the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} for flows of increasing size and reports the requests, the
+ * wall time and the peak heap of every scenario. Every scenario aligns the flow and then checks that aligning it again
+ * moves nothing. The large scenarios run only with the {@code scale} profile, i.e. {@code mvn -Pdev,scale test}. The
+ * incremental aligning is checked to leave no overlapping process groups and to fetch and move nothing once aligned, the
+ * flow cache to notice the child process groups added or removed without a change of the revision of their parent, and
+ * the aligning of the components to move them and straighten their connections once.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+@TestProfile(AlignProcessGroupsScaleTest.ScaleProfile.class)
+class AlignProcessGroupsScaleTest {
+
+    /**
+     * System property enabling the large scenarios
+     */
+    static final String SCALE_PROPERTY = "nifi-cli.scale-tests";
+    /**
+     * Endpoint moving the process groups
+     */
+    static final String UPDATE_ENDPOINT = "PUT /process-groups/{id}";
+    /**
+     * Endpoint fetching the flows of the process groups
+     */
+    static final String FLOW_ENDPOINT = "GET /flow/process-groups/{id}";
+    /**
+     * Endpoint moving the components other than the process groups
+     */
+    static final String COMPONENT_UPDATE_ENDPOINT = "PUT /{resource}/{id}";
+
+    /**
+     * Provides the scenarios to run
+     *
+     * @return scenarios, the large ones only if enabled
+     */
+    static Stream<Scenario> scenarios() {
+        Stream<Scenario> scenarios = Stream.of(
+                new Scenario("small", SyntheticFlow.builder().width(4).depth(3), 0, 0, 0),
+                new Scenario("small-slow-faulty", SyntheticFlow.builder().width(4).depth(3), 5, 0.05, 0.1));
+        if (Boolean.getBoolean(SCALE_PROPERTY)) {
+            scenarios = Stream.concat(scenarios, Stream.of(
+                    new Scenario("10k", SyntheticFlow.builder().width(10).depth(4).components(2, 0, 0, 1, 0), 0, 0, 0),
+                    new Scenario("10k-slow-faulty", SyntheticFlow.builder().width(10).depth(4).components(2, 0, 0, 1, 0), 2, 0.01, 0.01),
+                    new Scenario("100k", SyntheticFlow.builder().width(10).depth(5).components(2, 0, 0, 1, 0), 0, 0, 0)));
+        }
+        return scenarios;
+    }
+
+    /**
+     * Aligns the flow of the scenario and aligns it again
+     *
+     * @param scenario to run
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("scenarios")
+    void alignConverges(Scenario scenario, QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = scenario.flow.build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).latency(scenario.latencyMillis, scenario.latencyMillis).errors(scenario.errorRatio, 503).concurrentEdits(scenario.concurrentEditRatio).start()) {
+            Run first = align(launcher, server);
+            assertEquals(0, first.result.exitCode(), first.result::getErrorOutput);
+            assertTrue(server.getRequestCount(UPDATE_ENDPOINT) > 0, "Nothing was moved.");
+            report(scenario.name + " (align)", flow, first);
+
+            server.errors(0, 503).concurrentEdits(0).resetRequestCounts();
+            Run second = align(launcher, server);
+            assertEquals(0, second.result.exitCode(), second.result::getErrorOutput);
+            assertEquals(0, server.getRequestCount(UPDATE_ENDPOINT), "Aligned process groups were moved again.");
+            report(scenario.name + " (realign)", flow, second);
+        }
+    }
+
+    /**
+     * Aligns the flow incrementally and aligns it again
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void incrementalAlignSkipsUnchanged(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(6).depth(3).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).start()) {
+            Run first = align(launcher, server, AlignProcessGroups.Options.INCREMENTAL);
+            assertEquals(0, first.result.exitCode(), first.result::getErrorOutput);
+            assertNoOverlaps(flow.getRoot());
+            report("incremental (align)", flow, first);
+
+            server.resetRequestCounts();
+            Run second = align(launcher, server, AlignProcessGroups.Options.INCREMENTAL);
+            assertEquals(0, second.result.exitCode(), second.result::getErrorOutput);
+            assertEquals(0, server.getRequestCount(UPDATE_ENDPOINT), "Aligned process groups were moved again.");
+            assertEquals(0, server.getRequestCount(FLOW_ENDPOINT), "Unchanged process groups were fetched again.");
+            report("incremental (realign)", flow, second);
+        }
+    }
+
+    /**
+     * Aligns the flow with the flow cache, replaces a child process group of a cached process group, which does not
+     * change the revision of the latter, and aligns it again
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void flowCacheFollowsChildChanges(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(3).depth(3).mixedRatio(0).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).start()) {
+            Run first = align(launcher, server, List.of(MainCommand.Options.FLOW_CACHE));
+            assertEquals(0, first.result.exitCode(), first.result::getErrorOutput);
+            report("flow-cache (align)", flow, first);
+
+            SyntheticFlow.Group parent = flow.getRoot().getChildren().get(0);
+            long version = parent.getVersion();
+            SyntheticFlow.Group sibling = parent.getChildren().get(1);
+            flow.removeGroup(parent.getChildren().get(0));
+            SyntheticFlow.Group added = flow.addGroup(parent, "Added", sibling.getX(), sibling.getY());
+            assertEquals(version, parent.getVersion());
+
+            server.resetRequestCounts();
+            Run second = align(launcher, server, List.of(MainCommand.Options.FLOW_CACHE));
+            assertEquals(0, second.result.exitCode(), second.result::getErrorOutput);
+            assertEquals(2, server.getRequestCount(FLOW_ENDPOINT), "Only the root and the changed process group should be fetched.");
+            assertTrue(added.getVersion() > 0, "Added process group was not aligned.");
+            assertNoOverlaps(flow.getRoot());
+            report("flow-cache (realign)", flow, second);
+        }
+    }
+
+    /**
+     * Aligns the flow along with the components of the process groups and aligns it again
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void componentsAlignConverges(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(4).depth(3).components(5, 1, 1, 1, 1).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).concurrentEdits(0.1).start()) {
+            Run first = align(launcher, server, AlignProcessGroups.Options.COMPONENTS);
+            assertEquals(0, first.result.exitCode(), first.result::getErrorOutput);
+            assertTrue(server.getRequestCount(COMPONENT_UPDATE_ENDPOINT) > 0, "No component was moved.");
+            report("components (align)", flow, first);
+
+            server.concurrentEdits(0).resetRequestCounts();
+            Run second = align(launcher, server, AlignProcessGroups.Options.COMPONENTS);
+            assertEquals(0, second.result.exitCode(), second.result::getErrorOutput);
+            assertEquals(0, server.getRequestCount(UPDATE_ENDPOINT), "Aligned process groups were moved again.");
+            assertEquals(0, server.getRequestCount(COMPONENT_UPDATE_ENDPOINT), "Aligned components were moved again.");
+            report("components (realign)", flow, second);
+        }
+    }
+
+    /**
+     * Asserts that no two child process groups of the process group, or of its descendants holding nothing but process
+     * groups, overlap
+     *
+     * @param group to check
+     */
+    private static void assertNoOverlaps(SyntheticFlow.Group group) {
+        if (!group.isIndependent()) {
+            return;
+        }
+        List<SyntheticFlow.Group> children = group.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            SyntheticFlow.Group a = children.get(i);
+            for (int j = i + 1; j < children.size(); j++) {
+                SyntheticFlow.Group b = children.get(j);
+                boolean overlapping = Math.abs(a.getX() - b.getX()) < AlignProcessGroups.PG_WIDTH && Math.abs(a.getY() - b.getY()) < AlignProcessGroups.PG_HEIGHT;
+                assertFalse(overlapping, () -> a.getId() + " overlaps " + b.getId() + " in " + group.getId());
+            }
+            assertNoOverlaps(a);
+        }
+    }
+
+    /**
+     * Aligns all the process groups of the flow served by the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param options additional options of the align command
+     * @return result of the run along with its measurements
+     */
+    private static Run align(QuarkusMainLauncher launcher, MockNiFiServer server, String... options) {
+        return align(launcher, server, List.of(), options);
+    }
+
+    /**
+     * Aligns all the process groups of the flow served by the server, the options of the top command preceding the
+     * align command as picocli would otherwise leave them unmatched
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param mainOptions additional options of the top command
+     * @param options additional options of the align command
+     * @return result of the run along with its measurements
+     */
+    private static Run align(QuarkusMainLauncher launcher, MockNiFiServer server, List<String> mainOptions, String... options) {
+        try (HeapSampler heap = new HeapSampler()) {
+            long start = System.nanoTime();
+            String[] args = Stream.of(Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD), mainOptions.stream(), Stream.of("align", AlignProcessGroups.Options.DEPTH + "=-1", AlignProcessGroups.Options.PARALLELISM + "=16"), Arrays.stream(options)).flatMap(arg -> arg).toArray(String[]::new);
+            LaunchResult result = launcher.launch(args);
+            return new Run(result, (System.nanoTime() - start) / 1_000_000, heap.getPeakBytes(), server.getRequestCount(), server.getRequestCounts());
+        }
+    }
+
+    /**
+     * Reports the measurements of the run
+     *
+     * @param name of the run
+     * @param flow aligned
+     * @param run measurements
+     */
+    private static void report(String name, SyntheticFlow flow, Run run) {
+        System.out.printf("%-30s groups=%-7d requests=%-7d wall=%6d ms peakHeap=%5d MB %s%n", name, flow.size(), run.requests, run.wallMillis, run.peakHeapBytes / (1024 * 1024), run.requestsByEndpoint);
+    }
+
+    /**
+     * Test profile raising the request throttling, the mock server is not the one to protect, and keeping the
+     * fingerprints of the incremental aligning and the cached flows in the build directory
+     */
+    public static class ScaleProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("io.github.deepakdaneva.nifi.throttle.requests-per-second", "100000", "io.github.deepakdaneva.nifi.throttle.burst", "1000", "io.github.deepakdaneva.nifi.throttle.max-concurrency", "64", "io.github.deepakdaneva.nifi.align.directory", "target/align-fingerprints", "io.github.deepakdaneva.nifi.flow-cache.directory", "target/flow-cache");
+        }
+    }
+
+    /**
+     * Scenario of the scale test
+     */
+    static final class Scenario {
+        /**
+         * Name of the scenario
+         */
+        final String name;
+        /**
+         * Builder of the flow
+         */
+        final SyntheticFlow.Builder flow;
+        /**
+         * Fixed and maximum random latency of the responses in milliseconds
+         */
+        final long latencyMillis;
+        /**
+         * Ratio of the process group requests failing as the NiFi is overloaded
+         */
+        final double errorRatio;
+        /**
+         * Ratio of the process groups edited by another user while being aligned
+         */
+        final double concurrentEditRatio;
+
+        /**
+         * Create instance
+         *
+         * @param name of the scenario
+         * @param flow builder of the flow
+         * @param latencyMillis of the responses
+         * @param errorRatio of the process group requests
+         * @param concurrentEditRatio of the process groups
+         */
+        Scenario(String name, SyntheticFlow.Builder flow, long latencyMillis, double errorRatio, double concurrentEditRatio) {
+            this.name = name;
+            this.flow = flow;
+            this.latencyMillis = latencyMillis;
+            this.errorRatio = errorRatio;
+            this.concurrentEditRatio = concurrentEditRatio;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Result of a run along with its measurements
+     */
+    static final class Run {
+        /**
+         * Result of the command
+         */
+        final LaunchResult result;
+        /**
+         * Wall time of the run in milliseconds
+         */
+        final long wallMillis;
+        /**
+         * Peak heap used during the run, including the flow held by the mock server
+         */
+        final long peakHeapBytes;
+        /**
+         * Number of requests received by the mock server
+         */
+        final long requests;
+        /**
+         * Number of requests received by the mock server by endpoint
+         */
+        final Map<String, Long> requestsByEndpoint;
+
+        /**
+         * Create instance
+         *
+         * @param result of the command
+         * @param wallMillis wall time of the run
+         * @param peakHeapBytes peak heap used during the run
+         * @param requests number of requests
+         * @param requestsByEndpoint number of requests by endpoint
+         */
+        Run(LaunchResult result, long wallMillis, long peakHeapBytes, long requests, Map<String, Long> requestsByEndpoint) {
+            this.result = result;
+            this.wallMillis = wallMillis;
+            this.peakHeapBytes = peakHeapBytes;
+            this.requests = requests;
+            this.requestsByEndpoint = requestsByEndpoint;
+        }
+    }
+
+    /**
+     * Samples the used heap on a background thread to find its peak, the sum of the peaks of the memory pools would
+     * overstate it as the pools peak at different times
+     */
+    static final class HeapSampler implements AutoCloseable {
+        /**
+         * Memory bean to read the used heap from
+         */
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        /**
+         * Sampling thread
+         */
+        private final Thread thread;
+        /**
+         * Peak of the used heap
+         */
+        private volatile long peakBytes;
+        /**
+         * Whether the sampling is stopped
+         */
+        private volatile boolean stopped;
+
+        /**
+         * Create instance and start sampling every millisecond, after a collection so the garbage of the previous runs
+         * is not counted
+         */
+        HeapSampler() {
+            System.gc();
+            peakBytes = memory.getHeapMemoryUsage().getUsed();
+            thread = new Thread(() -> {
+                while (!stopped) {
+                    peakBytes = Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed());
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Provides the peak of the used heap so far
+         *
+         * @return peak of the used heap in bytes
+         */
+        long getPeakBytes() {
+            return Math.max(peakBytes, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        /**
+         * Stops sampling
+         */
+        @Override
+        public void close() {
+            stopped = true;
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the output sent by the {@link io.github.deepakdaneva.nifi.cli.subcmds.Daemon} reaches the
+ * {@link io.github.deepakdaneva.nifi.cli.subcmds.DaemonClient} line by line whatever the line breaks of the text, and
+ * that only the exit line of the daemon ends the command.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class DaemonTest {
+
+    /**
+     * Sends a message spanning several lines, one of them looking like the exit line, and then the exit line
+     */
+    @Test
+    void multiLineMessageKeepsEveryLine() {
+        String message = "Invalid value for option '--depth'\nUsage: nifi-cli align [-hV]\r\n" + Daemon.EXIT_PREFIX + "0\rDone";
+        StringWriter printed = new StringWriter();
+        List<Integer> exitCodes = receive(Daemon.frame(message) + Daemon.EXIT_PREFIX + "2\n", new PrintWriter(printed));
+        assertEquals(List.of(2), exitCodes);
+        assertEquals(List.of("Invalid value for option '--depth'", "Usage: nifi-cli align [-hV]", Daemon.EXIT_PREFIX + "0", "Done"), printed.toString().lines().toList());
+    }
+
+    /**
+     * Sends a message of a single line
+     */
+    @Test
+    void singleLineMessage() {
+        assertEquals(Daemon.OUTPUT_PREFIX + "Authenticated!\n", Daemon.frame("Authenticated!"));
+    }
+
+    /**
+     * Reads the lines sent by the daemon the way the client does
+     *
+     * @param sent lines sent by the daemon
+     * @param out to print the command output to
+     * @return exit codes read
+     */
+    private static List<Integer> receive(String sent, PrintWriter out) {
+        List<Integer> exitCodes = new ArrayList<>();
+        for (String line : sent.split("\n")) {
+            Integer exitCode = DaemonClient.read(line, out);
+            if (exitCode != null) {
+                exitCodes.add(exitCode);
+            }
+        }
+        return exitCodes;
+    }
+}
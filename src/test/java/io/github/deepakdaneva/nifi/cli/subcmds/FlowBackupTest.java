@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.MainCommand;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowBackup} against the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} and checks that backing up an unchanged flow writes no
+ * new objects, and that restoring replaces only the process groups changed since the snapshot and deletes the replace
+ * requests.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+@TestProfile(FlowBackupTest.BackupProfile.class)
+class FlowBackupTest {
+
+    /**
+     * Directory of the store
+     */
+    static final Path DIRECTORY = Paths.get("target", "backup");
+    /**
+     * Endpoint creating the replace requests
+     */
+    static final String REPLACE_ENDPOINT = "POST /process-groups/{id}/replace-requests";
+    /**
+     * Endpoint deleting the replace requests
+     */
+    static final String DELETE_REPLACE_ENDPOINT = "DELETE /process-groups/replace-requests/{id}";
+
+    /**
+     * Backs up the flow twice, changes a process group and restores the snapshot twice
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void restoreReplacesChangedProcessGroups(QuarkusMainLauncher launcher) throws Exception {
+        delete(DIRECTORY);
+        SyntheticFlow flow = SyntheticFlow.builder().width(3).depth(2).mixedRatio(0).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).start()) {
+            LaunchResult first = backup(launcher, server, "create");
+            assertEquals(0, first.exitCode(), first::getErrorOutput);
+            assertEquals(3, server.getRequestCount("GET /process-groups/{id}/download"));
+            assertEquals(3, countObjects());
+
+            LaunchResult second = backup(launcher, server, "create");
+            assertEquals(0, second.exitCode(), second::getErrorOutput);
+            assertEquals(3, countObjects(), "Unchanged process groups were written again.");
+
+            flow.addGroup(flow.getRoot().getChildren().get(0), "Added", 0, 0);
+            server.resetRequestCounts();
+            LaunchResult restore = backup(launcher, server, "restore");
+            assertEquals(0, restore.exitCode(), restore::getErrorOutput);
+            assertEquals(1, server.getRequestCount(REPLACE_ENDPOINT), "Only the changed process group should be replaced.");
+            assertEquals(1, server.getRequestCount(DELETE_REPLACE_ENDPOINT));
+            assertEquals(0, server.getReplaceRequestCount(), "Replace requests were not deleted.");
+
+            server.resetRequestCounts();
+            LaunchResult again = backup(launcher, server, "restore");
+            assertEquals(0, again.exitCode(), again::getErrorOutput);
+            assertEquals(0, server.getRequestCount(REPLACE_ENDPOINT), "Restored process group was replaced again.");
+        }
+    }
+
+    /**
+     * Runs the backup command against the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param action of the backup command
+     * @return result of the command
+     */
+    private static LaunchResult backup(QuarkusMainLauncher launcher, MockNiFiServer server, String action) {
+        String[] args = Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD, "backup", action).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+
+    /**
+     * Counts the objects of the store
+     *
+     * @return number of objects
+     * @throws IOException if listing fails
+     */
+    private static long countObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(DIRECTORY.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * Deletes the directory along with its contents, if it exists
+     *
+     * @param directory to delete
+     * @throws IOException if deleting fails
+     */
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Test profile keeping the store in the build directory
+     */
+    public static class BackupProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("io.github.deepakdaneva.nifi.backup.directory", DIRECTORY.toString());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.MainCommand;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link io.github.deepakdaneva.nifi.cli.subcmds.FlowFileQueues} against the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} and checks that the listing and drop requests are polled
+ * until finished and deleted afterwards, also once timed out, and that the queues are never dropped without the process
+ * group being provided.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+class FlowFileQueuesTest {
+
+    /**
+     * Endpoint creating the listing requests
+     */
+    static final String CREATE_LISTING_ENDPOINT = "POST /flowfile-queues/{id}/listing-requests";
+    /**
+     * Endpoint polling the listing requests
+     */
+    static final String GET_LISTING_ENDPOINT = "GET /flowfile-queues/{id}/listing-requests/{requestId}";
+    /**
+     * Endpoint deleting the listing requests
+     */
+    static final String DELETE_LISTING_ENDPOINT = "DELETE /flowfile-queues/{id}/listing-requests/{requestId}";
+    /**
+     * Endpoint creating the drop requests
+     */
+    static final String CREATE_DROP_ENDPOINT = "POST /flowfile-queues/{id}/drop-requests";
+
+    /**
+     * Lists the queued flowfiles of every connection, the listing requests finishing on their second poll
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void listPollsUntilFinished(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(2).depth(2).components(3, 1, 1, 0, 0).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).queued(3, 2).start()) {
+            long connections = connections(flow.getRoot());
+            LaunchResult result = queues(launcher, server, "list");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            List<JsonNode> lines = lines(result);
+            assertEquals(3 * connections, lines.size(), result::getOutput);
+            assertEquals(connections, lines.stream().map(line -> line.path("connectionId").asText()).distinct().count());
+            assertEquals(connections, server.getRequestCount(CREATE_LISTING_ENDPOINT));
+            assertEquals(2 * connections, server.getRequestCount(GET_LISTING_ENDPOINT));
+            assertEquals(connections, server.getRequestCount(DELETE_LISTING_ENDPOINT));
+            assertEquals(0, server.getQueueRequestCount(false));
+        }
+    }
+
+    /**
+     * Drops the queued flowfiles of every connection, then drops again finding nothing queued anymore
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void dropEmptiesQueues(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(2).depth(2).components(3, 1, 1, 0, 0).build();
+        try (MockNiFiServer server = new MockNiFiServer(flow).queued(5, 1).start()) {
+            long connections = connections(flow.getRoot());
+            LaunchResult result = queues(launcher, server, "drop", FlowFileQueues.Options.ROOTPGID + "=root");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            List<JsonNode> lines = lines(result);
+            assertEquals(connections, lines.size(), result::getOutput);
+            assertEquals(5 * connections, lines.stream().mapToLong(line -> line.path("droppedCount").asLong()).sum());
+            assertEquals(connections, server.getDroppedQueueCount());
+            assertEquals(0, server.getQueueRequestCount(true));
+
+            result = queues(launcher, server, "drop", FlowFileQueues.Options.ROOTPGID + "=root");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertEquals(connections, server.getRequestCount(CREATE_DROP_ENDPOINT));
+        }
+    }
+
+    /**
+     * Lists the queues, the listing request of one of them never finishing, and gives up on it after the timeout
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void timeoutDeletesRequest(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(2).depth(1).components(3, 0, 0, 0, 0).build();
+        SyntheticFlow.Group leaf = flow.getRoot().getChildren().get(0);
+        try (MockNiFiServer server = new MockNiFiServer(flow).queued(2, 1).stuck(MockNiFiServer.componentId(leaf, "connection", 0)).start()) {
+            long connections = connections(flow.getRoot());
+            LaunchResult result = queues(launcher, server, "list", FlowFileQueues.Options.TIMEOUT + "=1");
+            assertEquals(CommandLine.ExitCode.SOFTWARE, result.exitCode(), result::getOutput);
+            assertEquals(2 * (connections - 1), lines(result).size(), result::getOutput);
+            assertEquals(connections, server.getRequestCount(DELETE_LISTING_ENDPOINT));
+            assertEquals(0, server.getQueueRequestCount(false));
+        }
+    }
+
+    /**
+     * Refuses to drop the queues of the whole flow without the process group being provided
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void dropRequiresRootPgId(QuarkusMainLauncher launcher) throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(2).depth(1).build()).queued(5, 0).start()) {
+            LaunchResult result = queues(launcher, server, "drop");
+            assertEquals(CommandLine.ExitCode.USAGE, result.exitCode(), result::getOutput);
+            assertEquals(0, server.getRequestCount(CREATE_DROP_ENDPOINT));
+            assertEquals(0, server.getDroppedQueueCount());
+        }
+    }
+
+    /**
+     * Lists or drops the queues of the flow served by the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param action to apply
+     * @param options additional options of the queues command
+     * @return result of the command
+     */
+    private static LaunchResult queues(QuarkusMainLauncher launcher, MockNiFiServer server, String action, String... options) {
+        String[] args = Stream.concat(Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD, "queues", action), Arrays.stream(options)).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+
+    /**
+     * Provides the json lines printed among the log lines of the output
+     *
+     * @param result of the command
+     * @return json lines
+     */
+    private static List<JsonNode> lines(LaunchResult result) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return result.getOutputStream().stream().filter(line -> line.startsWith("{\"connectionId\"")).map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Provides the number of connections of the process group and of its descendants
+     *
+     * @param group process group
+     * @return number of connections
+     */
+    private static long connections(SyntheticFlow.Group group) {
+        return group.getConnections() + group.getChildren().stream().mapToLong(FlowFileQueuesTest::connections).sum();
+    }
+}
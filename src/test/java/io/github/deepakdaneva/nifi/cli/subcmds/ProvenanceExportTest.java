@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.MainCommand;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link io.github.deepakdaneva.nifi.cli.subcmds.ProvenanceExport} against the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} and checks that the events on the bounds of the windows
+ * are exported once, and that the windows with more events than a query returns are split until all of them are
+ * exported.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+class ProvenanceExportTest {
+
+    /**
+     * Start of the exported time range
+     */
+    static final Instant START = Instant.parse("2023-10-01T00:00:00Z");
+    /**
+     * End of the exported time range
+     */
+    static final Instant END = START.plus(Duration.ofHours(3));
+    /**
+     * File the events are written to
+     */
+    static final Path OUTPUT = Paths.get("target", "provenance", "events.ndjson.gz");
+    /**
+     * Endpoint submitting the provenance queries
+     */
+    static final String SUBMIT_ENDPOINT = "POST /provenance";
+
+    /**
+     * Exports hourly windows holding events on their bounds, at the start and at the end of the time range and a
+     * millisecond around the bounds of the windows
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void windowBoundsExportEventsOnce(QuarkusMainLauncher launcher) throws Exception {
+        long hour = Duration.ofHours(1).toMillis();
+        long start = START.toEpochMilli();
+        long[] events = {start, start + hour / 2, start + hour, start + hour + 1, start + 2 * hour - 1, start + 2 * hour, END.toEpochMilli()};
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).provenance(events).start()) {
+            LaunchResult result = export(launcher, server, ProvenanceExport.Options.WINDOW + "=60");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertEquals(3, server.getRequestCount(SUBMIT_ENDPOINT));
+            assertEquals(Arrays.stream(events).boxed().collect(Collectors.toList()), readEventIds());
+            assertEquals(0, server.getProvenanceQueryCount(), "Provenance queries were not deleted.");
+        }
+    }
+
+    /**
+     * Exports a window holding more events than a query returns
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void truncatedWindowIsSplit(QuarkusMainLauncher launcher) throws Exception {
+        long[] events = new long[40];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = START.plusSeconds(7L * (i + 1)).toEpochMilli();
+        }
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(1).depth(1).build()).provenance(events).start()) {
+            LaunchResult result = export(launcher, server, ProvenanceExport.Options.WINDOW + "=180", ProvenanceExport.Options.MAX_RESULTS + "=10");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertTrue(server.getRequestCount(SUBMIT_ENDPOINT) > 4, "Window was not split.");
+            assertEquals(Arrays.stream(events).boxed().collect(Collectors.toList()), readEventIds());
+            assertEquals(0, server.getProvenanceQueryCount(), "Provenance queries were not deleted.");
+        }
+    }
+
+    /**
+     * Exports the provenance of the time range from the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the provenance
+     * @param options additional options of the export command
+     * @return result of the command
+     * @throws IOException if the previous output can not be deleted
+     */
+    private static LaunchResult export(QuarkusMainLauncher launcher, MockNiFiServer server, String... options) throws IOException {
+        Files.createDirectories(OUTPUT.getParent());
+        Files.deleteIfExists(OUTPUT);
+        String[] args = Stream.concat(Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD, "provenance", "export", ProvenanceExport.Options.START + "=" + START, ProvenanceExport.Options.END + "=" + END, ProvenanceExport.Options.OUTPUT + "=" + OUTPUT), Arrays.stream(options)).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+
+    /**
+     * Reads the ids of the exported events, sorted, the mock server uses the times of the events as their ids
+     *
+     * @return sorted event ids
+     * @throws IOException if the output can not be read
+     */
+    private static List<Long> readEventIds() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(OUTPUT)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ids.add(objectMapper.readTree(line).path("eventId").asLong());
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.subcmds;
+
+import io.github.deepakdaneva.nifi.cli.MainCommand;
+import io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer;
+import io.github.deepakdaneva.nifi.cli.mock.SyntheticFlow;
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link io.github.deepakdaneva.nifi.cli.subcmds.ScheduleComponents} against the
+ * {@link io.github.deepakdaneva.nifi.cli.mock.MockNiFiServer} and checks that the processors and the ports reach the
+ * state with one process group request, with a request per component, and that a component not reaching the state
+ * fails the command as a straggler.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+@QuarkusMainTest
+class ScheduleComponentsTest {
+
+    /**
+     * Endpoint scheduling the components of a process group at once
+     */
+    static final String SCHEDULE_ENDPOINT = "PUT /flow/process-groups/{id}";
+    /**
+     * Endpoint scheduling a component
+     */
+    static final String RUN_STATUS_ENDPOINT = "PUT /{resource}/{id}/run-status";
+
+    /**
+     * Starts the stopped components with one process group request
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void startSchedulesProcessGroup(QuarkusMainLauncher launcher) throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(3).depth(2).components(3, 1, 1, 0, 0).build()).runStatus("Stopped").start()) {
+            long total = server.getRunStatusCount("Stopped");
+            LaunchResult result = schedule(launcher, server, "start");
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertEquals(1, server.getRequestCount(SCHEDULE_ENDPOINT));
+            assertEquals(0, server.getRequestCount(RUN_STATUS_ENDPOINT));
+            assertEquals(total, server.getRunStatusCount("Running"));
+        }
+    }
+
+    /**
+     * Stops the running components with a request per component, some of them edited by another user meanwhile so
+     * their revisions are refreshed
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void stopSchedulesEachComponent(QuarkusMainLauncher launcher) throws Exception {
+        try (MockNiFiServer server = new MockNiFiServer(SyntheticFlow.builder().width(3).depth(2).components(3, 1, 1, 0, 0).build()).concurrentEdits(0.2).start()) {
+            long total = server.getRunStatusCount("Running");
+            LaunchResult result = schedule(launcher, server, "stop", ScheduleComponents.Options.PER_COMPONENT);
+            assertEquals(0, result.exitCode(), result::getErrorOutput);
+            assertEquals(0, server.getRequestCount(SCHEDULE_ENDPOINT));
+            assertEquals(total, server.getRequestCount(RUN_STATUS_ENDPOINT) - server.getRequestCount("GET /{resource}/{id}"));
+            assertEquals(total, server.getRunStatusCount("Stopped"));
+        }
+    }
+
+    /**
+     * Starts the stopped components, one of which never starts, and waits for it until the timeout
+     *
+     * @param launcher to run the command with
+     * @throws Exception if the mock server fails
+     */
+    @Test
+    void stragglerFailsSchedule(QuarkusMainLauncher launcher) throws Exception {
+        SyntheticFlow flow = SyntheticFlow.builder().width(2).depth(2).components(3, 1, 0, 0, 0).build();
+        SyntheticFlow.Group leaf = flow.getRoot().getChildren().get(0).getChildren().get(0);
+        try (MockNiFiServer server = new MockNiFiServer(flow).runStatus("Stopped").stuck(MockNiFiServer.componentId(leaf, "processor", 0)).start()) {
+            long total = server.getRunStatusCount("Stopped");
+            LaunchResult result = schedule(launcher, server, "start", ScheduleComponents.Options.TIMEOUT + "=1");
+            assertEquals(CommandLine.ExitCode.SOFTWARE, result.exitCode(), result::getOutput);
+            assertEquals(total - 1, server.getRunStatusCount("Running"));
+            assertEquals(1, server.getRunStatusCount("Stopped"));
+        }
+    }
+
+    /**
+     * Schedules the components of the whole flow served by the server
+     *
+     * @param launcher to run the command with
+     * @param server serving the flow
+     * @param action to apply
+     * @param options additional options of the schedule command
+     * @return result of the command
+     */
+    private static LaunchResult schedule(QuarkusMainLauncher launcher, MockNiFiServer server, String action, String... options) {
+        String[] args = Stream.concat(Stream.of(MainCommand.Options.LOCATION + "=" + server.getLocation(), MainCommand.Options.USERNAME + "=" + MockNiFiServer.USERNAME, MainCommand.Options.PASSWORD + "=" + MockNiFiServer.PASSWORD, "schedule", action), Arrays.stream(options)).toArray(String[]::new);
+        return launcher.launch(args);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.utils.AimdLimiter} grows the limit by one per window of successful
+ * requests, halves it once per overload however many of the requests started before it report it, keeps it within its
+ * bounds, and holds the requests over the limit until a permit is released.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class AimdLimiterTest {
+
+    /**
+     * Releases successful requests until the limit grows, about a window of as many requests as the limit per step, up
+     * to the maximum limit
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    void additiveIncrease() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 5);
+        for (int limit = 2; limit < 5; limit++) {
+            assertEquals(limit, limiter.getLimit());
+            int released = 0;
+            while (limiter.getLimit() == limit) {
+                limiter.release(limiter.acquire(), false);
+                released++;
+            }
+            // every request grows the fractional limit by the inverse of the limit, about a window per step
+            assertTrue(released >= limit && released <= limit + 1, released + " requests grew the limit " + limit + ".");
+        }
+        assertEquals(5, limiter.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(), false);
+        }
+        assertEquals(5, limiter.getLimit(), "Limit grew past the maximum.");
+    }
+
+    /**
+     * Overloads the limiter with all the requests in flight, only the first overload halving the limit, and then with a
+     * request started after the decrease
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    void multiplicativeDecrease() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(16, 1, 64);
+        List<Long> inFlight = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            inFlight.add(limiter.acquire());
+        }
+        for (long acquiredNanos : inFlight) {
+            limiter.release(acquiredNanos, true);
+        }
+        assertEquals(8, limiter.getLimit(), "Requests started before the decrease decreased the limit again.");
+        limiter.release(limiter.acquire(), true);
+        assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limiter.release(limiter.acquire(), true);
+        }
+        assertEquals(1, limiter.getLimit(), "Limit fell below the minimum.");
+    }
+
+    /**
+     * Acquires all the permits, the next acquisition blocked and the next task queued until a permit is released
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    void blocksOverLimit() throws Exception {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 2);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS), "Acquired a permit over the limit.");
+        limiter.release(first, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS), "Released permit not handed over.");
+        waiter.join();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        limiter.execute(ran::countDown);
+        assertEquals(1, ran.getCount(), "Task ran over the limit.");
+        limiter.release(second, false);
+        assertEquals(0, ran.getCount(), "Queued task not run once a permit was released.");
+    }
+
+    /**
+     * Creates limiters with invalid bounds, and with an initial limit out of its bounds
+     */
+    @Test
+    void bounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(1, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter(1, 4, 2));
+        assertEquals(4, new AimdLimiter(100, 1, 4).getLimit());
+        assertEquals(2, new AimdLimiter(0, 2, 4).getLimit());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.deepakdaneva.nifi.cli.models.FlowDefinitionNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.utils.FlowDefinitionDiff} compares the ordered lists of the
+ * components in order and their sets regardless of the order of the elements.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class FlowDefinitionDiffTest {
+
+    /**
+     * Flow definition of a process group with a connection of ordered prioritizers
+     */
+    static final String DEFINITION = "{\"flowContents\":{\"identifier\":\"a\",\"name\":\"Group\",\"connections\":[{\"identifier\":\"c1\",\"name\":\"Queue\",\"prioritizers\":[\"org.apache.nifi.prioritizer.PriorityAttributePrioritizer\",\"org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer\"],\"selectedRelationships\":[\"success\",\"retry\"]}]},\"flowEncodingVersion\":\"1.0\"}";
+
+    /**
+     * Compares the flow definition with itself having the prioritizers of its connection reordered
+     *
+     * @throws IOException if a definition is not readable
+     */
+    @Test
+    void reorderedPrioritizersDiffer() throws IOException {
+        String reordered = DEFINITION.replace("PriorityAttributePrioritizer\",\"org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer", "FirstInFirstOutPrioritizer\",\"org.apache.nifi.prioritizer.PriorityAttributePrioritizer");
+        List<String> changes = diff(DEFINITION, reordered);
+        assertEquals(1, changes.size(), changes::toString);
+        assertEquals("~ /Group/Queue (connections) prioritizers: ", changes.get(0).substring(0, changes.get(0).indexOf('[')));
+    }
+
+    /**
+     * Compares the flow definition with itself having the relationships of its connection reordered
+     *
+     * @throws IOException if a definition is not readable
+     */
+    @Test
+    void reorderedRelationshipsAreSame() throws IOException {
+        assertEquals(List.of(), diff(DEFINITION, DEFINITION.replace("[\"success\",\"retry\"]", "[\"retry\",\"success\"]")));
+    }
+
+    /**
+     * Compares the flow definitions the way the diff command does, reading again the contents of the differing process
+     * groups for the details
+     *
+     * @param left flow definition
+     * @param right flow definition
+     * @return differences found
+     * @throws IOException if a definition is not readable
+     */
+    private static List<String> diff(String left, String right) throws IOException {
+        Set<String> ignored = new HashSet<>(FlowHashes.IDENTITY_FIELDS);
+        ignored.addAll(FlowHashes.LAYOUT_FIELDS);
+        FlowDefinitionReader reader = new FlowDefinitionReader(new ObjectMapper());
+        byte[] leftBytes = left.getBytes(StandardCharsets.UTF_8);
+        byte[] rightBytes = right.getBytes(StandardCharsets.UTF_8);
+        FlowDefinitionNode leftRoot = reader.readFlowDefinition(new ByteArrayInputStream(leftBytes), ignored);
+        FlowDefinitionNode rightRoot = reader.readFlowDefinition(new ByteArrayInputStream(rightBytes), ignored);
+        FlowDefinitionDiff pending = new FlowDefinitionDiff(ignored);
+        pending.compare(leftRoot, rightRoot, "/Group", change -> {
+        });
+        reader.readFlowDefinitionContents(new ByteArrayInputStream(leftBytes), leftRoot, pending.getLeftPending());
+        reader.readFlowDefinitionContents(new ByteArrayInputStream(rightBytes), rightRoot, pending.getRightPending());
+        List<String> changes = new ArrayList<>();
+        new FlowDefinitionDiff(ignored).compare(leftRoot, rightRoot, "/Group", changes::add);
+        return changes;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.utils.LayeredLayout} places every node without any overlap whatever
+ * the shape of the graph, cycles, self loops and disconnected parts included, and that the layout depends only on the
+ * graph.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class LayeredLayoutTest {
+
+    /**
+     * Horizontal gap of the layouts
+     */
+    static final double HORIZONTAL_GAP = 50;
+    /**
+     * Vertical gap of the layouts
+     */
+    static final double VERTICAL_GAP = 100;
+
+    /**
+     * Lays out a chain, every node a layer below its predecessor
+     */
+    @Test
+    void chainFlowsDown() {
+        double[][] positions = layout(4, new int[] {0, 1, 2}, new int[] {1, 2, 3});
+        for (int i = 1; i < 4; i++) {
+            assertTrue(positions[1][i] > positions[1][i - 1], "Node " + i + " is not below its predecessor.");
+        }
+        assertNoOverlaps(sizes(4, 100), sizes(4, 50), positions);
+    }
+
+    /**
+     * Lays out cycles, including one through all the nodes, which have no source to start the layers from
+     */
+    @Test
+    void cyclesAreBroken() {
+        int[] sources = {0, 1, 2, 3, 4, 5, 2};
+        int[] targets = {1, 2, 0, 4, 5, 3, 4};
+        double[][] positions = layout(6, sources, targets);
+        assertNoOverlaps(sizes(6, 100), sizes(6, 50), positions);
+        double top = Double.MAX_VALUE;
+        double bottom = 0;
+        for (int i = 0; i < 6; i++) {
+            top = Math.min(top, positions[1][i]);
+            bottom = Math.max(bottom, positions[1][i]);
+        }
+        assertTrue(bottom > top, "Cycles were not laid out in layers.");
+    }
+
+    /**
+     * Lays out self loops, alone and along with other edges
+     */
+    @Test
+    void selfLoopsAreIgnored() {
+        double[][] positions = layout(3, new int[] {0, 0, 1, 2}, new int[] {0, 1, 1, 2});
+        assertNoOverlaps(sizes(3, 100), sizes(3, 50), positions);
+        assertTrue(positions[1][1] > positions[1][0], "Successor is not below its predecessor.");
+    }
+
+    /**
+     * Lays out disconnected parts along with nodes without any edge
+     */
+    @Test
+    void disconnectedPartsArePacked() {
+        int[] sources = {0, 1, 3, 3, 6};
+        int[] targets = {1, 2, 4, 5, 7};
+        double[][] positions = layout(12, sources, targets);
+        assertNoOverlaps(sizes(12, 100), sizes(12, 50), positions);
+    }
+
+    /**
+     * Lays out random graphs of nodes of various sizes, checking that no nodes overlap and that the same graph is laid
+     * out the same
+     */
+    @Test
+    void randomGraphsNeverOverlap() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(150);
+            int edges = random.nextInt(2 * n);
+            double[] widths = new double[n];
+            double[] heights = new double[n];
+            for (int i = 0; i < n; i++) {
+                widths[i] = 50 + random.nextInt(400);
+                heights[i] = 20 + random.nextInt(200);
+            }
+            int[] sources = new int[edges];
+            int[] targets = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                sources[e] = random.nextInt(n);
+                targets[e] = random.nextInt(n);
+            }
+            LayeredLayout layout = new LayeredLayout(HORIZONTAL_GAP, VERTICAL_GAP);
+            double[][] positions = layout.layout(widths, heights, sources, targets);
+            assertNoOverlaps(widths, heights, positions);
+            double[][] again = layout.layout(widths, heights, sources, targets);
+            assertArrayEquals(positions[0], again[0]);
+            assertArrayEquals(positions[1], again[1]);
+        }
+    }
+
+    /**
+     * Lays out a graph around obstacles, one at the origin where the packing starts and one overlapping the others,
+     * checking that no node overlaps them nor comes closer than the gaps
+     */
+    @Test
+    void obstaclesAreAvoided() {
+        int[] sources = {0, 1, 3, 3};
+        int[] targets = {1, 2, 4, 5};
+        double[][] obstacles = {{0, 0, 300, 200}, {250, 150, 400, 400}, {-500, -500, 100, 100}};
+        double[][] positions = new LayeredLayout(HORIZONTAL_GAP, VERTICAL_GAP).layout(sizes(8, 100), sizes(8, 50), sources, targets, obstacles);
+        assertNoOverlaps(sizes(8, 100), sizes(8, 50), positions);
+        for (int i = 0; i < 8; i++) {
+            for (double[] obstacle : obstacles) {
+                boolean near = positions[0][i] < obstacle[0] + obstacle[2] + HORIZONTAL_GAP && obstacle[0] < positions[0][i] + 100 + HORIZONTAL_GAP && positions[1][i] < obstacle[1] + obstacle[3] + VERTICAL_GAP && obstacle[1] < positions[1][i] + 50 + VERTICAL_GAP;
+                if (near) {
+                    fail("Node " + i + " is placed at " + positions[0][i] + ", " + positions[1][i] + " within the gaps of the obstacle at " + obstacle[0] + ", " + obstacle[1] + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Lays out an empty graph and rejects sizes and edges not provided in pairs
+     */
+    @Test
+    void invalidInputs() {
+        LayeredLayout layout = new LayeredLayout(HORIZONTAL_GAP, VERTICAL_GAP);
+        assertEquals(0, layout.layout(new double[0], new double[0], new int[0], new int[0])[0].length);
+        assertThrows(IllegalArgumentException.class, () -> layout.layout(new double[2], new double[1], new int[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> layout.layout(new double[2], new double[2], new int[] {0}, new int[0]));
+    }
+
+    /**
+     * Lays out the graph of nodes of the same size
+     *
+     * @param n number of nodes
+     * @param sources of the edges
+     * @param targets of the edges
+     * @return positions of the nodes
+     */
+    private static double[][] layout(int n, int[] sources, int[] targets) {
+        return new LayeredLayout(HORIZONTAL_GAP, VERTICAL_GAP).layout(sizes(n, 100), sizes(n, 50), sources, targets);
+    }
+
+    /**
+     * Provides the same size for every node
+     *
+     * @param n number of nodes
+     * @param size of the nodes
+     * @return sizes of the nodes
+     */
+    private static double[] sizes(int n, double size) {
+        double[] sizes = new double[n];
+        Arrays.fill(sizes, size);
+        return sizes;
+    }
+
+    /**
+     * Asserts that every node is placed at finite non negative coordinates and that no two nodes overlap
+     *
+     * @param widths of the nodes
+     * @param heights of the nodes
+     * @param positions of the nodes
+     */
+    private static void assertNoOverlaps(double[] widths, double[] heights, double[][] positions) {
+        int n = widths.length;
+        for (int i = 0; i < n; i++) {
+            double x = positions[0][i];
+            double y = positions[1][i];
+            assertTrue(Double.isFinite(x) && Double.isFinite(y) && x >= 0 && y >= 0, "Node " + i + " is placed at " + x + ", " + y + ".");
+            for (int j = i + 1; j < n; j++) {
+                boolean overlapping = x < positions[0][j] + widths[j] && positions[0][j] < x + widths[i] && y < positions[1][j] + heights[j] && positions[1][j] < y + heights[i];
+                if (overlapping) {
+                    fail("Node " + i + " overlaps node " + j + ".");
+                }
+            }
+        }
+    }
+}
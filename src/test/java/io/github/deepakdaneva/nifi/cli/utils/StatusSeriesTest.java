@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.utils.StatusSeries} computes the changes of the counters between
+ * two polls, counting nothing for the components new to the second poll, and finds the components with the highest
+ * scores of the current poll only.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class StatusSeriesTest {
+
+    /**
+     * Polls twice, the first component growing, the second one shrinking, the third one gone and the fourth one new
+     */
+    @Test
+    void deltaBetweenPolls() {
+        StatusSeries series = new StatusSeries();
+        series.beginPoll();
+        int growing = record(series, "growing", 10, 40);
+        int shrinking = record(series, "shrinking", 50, 90);
+        int gone = record(series, "gone", 5, 10);
+        series.beginPoll();
+        assertEquals(growing, record(series, "growing", 25, 60));
+        assertEquals(shrinking, record(series, "shrinking", 20, 30));
+        int added = record(series, "added", 100, 100);
+
+        assertEquals(4, series.size());
+        assertEquals(3, series.getPresent());
+        assertFalse(series.isPresent(gone));
+        assertTrue(series.isPresent(added));
+        assertEquals(25, series.get(growing, StatusSeries.FLOWFILES_QUEUED));
+        assertEquals(15, series.delta(growing, StatusSeries.FLOWFILES_QUEUED));
+        assertEquals(20, series.delta(growing, StatusSeries.PERCENT_USE));
+        assertEquals(-30, series.delta(shrinking, StatusSeries.FLOWFILES_QUEUED));
+        assertEquals(0, series.delta(added, StatusSeries.FLOWFILES_QUEUED), "New component grew since a poll it was not in.");
+    }
+
+    /**
+     * Polls a component, misses it in the second poll and sees it again in the third one, its change counted from the
+     * third poll only
+     */
+    @Test
+    void reappearingComponentStartsOver() {
+        StatusSeries series = new StatusSeries();
+        series.beginPoll();
+        int index = record(series, "flapping", 10, 10);
+        series.beginPoll();
+        series.beginPoll();
+        assertEquals(index, record(series, "flapping", 70, 70));
+        assertEquals(0, series.delta(index, StatusSeries.FLOWFILES_QUEUED));
+        series.beginPoll();
+        record(series, "flapping", 75, 70);
+        assertEquals(5, series.delta(index, StatusSeries.FLOWFILES_QUEUED));
+    }
+
+    /**
+     * Finds the components which grew the most over two polls of more components than the ones to find, the components
+     * missing from the second poll left out however high their counters were
+     */
+    @Test
+    void topByGrowth() {
+        StatusSeries series = new StatusSeries();
+        long[] first = {7, 3, 900, 12, 0, 40, 5, 18, 2, 61};
+        long[] second = {9, 30, -1, 12, 25, 41, 80, 17, 2, 100};
+        series.beginPoll();
+        for (int i = 0; i < first.length; i++) {
+            record(series, "connection-" + i, first[i], 0);
+        }
+        series.beginPoll();
+        for (int i = 0; i < second.length; i++) {
+            // -1 marks the component missing from the second poll
+            if (second[i] >= 0) {
+                record(series, "connection-" + i, second[i], 0);
+            }
+        }
+        // the score of the growth sort of the status command
+        IntToLongFunction growth = index -> series.delta(index, StatusSeries.FLOWFILES_QUEUED);
+        int[] top = new int[4];
+        assertEquals(4, series.top(growth, top));
+        assertArrayEquals(new int[] {6, 9, 1, 4}, top);
+
+        int[] all = new int[20];
+        int found = series.top(growth, all);
+        assertEquals(9, found);
+        long[] scores = Arrays.stream(all, 0, found).mapToLong(growth::applyAsLong).toArray();
+        for (int i = 1; i < scores.length; i++) {
+            assertTrue(scores[i - 1] >= scores[i], "Scores are not in descending order: " + Arrays.toString(scores));
+        }
+    }
+
+    /**
+     * Records the counters of the component for the current poll
+     *
+     * @param series to record into
+     * @param id of the component
+     * @param queued flowfiles queued
+     * @param percentUse back pressure used
+     * @return index of the component
+     */
+    private static int record(StatusSeries series, String id, long queued, long percentUse) {
+        char[] chars = id.toCharArray();
+        int index = series.indexOf(chars, 0, chars.length);
+        long[] counters = new long[StatusSeries.METRICS];
+        counters[StatusSeries.FLOWFILES_QUEUED] = queued;
+        counters[StatusSeries.PERCENT_USE] = percentUse;
+        series.record(index, counters);
+        return index;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 Deepak Kumar Jangir
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package io.github.deepakdaneva.nifi.cli.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link io.github.deepakdaneva.nifi.cli.utils.TokenBucket} hands out the burst at once, reserves the
+ * following tokens ahead at the rate of the bucket, and refills up to its capacity only.
+ *
+ * @author Deepak Kumar Jangir
+ * @version 1
+ * @since 1
+ */
+class TokenBucketTest {
+
+    /**
+     * Reserves the whole burst without waiting, and then tokens ahead, each one to be waited for a period longer than
+     * the previous one
+     */
+    @Test
+    void reservesAheadAfterBurst() {
+        // a token every 100 ms, slow enough for the refill during the test to be negligible
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(), "Token " + i + " of the burst was not available.");
+        }
+        for (int i = 1; i <= 3; i++) {
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(bucket.reserve());
+            assertTrue(waitMillis > i * 100 - 50 && waitMillis <= i * 100, "Token " + i + " after the burst to be waited for " + waitMillis + " ms.");
+        }
+    }
+
+    /**
+     * Waits for the tokens to refill, the refill capped by the capacity of the bucket
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    void refillsUpToCapacity() throws Exception {
+        // a token every ms
+        TokenBucket bucket = new TokenBucket(1000, 2);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0, "Bucket was not empty.");
+        TimeUnit.MILLISECONDS.sleep(50);
+        // 50 tokens were added since, only 2 of them kept
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0, "Bucket held more tokens than its capacity.");
+    }
+
+    /**
+     * Creates buckets with invalid rates and bursts
+     */
+    @Test
+    void invalidRateOrBurst() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}